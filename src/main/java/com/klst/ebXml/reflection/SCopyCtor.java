@@ -1,12 +1,17 @@
 package com.klst.ebXml.reflection;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.inject.Named;
@@ -33,25 +38,50 @@ public class SCopyCtor {
 	
 	private static final String TYPE_NAME_SEPARATOR = "::";
 
-	Map<String, String> getterFieldMap = new HashMap<String, String>();
+	final Map<String, String> getterFieldMap;
 	
 	private SCopyCtor() {
+		Map<String, String> map = new HashMap<String, String>();
 		// Ausnahmen: getter getYYY liefert nicht Fieldname YYY
 		// un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100
-		getterFieldMap.put("getID", "id");
-		getterFieldMap.put("getURIUniversalCommunication", "uriUniversalCommunication");
+		map.put("getID", "id");
+		map.put("getURIUniversalCommunication", "uriUniversalCommunication");
 		
 		// org.opentrans.xmlschema._2
-		getterFieldMap.put("getEMAILAndPUBLICKEY", "emailAndPUBLICKEY");
+		map.put("getEMAILAndPUBLICKEY", "emailAndPUBLICKEY");
 
+		getterFieldMap = Collections.unmodifiableMap(map);
 	}
 	
-	Map<String, Field> fieldsByName = new HashMap<String, Field>();
+	/* the copy plan of a class is built once on first use, then invokeCopy runs the precompiled steps only.
+	 * ClassValue is thread-safe and does not prevent unloading of the class
+	 */
+	private final ClassValue<CopyStep[]> copyPlans = new ClassValue<CopyStep[]>() {
+		@Override
+		protected CopyStep[] computeValue(Class<?> type) {
+			return createCopyPlan(type);
+		}
+	};
+
+	// obj.setXXX( doc.getXXX() ) resp. obj.YYY = doc.getYYY()
+	private static class CopyStep {
+		final String name;
+		final MethodHandle getter; // (Object)Object
+		final MethodHandle setter; // (Object,Object)void
+		CopyStep(String name, MethodHandle getter, MethodHandle setter) {
+			this.name = name;
+			this.getter = getter;
+			this.setter = setter;
+		}
+	}
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
 	
 	private Map<String, Field> getFieldsByName(Class<?> type) {
-		return getFieldsByName(type, type);
+		return getFieldsByName(type, type, new HashMap<String, Field>());
 	}
-	private Map<String, Field> getFieldsByName(Class<?> type, Class<?> otype) {
+	private Map<String, Field> getFieldsByName(Class<?> type, Class<?> otype, Map<String, Field> fieldsByName) {
 		Field[] fields = type.getDeclaredFields();
 		for(int i=0; i<fields.length; i++) {
 			Field field = fields[i];
@@ -63,26 +93,23 @@ public class SCopyCtor {
 		if(type.getSuperclass()==null || type.getSuperclass()==Object.class) {
 			return fieldsByName;
 		}
-		return getFieldsByName(type.getSuperclass(), otype);
+		return getFieldsByName(type.getSuperclass(), otype, fieldsByName);
 	}
 	
 	private static final String get = "get";
 	private static final String set = "set";
 
-	Map<String, Method> settersByName = new HashMap<String, Method>();
-	Map<String, Method> gettersByName = new HashMap<String, Method>();
-
 	public Map<String, Method> getSettersByName(Class<?> type) {
 		// setter Signatur: void setXXX(T arg)
-		return getMethodByName(type, set, 1, settersByName);
+		return getMethodByName(type, set, 1);
 	}
 	public Map<String, Method> getGettersByName(Class<?> type) {
 		// getter Signatur: T getXXX()
-		return getMethodByName(type, get, 0, gettersByName);
+		return getMethodByName(type, get, 0);
 	}
 		
-	private Map<String, Method> getMethodByName(Class<?> type, String prefix, int parameterCount, Map<String, Method> methodByName) {
-		return getMethodByName(type, type, prefix, parameterCount, methodByName);
+	private Map<String, Method> getMethodByName(Class<?> type, String prefix, int parameterCount) {
+		return getMethodByName(type, type, prefix, parameterCount, new HashMap<String, Method>());
 	}
 	private Map<String, Method> getMethodByName(Class<?> type, Class<?> otype, String prefix, int parameterCount, Map<String, Method> methodByName) {
 		Method[] methods = type.getDeclaredMethods();
@@ -108,65 +135,90 @@ public class SCopyCtor {
 	 * -- auch wenn setXXX/getXXX in super von doc definiert sind, 
 	 *    Bsp. OT Remarks extends REMARKS, super class REMARKS extends TypeMLSTRING64000 extends DtMLSTRING
 	 *    getValue() kommt aus DtMLSTRING
+	 * Die getter/setter Paare werden pro Klasse einmal ermittelt, siehe createCopyPlan
 	 */
 	public void invokeCopy(Object obj, Object doc) {
-		LOG.fine("for "+doc);
-		getFieldsByName(doc.getClass());
-		getSettersByName(doc.getClass());
-		getGettersByName(doc.getClass());
-		List<String> getterNames = new ArrayList<>(gettersByName.keySet());
-		// es interessieren nur die der Klasse doc.getClass() und die der Oberklassen dazu
-		for(int i=0; i<getterNames.size(); i++) {
-			String getterName = getterNames.get(i);
-			if(!getterName.startsWith(doc.getClass().getCanonicalName()+TYPE_NAME_SEPARATOR)) {
-				continue;
+		if(LOG.isLoggable(Level.FINE)) LOG.fine("for "+doc);
+		CopyStep[] plan = copyPlans.get(doc.getClass());
+		for(int i=0; i<plan.length; i++) {
+			CopyStep step = plan[i];
+			try {
+				step.setter.invokeExact(obj, step.getter.invokeExact(doc));
+			} catch (Throwable e) {
+				LOG.warning(step.name + " Exception:"+e);
 			}
-			Method getter = gettersByName.get(getterName);
-			getterName = getterName.substring(getterName.indexOf(TYPE_NAME_SEPARATOR)+TYPE_NAME_SEPARATOR.length());
+		}
+	}
+
+	/*
+	 * für jeden getter von type: der setter mit dem Parameter == Result des getters
+	 * oder ein member/field mit name==getterName (bei Listen gibt es keinen setter)
+	 */
+	private CopyStep[] createCopyPlan(Class<?> type) {
+		String typePrefix = type.getCanonicalName()+TYPE_NAME_SEPARATOR;
+		Map<String, Field> fieldsByName = getFieldsByName(type);
+		Map<String, Method> settersByName = getSettersByName(type);
+		Map<String, Method> gettersByName = getGettersByName(type);
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		List<CopyStep> steps = new ArrayList<CopyStep>(gettersByName.size());
+		for(Map.Entry<String, Method> entry : gettersByName.entrySet()) {
+			Method getter = entry.getValue();
+			String getterName = entry.getKey().substring(typePrefix.length());
 			// die getter können korrespondierende setter haben
 			String setterName = set+getterName.substring(set.length());
-			String setterKey = doc.getClass().getCanonicalName()+TYPE_NAME_SEPARATOR + setterName;
-			if(settersByName.containsKey(setterKey)) {
-				Method setter = settersByName.get(setterKey); // potentieller Setter muss den Parameter == Result des getters haben
-				if(getter.getReturnType()==setter.getParameterTypes()[0]) {						
-					LOG.fine(setterName+" ( "+getterName+"() ) ");
-					try {
-						setter.invoke(obj, getter.invoke(doc)); // obj.setXXX( doc.getXXX() )
-				    } catch (Exception e) {
-				        LOG.warning(setterName+" ( "+getterName+" ) " + "Exception:"+e);
-				    }						
-				} else {
-					LOG.warning(setterName+" + "+getterName + " typen passen nicht");
-				}
-			} else {
-				// if(settersByName.containsKey(setterName)) false ==> es gibt keinen passenden Setter
-				// dann muss es ein member/field geben mit name==getterName (beginnend mit Kleinbuchstaben)
-				// ausser ausnahmen in this.getterFieldMap "getID" ...
-				String fieldName = getFieldnameLowerCaseFirstLetter(getterName);
-				
-				LOG.fine("List<?> "+fieldName+" = "+getterName);
-				String fieldNameWithTypePrefix = doc.getClass().getCanonicalName()+TYPE_NAME_SEPARATOR+fieldName;
-				if(fieldsByName.containsKey(fieldNameWithTypePrefix)) {
-					Field field = fieldsByName.get(fieldNameWithTypePrefix);
-					setFieldValueWithReflection(obj, doc, field, getter);
+			Method setter = settersByName.get(typePrefix+setterName);
+			try {
+				if(setter!=null) {
+					// potentieller Setter muss den Parameter == Result des getters haben
+					if(getter.getReturnType()==setter.getParameterTypes()[0]) {
+						LOG.fine(setterName+" ( "+getterName+"() ) ");
+						steps.add(new CopyStep(setterName+" ( "+getterName+" )", getterHandle(lookup, getter), setterHandle(lookup, setter)));
+					} else {
+						LOG.warning(setterName+" + "+getterName + " typen passen nicht");
+					}
 				} else {
-					// in openTrans ist es anders (auch mit Ausnahmen)
-					//ALLOWORCHARGE::List<?> alloworchargedescr = getALLOWORCHARGEDESCR
-					//ADDRESS::List<?> emailandpublickey zu getEMAILAndPUBLICKEY nicht gefunden.
-					fieldName = getFieldnameLowerCase(getterName);					
-					
-					LOG.fine(doc.getClass().getSimpleName()+"::List<?> "+fieldName+" = "+getterName+"()");
-					fieldNameWithTypePrefix = doc.getClass().getCanonicalName()+TYPE_NAME_SEPARATOR+fieldName;
-					if(fieldsByName.containsKey(fieldNameWithTypePrefix)) {
-						Field field = fieldsByName.get(fieldNameWithTypePrefix);
-						setFieldValueWithReflection(obj, doc, field, getter);
+					// es gibt keinen passenden Setter
+					// dann muss es ein member/field geben mit name==getterName (beginnend mit Kleinbuchstaben)
+					// ausser ausnahmen in this.getterFieldMap "getID" ...
+					String fieldName = getFieldnameLowerCaseFirstLetter(getterName);
+					LOG.fine("List<?> "+fieldName+" = "+getterName);
+					Field field = fieldsByName.get(typePrefix+fieldName);
+					if(field==null) {
+						// in openTrans ist es anders (auch mit Ausnahmen)
+						//ALLOWORCHARGE::List<?> alloworchargedescr = getALLOWORCHARGEDESCR
+						//ADDRESS::List<?> emailandpublickey zu getEMAILAndPUBLICKEY nicht gefunden.
+						fieldName = getFieldnameLowerCase(getterName);
+						LOG.fine(type.getSimpleName()+"::List<?> "+fieldName+" = "+getterName+"()");
+						field = fieldsByName.get(typePrefix+fieldName);
+					}
+					if(field!=null) {
+						steps.add(new CopyStep("List<?> "+field.getName()+" = "+getterName, getterHandle(lookup, getter), fieldSetterHandle(lookup, field)));
 					} else {
-						LOG.warning(doc.getClass().getSimpleName()+"::List<?> "+fieldName+" zu "+getterName + " nicht gefunden.");
+						LOG.warning(type.getSimpleName()+"::List<?> "+fieldName+" zu "+getterName + " nicht gefunden.");
 					}
 				}
+			} catch (IllegalAccessException | RuntimeException e) {
+				LOG.warning(setterName+" ( "+getterName+" ) " + "Exception:"+e);
 			}
 		} 
+		LOG.fine(type.getName()+" copy plan with "+steps.size()+" steps");
+		return steps.toArray(new CopyStep[steps.size()]);
+	}
 		
+	private static MethodHandle getterHandle(MethodHandles.Lookup lookup, Method getter) throws IllegalAccessException {
+		getter.setAccessible(true); // protected
+		return lookup.unreflect(getter).asType(GETTER_TYPE);
+	}
+	private static MethodHandle setterHandle(MethodHandles.Lookup lookup, Method setter) throws IllegalAccessException {
+		setter.setAccessible(true);
+		return lookup.unreflect(setter).asType(SETTER_TYPE);
+	}
+	// see https://stackoverflow.com/questions/24094871/set-field-value-with-reflection
+	// macht dynamisch: obj.setXXX( doc.getXXX() ) für Listen
+	//            also: obj.YYY = doc.getYYY(), d.h. YYY ist field und getYYY ist getter
+	private static MethodHandle fieldSetterHandle(MethodHandles.Lookup lookup, Field field) throws IllegalAccessException {
+		field.setAccessible(true);
+		return lookup.unreflectSetter(field).asType(SETTER_TYPE);
 	}
 	
 	/*
@@ -194,16 +246,4 @@ public class SCopyCtor {
 		return getterName.substring(length, getterName.length()).toLowerCase();
 	}
 	
-	// see https://stackoverflow.com/questions/24094871/set-field-value-with-reflection
-	// macht dynamisch: obj.setXXX( doc.getXXX() ) für Listen
-	//            also: obj.YYY = doc.getYYY(), d.h. YYY ist field und getYYY ist getter
-	private static void setFieldValueWithReflection(Object obj, Object doc, Field field, Method getter) {
-	    try {
-	    	field.setAccessible(true);
-	    	field.set(obj, getter.invoke(doc));
-	    } catch (Exception e) {
-	        LOG.warning("List<?> "+field.getName()+" = "+getter.getName() + "Exception:"+e);
-	    }
-	
-	}
 }
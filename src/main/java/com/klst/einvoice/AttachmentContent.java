@@ -0,0 +1,160 @@
+package com.klst.einvoice;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Content of an attached document (BG-24.BT-125) which is not held in memory.
+ * <p>
+ * Outbound the content is supplied as file or stream and base64-encoded into the xml when the invoice is written
+ * with the BindingWriter. Inbound the BindingReader decodes large attachments into a temporary file.
+ * Temporary files are deleted by {@link #close()}.
+ * Only the JAXB Marshaller needs the content as byte[], it is loaded just for the time of marshalling.
+ * <p>
+ * The content is thread-safe, a stream is spooled only once when read concurrently.
+ */
+public class AttachmentContent implements Closeable {
+
+	/**
+	 * A JAXB binary object whose value can be an AttachmentContent instead of byte[]
+	 */
+	public interface Holder {
+
+		public AttachmentContent getContent();
+
+		/**
+		 * @param content replaces the byte[] value
+		 */
+		public void setContent(AttachmentContent content);
+
+		// load the content as byte[] value for the JAXB Marshaller and release it afterwards
+		public void beforeMarshal();
+		public void afterMarshal();
+	}
+
+	/**
+	 * @param file the content is read each time the invoice is written
+	 */
+	public static AttachmentContent of(Path file) {
+		return new AttachmentContent(file, false, null, null);
+	}
+
+	/**
+	 * @param inputStream copied to a temporary file and closed when the content is first read, 
+	 * f.i. when the invoice is written. So the invoice can be written more than once.
+	 * The temporary file is deleted on close.
+	 */
+	public static AttachmentContent of(InputStream inputStream) {
+		return new AttachmentContent(null, false, inputStream, null);
+	}
+
+	public static AttachmentContent of(byte[] content) {
+		return new AttachmentContent(null, false, null, content);
+	}
+
+	/**
+	 * @param file temporary file, deleted on close
+	 */
+	public static AttachmentContent temporary(Path file) {
+		return new AttachmentContent(file, true, null, null);
+	}
+
+	private Path file;
+	private boolean temporary;
+	private InputStream inputStream;
+	private final byte[] bytes;
+
+	private AttachmentContent(Path file, boolean temporary, InputStream inputStream, byte[] bytes) {
+		this.file = file;
+		this.temporary = temporary;
+		this.inputStream = inputStream;
+		this.bytes = bytes;
+	}
+
+	/**
+	 * @return the file of the content, null if the content is byte[] or a stream not yet read
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * @return the content, the caller has to close the stream
+	 * @throws IllegalStateException if the content is closed
+	 */
+	public synchronized InputStream openStream() throws IOException {
+		if(inputStream!=null) {
+			spool();
+		}
+		if(file!=null) {
+			return Files.newInputStream(file);
+		}
+		if(bytes!=null) {
+			return new ByteArrayInputStream(bytes);
+		}
+		throw new IllegalStateException("attachment stream closed");
+	}
+
+	// copies the stream into a temporary file, the stream can be read only once. Called with the lock held
+	private void spool() throws IOException {
+		Path temp = Files.createTempFile("attachment", null);
+		try(InputStream in = inputStream) {
+			inputStream = null;
+			Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException ex) {
+			Files.delete(temp);
+			throw ex;
+		}
+		file = temp;
+		temporary = true;
+	}
+
+	/**
+	 * @return the content in memory
+	 */
+	public synchronized byte[] toByteArray() {
+		if(bytes!=null) return bytes;
+		try {
+			if(inputStream!=null) {
+				spool();
+			}
+			if(file==null) {
+				throw new IllegalStateException("attachment stream closed");
+			}
+			return Files.readAllBytes(file);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * deletes a temporary file, closes a stream which is not read.
+	 * The content of a file or stream cannot be read after close.
+	 * <p>
+	 * The temporary files are not deleted on exit of the JVM, 
+	 * the owner of the invoice closes them, see com.klst.marshaller.BindingReader.Document.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if(temporary && file!=null) {
+			Files.deleteIfExists(file);
+		}
+		file = null;
+		if(inputStream!=null) {
+			inputStream.close();
+			inputStream = null;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return file!=null ? file.toString() : bytes!=null ? bytes.length+" bytes" : inputStream!=null ? "stream" : "closed";
+	}
+
+}
@@ -1,5 +1,8 @@
 package com.klst.einvoice;
 
+import java.io.InputStream;
+import java.nio.file.Path;
+
 /**
  * BG-24 ADDITIONAL SUPPORTING DOCUMENTS
  * <p>
@@ -110,6 +113,51 @@ public interface BG24_AdditionalSupportingDocs {
 	 */
 	public void setAttachedDocument(byte[] doc, String mimeCode, String filename);
 	public byte[] getAttachedDocument();
+	
+	/**
+	 * Attached document, streamed
+	 * <p>
+	 * The content is not held in memory, but base64-encoded into the xml when the invoice is written.
+	 * 
+	 * @param content BT-125 content as file or stream
+	 * @param mimeCode BT-125-1 The mime code of the attached document
+	 * @param filename BT-125-2 The file name of the attached document
+	 */
+	public void setAttachedDocument(AttachmentContent content, String mimeCode, String filename);
+	default void setAttachedDocument(Path content, String mimeCode, String filename) {
+		setAttachedDocument(AttachmentContent.of(content), mimeCode, filename);
+	}
+	default void setAttachedDocument(InputStream content, String mimeCode, String filename) {
+		setAttachedDocument(AttachmentContent.of(content), mimeCode, filename);
+	}
+	
+	/**
+	 * @return the attached document without a copy into memory, 
+	 * f.i. the temporary file the BindingReader decoded a large attachment to
+	 */
+	public AttachmentContent getAttachedDocumentContent();
+	
+	/**
+	 * The uri attribute of the attached document binary object, 
+	 * f.i. the address of the content in an AttachmentStore
+	 * 
+	 * @return uri or null
+	 */
+	public String getAttachedDocumentUri();
+	
+	/**
+	 * replaces the content of the attached document by a reference, mime code and file name are kept
+	 * 
+	 * @param uri where the content is located
+	 */
+	public void setAttachedDocumentReference(String uri);
+	
+	/**
+	 * replaces the content of the attached document and removes a reference, mime code and file name are kept
+	 * 
+	 * @param content BT-125 content as file or stream
+	 */
+	public void setAttachedDocumentContent(AttachmentContent content);
 	public String getAttachedDocumentMimeCode();
 	public String getAttachedDocumentFilename();
 	
@@ -0,0 +1,689 @@
+package com.klst.einvoice;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.RandomAccess;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import com.klst.einvoice.unece.uncefact.Amount;
+import com.klst.einvoice.unece.uncefact.FixedDecimal;
+import com.klst.einvoice.unece.uncefact.Quantity;
+import com.klst.einvoice.unece.uncefact.UnitPriceAmount;
+import com.klst.untdid.codelist.TaxCategoryCode;
+
+/**
+ * Column store for the lines of very large invoices.
+ * <p>
+ * A line is not held as JAXB object tree but as one row in primitive arrays:
+ * BT-129 quantity, BT-131 net amount and BT-146 unit price as fixed-point longs
+ * with the scale of {@link Quantity#SCALE}, {@link Amount#SCALE} and {@link UnitPriceAmount#SCALE},
+ * BT-151 VAT category code as byte, BT-130 unit code, BT-152 VAT rate and BT-153 item name as index into a dictionary.
+ * The line id BT-126 and the optional texts BT-127, BT-132, BT-133, BT-154, BT-155 and BT-156 are held as strings,
+ * the arrays of the texts are allocated with the first value.
+ * {@link #get(int)} returns a flyweight CoreInvoiceLine view of the row.
+ * <p>
+ * A line with other business terms, f.i. BG-26 line period, BG-27 allowances or BG-32 item attributes,
+ * with more fraction digits than the scale or with a currency other than the first line is held as object.
+ * Setting one of these business terms on a view converts its row into an object created by the factory.
+ * Business terms not in CoreInvoiceLine are not kept.
+ * <p>
+ * Example, read a CII document and write it streaming:
+ * <pre>
+ * try(CiiLineReader reader = CiiLineReader.open(xmlfile)) {
+ *     CrossIndustryInvoice header = reader.getHeader();
+ *     ColumnarLines lines = ColumnarLines.read(header, reader);
+ *     header.setLineSource(lines);
+ *     ...
+ *     ((CiiTransformer)CiiTransformer.getInstance()).fromModel(header, lines.materialize(), outputStream, false);
+ * }
+ * </pre>
+ * The list can be added to, but not changed otherwise. It is not thread-safe.
+ */
+public class ColumnarLines extends AbstractList<CoreInvoiceLine> implements RandomAccess {
+
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final TaxCategoryCode[] TAX_CATEGORIES = TaxCategoryCode.values();
+
+	// optional texts held as string columns
+	private enum Text {
+		NOTE(CoreInvoiceLine::getNote, CoreInvoiceLine::setNote),
+		ORDER_LINE_ID(CoreInvoiceLine::getOrderLineID, CoreInvoiceLine::setOrderLineID),
+		BUYER_ACCOUNTING_REFERENCE(CoreInvoiceLine::getBuyerAccountingReference, CoreInvoiceLine::setBuyerAccountingReference),
+		DESCRIPTION(CoreInvoiceLine::getDescription, CoreInvoiceLine::setDescription),
+		SELLER_ASSIGNED_ID(CoreInvoiceLine::getSellerAssignedID, CoreInvoiceLine::setSellerAssignedID),
+		BUYER_ASSIGNED_ID(CoreInvoiceLine::getBuyerAssignedID, CoreInvoiceLine::setBuyerAssignedID);
+
+		final Function<CoreInvoiceLine, String> getter;
+		final BiConsumer<CoreInvoiceLine, String> setter;
+
+		Text(Function<CoreInvoiceLine, String> getter, BiConsumer<CoreInvoiceLine, String> setter) {
+			this.getter = getter;
+			this.setter = setter;
+		}
+	}
+
+	/**
+	 * reads all lines into a new column store
+	 *
+	 * @param factory creates the lines held as object, f.i. the invoice
+	 * @param lines f.i. a CiiLineReader or the lines of LazyLines
+	 * @return the lines
+	 */
+	public static ColumnarLines read(CoreInvoiceFactory factory, Iterator<? extends CoreInvoiceLine> lines) {
+		ColumnarLines result = new ColumnarLines(factory);
+		lines.forEachRemaining(result::add);
+		return result;
+	}
+
+	private final CoreInvoiceFactory factory;
+	private int size = 0;
+	private String[] ids;
+	private long[] quantities;
+	private int[] unitCodes;
+	private long[] netAmounts;
+	private long[] unitPrices;
+	private byte[] taxCategories; // ordinal+1, 0 for null
+	private int[] taxRates;
+	private int[] itemNames;
+	private final String[][] texts = new String[Text.values().length][];
+	// the currencies of the first line held in columns
+	private boolean hasCurrencies = false;
+	private String currencyID;
+	private String priceCurrencyID;
+	// unit codes and item names, index 0 is null
+	private final Dictionary<String> strings = new Dictionary<String>();
+	private final Dictionary<BigDecimal> rates = new Dictionary<BigDecimal>();
+	// rows held as object
+	private final BitSet isObject = new BitSet();
+	private final Map<Integer, CoreInvoiceLine> objects = new HashMap<Integer, CoreInvoiceLine>();
+
+	/**
+	 * @param factory creates the lines held as object, f.i. the invoice
+	 */
+	public ColumnarLines(CoreInvoiceFactory factory) {
+		this(factory, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param factory creates the lines held as object, f.i. the invoice
+	 * @param initialCapacity number of lines
+	 */
+	public ColumnarLines(CoreInvoiceFactory factory, int initialCapacity) {
+		if(initialCapacity<0) {
+			throw new IllegalArgumentException("initialCapacity "+initialCapacity);
+		}
+		this.factory = factory;
+		ids = new String[initialCapacity];
+		quantities = new long[initialCapacity];
+		unitCodes = new int[initialCapacity];
+		netAmounts = new long[initialCapacity];
+		unitPrices = new long[initialCapacity];
+		taxCategories = new byte[initialCapacity];
+		taxRates = new int[initialCapacity];
+		itemNames = new int[initialCapacity];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the line held as object or a view of the row
+	 */
+	@Override
+	public CoreInvoiceLine get(int index) {
+		checkIndex(index);
+		return isObject.get(index) ? objects.get(index) : new Row(index);
+	}
+
+	/**
+	 * copies the line into a new row or keeps the line as object
+	 */
+	@Override
+	public boolean add(CoreInvoiceLine line) {
+		ensureCapacity(size+1);
+		if(!setRow(size, line)) {
+			isObject.set(size);
+			objects.put(size, line);
+		}
+		size++;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * adds a row, the parameters are the same as in {@link CoreInvoiceFactory#createInvoiceLine}
+	 *
+	 * @return view of the new row
+	 */
+	public CoreInvoiceLine addLine(String id, Quantity quantity, Amount lineTotalAmount,
+			UnitPriceAmount priceAmount, String itemName, TaxCategoryCode codeEnum, BigDecimal percent) {
+		ensureCapacity(size+1);
+		if(!setRow(size, id, quantity, lineTotalAmount, priceAmount, itemName, codeEnum, percent)) {
+			isObject.set(size);
+			objects.put(size, factory.createInvoiceLine(id, quantity, lineTotalAmount, priceAmount, itemName, codeEnum, percent));
+		}
+		size++;
+		modCount++;
+		return get(size-1);
+	}
+
+	/**
+	 * @return number of lines held as object
+	 */
+	public int getObjectCount() {
+		return objects.size();
+	}
+
+	/**
+	 * @param index
+	 * @return the line held as object or a new line created by the factory from the row
+	 */
+	public CoreInvoiceLine toLine(int index) {
+		checkIndex(index);
+		if(isObject.get(index)) return objects.get(index);
+		CoreInvoiceLine line = factory.createInvoiceLine(ids[index], getQuantity(index), getLineTotalAmount(index)
+				, getUnitPriceAmount(index), strings.get(itemNames[index]), getTaxCategory(index), rates.get(taxRates[index]));
+		for(Text text : Text.values()) {
+			String value = getText(text, index);
+			if(value!=null) text.setter.accept(line, value);
+		}
+		return line;
+	}
+
+	/**
+	 * for the streaming writers, the lines are created one at a time while iterating
+	 *
+	 * @return iterator over {@link #toLine(int)}
+	 */
+	public Iterator<CoreInvoiceLine> materialize() {
+		return new Iterator<CoreInvoiceLine>() {
+			private int next = 0;
+			@Override
+			public boolean hasNext() {
+				return next<size;
+			}
+			@Override
+			public CoreInvoiceLine next() {
+				if(next>=size) throw new NoSuchElementException();
+				return toLine(next++);
+			}
+		};
+	}
+
+	/**
+	 * shrinks the columns to the number of lines
+	 */
+	public void trimToSize() {
+		resize(size);
+	}
+
+	// -- private
+
+	private void checkIndex(int index) {
+		if(index<0 || index>=size) {
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+		}
+	}
+
+	private void ensureCapacity(int capacity) {
+		if(capacity>ids.length) {
+			resize(Math.max(capacity, ids.length + (ids.length>>1) + 1));
+		}
+	}
+
+	private void resize(int capacity) {
+		ids = Arrays.copyOf(ids, capacity);
+		quantities = Arrays.copyOf(quantities, capacity);
+		unitCodes = Arrays.copyOf(unitCodes, capacity);
+		netAmounts = Arrays.copyOf(netAmounts, capacity);
+		unitPrices = Arrays.copyOf(unitPrices, capacity);
+		taxCategories = Arrays.copyOf(taxCategories, capacity);
+		taxRates = Arrays.copyOf(taxRates, capacity);
+		itemNames = Arrays.copyOf(itemNames, capacity);
+		for(int i=0; i<texts.length; i++) {
+			if(texts[i]!=null) texts[i] = Arrays.copyOf(texts[i], capacity);
+		}
+	}
+
+	// false if the line has business terms not held in columns
+	private boolean setRow(int row, CoreInvoiceLine line) {
+		if(line.getLineObjectIdentifier()!=null
+		|| line.getStartDateAsTimestamp()!=null || line.getEndDateAsTimestamp()!=null
+		|| !line.getAllowancesAndCharges().isEmpty()
+		|| line.getPriceDiscount()!=null || line.getGrossPrice()!=null || line.getUnitPriceQuantity()!=null
+		|| line.getStandardIdentifier()!=null || !line.getClassifications().isEmpty()
+		|| line.getCountryOfOrigin()!=null || !line.getItemAttributes().isEmpty()) {
+			return false;
+		}
+		if(!setRow(row, line.getId(), line.getQuantity(), line.getLineTotalAmount(), line.getUnitPriceAmount()
+				, line.getItemName(), line.getTaxCategory(), line.getTaxRate())) {
+			return false;
+		}
+		for(Text text : Text.values()) {
+			setText(text, row, text.getter.apply(line));
+		}
+		return true;
+	}
+
+	private boolean setRow(int row, String id, Quantity quantity, Amount lineTotalAmount,
+			UnitPriceAmount priceAmount, String itemName, TaxCategoryCode codeEnum, BigDecimal percent) {
+		if(quantity==null || quantity.getValue()==null || lineTotalAmount==null || lineTotalAmount.getValue()==null
+		|| priceAmount==null || priceAmount.getValue()==null) {
+			return false;
+		}
+		FixedDecimal q = FixedDecimal.valueOf(quantity.getValue(), Quantity.SCALE);
+		FixedDecimal amount = FixedDecimal.valueOf(lineTotalAmount.getValue(), Amount.SCALE);
+		FixedDecimal price = FixedDecimal.valueOf(priceAmount.getValue(), UnitPriceAmount.SCALE);
+		if(!q.isCompact() || !amount.isCompact() || !price.isCompact()) {
+			return false;
+		}
+		if(!hasCurrencies) {
+			currencyID = lineTotalAmount.getCurrencyID();
+			priceCurrencyID = priceAmount.getCurrencyID();
+			hasCurrencies = true;
+		} else if(!Objects.equals(currencyID, lineTotalAmount.getCurrencyID()) || !Objects.equals(priceCurrencyID, priceAmount.getCurrencyID())) {
+			return false;
+		}
+		ids[row] = id;
+		quantities[row] = q.unscaledValue();
+		unitCodes[row] = strings.indexOf(quantity.getUnitCode());
+		netAmounts[row] = amount.unscaledValue();
+		unitPrices[row] = price.unscaledValue();
+		taxCategories[row] = (byte)(codeEnum==null ? 0 : codeEnum.ordinal()+1);
+		taxRates[row] = rates.indexOf(percent);
+		itemNames[row] = strings.indexOf(itemName);
+		return true;
+	}
+
+	private String getText(Text text, int row) {
+		String[] column = texts[text.ordinal()];
+		return column==null ? null : column[row];
+	}
+
+	private void setText(Text text, int row, String value) {
+		String[] column = texts[text.ordinal()];
+		if(column==null) {
+			if(value==null) return;
+			column = new String[ids.length];
+			texts[text.ordinal()] = column;
+		}
+		column[row] = value;
+	}
+
+	private Quantity getQuantity(int row) {
+		return new Quantity(strings.get(unitCodes[row]), BigDecimal.valueOf(quantities[row], Quantity.SCALE));
+	}
+
+	private Amount getLineTotalAmount(int row) {
+		return new Amount(currencyID, BigDecimal.valueOf(netAmounts[row], Amount.SCALE));
+	}
+
+	private UnitPriceAmount getUnitPriceAmount(int row) {
+		return new UnitPriceAmount(priceCurrencyID, BigDecimal.valueOf(unitPrices[row], UnitPriceAmount.SCALE));
+	}
+
+	private TaxCategoryCode getTaxCategory(int row) {
+		return taxCategories[row]==0 ? null : TAX_CATEGORIES[taxCategories[row]-1];
+	}
+
+	// replaces the row by a line created by the factory, the view of the row delegates to it
+	private CoreInvoiceLine toObject(int row) {
+		if(isObject.get(row)) return objects.get(row);
+		CoreInvoiceLine line = toLine(row);
+		isObject.set(row);
+		objects.put(row, line);
+		ids[row] = null;
+		for(Text text : Text.values()) {
+			setText(text, row, null);
+		}
+		return line;
+	}
+
+	// values to indexes, index 0 is null
+	private static class Dictionary<T> {
+		private final Map<T, Integer> indexes = new HashMap<T, Integer>();
+		private final List<T> values = new ArrayList<T>(Collections.singletonList(null));
+
+		int indexOf(T value) {
+			if(value==null) return 0;
+			Integer index = indexes.get(value);
+			if(index==null) {
+				index = values.size();
+				values.add(value);
+				indexes.put(value, index);
+			}
+			return index;
+		}
+
+		T get(int index) {
+			return values.get(index);
+		}
+	}
+
+	// flyweight view of one row
+	private class Row implements CoreInvoiceLine {
+
+		private final int row;
+
+		Row(int row) {
+			this.row = row;
+		}
+
+		// not null after the row is replaced by an object
+		private CoreInvoiceLine object() {
+			return isObject.get(row) ? objects.get(row) : null;
+		}
+
+		private String text(Text text) {
+			CoreInvoiceLine line = object();
+			return line==null ? getText(text, row) : text.getter.apply(line);
+		}
+
+		private void text(Text text, String value) {
+			CoreInvoiceLine line = object();
+			if(line==null) {
+				setText(text, row, value);
+			} else {
+				text.setter.accept(line, value);
+			}
+		}
+
+		@Override
+		public String getId() {
+			CoreInvoiceLine line = object();
+			return line==null ? ids[row] : line.getId();
+		}
+
+		@Override
+		public void setNote(String text) {
+			text(Text.NOTE, text);
+		}
+
+		@Override
+		public String getNote() {
+			return text(Text.NOTE);
+		}
+
+		@Override
+		public void setLineObjectID(String id, String schemeID, String schemeCode) {
+			toObject(row).setLineObjectID(id, schemeID, schemeCode);
+		}
+
+		@Override
+		public void setLineObjectID(String id) {
+			toObject(row).setLineObjectID(id);
+		}
+
+		@Override
+		public void setLineObjectID(String id, String schemeID) {
+			toObject(row).setLineObjectID(id, schemeID);
+		}
+
+		@Override
+		public void setLineObjectIdentifier(GlobalIdentifier id) {
+			toObject(row).setLineObjectIdentifier(id);
+		}
+
+		@Override
+		public GlobalIdentifier getLineObjectIdentifier() {
+			CoreInvoiceLine line = object();
+			return line==null ? null : line.getLineObjectIdentifier();
+		}
+
+		@Override
+		public Quantity getQuantity() {
+			CoreInvoiceLine line = object();
+			return line==null ? ColumnarLines.this.getQuantity(row) : line.getQuantity();
+		}
+
+		@Override
+		public Amount getLineTotalAmount() {
+			CoreInvoiceLine line = object();
+			return line==null ? ColumnarLines.this.getLineTotalAmount(row) : line.getLineTotalAmount();
+		}
+
+		@Override
+		public void setOrderLineID(String id) {
+			text(Text.ORDER_LINE_ID, id);
+		}
+
+		@Override
+		public String getOrderLineID() {
+			return text(Text.ORDER_LINE_ID);
+		}
+
+		@Override
+		public void setBuyerAccountingReference(String text) {
+			text(Text.BUYER_ACCOUNTING_REFERENCE, text);
+		}
+
+		@Override
+		public String getBuyerAccountingReference() {
+			return text(Text.BUYER_ACCOUNTING_REFERENCE);
+		}
+
+		@Override
+		public void setStartDate(Timestamp ts) {
+			toObject(row).setStartDate(ts);
+		}
+
+		@Override
+		public Timestamp getStartDateAsTimestamp() {
+			CoreInvoiceLine line = object();
+			return line==null ? null : line.getStartDateAsTimestamp();
+		}
+
+		@Override
+		public void setEndDate(Timestamp ts) {
+			toObject(row).setEndDate(ts);
+		}
+
+		@Override
+		public Timestamp getEndDateAsTimestamp() {
+			CoreInvoiceLine line = object();
+			return line==null ? null : line.getEndDateAsTimestamp();
+		}
+
+		@Override
+		public AllowancesAndCharges createAllowance(Amount amount, Amount baseAmount, BigDecimal percentage) {
+			CoreInvoiceLine line = object();
+			return (line==null ? toLine(row) : line).createAllowance(amount, baseAmount, percentage);
+		}
+
+		@Override
+		public AllowancesAndCharges createCharge(Amount amount, Amount baseAmount, BigDecimal percentage) {
+			CoreInvoiceLine line = object();
+			return (line==null ? toLine(row) : line).createCharge(amount, baseAmount, percentage);
+		}
+
+		@Override
+		public void addAllowanceCharge(AllowancesAndCharges allowanceOrCharge) {
+			toObject(row).addAllowanceCharge(allowanceOrCharge);
+		}
+
+		@Override
+		public List<AllowancesAndCharges> getAllowancesAndCharges() {
+			CoreInvoiceLine line = object();
+			return line==null ? Collections.emptyList() : line.getAllowancesAndCharges();
+		}
+
+		@Override
+		public UnitPriceAmount getUnitPriceAmount() {
+			CoreInvoiceLine line = object();
+			return line==null ? ColumnarLines.this.getUnitPriceAmount(row) : line.getUnitPriceAmount();
+		}
+
+		@Override
+		public void setUnitPriceAmountAndQuantity(UnitPriceAmount unitPriceAmount, Quantity quantity) {
+			toObject(row).setUnitPriceAmountAndQuantity(unitPriceAmount, quantity);
+		}
+
+		@Override
+		public UnitPriceAmount getPriceDiscount() {
+			CoreInvoiceLine line = object();
+			return line==null ? null : line.getPriceDiscount();
+		}
+
+		@Override
+		public UnitPriceAmount getGrossPrice() {
+			CoreInvoiceLine line = object();
+			return line==null ? null : line.getGrossPrice();
+		}
+
+		@Override
+		public void setUnitPriceAllowance(UnitPriceAmount priceDiscount, UnitPriceAmount grossPrice) {
+			toObject(row).setUnitPriceAllowance(priceDiscount, grossPrice);
+		}
+
+		@Override
+		public Quantity getUnitPriceQuantity() {
+			CoreInvoiceLine line = object();
+			return line==null ? null : line.getUnitPriceQuantity();
+		}
+
+		@Override
+		public TaxCategoryCode getTaxCategory() {
+			CoreInvoiceLine line = object();
+			return line==null ? ColumnarLines.this.getTaxCategory(row) : line.getTaxCategory();
+		}
+
+		@Override
+		public BigDecimal getTaxRate() {
+			CoreInvoiceLine line = object();
+			return line==null ? rates.get(taxRates[row]) : line.getTaxRate();
+		}
+
+		@Override
+		public String getItemName() {
+			CoreInvoiceLine line = object();
+			return line==null ? strings.get(itemNames[row]) : line.getItemName();
+		}
+
+		@Override
+		public void setDescription(String text) {
+			text(Text.DESCRIPTION, text);
+		}
+
+		@Override
+		public String getDescription() {
+			return text(Text.DESCRIPTION);
+		}
+
+		@Override
+		public void setSellerAssignedID(String id) {
+			text(Text.SELLER_ASSIGNED_ID, id);
+		}
+
+		@Override
+		public String getSellerAssignedID() {
+			return text(Text.SELLER_ASSIGNED_ID);
+		}
+
+		@Override
+		public void setBuyerAssignedID(String id) {
+			text(Text.BUYER_ASSIGNED_ID, id);
+		}
+
+		@Override
+		public String getBuyerAssignedID() {
+			return text(Text.BUYER_ASSIGNED_ID);
+		}
+
+		@Override
+		public void setStandardID(String globalID, String schemeID) {
+			toObject(row).setStandardID(globalID, schemeID);
+		}
+
+		@Override
+		public void setStandardID(String globalID) {
+			toObject(row).setStandardID(globalID);
+		}
+
+		@Override
+		public void setStandardIdentifier(Identifier id) {
+			toObject(row).setStandardIdentifier(id);
+		}
+
+		@Override
+		public Identifier getStandardIdentifier() {
+			CoreInvoiceLine line = object();
+			return line==null ? null : line.getStandardIdentifier();
+		}
+
+		@Override
+		public String getStandardID() {
+			CoreInvoiceLine line = object();
+			return line==null ? null : line.getStandardID();
+		}
+
+		@Override
+		public void addClassificationID(String id, String schemeID, String schemeVersion) {
+			toObject(row).addClassificationID(id, schemeID, schemeVersion);
+		}
+
+		@Override
+		public void addClassificationID(GlobalIdentifier id) {
+			toObject(row).addClassificationID(id);
+		}
+
+		@Override
+		public List<GlobalIdentifier> getClassifications() {
+			CoreInvoiceLine line = object();
+			return line==null ? Collections.emptyList() : line.getClassifications();
+		}
+
+		@Override
+		public void setCountryOfOrigin(String code) {
+			toObject(row).setCountryOfOrigin(code);
+		}
+
+		@Override
+		public String getCountryOfOrigin() {
+			CoreInvoiceLine line = object();
+			return line==null ? null : line.getCountryOfOrigin();
+		}
+
+		@Override
+		public void addItemAttribute(String name, String value) {
+			toObject(row).addItemAttribute(name, value);
+		}
+
+		@Override
+		public Properties getItemAttributes() {
+			CoreInvoiceLine line = object();
+			return line==null ? new Properties() : line.getItemAttributes();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof Row)) return false;
+			Row other = (Row)obj;
+			return row==other.row && lines()==other.lines();
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(lines()) * 31 + row;
+		}
+
+		private ColumnarLines lines() {
+			return ColumnarLines.this;
+		}
+	}
+
+}
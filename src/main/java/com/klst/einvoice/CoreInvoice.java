@@ -609,6 +609,27 @@ Codeliste: UNTDID 2379 Untermenge Code Codename 102 . CCYYMMDD
 //	public void addVATBreakDown(VatBreakdown vatBreakdown);
 //	public List<VatBreakdown> getVATBreakDowns();
 	
+	/**
+	 * running BG-22 and BG-23 totals of the lines and document level allowances and charges
+	 * <p>
+	 * The calculator is created with the first call from the lines and allowances or charges of the document,
+	 * then updated by addLine and addAllowanceCharge.
+	 * 
+	 * @return the calculator of this invoice
+	 */
+	public TotalsCalculator getTotalsCalculator();
+	
+	/**
+	 * writes the rounded totals of the calculator into the document
+	 * <p>
+	 * Replaces BT-106 to BT-112, BT-115 and the VAT breakdowns BG-23.
+	 * Prepaid amount BT-113, rounding amount BT-114, the VAT exemption reasons
+	 * and the total VAT amount in accounting currency BT-111 are kept.
+	 * 
+	 * @see #getTotalsCalculator()
+	 */
+	public void recalculate();
+	
 	// BG-24 + 0..n ADDITIONAL SUPPORTING DOCUMENTS
 	// BG-24.BT-122 ++ 1..1 Supporting document reference
 	// BG-24.BT-122-0  1..1 TypeCode
@@ -628,6 +649,17 @@ Codeliste: UNTDID 2379 Untermenge Code Codename 102 . CCYYMMDD
 //	public void addSupportigDocument(String docRefId, String code, String description, byte[] content, String mimeCode, String filename);
 	public void addSupportigDocument(String docRefId, String description, byte[] content, String mimeCode, String filename);
 	
+	/**
+	 * use this to add a large attached document, the content is streamed when the invoice is written
+	 * 
+	 * @param docRefId - BG-24.BT-122 Supporting document reference
+	 * @param description/name - BG-24.BT-123 Supporting document description
+	 * @param content - BG-24.BT-125 Attached document content as file or stream
+	 * @param mimeCode
+	 * @param filename
+	 */
+	public void addSupportigDocument(String docRefId, String description, AttachmentContent content, String mimeCode, String filename);
+	
 	/**
 	 * use this to add an External document
 	 * 
@@ -641,8 +673,70 @@ Codeliste: UNTDID 2379 Untermenge Code Codename 102 . CCYYMMDD
 	
 	public List<BG24_AdditionalSupportingDocs> getAdditionalSupportingDocuments();
 	
+	/**
+	 * lookup of the referenced documents by type code, backed by a hash index
+	 * 
+	 * @param code BT-17-0 ValidatedPricedTender, BT-18-0 InvoicingDataSheet or BG-24 RelatedDocument
+	 * @return the documents with this code in document order, empty if there is none
+	 */
+	public List<BG24_AdditionalSupportingDocs> getAdditionalSupportingDocuments(DocumentNameCode code);
+	
 	// INVOICE LINE  BG-25 1..* (mandatory)
+	/**
+	 * @param line created by createInvoiceLine
+	 * @throws IllegalStateException if the lines are taken from a line source, f.i. GenericInvoice.setLineSource
+	 */
 	public void addLine(CoreInvoiceLine line);
 	public List<CoreInvoiceLine> getLines();
 	
+	/**
+	 * presizes the list of lines in the document, so adding many lines does not copy the list repeatedly.
+	 * The lines of a line source are not counted, they are not held in the document.
+	 * 
+	 * @param additionalLines number of lines expected in addition to the lines held in the document
+	 * @see InvoiceBuilder
+	 */
+	public void ensureLineCapacity(int additionalLines);
+	
+	/**
+	 * lookup by BT-126 Invoice line identifier, backed by a hash index
+	 * <p>
+	 * The indexes of getLine and findLinesBy* are built with the first call
+	 * and rebuilt when lines are added or removed.
+	 * 
+	 * @param id BT-126 Invoice line identifier
+	 * @return the first line with this id or null
+	 */
+	public CoreInvoiceLine getLine(String id);
+	
+	/**
+	 * @param orderLineId BT-132 Referenced purchase order line reference
+	 * @return the lines with this order line reference, empty if there is none
+	 */
+	public List<CoreInvoiceLine> findLinesByOrderLineId(String orderLineId);
+	
+	/**
+	 * @param sellerItemId BT-155 Item Seller's identifier
+	 * @return the lines with this item id, empty if there is none
+	 */
+	public List<CoreInvoiceLine> findLinesBySellerItemId(String sellerItemId);
+	
+	/**
+	 * a page of lines, a view on getLines() without copying
+	 * 
+	 * @param offset index of the first line, 0 for the first page
+	 * @param limit maximal number of lines
+	 * @return the lines offset .. offset+limit-1, empty if offset is behind the last line
+	 * @throws IllegalArgumentException if offset or limit is negative
+	 */
+	default List<CoreInvoiceLine> getLines(int offset, int limit) {
+		if(offset<0 || limit<0) {
+			throw new IllegalArgumentException("offset:"+offset+" limit:"+limit);
+		}
+		List<CoreInvoiceLine> lines = getLines();
+		int size = lines.size();
+		int from = Math.min(offset, size);
+		return lines.subList(from, (int)Math.min((long)from+limit, size));
+	}
+	
 }
@@ -0,0 +1,96 @@
+package com.klst.einvoice;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+
+import com.klst.einvoice.unece.uncefact.Amount;
+import com.klst.einvoice.unece.uncefact.Quantity;
+import com.klst.einvoice.unece.uncefact.UnitPriceAmount;
+import com.klst.untdid.codelist.TaxCategoryCode;
+
+/**
+ * Adds the lines of a large invoice in bulk.
+ * <p>
+ * The list of lines in the document is presized with the expected number of lines
+ * or with the size of each collection added, so it is not copied repeatedly while growing.
+ * This is the only difference to adding the lines one by one, the time per line is about the same.
+ * The lines are added with {@link CoreInvoice#addLine(CoreInvoiceLine)} in the given order,
+ * the invoice is the same as built line by line, including the running totals of {@link CoreInvoice#getTotalsCalculator()}.
+ * <p>
+ * Example:
+ * <pre>
+ * CoreInvoice invoice = new InvoiceBuilder(header, 100000)
+ *     .addLines(cursor.stream().map(row -&gt; header.createInvoiceLine(...)))
+ *     .build();
+ * invoice.recalculate();
+ * </pre>
+ */
+public class InvoiceBuilder {
+
+	private final CoreInvoice invoice;
+
+	/**
+	 * @param invoice the header created by {@link CoreInvoiceFactory#createInvoice}
+	 */
+	public InvoiceBuilder(CoreInvoice invoice) {
+		this.invoice = invoice;
+	}
+
+	/**
+	 * @param invoice the header created by {@link CoreInvoiceFactory#createInvoice}
+	 * @param expectedLines number of lines to presize the list of lines
+	 */
+	public InvoiceBuilder(CoreInvoice invoice, int expectedLines) {
+		this(invoice);
+		invoice.ensureLineCapacity(expectedLines);
+	}
+
+	/**
+	 * creates a line with the invoice as factory and adds it,
+	 * the parameters are the same as in {@link CoreInvoiceFactory#createInvoiceLine}
+	 *
+	 * @return the line added, to set optional business terms
+	 */
+	public CoreInvoiceLine addLine(String id, Quantity quantity, Amount lineTotalAmount,
+			UnitPriceAmount priceAmount, String itemName, TaxCategoryCode codeEnum, BigDecimal percent) {
+		CoreInvoiceLine line = invoice.createInvoiceLine(id, quantity, lineTotalAmount, priceAmount, itemName, codeEnum, percent);
+		invoice.addLine(line);
+		return line;
+	}
+
+	/**
+	 * @param lines created by the invoice as factory
+	 * @return this
+	 */
+	public InvoiceBuilder addLines(Collection<? extends CoreInvoiceLine> lines) {
+		invoice.ensureLineCapacity(lines.size());
+		lines.forEach(invoice::addLine);
+		return this;
+	}
+
+	/**
+	 * the list of lines is presized if the stream knows its size
+	 *
+	 * @param lines created by the invoice as factory, a parallel stream is added in encounter order
+	 * @return this
+	 */
+	public InvoiceBuilder addLines(Stream<? extends CoreInvoiceLine> lines) {
+		Spliterator<? extends CoreInvoiceLine> spliterator = lines.sequential().spliterator();
+		long size = spliterator.getExactSizeIfKnown();
+		if(size>0) {
+			invoice.ensureLineCapacity((int)Math.min(Integer.MAX_VALUE, size));
+		}
+		spliterator.forEachRemaining(invoice::addLine);
+		return this;
+	}
+
+	/**
+	 * @return the invoice
+	 */
+	public CoreInvoice build() {
+		return invoice;
+	}
+
+}
@@ -0,0 +1,17 @@
+package com.klst.einvoice;
+
+/**
+ * A line source with its own index of the line identifiers.
+ * <p>
+ * The invoice uses it in {@link CoreInvoice#getLine(String)} instead of indexing the lines of the source,
+ * f.i. com.klst.marshaller.LazyLines unmarshals only the line found.
+ */
+public interface LineLookup {
+
+	/**
+	 * @param id BT-126 Invoice line identifier
+	 * @return the line or null
+	 */
+	public CoreInvoiceLine getLine(String id);
+
+}
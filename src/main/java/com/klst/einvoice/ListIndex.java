@@ -0,0 +1,129 @@
+package com.klst.einvoice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Hash index over a live list, maps a key like the line id BT-126 to the positions of the matching elements.
+ * <p>
+ * The index is built with the first lookup and rebuilt automatically when the list is replaced or its size changes.
+ * Each hit is verified against the element at its position, a stale hit triggers a rebuild.
+ * Only a key changed in place without adding or removing an element is not detected,
+ * the element is not found by its new key until the list changes.
+ * Elements with key null are not indexed.
+ * <p>
+ * Example:
+ * <pre>
+ * ListIndex&lt;CoreInvoiceLine&gt; index = new ListIndex&lt;CoreInvoiceLine&gt;(() -&gt; getLines(), CoreInvoiceLine::getOrderLineID);
+ * List&lt;CoreInvoiceLine&gt; lines = index.find("4711");
+ * </pre>
+ *
+ * @param <T> element type
+ */
+public class ListIndex<T> {
+
+	private final Supplier<? extends List<? extends T>> source;
+	private final Function<? super T, String> keyMapper;
+
+	// the index is valid for this list with this size
+	private Object indexed = null;
+	private int indexedSize = -1;
+	// key -> {count, pos, pos, ...}
+	private Map<String, int[]> index = null;
+
+	/**
+	 * @param source supplies the list, f.i. a {@link ListView}
+	 * @param keyMapper element to key
+	 */
+	public ListIndex(Supplier<? extends List<? extends T>> source, Function<? super T, String> keyMapper) {
+		this.source = source;
+		this.keyMapper = keyMapper;
+	}
+
+	/**
+	 * @param key
+	 * @return the matching elements in list order, empty if there is no match
+	 */
+	public synchronized List<T> find(String key) {
+		if(key==null) return Collections.emptyList();
+		List<? extends T> list = source.get();
+		int[] positions = lookup(list, key);
+		if(positions==null) return Collections.emptyList();
+		List<T> hits = collect(list, key, positions);
+		if(hits==null) {
+			// stale, f.i. an element replaced by set
+			index = null;
+			positions = lookup(list, key);
+			hits = positions==null ? null : collect(list, key, positions);
+		}
+		return hits==null ? Collections.emptyList() : hits;
+	}
+
+	/**
+	 * @param key
+	 * @return the first matching element or null
+	 */
+	public T first(String key) {
+		List<T> hits = find(key);
+		return hits.isEmpty() ? null : hits.get(0);
+	}
+
+	/**
+	 * @param key
+	 * @return the last matching element or null
+	 */
+	public T last(String key) {
+		List<T> hits = find(key);
+		return hits.isEmpty() ? null : hits.get(hits.size()-1);
+	}
+
+	// -- private
+
+	private int[] lookup(List<? extends T> list, String key) {
+		Object backing = list instanceof ListView ? ((ListView<?, ?>)list).source() : list;
+		int size = list.size();
+		if(index==null || indexed!=backing || indexedSize!=size) {
+			index = build(list, size);
+			indexed = backing;
+			indexedSize = size;
+		}
+		return index.get(key);
+	}
+
+	private Map<String, int[]> build(List<? extends T> list, int size) {
+		Map<String, int[]> map = new HashMap<String, int[]>(Math.max(16, (int)(size/.75f)+1));
+		for(int i=0; i<size; i++) {
+			String key = keyMapper.apply(list.get(i));
+			if(key==null) continue;
+			int[] positions = map.get(key);
+			if(positions==null) {
+				positions = new int[2];
+			} else if(positions[0]+1==positions.length) {
+				positions = Arrays.copyOf(positions, positions.length*2);
+			}
+			positions[++positions[0]] = i;
+			map.put(key, positions);
+		}
+		return map;
+	}
+
+	// the elements at positions or null if one does not match the key
+	private List<T> collect(List<? extends T> list, String key, int[] positions) {
+		List<T> hits = new ArrayList<T>(positions[0]);
+		for(int i=1; i<=positions[0]; i++) {
+			int pos = positions[i];
+			if(pos>=list.size()) return null;
+			T element = list.get(pos);
+			if(!key.equals(keyMapper.apply(element))) return null;
+			hits.add(element);
+		}
+		return hits;
+	}
+
+}
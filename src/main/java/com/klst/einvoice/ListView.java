@@ -0,0 +1,61 @@
+package com.klst.einvoice;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Live read-only view of a JAXB list, each element is mapped to its domain object on access.
+ * <p>
+ * The list is looked up by source on every call, so the view follows changes and replacements
+ * of the underlying JAXB list and can be created once per document and returned by the getters.
+ * The mapper is typically a copy factory like TradeTax::create,
+ * which returns the element itself if it is already a domain object.
+ * Size, get and forEach do not allocate except for the mapper result,
+ * iterator() creates an iterator like any AbstractList.
+ *
+ * @param <E> JAXB element type
+ * @param <T> domain type
+ */
+public class ListView<E, T> extends AbstractList<T> implements RandomAccess {
+
+	private final Supplier<? extends List<? extends E>> source;
+	private final Function<? super E, ? extends T> mapper;
+
+	/**
+	 * @param source supplies the underlying JAXB list
+	 * @param mapper JAXB element to domain object
+	 */
+	public ListView(Supplier<? extends List<? extends E>> source, Function<? super E, ? extends T> mapper) {
+		this.source = source;
+		this.mapper = mapper;
+	}
+
+	@Override
+	public T get(int index) {
+		return mapper.apply(source.get().get(index));
+	}
+
+	@Override
+	public int size() {
+		return source.get().size();
+	}
+
+	// index loop over the underlying list, without an iterator
+	@Override
+	public void forEach(Consumer<? super T> action) {
+		List<? extends E> list = source.get();
+		for(int i=0; i<list.size(); i++) {
+			action.accept(mapper.apply(list.get(i)));
+		}
+	}
+
+	// the underlying JAXB list, used by ListIndex to detect a replaced list
+	List<? extends E> source() {
+		return source.get();
+	}
+
+}
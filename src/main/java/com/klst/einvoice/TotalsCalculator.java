@@ -0,0 +1,242 @@
+package com.klst.einvoice;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.klst.einvoice.unece.uncefact.Amount;
+import com.klst.einvoice.unece.uncefact.FixedDecimal;
+import com.klst.untdid.codelist.TaxCategoryCode;
+
+/**
+ * Running BG-22 DOCUMENT TOTALS and BG-23 VAT BREAKDOWN of an invoice.
+ * <p>
+ * The sums are updated with each line and document level allowance or charge added to the invoice,
+ * so the getters do not walk the lines. The amounts are rounded according to EN16931:
+ * <br>BR-CO-17 : VAT category tax amount (BT-117) = VAT category taxable amount (BT-116) x VAT category rate (BT-119) / 100,
+ * rounded to two decimals
+ * <br>BR-CO-13 : BT-109 = BT-106 - BT-107 + BT-108
+ * <br>BR-CO-14 : BT-110 = sum of BT-117
+ * <br>BR-CO-15 : BT-112 = BT-109 + BT-110
+ * <br>BR-CO-16 : BT-115 = BT-112 - BT-113 + BT-114
+ * <p>
+ * Lines and allowances or charges are summed up when added, later changes to their amounts are not seen.
+ * The sums are held as {@link FixedDecimal}, adding a line does not allocate BigDecimals.
+ * CoreInvoice.recalculate() writes the totals into the document.
+ */
+public class TotalsCalculator {
+
+	private static final FixedDecimal ZERO = FixedDecimal.valueOf(0, Amount.SCALE);
+
+	private FixedDecimal lineNetTotal = ZERO;
+	private FixedDecimal allowancesTotal = ZERO;
+	private FixedDecimal chargesTotal = ZERO;
+	private int allowances = 0;
+	private int charges = 0;
+	// sum of the rounded VAT category tax amounts
+	private FixedDecimal invoiceTax = ZERO;
+	// BG-23 in order of appearance, key is code and rate
+	private final Map<String, VatCategory> vatCategories = new LinkedHashMap<String, VatCategory>();
+
+	/**
+	 * adds BT-131 Invoice line net amount to BT-106 and to the taxable amount of the line VAT category
+	 *
+	 * @param line
+	 */
+	public void add(CoreInvoiceLine line) {
+		Amount amount = line.getLineTotalAmount();
+		addLine(amount==null ? null : amount.getValue(), line.getTaxCategory(), line.getTaxRate());
+	}
+
+	/**
+	 * adds a line given by its values, f.i. read from a JAXB line without wrapping it into a CoreInvoiceLine
+	 *
+	 * @param lineNetAmount BT-131 Invoice line net amount, can be null
+	 * @param code BT-151 Invoiced item VAT category code
+	 * @param rate BT-152 Invoiced item VAT rate, can be null
+	 */
+	public void addLine(BigDecimal lineNetAmount, TaxCategoryCode code, BigDecimal rate) {
+		FixedDecimal amount = lineNetAmount==null ? ZERO : FixedDecimal.valueOf(lineNetAmount, Amount.SCALE);
+		lineNetTotal = lineNetTotal.add(amount);
+		add(code, rate, amount);
+	}
+
+	/**
+	 * adds BT-92 allowance amount to BT-107 or BT-99 charge amount to BT-108,
+	 * an allowance reduces the taxable amount of its VAT category
+	 *
+	 * @param allowanceOrCharge document level allowance or charge
+	 */
+	public void add(AllowancesAndCharges allowanceOrCharge) {
+		FixedDecimal amount = getValue(allowanceOrCharge.getAmountWithoutTax());
+		if(allowanceOrCharge.isCharge()) {
+			chargesTotal = chargesTotal.add(amount);
+			charges++;
+		} else {
+			allowancesTotal = allowancesTotal.add(amount);
+			allowances++;
+			amount = amount.negate();
+		}
+		add(allowanceOrCharge.getTaxCategoryCode(), allowanceOrCharge.getTaxPercentage(), amount);
+	}
+
+	/**
+	 * @return BT-106 Sum of Invoice line net amount
+	 */
+	public BigDecimal getInvoiceLineNetTotal() {
+		return round(lineNetTotal).toBigDecimal();
+	}
+
+	/**
+	 * @return BT-107 Sum of allowances on document level
+	 */
+	public BigDecimal getAllowancesTotal() {
+		return round(allowancesTotal).toBigDecimal();
+	}
+
+	/**
+	 * @return BT-108 Sum of charges on document level
+	 */
+	public BigDecimal getChargesTotal() {
+		return round(chargesTotal).toBigDecimal();
+	}
+
+	/**
+	 * @return true if there is at least one allowance on document level, BT-107 is optional
+	 */
+	public boolean hasAllowances() {
+		return allowances>0;
+	}
+
+	/**
+	 * @return true if there is at least one charge on document level, BT-108 is optional
+	 */
+	public boolean hasCharges() {
+		return charges>0;
+	}
+
+	/**
+	 * @return BT-109 Invoice total amount without VAT
+	 */
+	public BigDecimal getInvoiceTotalTaxExclusive() {
+		return getTaxExclusive().toBigDecimal();
+	}
+
+	/**
+	 * @return BT-110 Invoice total VAT amount
+	 */
+	public BigDecimal getInvoiceTax() {
+		return invoiceTax.toBigDecimal();
+	}
+
+	/**
+	 * @return BT-112 Invoice total amount with VAT
+	 */
+	public BigDecimal getInvoiceTotalTaxInclusive() {
+		return getTaxExclusive().add(invoiceTax).toBigDecimal();
+	}
+
+	/**
+	 * @param prepaid BT-113 Paid amount, can be null
+	 * @param rounding BT-114 Rounding amount, can be null
+	 * @return BT-115 Amount due for payment
+	 */
+	public BigDecimal getDuePayable(Amount prepaid, Amount rounding) {
+		return getTaxExclusive().add(invoiceTax).subtract(round(getValue(prepaid))).add(round(getValue(rounding))).toBigDecimal();
+	}
+
+	/**
+	 * @return number of VAT categories, that is the number of BG-23 groups
+	 */
+	public int getVatCategoryCount() {
+		return vatCategories.size();
+	}
+
+	/**
+	 * creates the BG-23 groups with rounded BT-116 and BT-117
+	 *
+	 * @param factory to create the VAT breakdowns, f.i. the invoice
+	 * @param currencyID BT-5 Invoice currency code
+	 * @param previous VAT breakdowns to take the exemption reasons BT-120 and BT-121 from, can be empty
+	 * @return new VAT breakdowns, one per VAT category
+	 */
+	public List<VatBreakdown> createVATBreakDowns(VatBreakdownFactory factory, String currencyID, List<VatBreakdown> previous) {
+		List<VatBreakdown> result = new ArrayList<VatBreakdown>(vatCategories.size());
+		vatCategories.forEach((key, category) -> {
+			VatBreakdown old = null;
+			for(VatBreakdown vatBreakdown : previous) {
+				if(key.equals(getKey(vatBreakdown.getTaxCategoryCode(), vatBreakdown.getTaxPercentage()))) {
+					old = vatBreakdown;
+					break;
+				}
+			}
+			// keep rate 0 of category O or E if the lines have no rate
+			BigDecimal rate = category.rate==null && old!=null ? old.getTaxPercentage() : category.rate;
+			VatBreakdown vatBreakdown = factory.createVATBreakDown(new Amount(currencyID, round(category.taxable).toBigDecimal())
+					, new Amount(currencyID, category.tax.toBigDecimal()), category.code, rate);
+			if(old!=null && (old.getTaxExemptionReasonText()!=null || old.getTaxExemptionReasonCode()!=null)) {
+				vatBreakdown.setTaxExemption(old.getTaxExemptionReasonText(), old.getTaxExemptionReasonCode());
+			}
+			result.add(vatBreakdown);
+		});
+		return result;
+	}
+
+	// -- private
+
+	// BT-109 = BT-106 - BT-107 + BT-108
+	private FixedDecimal getTaxExclusive() {
+		return round(lineNetTotal).subtract(round(allowancesTotal)).add(round(chargesTotal));
+	}
+
+	private void add(TaxCategoryCode code, BigDecimal rate, FixedDecimal amount) {
+		String key = getKey(code, rate);
+		VatCategory category = vatCategories.get(key);
+		if(category==null) {
+			category = new VatCategory(code, rate);
+			vatCategories.put(key, category);
+		} else if(category.rate==null && rate!=null) {
+			category.setRate(rate);
+		}
+		category.taxable = category.taxable.add(amount);
+		FixedDecimal tax = category.fixedRate==null ? ZERO
+				: round(category.taxable).multiply(category.fixedRate).movePointLeft(2).setScale(Amount.SCALE, RoundingMode.HALF_UP);
+		invoiceTax = invoiceTax.add(tax.subtract(category.tax));
+		category.tax = tax;
+	}
+
+	// 19 and 19.00 are the same rate, no rate is 0 like in category O with rate 0 in the VAT breakdown
+	private static String getKey(TaxCategoryCode code, BigDecimal rate) {
+		return code + "/" + (rate==null ? "0" : rate.stripTrailingZeros().toPlainString());
+	}
+
+	private static FixedDecimal getValue(Amount amount) {
+		return amount==null || amount.getValue()==null ? ZERO : FixedDecimal.valueOf(amount.getValue(), Amount.SCALE);
+	}
+
+	private static FixedDecimal round(FixedDecimal value) {
+		return value.setScale(Amount.SCALE, RoundingMode.HALF_UP);
+	}
+
+	private static class VatCategory {
+		final TaxCategoryCode code;
+		BigDecimal rate;
+		FixedDecimal fixedRate;
+		FixedDecimal taxable = ZERO;
+		FixedDecimal tax = ZERO;
+
+		VatCategory(TaxCategoryCode code, BigDecimal rate) {
+			this.code = code;
+			if(rate!=null) setRate(rate);
+		}
+
+		void setRate(BigDecimal rate) {
+			this.rate = rate;
+			this.fixedRate = FixedDecimal.valueOf(rate, Amount.SCALE);
+		}
+	}
+
+}
@@ -1,6 +1,7 @@
 package com.klst.einvoice.ubl;
 
 import com.klst.ebXml.reflection.SCopyCtor;
+import com.klst.einvoice.AttachmentContent;
 import com.klst.einvoice.BG24_AdditionalSupportingDocs;
 import com.klst.einvoice.Reference;
 import com.klst.untdid.codelist.DocumentNameCode;
@@ -75,6 +76,12 @@ public class AdditionalSupportingDocument extends DocumentReferenceType implemen
 		setAttachedDocument(content, mimeCode, filename);
 	}
 	
+	AdditionalSupportingDocument(String docRefId, String description, AttachmentContent content, String mimeCode, String filename) {
+		super();
+		init(docRefId, description, null);
+		setAttachedDocument(content, mimeCode, filename);
+	}
+	
 	/**
 	 * 
 	 * @param Supporting document reference id, madatory
@@ -202,7 +209,7 @@ Bsp.: ubl-tc434-example2.xml :
 	// BT-125 ++ 0..1 Attached document
 	@Override
 	public void setAttachedDocument(byte[] content, String mimeCode, String filename) {
-		EmbeddedDocumentBinaryObjectType embeddedDocumentBinaryObject = new EmbeddedDocumentBinaryObjectType();
+		EmbeddedDocumentBinaryObjectType embeddedDocumentBinaryObject = new EmbeddedDocumentBinaryObject();
 		embeddedDocumentBinaryObject.setMimeCode(mimeCode);
 		embeddedDocumentBinaryObject.setFilename(filename);
 		embeddedDocumentBinaryObject.setValue(content);
@@ -211,12 +218,29 @@ Bsp.: ubl-tc434-example2.xml :
 		super.setAttachment(attachment);
 	}
 	
+	@Override
+	public void setAttachedDocument(AttachmentContent content, String mimeCode, String filename) {
+		AttachmentType attachment = new AttachmentType();
+		attachment.setEmbeddedDocumentBinaryObject(new EmbeddedDocumentBinaryObject(content, mimeCode, filename));
+		super.setAttachment(attachment);
+	}
+	
 	@Override
 	public byte[] getAttachedDocument() {
 		EmbeddedDocumentBinaryObjectType embeddedDocumentBinaryObject = getEmbeddedDocumentBinaryObject();
 		return embeddedDocumentBinaryObject==null ? null : embeddedDocumentBinaryObject.getValue();
 	}
 	@Override
+	public AttachmentContent getAttachedDocumentContent() {
+		EmbeddedDocumentBinaryObjectType embeddedDocumentBinaryObject = getEmbeddedDocumentBinaryObject();
+		if(embeddedDocumentBinaryObject==null) return null;
+		if(embeddedDocumentBinaryObject instanceof AttachmentContent.Holder) {
+			AttachmentContent content = ((AttachmentContent.Holder)embeddedDocumentBinaryObject).getContent();
+			if(content!=null) return content;
+		}
+		return embeddedDocumentBinaryObject.getValue()==null ? null : AttachmentContent.of(embeddedDocumentBinaryObject.getValue());
+	}
+	@Override
 	public String getAttachedDocumentMimeCode() {
 		EmbeddedDocumentBinaryObjectType embeddedDocumentBinaryObject = getEmbeddedDocumentBinaryObject();
 		return embeddedDocumentBinaryObject==null ? null : embeddedDocumentBinaryObject.getMimeCode();
@@ -227,6 +251,35 @@ Bsp.: ubl-tc434-example2.xml :
 		return embeddedDocumentBinaryObject==null ? null : embeddedDocumentBinaryObject.getFilename();
 	}
 	
+	@Override
+	public String getAttachedDocumentUri() {
+		EmbeddedDocumentBinaryObjectType embeddedDocumentBinaryObject = getEmbeddedDocumentBinaryObject();
+		return embeddedDocumentBinaryObject==null ? null : embeddedDocumentBinaryObject.getUri();
+	}
+	@Override
+	public void setAttachedDocumentReference(String uri) {
+		EmbeddedDocumentBinaryObject embeddedDocumentBinaryObject = getEmbeddedDocumentBinaryObjectHolder();
+		if(embeddedDocumentBinaryObject==null) return;
+		embeddedDocumentBinaryObject.setContent(null);
+		embeddedDocumentBinaryObject.setUri(uri);
+	}
+	@Override
+	public void setAttachedDocumentContent(AttachmentContent content) {
+		EmbeddedDocumentBinaryObject embeddedDocumentBinaryObject = getEmbeddedDocumentBinaryObjectHolder();
+		if(embeddedDocumentBinaryObject==null) return;
+		embeddedDocumentBinaryObject.setContent(content);
+		embeddedDocumentBinaryObject.setUri(null);
+	}
+	
+	// the AttachmentType is shared with the invoice, so replacing the binary object writes through
+	private EmbeddedDocumentBinaryObject getEmbeddedDocumentBinaryObjectHolder() {
+		EmbeddedDocumentBinaryObjectType embeddedDocumentBinaryObject = getEmbeddedDocumentBinaryObject();
+		if(embeddedDocumentBinaryObject==null) return null;
+		EmbeddedDocumentBinaryObject holder = EmbeddedDocumentBinaryObject.create(embeddedDocumentBinaryObject);
+		super.getAttachment().setEmbeddedDocumentBinaryObject(holder);
+		return holder;
+	}
+	
 	EmbeddedDocumentBinaryObjectType getEmbeddedDocumentBinaryObject() {
 		return getEmbeddedDocumentBinaryObject(this);
 	}
@@ -73,6 +73,11 @@ public class Address extends AddressType implements PostalAddress {
 
 	private static final Logger LOG = Logger.getLogger(Address.class.getName());
 
+	// ctor for the unmarshaller, see DomainObjectFactory
+	Address() {
+		super();
+	}
+
 	// copy ctor
 	private Address(AddressType address) {
 		super();
@@ -2,6 +2,7 @@ package com.klst.einvoice.ubl;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.ebXml.reflection.SCopyCtor;
@@ -115,17 +116,27 @@ public class AllowanceCharge extends AllowanceChargeType implements AllowancesAn
 		setPercentage(percentage);
 	}
 
+	// ctor for the unmarshaller, see DomainObjectFactory
+	AllowanceCharge() {
+		super();
+	}
+
 	// copy ctor
 	private AllowanceCharge(AllowanceChargeType doc) {
 		super();
 		if(doc!=null) {
 			SCopyCtor.getInstance().invokeCopy(this, doc);
-			TaxCategoryType tc = doc.getTaxCategory().isEmpty() ? null : doc.getTaxCategory().get(0);
-			taxCategory = TaxCategory.create(tc); 
-			LOG.fine("copy ctor:"+this);
+			init();
+			if(LOG.isLoggable(Level.FINE)) LOG.fine("copy ctor:"+this);
 		}
 	}
 
+	// first tax category, after copy ctor or unmarshal
+	void init() {
+		TaxCategoryType tc = getTaxCategory().isEmpty() ? null : getTaxCategory().get(0);
+		taxCategory = TaxCategory.create(tc); 
+	}
+
 	public String toString() {
 		StringBuilder stringBuilder = new StringBuilder().append("[");
 		if(isAllowance()) stringBuilder.append("ALLOWANCE");
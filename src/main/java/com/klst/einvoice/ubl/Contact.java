@@ -57,6 +57,11 @@ public class Contact extends ContactType implements IContact {
 		}
 	}
 
+	// ctor for the unmarshaller, see DomainObjectFactory
+	Contact() {
+		super();
+	}
+
 	// copy ctor
 	private Contact(ContactType contact) {
 		super();
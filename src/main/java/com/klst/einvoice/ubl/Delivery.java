@@ -1,6 +1,7 @@
 package com.klst.einvoice.ubl;
 
 import java.sql.Timestamp;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.ebXml.reflection.SCopyCtor;
@@ -50,12 +51,17 @@ public class Delivery extends DeliveryType implements BG13_DeliveryInformation {
 
 	private static final Logger LOG = Logger.getLogger(Delivery.class.getName());
 	
+	// ctor for the unmarshaller, see DomainObjectFactory
+	Delivery() {
+		super();
+	}
+
 	// copy ctor
 	private Delivery(DeliveryType delivery) {
 		super();
 		if(delivery!=null) {
 			SCopyCtor.getInstance().invokeCopy(this, delivery);
-			LOG.config("copy ctor:"+this);
+			if(LOG.isLoggable(Level.CONFIG)) LOG.config("copy ctor:"+this);
 		}
 	}
 
@@ -1,6 +1,7 @@
 package com.klst.einvoice.ubl;
 
 import java.sql.Timestamp;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.ebXml.reflection.SCopyCtor;
@@ -42,14 +43,14 @@ public class DocumentReference extends DocumentReferenceType implements Precedin
 		super();
 		if(doc!=null) {
 			SCopyCtor.getInstance().invokeCopy(this, doc);
-			LOG.config("copy ctor:"+this);
+			if(LOG.isLoggable(Level.CONFIG)) LOG.config("copy ctor:"+this);
 		}
 	}
 
 	private DocumentReference(Reference docRefId, Timestamp ts) {
 		setDocumentReference(docRefId);
 		setDate(ts);
-		LOG.info("ctor:"+this);
+		if(LOG.isLoggable(Level.INFO)) LOG.info("ctor:"+this);
 	}
 	
 	public String toString() {
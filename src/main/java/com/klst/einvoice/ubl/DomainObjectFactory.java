@@ -0,0 +1,74 @@
+package com.klst.einvoice.ubl;
+
+import javax.xml.bind.Unmarshaller;
+
+import oasis.names.specification.ubl.schema.xsd.commonaggregatecomponents_2.AddressType;
+import oasis.names.specification.ubl.schema.xsd.commonaggregatecomponents_2.AllowanceChargeType;
+import oasis.names.specification.ubl.schema.xsd.commonaggregatecomponents_2.ContactType;
+import oasis.names.specification.ubl.schema.xsd.commonaggregatecomponents_2.DeliveryType;
+import oasis.names.specification.ubl.schema.xsd.commonaggregatecomponents_2.PartyType;
+import oasis.names.specification.ubl.schema.xsd.commonaggregatecomponents_2.PaymentMandateType;
+import oasis.names.specification.ubl.schema.xsd.commonaggregatecomponents_2.PriceType;
+import oasis.names.specification.ubl.schema.xsd.commonaggregatecomponents_2.TaxCategoryType;
+import oasis.names.specification.ubl.schema.xsd.commonaggregatecomponents_2.TaxSubtotalType;
+import oasis.names.specification.ubl.schema.xsd.commonbasiccomponents_2.EmbeddedDocumentBinaryObjectType;
+
+/**
+ * Lets the JAXB unmarshaller create the domain classes of this package instead of the generated UBL types,
+ * see {@link com.klst.einvoice.unece.uncefact.DomainObjectFactory}.
+ * <p>
+ * Invoice, CreditNote and their lines are wrapped by GenericInvoice and GenericLine, not subclassed.
+ * DocumentReferenceType has two domain classes (DocumentReference and AdditionalSupportingDocument)
+ * and PaymentMeans merges several PaymentMeansType, these types are created by JAXB and copied on access as before.
+ */
+public class DomainObjectFactory extends Unmarshaller.Listener {
+
+	public AddressType createAddressType() {
+		return new Address();
+	}
+
+	public AllowanceChargeType createAllowanceChargeType() {
+		return new AllowanceCharge();
+	}
+
+	public ContactType createContactType() {
+		return new Contact();
+	}
+
+	public DeliveryType createDeliveryType() {
+		return new Delivery();
+	}
+
+	public PartyType createPartyType() {
+		return new Party();
+	}
+
+	public PaymentMandateType createPaymentMandateType() {
+		return new PaymentMandate();
+	}
+
+	public PriceType createPriceType() {
+		return new Price();
+	}
+
+	public TaxCategoryType createTaxCategoryType() {
+		return new TaxCategory();
+	}
+
+	public TaxSubtotalType createTaxSubtotalType() {
+		return new TaxSubtotal();
+	}
+
+	public EmbeddedDocumentBinaryObjectType createEmbeddedDocumentBinaryObjectType() {
+		return new EmbeddedDocumentBinaryObject();
+	}
+
+	// the TaxCategory children are unmarshalled before AllowanceCharge
+	@Override
+	public void afterUnmarshal(Object target, Object parent) {
+		if(target instanceof AllowanceCharge) {
+			((AllowanceCharge)target).init();
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.klst.einvoice.ubl;
+
+import com.klst.ebXml.reflection.SCopyCtor;
+import com.klst.einvoice.AttachmentContent;
+
+import oasis.names.specification.ubl.schema.xsd.commonbasiccomponents_2.EmbeddedDocumentBinaryObjectType;
+
+/* BG-24.BT-125 Attached document
+ *
+ * the value is byte[] or an AttachmentContent which is not held in memory
+ */
+public class EmbeddedDocumentBinaryObject extends EmbeddedDocumentBinaryObjectType implements AttachmentContent.Holder {
+
+	// copy factory
+	public static EmbeddedDocumentBinaryObject create(EmbeddedDocumentBinaryObjectType object) {
+		if(object instanceof EmbeddedDocumentBinaryObject) {
+			return (EmbeddedDocumentBinaryObject)object;
+		} else {
+			return new EmbeddedDocumentBinaryObject(object);
+		}
+	}
+
+	private AttachmentContent content;
+
+	public EmbeddedDocumentBinaryObject() {
+		super();
+	}
+
+	// copy ctor
+	private EmbeddedDocumentBinaryObject(EmbeddedDocumentBinaryObjectType object) {
+		super();
+		if(object!=null) {
+			SCopyCtor.getInstance().invokeCopy(this, object);
+		}
+	}
+
+	EmbeddedDocumentBinaryObject(AttachmentContent content, String mimeCode, String filename) {
+		super();
+		setContent(content);
+		setMimeCode(mimeCode);
+		setFilename(filename);
+	}
+
+	@Override
+	public byte[] getValue() {
+		return content==null ? super.getValue() : content.toByteArray();
+	}
+
+	@Override
+	public void setValue(byte[] value) {
+		content = null;
+		super.setValue(value);
+	}
+
+	@Override
+	public AttachmentContent getContent() {
+		return content;
+	}
+
+	@Override
+	public void setContent(AttachmentContent content) {
+		this.content = content;
+		super.setValue(null);
+	}
+
+	@Override
+	public void beforeMarshal() {
+		if(content!=null) super.setValue(content.toByteArray());
+	}
+
+	@Override
+	public void afterMarshal() {
+		if(content!=null) super.setValue(null);
+	}
+
+}
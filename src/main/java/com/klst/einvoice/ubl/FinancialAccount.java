@@ -1,5 +1,6 @@
 package com.klst.einvoice.ubl;
 
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.einvoice.CreditTransfer;
@@ -35,7 +36,7 @@ public class FinancialAccount extends FinancialAccountType implements CreditTran
 		this(pm.getPayeeFinancialAccount());
 		LOG.config("pm"+pm);
 		paymentMeans = pm;
-		LOG.config("ctor:"+this);
+		if(LOG.isLoggable(Level.CONFIG)) LOG.config("ctor:"+this);
 	}
 	
 	public String toString() {
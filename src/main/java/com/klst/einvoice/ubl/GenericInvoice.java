@@ -5,9 +5,11 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.einvoice.AllowancesAndCharges;
+import com.klst.einvoice.AttachmentContent;
 import com.klst.einvoice.BG13_DeliveryInformation;
 import com.klst.einvoice.BG24_AdditionalSupportingDocs;
 import com.klst.einvoice.BusinessParty;
@@ -18,11 +20,15 @@ import com.klst.einvoice.DirectDebit;
 import com.klst.einvoice.IContact;
 import com.klst.einvoice.Identifier;
 import com.klst.einvoice.InvoiceNote;
+import com.klst.einvoice.LineLookup;
+import com.klst.einvoice.ListIndex;
+import com.klst.einvoice.ListView;
 import com.klst.einvoice.PaymentCard;
 import com.klst.einvoice.PaymentInstructions;
 import com.klst.einvoice.PostalAddress;
 import com.klst.einvoice.PrecedingInvoice;
 import com.klst.einvoice.Reference;
+import com.klst.einvoice.TotalsCalculator;
 import com.klst.einvoice.VatBreakdown;
 import com.klst.einvoice.unece.uncefact.Amount;
 import com.klst.einvoice.unece.uncefact.BICId;
@@ -91,6 +97,32 @@ public class GenericInvoice <T> implements CoreInvoice  {
 	boolean isInvoiceType = false;
 	InvoiceType invoice = null;
 	CreditNoteType creditNote = null;
+	private List<CoreInvoiceLine> lineSource = null;
+	private TotalsCalculator totalsCalculator = null;
+	// live views, created once
+	private final List<CoreInvoiceLine> lines = new ListView<Object, CoreInvoiceLine>(
+			() -> isInvoiceType ? invoice.getInvoiceLine() : creditNote.getCreditNoteLine(),
+			line -> isInvoiceType ? GenericLine.create((InvoiceLineType)line) : GenericLine.create((CreditNoteLineType)line));
+	private final List<VatBreakdown> vatBreakDowns = new ListView<TaxSubtotalType, VatBreakdown>(
+			() -> getTaxTotalFirst().getTaxSubtotal(), TaxSubtotal::create);
+	private final List<InvoiceNote> invoiceNotes = new ListView<NoteType, InvoiceNote>(
+			() -> isInvoiceType ? invoice.getNote() : creditNote.getNote(), Note::create);
+	private final List<AllowancesAndCharges> allowancesAndCharges = new ListView<AllowanceChargeType, AllowancesAndCharges>(
+			() -> isInvoiceType ? invoice.getAllowanceCharge() : creditNote.getAllowanceCharge(), AllowanceCharge::create);
+	private final List<PrecedingInvoice> precedingInvoices = new ListView<BillingReferenceType, PrecedingInvoice>(
+			() -> isInvoiceType ? invoice.getBillingReference() : creditNote.getBillingReference(),
+			billingRef -> DocumentReference.create(billingRef.getInvoiceDocumentReference()));
+	// hash indexes, built with the first lookup
+	private final ListIndex<CoreInvoiceLine> lineIdIndex = new ListIndex<CoreInvoiceLine>(
+			() -> getLines(), CoreInvoiceLine::getId);
+	private final ListIndex<CoreInvoiceLine> orderLineIdIndex = new ListIndex<CoreInvoiceLine>(
+			() -> getLines(), CoreInvoiceLine::getOrderLineID);
+	private final ListIndex<CoreInvoiceLine> sellerItemIdIndex = new ListIndex<CoreInvoiceLine>(
+			() -> getLines(), CoreInvoiceLine::getSellerAssignedID);
+	// key is the DocumentTypeCode, a document without code is a BG-24 RelatedDocument
+	private final ListIndex<DocumentReferenceType> documentReferenceIndex = new ListIndex<DocumentReferenceType>(
+			() -> isInvoiceType ? invoice.getAdditionalDocumentReference() : creditNote.getAdditionalDocumentReference(),
+			doc -> doc.getDocumentTypeCode()==null ? DocumentNameCode.RelatedDocument.getValueAsString() : doc.getDocumentTypeCode().getValue());
 	
 	// factory
 	public static CoreInvoice getFactory() {
@@ -135,7 +167,7 @@ public class GenericInvoice <T> implements CoreInvoice  {
 			} else {
 				creditNote = (CreditNoteType)t;
 			}
-			if(getId()!=null) LOG.config("copy ctor "+this);
+			if(LOG.isLoggable(Level.CONFIG) && getId()!=null) LOG.config("copy ctor "+this);
 		}
 	}
 	
@@ -146,7 +178,7 @@ public class GenericInvoice <T> implements CoreInvoice  {
 	void init(String customization, String processType, DocumentNameCode code) {
 		setProcessControl(customization, processType); // BG-2
 		setTypeCode(code); // BT-3	
-		LOG.config("ctor "+this);
+		if(LOG.isLoggable(Level.CONFIG)) LOG.config("ctor "+this);
 	}
 	
 	public String toString() {
@@ -543,22 +575,9 @@ UBL:
 	}
 	@Override
 	public String getTenderOrLotReference() {
-		List<DocumentReferenceType> additionalDocumentReferenceList;
-		if(isInvoiceType) {
-			additionalDocumentReferenceList = invoice.getAdditionalDocumentReference();
-		} else {
-			additionalDocumentReferenceList = creditNote.getAdditionalDocumentReference();
-		}
-		List<BG24_AdditionalSupportingDocs> resList = new ArrayList<BG24_AdditionalSupportingDocs>(additionalDocumentReferenceList.size());
-		additionalDocumentReferenceList.forEach(doc -> {
-			AdditionalSupportingDocument asd = AdditionalSupportingDocument.create(doc);
-			if(asd.isValidatedPricedTender()) {
-				// das sind BT-17 docs
-				resList.add(asd);
-			}
-		});
-		return resList.isEmpty() ? null : resList.get(0).getDocumentReference().getContent();
-		
+		// das sind BT-17 docs, the first one wins
+		DocumentReferenceType doc = documentReferenceIndex.first(DocumentNameCode.ValidatedPricedTender.getValueAsString());
+		return doc==null ? null : AdditionalSupportingDocument.create(doc).getDocumentReference().getContent();
 	}
 	// alternative implementierung:
 //	@Override
@@ -599,21 +618,9 @@ UBL:
 	}
 	@Override
 	public Identifier getInvoicedObjectIdentifier() {
-		List<DocumentReferenceType> additionalDocumentReferenceList;
-		if(isInvoiceType) {
-			additionalDocumentReferenceList = invoice.getAdditionalDocumentReference();
-		} else {
-			additionalDocumentReferenceList = creditNote.getAdditionalDocumentReference();
-		}
-		List<BG24_AdditionalSupportingDocs> resList = new ArrayList<BG24_AdditionalSupportingDocs>(additionalDocumentReferenceList.size());
-		additionalDocumentReferenceList.forEach(doc -> {
-			AdditionalSupportingDocument asd = AdditionalSupportingDocument.create(doc);
-			if(asd.isInvoicingDataSheet()) {
-				// das sind BT-18 docs
-				resList.add(asd);
-			}
-		});
-		return resList.isEmpty() ? null : resList.get(0).getDocumentReference();
+		// das sind BT-18 docs, the first one wins
+		DocumentReferenceType doc = documentReferenceIndex.first(DocumentNameCode.InvoicingDataSheet.getValueAsString());
+		return doc==null ? null : AdditionalSupportingDocument.create(doc).getDocumentReference();
 	}
 	
 	// BT-19 + 0..1 Buyer accounting reference
@@ -683,8 +690,7 @@ ubl-tc434-example2.xml :
 
 	@Override
 	public List<InvoiceNote> getInvoiceNotes() {
-		// delegieren:
-		return isInvoiceType ? Note.getInvoiceNotes(invoice.getNote()) : Note.getInvoiceNotes(creditNote.getNote());
+		return invoiceNotes;
 	}
 
 	// BG-2 + 1..1 PROCESS CONTROL
@@ -714,7 +720,7 @@ ubl-tc434-example2.xml :
 	@Override
 	public String getCustomization() {
 		CustomizationIDType customizationID = isInvoiceType ? invoice.getCustomizationID() : creditNote.getCustomizationID();
-		LOG.config("SchemeAgencyID:"+customizationID.getSchemeAgencyID() +
+		if(LOG.isLoggable(Level.CONFIG)) LOG.config("SchemeAgencyID:"+customizationID.getSchemeAgencyID() +
 				" SchemeAgencyName:"+customizationID.getSchemeAgencyName() +
 				" Value:"+customizationID.getValue()
 				);
@@ -749,13 +755,7 @@ ubl-tc434-example2.xml :
 	}
 	@Override // implements BG3_PrecedingInvoiceReference
 	public List<PrecedingInvoice> getPrecedingInvoices() {
-		List<BillingReferenceType> billingReferenceList = isInvoiceType ? invoice.getBillingReference() : creditNote.getBillingReference();
-		List<PrecedingInvoice> docRefList = new ArrayList<PrecedingInvoice>();
-		billingReferenceList.forEach(billingRef -> {
-			DocumentReferenceType docRef = billingRef.getInvoiceDocumentReference();
-			docRefList.add(DocumentReference.create(docRef));
-		});
-		return docRefList;
+		return precedingInvoices;
 	}
 
 	
@@ -1144,6 +1144,9 @@ ubl-tc434-example2.xml :
 
 	@Override
 	public void addAllowanceCharge(AllowancesAndCharges allowanceOrCharge) {
+		// a calculator built later sums up this allowance or charge with the others, 
+		// so the lines of a line source are not read here
+		if(totalsCalculator!=null) totalsCalculator.add(allowanceOrCharge);
 		if(isInvoiceType) {
 			invoice.getAllowanceCharge().add((AllowanceChargeType)allowanceOrCharge);
 		} else {
@@ -1152,17 +1155,7 @@ ubl-tc434-example2.xml :
 	}
 	@Override
 	public List<AllowancesAndCharges> getAllowancesAndCharges() {
-		List<AllowanceChargeType> allowanceChargeList;
-		if(isInvoiceType) {
-			allowanceChargeList = invoice.getAllowanceCharge();
-		} else {
-			allowanceChargeList = creditNote.getAllowanceCharge();
-		}
-		List<AllowancesAndCharges> resList = new ArrayList<AllowancesAndCharges>(allowanceChargeList.size());
-		allowanceChargeList.forEach(doc -> {
-			resList.add(AllowanceCharge.create(doc));
-		});
-		return resList;
+		return allowancesAndCharges;
 	}
 	
 	// BG-22 + 1..1 DOCUMENT TOTALS
@@ -1429,14 +1422,41 @@ ubl-tc434-example2.xml :
 	}
 
 	public List<VatBreakdown> getVATBreakDowns() {
-//		List<TaxTotalType> taxTotalList = isInvoiceType ? invoice.getTaxTotal() : creditNote.getTaxTotal();
-		taxTotalFirst = getTaxTotalFirst();
-		List<TaxSubtotalType> taxSuptotalList = taxTotalFirst.getTaxSubtotal();
-		List<VatBreakdown> result = new ArrayList<VatBreakdown>(taxSuptotalList.size());
-		taxSuptotalList.forEach(vbd -> {
-			result.add(TaxSubtotal.create(vbd));
-		});	
-		return result;
+		getTaxTotalFirst(); // adds the TaxTotal if missing
+		return vatBreakDowns;
+	}
+
+	@Override
+	public TotalsCalculator getTotalsCalculator() {
+		if(totalsCalculator==null) {
+			TotalsCalculator totals = new TotalsCalculator();
+			getLines().forEach(line -> totals.add(line));
+			getAllowancesAndCharges().forEach(allowanceOrCharge -> totals.add(allowanceOrCharge));
+			totalsCalculator = totals;
+		}
+		return totalsCalculator;
+	}
+
+	@Override
+	public void recalculate() {
+		TotalsCalculator totals = getTotalsCalculator();
+		String currencyID = getDocumentCurrency();
+		MonetaryTotalType monetaryTotal = isInvoiceType ? invoice.getLegalMonetaryTotal() : creditNote.getLegalMonetaryTotal();
+		PrepaidAmountType prepaid = monetaryTotal==null ? null : monetaryTotal.getPrepaidAmount();
+		Amount rounding = monetaryTotal==null ? null : getRounding(monetaryTotal);
+		List<VatBreakdown> vatBreakdowns = totals.createVATBreakDowns(this, currencyID, getVATBreakDowns());
+		setDocumentTotals(new Amount(currencyID, totals.getInvoiceLineNetTotal())
+				, new Amount(currencyID, totals.getInvoiceTotalTaxExclusive())
+				, new Amount(currencyID, totals.getInvoiceTotalTaxInclusive())
+				, new Amount(currencyID, totals.getDuePayable(prepaid==null ? null : new Amount(prepaid.getCurrencyID(), prepaid.getValue()), rounding)));
+		if(totals.hasAllowances()) setAllowancesTotal(new Amount(currencyID, totals.getAllowancesTotal()));
+		if(totals.hasCharges()) setChargesTotal(new Amount(currencyID, totals.getChargesTotal()));
+		// setDocumentTotals creates a new LegalMonetaryTotal, BT-113 for CreditNote too
+		(isInvoiceType ? invoice.getLegalMonetaryTotal() : creditNote.getLegalMonetaryTotal()).setPrepaidAmount(prepaid);
+		setRounding(rounding);
+		setInvoiceTax(new Amount(currencyID, totals.getInvoiceTax()));
+		getTaxTotalFirst().getTaxSubtotal().clear();
+		vatBreakdowns.forEach(vatBreakdown -> addVATBreakDown(vatBreakdown));
 	}
 
 	// BG-24 + 0..n ADDITIONAL SUPPORTING DOCUMENTS
@@ -1445,6 +1465,10 @@ ubl-tc434-example2.xml :
 		addSupportigDocument(new AdditionalSupportingDocument(docRefId, description, content, mimeCode, filename));
 	}
 	@Override
+	public void addSupportigDocument(String docRefId, String description, AttachmentContent content, String mimeCode, String filename) {
+		addSupportigDocument(new AdditionalSupportingDocument(docRefId, description, content, mimeCode, filename));
+	}
+	@Override
 	public void addSupportigDocument(String docRefId, String description, String url) {
 		if(docRefId!=null && description==null && url==null) {
 			addOriginatorDocumentReference(new AdditionalSupportingDocument(docRefId, description, url));
@@ -1488,6 +1512,15 @@ ubl-tc434-example2.xml :
 		});
 		return resList;
 	}
+	@Override
+	public List<BG24_AdditionalSupportingDocs> getAdditionalSupportingDocuments(DocumentNameCode code) {
+		List<DocumentReferenceType> docs = documentReferenceIndex.find(code.getValueAsString());
+		List<BG24_AdditionalSupportingDocs> resList = new ArrayList<BG24_AdditionalSupportingDocs>(docs.size());
+		docs.forEach(doc -> {
+			resList.add(AdditionalSupportingDocument.create(doc));
+		});
+		return resList;
+	}
 
 	// BG-25 + 1..n INVOICE LINE
 	@Override
@@ -1498,6 +1531,8 @@ ubl-tc434-example2.xml :
 	}
 
 	void addLine(GenericLine<?> line) {
+		checkNoLineSource();
+		getTotalsCalculator().add(line);
 		if(isInvoiceType) {
 			InvoiceLineType l = (InvoiceLineType)line.get();
 			invoice.getInvoiceLine().add(l);
@@ -1506,23 +1541,62 @@ ubl-tc434-example2.xml :
 			creditNote.getCreditNoteLine().add(l);
 		}
 	}
+
+	// a line added to the document would be neither in getLines() nor marshalled
+	private void checkNoLineSource() {
+		if(lineSource!=null) {
+			throw new IllegalStateException("line source is set, add the line to the source");
+		}
+	}
+
+	@Override
+	public void ensureLineCapacity(int additionalLines) {
+		List<?> lines = isInvoiceType ? invoice.getInvoiceLine() : creditNote.getCreditNoteLine();
+		if(lines instanceof ArrayList) {
+			((ArrayList<?>)lines).ensureCapacity((int)Math.min(Integer.MAX_VALUE, (long)lines.size()+additionalLines));
+		}
+	}
 	
+	/**
+	 * lines which are not held in the document, f.i. unmarshalled on demand by com.klst.marshaller.LazyLines.
+	 * getLines() returns this list, the transformer marshals the lines from it.
+	 * While a line source is set addLine throws IllegalStateException, the lines are added to the source.
+	 *
+	 * @param lines or null to use the lines of the document
+	 */
+	public void setLineSource(List<CoreInvoiceLine> lines) {
+		lineSource = lines;
+		totalsCalculator = null;
+	}
+
+	/**
+	 * @return the lines set by setLineSource, null if the lines are held in the document
+	 */
+	public List<CoreInvoiceLine> getLineSource() {
+		return lineSource;
+	}
+
+	/**
+	 * @return live read-only view of the lines, each line is wrapped on access, or the line source
+	 */
 	public List<CoreInvoiceLine> getLines() {
-		List<CoreInvoiceLine> resultLines;
-		if(isInvoiceType) {
-			List<InvoiceLineType> lines = invoice.getInvoiceLine();
-			resultLines = new ArrayList<CoreInvoiceLine>(lines.size());
-			lines.forEach(line -> {
-				resultLines.add(new GenericLine<InvoiceLineType>(line));
-			});
-		} else {
-			List<CreditNoteLineType> lines = creditNote.getCreditNoteLine();
-			resultLines = new ArrayList<CoreInvoiceLine>(lines.size());
-			lines.forEach(line -> {
-				resultLines.add(new GenericLine<CreditNoteLineType>(line));
-			});
+		return lineSource!=null ? lineSource : lines;
+	}
+
+	@Override
+	public CoreInvoiceLine getLine(String id) {
+		if(lineSource instanceof LineLookup) {
+			return ((LineLookup)lineSource).getLine(id);
 		}
-		return resultLines;
+		return lineIdIndex.first(id);
+	}
+	@Override
+	public List<CoreInvoiceLine> findLinesByOrderLineId(String orderLineId) {
+		return orderLineIdIndex.find(orderLineId);
+	}
+	@Override
+	public List<CoreInvoiceLine> findLinesBySellerItemId(String sellerItemId) {
+		return sellerItemIdIndex.find(sellerItemId);
 	}
 
 	// ----------------- factories to delegate
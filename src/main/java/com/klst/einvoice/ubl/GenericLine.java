@@ -5,6 +5,7 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.einvoice.AllowancesAndCharges;
@@ -75,6 +76,14 @@ public class GenericLine<T> implements CoreInvoiceLine {
 		return gl;
 	}
 	
+	// copy factories
+	public static CoreInvoiceLine create(InvoiceLineType line) {
+		return new GenericLine<InvoiceLineType>(line);
+	}
+	public static CoreInvoiceLine create(CreditNoteLineType line) {
+		return new GenericLine<CreditNoteLineType>(line);
+	}
+
 	// ctor mit type parameter
 	GenericLine(T t) {
 		this.t = t;
@@ -85,10 +94,10 @@ public class GenericLine<T> implements CoreInvoiceLine {
 			cnLine = (CreditNoteLineType)t;
 		}
 //		LOG.info("copy ctor isInvoiceLineType:"+isInvoiceLineType);
-		if(getId()!=null) LOG.config("copy ctor "+this);
+		if(LOG.isLoggable(Level.CONFIG) && getId()!=null) LOG.config("copy ctor "+this);
 	}
 	
-	T get() {
+	public T get() {
 		return this.t;
 	}
 
@@ -108,7 +117,7 @@ public class GenericLine<T> implements CoreInvoiceLine {
 		setUnitPriceAmount(priceAmount);
 		setItemName(itemName);
 		setTaxCategoryAndRate(codeEnum, taxRate);
-		LOG.config("ctor "+this);
+		if(LOG.isLoggable(Level.CONFIG)) LOG.config("ctor "+this);
 	}
 
 	public String toString() {
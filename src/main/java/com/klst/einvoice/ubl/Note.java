@@ -1,7 +1,5 @@
 package com.klst.einvoice.ubl;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,12 +38,13 @@ public class Note extends NoteType implements InvoiceNote, InvoiceNoteFactory {
 		return content==null? null : new Note(subjectCode, content);
 	}
 
-	static List<InvoiceNote> getInvoiceNotes(List<NoteType> list) {
-		List<InvoiceNote> result = new ArrayList<InvoiceNote>(list.size());
-		list.forEach(note -> {
-			result.add(new Note(note));
-		});
-		return result;
+	// copy factory
+	static Note create(NoteType object) {
+		if(object instanceof Note) {
+			return (Note)object;
+		} else {
+			return new Note(object);
+		}
 	}
 
 /*      subjectCode gibt es in super nicht!
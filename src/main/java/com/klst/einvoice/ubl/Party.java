@@ -2,6 +2,7 @@ package com.klst.einvoice.ubl;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.ebXml.reflection.SCopyCtor;
@@ -61,12 +62,17 @@ public class Party extends PartyType implements BusinessParty, BusinessPartyAddr
 
 	private static final Logger LOG = Logger.getLogger(Party.class.getName());
 	
+	// ctor for the unmarshaller, see DomainObjectFactory
+	Party() {
+		super();
+	}
+
 	// copy ctor
 	private Party(PartyType party) {
 		super();
 		if(party!=null) {
 			SCopyCtor.getInstance().invokeCopy(this, party);
-			LOG.config("copy ctor:"+this);
+			if(LOG.isLoggable(Level.CONFIG)) LOG.config("copy ctor:"+this);
 		}
 	}
 	
@@ -78,6 +78,11 @@ public class PaymentMandate extends PaymentMandateType implements DirectDebit, D
 		return new PaymentMandate(mandateID, bankAssignedCreditorID, debitedAccountID);
 	}
 
+	// ctor for the unmarshaller, see DomainObjectFactory
+	PaymentMandate() {
+		super();
+	}
+
 	private PaymentMandate(PaymentMandateType doc) {
 		super();
 		if(doc!=null) {
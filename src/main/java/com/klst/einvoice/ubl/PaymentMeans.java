@@ -2,6 +2,7 @@ package com.klst.einvoice.ubl;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.einvoice.DirectDebit;
@@ -190,7 +191,7 @@ public class PaymentMeans extends PaymentMeansType implements PaymentInstruction
 			super.setPayerFinancialAccount(new FinancialAccount(this));			
 		}
 
-		LOG.config("ctor:"+this);
+		if(LOG.isLoggable(Level.CONFIG)) LOG.config("ctor:"+this);
 	}
 
 	private PaymentMeans(List<PaymentMeansType> list) {
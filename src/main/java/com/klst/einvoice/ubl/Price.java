@@ -1,5 +1,6 @@
 package com.klst.einvoice.ubl;
 
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.ebXml.reflection.SCopyCtor;
@@ -54,12 +55,17 @@ public class Price extends PriceType {
 
 	private static final Logger LOG = Logger.getLogger(Price.class.getName());
 	
+	// ctor for the unmarshaller, see DomainObjectFactory
+	Price() {
+		super();
+	}
+
 	// copy ctor
 	private Price(PriceType doc) {
 		super();
 		if(doc!=null) {
 			SCopyCtor.getInstance().invokeCopy(this, doc);
-			LOG.fine("copy ctor:"+this);			
+			if(LOG.isLoggable(Level.FINE)) LOG.fine("copy ctor:"+this);			
 		}
 	}
 	
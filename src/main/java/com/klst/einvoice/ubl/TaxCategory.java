@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.ebXml.reflection.SCopyCtor;
@@ -60,12 +61,17 @@ public class TaxCategory extends TaxCategoryType implements ITaxCategory, ITaxCa
 
 	private static final Logger LOG = Logger.getLogger(TaxCategory.class.getName());
 	
+	// ctor for the unmarshaller, see DomainObjectFactory
+	TaxCategory() {
+		super();
+	}
+
 	// copy ctor
 	private TaxCategory(TaxCategoryType doc) {
 		super();
 		if(doc!=null) {
 			SCopyCtor.getInstance().invokeCopy(this, doc);
-			LOG.fine("copy ctor:"+this);			
+			if(LOG.isLoggable(Level.FINE)) LOG.fine("copy ctor:"+this);			
 		}
 	}
 	
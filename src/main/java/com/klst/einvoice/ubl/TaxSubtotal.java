@@ -2,6 +2,7 @@ package com.klst.einvoice.ubl;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.ebXml.reflection.SCopyCtor;
@@ -46,12 +47,17 @@ public class TaxSubtotal extends TaxSubtotalType implements VatBreakdown, VatBre
 
 	private static final Logger LOG = Logger.getLogger(TaxSubtotal.class.getName());
 
+	// ctor for the unmarshaller, see DomainObjectFactory
+	TaxSubtotal() {
+		super();
+	}
+
 	// copy ctor
 	private TaxSubtotal(TaxSubtotalType doc) {
 		super();
 		if(doc!=null) {
 			SCopyCtor.getInstance().invokeCopy(this, doc);
-			LOG.fine("copy ctor:"+this);	
+			if(LOG.isLoggable(Level.FINE)) LOG.fine("copy ctor:"+this);	
 		}
 	}
 
@@ -0,0 +1,76 @@
+package com.klst.einvoice.unece.uncefact;
+
+import com.klst.ebXml.reflection.SCopyCtor;
+import com.klst.einvoice.AttachmentContent;
+
+import un.unece.uncefact.data.standard.unqualifieddatatype._100.BinaryObjectType;
+
+/* BG-24.BT-125 Attached document : ram:AttachmentBinaryObject
+ *
+ * the value is byte[] or an AttachmentContent which is not held in memory
+ */
+public class AttachmentBinaryObject extends BinaryObjectType implements AttachmentContent.Holder {
+
+	// copy factory
+	public static AttachmentBinaryObject create(BinaryObjectType object) {
+		if(object instanceof AttachmentBinaryObject) {
+			return (AttachmentBinaryObject)object;
+		} else {
+			return new AttachmentBinaryObject(object);
+		}
+	}
+
+	private AttachmentContent content;
+
+	public AttachmentBinaryObject() {
+		super();
+	}
+
+	// copy ctor
+	private AttachmentBinaryObject(BinaryObjectType object) {
+		super();
+		if(object!=null) {
+			SCopyCtor.getInstance().invokeCopy(this, object);
+		}
+	}
+
+	AttachmentBinaryObject(AttachmentContent content, String mimeCode, String filename) {
+		super();
+		setContent(content);
+		setMimeCode(mimeCode);
+		setFilename(filename);
+	}
+
+	@Override
+	public byte[] getValue() {
+		return content==null ? super.getValue() : content.toByteArray();
+	}
+
+	@Override
+	public void setValue(byte[] value) {
+		content = null;
+		super.setValue(value);
+	}
+
+	@Override
+	public AttachmentContent getContent() {
+		return content;
+	}
+
+	@Override
+	public void setContent(AttachmentContent content) {
+		this.content = content;
+		super.setValue(null);
+	}
+
+	@Override
+	public void beforeMarshal() {
+		if(content!=null) super.setValue(content.toByteArray());
+	}
+
+	@Override
+	public void afterMarshal() {
+		if(content!=null) super.setValue(null);
+	}
+
+}
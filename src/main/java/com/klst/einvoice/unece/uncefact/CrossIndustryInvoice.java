@@ -2,12 +2,15 @@ package com.klst.einvoice.unece.uncefact;
 
 import java.math.BigDecimal;
 import java.sql.Timestamp;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.ebXml.reflection.SCopyCtor;
 import com.klst.einvoice.AllowancesAndCharges;
+import com.klst.einvoice.AttachmentContent;
 import com.klst.einvoice.BG13_DeliveryInformation;
 import com.klst.einvoice.BG24_AdditionalSupportingDocs;
 import com.klst.einvoice.BusinessParty;
@@ -18,11 +21,15 @@ import com.klst.einvoice.DirectDebit;
 import com.klst.einvoice.IContact;
 import com.klst.einvoice.Identifier;
 import com.klst.einvoice.InvoiceNote;
+import com.klst.einvoice.LineLookup;
+import com.klst.einvoice.ListIndex;
+import com.klst.einvoice.ListView;
 import com.klst.einvoice.PaymentCard;
 import com.klst.einvoice.PaymentInstructions;
 import com.klst.einvoice.PostalAddress;
 import com.klst.einvoice.PrecedingInvoice;
 import com.klst.einvoice.Reference;
+import com.klst.einvoice.TotalsCalculator;
 import com.klst.einvoice.VatBreakdown;
 import com.klst.untdid.codelist.DateTimeFormats;
 import com.klst.untdid.codelist.DocumentNameCode;
@@ -37,6 +44,7 @@ import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentit
 import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.ExchangedDocumentType;
 import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.HeaderTradeAgreementType;
 import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.HeaderTradeDeliveryType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.LineTradeSettlementType;
 import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.NoteType;
 import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.ProcuringProjectType;
 import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.ReferencedDocumentType;
@@ -45,9 +53,9 @@ import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentit
 import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.SupplyChainTradeTransactionType;
 import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.TradeAccountingAccountType;
 import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.TradePartyType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.TradeSettlementLineMonetarySummationType;
 import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.TradeTaxType;
 import un.unece.uncefact.data.standard.unqualifieddatatype._100.AmountType;
-import un.unece.uncefact.data.standard.unqualifieddatatype._100.BinaryObjectType;
 import un.unece.uncefact.data.standard.unqualifieddatatype._100.DateTimeType;
 import un.unece.uncefact.data.standard.unqualifieddatatype._100.IDType;
 import un.unece.uncefact.data.standard.unqualifieddatatype._100.TextType;
@@ -158,15 +166,58 @@ PS: CII hat den Status "Published" und zwar am 10 October 2016, Version 100.D16B
  */
 	
 	HeaderTradeSettlement applicableHeaderTradeSettlement;
+	private List<CoreInvoiceLine> lineSource = null;
+	private TotalsCalculator totalsCalculator = null;
+	// live views, created once
+	private final List<CoreInvoiceLine> lines = new ListView<SupplyChainTradeLineItemType, CoreInvoiceLine>(
+			() -> supplyChainTradeTransaction.getIncludedSupplyChainTradeLineItem(), TradeLineItem::create);
+	private final List<VatBreakdown> vatBreakDowns = new ListView<TradeTaxType, VatBreakdown>(
+			() -> applicableHeaderTradeSettlement.getApplicableTradeTax(), TradeTax::create);
+	private final List<InvoiceNote> invoiceNotes = new ListView<NoteType, InvoiceNote>(
+			() -> exchangedDocument.getIncludedNote(), Note::create);
+	// BG-3 is 0..1 in CII
+	private final List<PrecedingInvoice> precedingInvoices = new AbstractList<PrecedingInvoice>() {
+		@Override
+		public PrecedingInvoice get(int index) {
+			ReferencedDocumentType referencedDocument = index==0 ? applicableHeaderTradeSettlement.getInvoiceReferencedDocument() : null;
+			if(referencedDocument==null) throw new IndexOutOfBoundsException("Index: "+index);
+			return new ReferencedDocument(referencedDocument.getIssuerAssignedID(), referencedDocument.getFormattedIssueDateTime());
+		}
+		@Override
+		public int size() {
+			return applicableHeaderTradeSettlement.getInvoiceReferencedDocument()==null ? 0 : 1;
+		}
+	};
+	// hash indexes, built with the first lookup
+	private final ListIndex<CoreInvoiceLine> lineIdIndex = new ListIndex<CoreInvoiceLine>(
+			() -> getLines(), CoreInvoiceLine::getId);
+	private final ListIndex<CoreInvoiceLine> orderLineIdIndex = new ListIndex<CoreInvoiceLine>(
+			() -> getLines(), CoreInvoiceLine::getOrderLineID);
+	private final ListIndex<CoreInvoiceLine> sellerItemIdIndex = new ListIndex<CoreInvoiceLine>(
+			() -> getLines(), CoreInvoiceLine::getSellerAssignedID);
+	// key is the TypeCode
+	private final ListIndex<ReferencedDocumentType> referencedDocumentIndex = new ListIndex<ReferencedDocumentType>(
+			() -> getApplicableHeaderTradeAgreement().getAdditionalReferencedDocument(),
+			refDoc -> refDoc.getTypeCode()==null ? null : refDoc.getTypeCode().getValue());
 	HeaderTradeDeliveryType applicableHeaderTradeDelivery;
 //	ExchangedDocumentType exchangedDocument; // in super
 	
+	// ctor for the unmarshaller, see DomainObjectFactory
+	CrossIndustryInvoice() {
+		super();
+	}
+
 	private CrossIndustryInvoice(CrossIndustryInvoiceType doc) {
 		super();
 		if(doc!=null) {
 			SCopyCtor.getInstance().invokeCopy(this, doc);
-			LOG.config("copy ctor:"+this);
+			if(LOG.isLoggable(Level.CONFIG)) LOG.config("copy ctor:"+this);
 		}
+		init();
+	}
+
+	// the header trade settlement and delivery as domain objects, after copy ctor or unmarshal
+	void init() {
 		if(super.getSupplyChainTradeTransaction()==null) {
 			applicableHeaderTradeSettlement = HeaderTradeSettlement.create();
 			applicableHeaderTradeDelivery = HeaderTradeDelivery.create();
@@ -513,16 +564,9 @@ UBL:
 	}
 	@Override
 	public String getTenderOrLotReference() {
-		List<ReferencedDocument> referencedDocuments = getReferencedDocuments(this);
-		if(referencedDocuments.isEmpty()) return null;
-		String result = null;
-		for(int i=0; i<referencedDocuments.size(); i++) {
-			ReferencedDocument refDoc = referencedDocuments.get(i);
-			if(refDoc.isValidatedPricedTender()) {
-				result = refDoc.getIssuerAssignedID().getValue();
-			}
-		}
-		return result;
+		// the last one wins
+		ReferencedDocumentType refDoc = referencedDocumentIndex.last(DocumentNameCode.ValidatedPricedTender.getValueAsString());
+		return refDoc==null ? null : refDoc.getIssuerAssignedID().getValue();
 	}
 
 	// BT-18 Invoiced object identifier
@@ -543,20 +587,14 @@ UBL:
 	}
 	@Override
 	public Identifier getInvoicedObjectIdentifier() {
-		List<ReferencedDocument> referencedDocuments = getReferencedDocuments(this);
-		if(referencedDocuments.isEmpty()) return null;
-		Identifier result = null;
-		for(int i=0; i<referencedDocuments.size(); i++) {
-			ReferencedDocument refDoc = referencedDocuments.get(i);
-			if(refDoc.isInvoicingDataSheet()) {
-				// IssuerAssignedID
-				// TypeCode 130
-				// 0..1 ReferenceTypeCode
-				ReferenceCodeType referenceCode = refDoc.getReferenceTypeCode();
-				result = new ID(refDoc.getIssuerAssignedID().getValue(), referenceCode==null? null : referenceCode.getValue());
-			}
-		}
-		return result;
+		// the last one wins
+		ReferencedDocumentType refDoc = referencedDocumentIndex.last(DocumentNameCode.InvoicingDataSheet.getValueAsString());
+		if(refDoc==null) return null;
+		// IssuerAssignedID
+		// TypeCode 130
+		// 0..1 ReferenceTypeCode
+		ReferenceCodeType referenceCode = refDoc.getReferenceTypeCode();
+		return new ID(refDoc.getIssuerAssignedID().getValue(), referenceCode==null? null : referenceCode.getValue());
 	}
 	@Override
 	public String getInvoicedObject() {
@@ -598,8 +636,7 @@ UBL:
 
 	@Override
 	public List<InvoiceNote> getInvoiceNotes() {
-		// delegieren:
-		return Note.getInvoiceNotes(this.exchangedDocument.getIncludedNote());
+		return invoiceNotes;
 	}
 	
 	/* PROCESS CONTROL                             BG-2                        1 (mandatory) 
@@ -634,22 +671,14 @@ UBL:
 	@Override
 	public String getProcessType() {
 		List<DocumentContextParameterType> documentContextParameterList = super.getExchangedDocumentContext().getBusinessProcessSpecifiedDocumentContextParameter();
-		List<String> res = new ArrayList<String>(documentContextParameterList.size());
-		documentContextParameterList.forEach(documentContextParameter -> {
-			res.add(documentContextParameter.getID().getValue());
-		});
-		return res.isEmpty() ? null : res.get(0);
+		return documentContextParameterList.isEmpty() ? null : documentContextParameterList.get(0).getID().getValue();
 	}
 
 	// BG-2.BT-24 ++ 1..1 Specification identifier
 	@Override
 	public String getCustomization() {
 		List<DocumentContextParameterType> documentContextParameterList = super.getExchangedDocumentContext().getGuidelineSpecifiedDocumentContextParameter();
-		List<String> res = new ArrayList<String>(documentContextParameterList.size());
-		documentContextParameterList.forEach(documentContextParameter -> {
-			res.add(documentContextParameter.getID().getValue());
-		});
-		return res.isEmpty() ? null : res.get(0);
+		return documentContextParameterList.isEmpty() ? null : documentContextParameterList.get(0).getID().getValue();
 	}
 	
 	/* PRECEDING INVOICE REFERENCE                 BG-3                        0..* (optional)
@@ -672,12 +701,7 @@ UBL:
 	}
 	@Override // implements BG3_PrecedingInvoiceReference
 	public List<PrecedingInvoice> getPrecedingInvoices() {
-		ReferencedDocumentType referencedDocument = applicableHeaderTradeSettlement.getInvoiceReferencedDocument();
-		List<PrecedingInvoice> docRefList = new ArrayList<PrecedingInvoice>();
-		if(referencedDocument!=null) {
-			docRefList.add(new ReferencedDocument(referencedDocument.getIssuerAssignedID(), referencedDocument.getFormattedIssueDateTime()));
-		}
-		return docRefList;
+		return precedingInvoices;
 	}
 
 	/* SELLER                                      BG-4                        1 (mandatory) 
@@ -949,6 +973,9 @@ EN16931 sagt: BG-16 0..1 PAYMENT INSTRUCTIONS
 	}
 	@Override
 	public void addAllowanceCharge(AllowancesAndCharges allowanceOrCharge) {
+		// a calculator built later sums up this allowance or charge with the others, 
+		// so the lines of a line source are not read here
+		if(totalsCalculator!=null) totalsCalculator.add(allowanceOrCharge);
 		applicableHeaderTradeSettlement.addAllowanceCharge(allowanceOrCharge);
 	}
 	@Override
@@ -1052,12 +1079,23 @@ EN16931 sagt: BG-16 0..1 PAYMENT INSTRUCTIONS
 		List<AmountType> list = applicableHeaderTradeSettlement.getSpecifiedTradeSettlementHeaderMonetarySummation().getTaxTotalAmount();
 		if(list.isEmpty()) return null;
 		LOG.fine("getInvoiceTax: TaxCurrency="+getTaxCurrency() + " DocumentCurrency="+getDocumentCurrency());
-		for(int i=0; i<list.size(); i++) {
-			if(sameCurrency && (this.getTaxCurrency()==null || this.getDocumentCurrency().equals(this.getTaxCurrency()))) {
-				return list.get(i).getCurrencyID()==null ? new Amount(list.get(i).getValue()) : new Amount(list.get(i).getCurrencyID(), list.get(i).getValue());
-			} else if(!sameCurrency && !(this.getTaxCurrency()==null || this.getDocumentCurrency().equals(this.getTaxCurrency()))) {
-				return new Amount(getTaxCurrency(), list.get(i).getValue());
+		String taxCurrency = getTaxCurrency();
+		boolean accountingCurrency = !(taxCurrency==null || getDocumentCurrency().equals(taxCurrency));
+		if(sameCurrency) {
+			// BT-110 is the first amount not in accounting currency
+			for(int i=0; i<list.size(); i++) {
+				if(!accountingCurrency || !taxCurrency.equals(list.get(i).getCurrencyID())) {
+					return list.get(i).getCurrencyID()==null ? new Amount(list.get(i).getValue()) : new Amount(list.get(i).getCurrencyID(), list.get(i).getValue());
+				}
+			}
+		} else if(accountingCurrency) {
+			// BT-111 is the amount in accounting currency or the second one
+			for(int i=0; i<list.size(); i++) {
+				if(taxCurrency.equals(list.get(i).getCurrencyID())) {
+					return new Amount(taxCurrency, list.get(i).getValue());
+				}
 			}
+			if(list.size()>1) return new Amount(taxCurrency, list.get(1).getValue());
 		}
 		return null;
 	}
@@ -1123,12 +1161,37 @@ EN16931 sagt: BG-16 0..1 PAYMENT INSTRUCTIONS
 	@Override
 	public List<VatBreakdown> getVATBreakDowns() {
 		if(applicableHeaderTradeSettlement==null) return null;
-		List<TradeTaxType> list = applicableHeaderTradeSettlement.getApplicableTradeTax();
-		List<VatBreakdown> result = new ArrayList<VatBreakdown>(list.size());
-		list.forEach(tradeTax -> {
-			result.add(TradeTax.create(tradeTax));
-		});
-		return result;
+		return vatBreakDowns;
+	}
+
+	@Override
+	public TotalsCalculator getTotalsCalculator() {
+		if(totalsCalculator==null) {
+			TotalsCalculator totals = new TotalsCalculator();
+			getLines().forEach(line -> totals.add(line));
+			getAllowancesAndCharges().forEach(allowanceOrCharge -> totals.add(allowanceOrCharge));
+			totalsCalculator = totals;
+		}
+		return totalsCalculator;
+	}
+
+	@Override
+	public void recalculate() {
+		TotalsCalculator totals = getTotalsCalculator();
+		String currencyID = getDocumentCurrency();
+		Amount taxInAccountingCurrency = getInvoiceTaxInAccountingCurrency();
+		List<VatBreakdown> vatBreakdowns = totals.createVATBreakDowns(this, currencyID, getVATBreakDowns());
+		applicableHeaderTradeSettlement.removeCalculatedTotals();
+		setDocumentTotals(new Amount(currencyID, totals.getInvoiceLineNetTotal())
+				, new Amount(currencyID, totals.getInvoiceTotalTaxExclusive())
+				, new Amount(currencyID, totals.getInvoiceTotalTaxInclusive())
+				, new Amount(currencyID, totals.getDuePayable(getPrepaid(), getRounding())));
+		if(totals.hasAllowances()) setAllowancesTotal(new Amount(currencyID, totals.getAllowancesTotal()));
+		if(totals.hasCharges()) setChargesTotal(new Amount(currencyID, totals.getChargesTotal()));
+		setInvoiceTax(new Amount(currencyID, totals.getInvoiceTax()));
+		if(taxInAccountingCurrency!=null) setInvoiceTaxInAccountingCurrency(taxInAccountingCurrency);
+		applicableHeaderTradeSettlement.getApplicableTradeTax().clear();
+		vatBreakdowns.forEach(vatBreakdown -> addVATBreakDown(vatBreakdown));
 	}
 	
 	// BG-24 + 0..n ADDITIONAL SUPPORTING DOCUMENTS
@@ -1172,6 +1235,16 @@ EN16931 sagt: BG-16 0..1 PAYMENT INSTRUCTIONS
 		applicableHeaderTradeAgreement.getAdditionalReferencedDocument().add(referencedDocument);
 	}
 
+	@Override
+	public void addSupportigDocument(String docRefId, String description, AttachmentContent content, String mimeCode, String filename) {
+		ReferencedDocument referencedDocument = new ReferencedDocument(docRefId);
+		referencedDocument.setSupportingDocumentDescription(description);
+		referencedDocument.setAttachedDocument(content, mimeCode, filename);
+		
+		HeaderTradeAgreementType applicableHeaderTradeAgreement = getApplicableHeaderTradeAgreement();
+		applicableHeaderTradeAgreement.getAdditionalReferencedDocument().add(referencedDocument);
+	}
+
 	/**
 	 * add Additional Referenced Document 0..n(optional) BG-24
 	 * 
@@ -1206,6 +1279,15 @@ EN16931 sagt: BG-16 0..1 PAYMENT INSTRUCTIONS
 		});
 		return result;
 	}
+	@Override
+	public List<BG24_AdditionalSupportingDocs> getAdditionalSupportingDocuments(DocumentNameCode code) {
+		List<ReferencedDocumentType> referencedDocuments = referencedDocumentIndex.find(code.getValueAsString());
+		List<BG24_AdditionalSupportingDocs> result = new ArrayList<BG24_AdditionalSupportingDocs>(referencedDocuments.size());
+		referencedDocuments.forEach(refDoc -> {
+			result.add(toReferencedDocument(refDoc));
+		});
+		return result;
+	}
 	// BT-17 BT-18 BG-24.BT-122
 	// BT-17 BT-18 haben IssuerAssignedID und (optional) BT-17-0, BT-18-0 TypeCode , BT-18-1 ReferenceTypeCode
 /*
@@ -1227,36 +1309,31 @@ Code Codename
 	static List<ReferencedDocument> getReferencedDocuments(CrossIndustryInvoiceType doc) {
 		HeaderTradeAgreementType headerTradeAgreement = doc.getSupplyChainTradeTransaction().getApplicableHeaderTradeAgreement();
 		List<ReferencedDocumentType> referencedDocuments = headerTradeAgreement.getAdditionalReferencedDocument();
-		List<ReferencedDocument> result = new ArrayList<ReferencedDocument>();
-		if(referencedDocuments.isEmpty()) {
-			return result;
-		}
+		List<ReferencedDocument> result = new ArrayList<ReferencedDocument>(referencedDocuments.size());
 		referencedDocuments.forEach(refDoc -> {
-			IDType issuerAssignedID = refDoc.getIssuerAssignedID();
-			DocumentCodeType documentCode = refDoc.getTypeCode(); 
-			// documentCode.getValue() == 916 ==> BT-122
-			// sonst ist es BT-17 oder BT-18
-			LOG.fine("referencedDocument DocumentCode="+documentCode.getValue()+" IssuerAssignedID="+issuerAssignedID.getValue());
-			ReferencedDocument rd = new ReferencedDocument(issuerAssignedID.getValue(), documentCode.getValue(), null);
-			
-			List<TextType> texts = refDoc.getName();
-			texts.forEach(text -> {
-				rd.getName().add(text);
-			});
-			
-			List<BinaryObjectType> binaryObjects = refDoc.getAttachmentBinaryObject();
-			binaryObjects.forEach(bo -> {
-				BinaryObjectType bot = new BinaryObjectType();
-				bot.setValue(bo.getValue());
-				bot.setMimeCode(bo.getMimeCode());
-				bot.setFilename(bo.getFilename());
-				rd.getAttachmentBinaryObject().add(bot);
-			});
-			
-			result.add(rd);
+			result.add(toReferencedDocument(refDoc));
 		});
 		return result;
 	}
+	private static ReferencedDocument toReferencedDocument(ReferencedDocumentType refDoc) {
+		IDType issuerAssignedID = refDoc.getIssuerAssignedID();
+		DocumentCodeType documentCode = refDoc.getTypeCode(); 
+		// documentCode.getValue() == 916 ==> BT-122
+		// sonst ist es BT-17 oder BT-18
+		LOG.fine("referencedDocument DocumentCode="+documentCode.getValue()+" IssuerAssignedID="+issuerAssignedID.getValue());
+		ReferencedDocument rd = new ReferencedDocument(issuerAssignedID.getValue(), documentCode.getValue(), null);
+		
+		List<TextType> texts = refDoc.getName();
+		texts.forEach(text -> {
+			rd.getName().add(text);
+		});
+		
+		// the binary objects are shared with the invoice, content and references set in rd write through.
+		// Only the list is a copy, so ReferencedDocument changes the objects in place
+		rd.getAttachmentBinaryObject().addAll(refDoc.getAttachmentBinaryObject());
+		
+		return rd;
+	}
 
 	/* INVOICE LINE                                BG-25                       1..* (mandatory)
 	 * Eine Gruppe von Informationselementen, die Informationen über einzelne Rechnungspositionen liefern.
@@ -1270,12 +1347,55 @@ Code Codename
 	 */
 	@Override
 	public void addLine(CoreInvoiceLine line) {
-		supplyChainTradeTransaction.getIncludedSupplyChainTradeLineItem().add((TradeLineItem)line);
+		TradeLineItem tradeLineItem = (TradeLineItem)line;
+		checkNoLineSource();
+		getTotalsCalculator().add(tradeLineItem);
+		supplyChainTradeTransaction.getIncludedSupplyChainTradeLineItem().add(tradeLineItem);
 	}
 	
 	public void addLine(SupplyChainTradeLineItemType line) {
+		checkNoLineSource();
+		if(line instanceof TradeLineItem) {
+			getTotalsCalculator().add((TradeLineItem)line);
+		} else {
+			addToTotals(line);
+		}
 		supplyChainTradeTransaction.getIncludedSupplyChainTradeLineItem().add(line);
-		super.setSupplyChainTradeTransaction(supplyChainTradeTransaction);
+	}
+
+	// BT-131, BT-151 and BT-152 read from the jaxb line, without a TradeLineItem copy per line
+	private void addToTotals(SupplyChainTradeLineItemType line) {
+		BigDecimal amount = null;
+		TaxCategoryCode code = null;
+		BigDecimal rate = null;
+		LineTradeSettlementType settlement = line.getSpecifiedLineTradeSettlement();
+		if(settlement!=null) {
+			TradeSettlementLineMonetarySummationType summation = settlement.getSpecifiedTradeSettlementLineMonetarySummation();
+			if(summation!=null && !summation.getLineTotalAmount().isEmpty()) {
+				amount = summation.getLineTotalAmount().get(0).getValue();
+			}
+			if(!settlement.getApplicableTradeTax().isEmpty()) {
+				TradeTaxType tradeTax = settlement.getApplicableTradeTax().get(0);
+				code = tradeTax.getCategoryCode()==null ? null : TaxCategoryCode.valueOf(tradeTax.getCategoryCode());
+				rate = tradeTax.getRateApplicablePercent()==null ? null : tradeTax.getRateApplicablePercent().getValue();
+			}
+		}
+		getTotalsCalculator().addLine(amount, code, rate);
+	}
+
+	// a line added to the document would be neither in getLines() nor marshalled
+	private void checkNoLineSource() {
+		if(lineSource!=null) {
+			throw new IllegalStateException("line source is set, add the line to the source");
+		}
+	}
+
+	@Override
+	public void ensureLineCapacity(int additionalLines) {
+		List<SupplyChainTradeLineItemType> lines = supplyChainTradeTransaction.getIncludedSupplyChainTradeLineItem();
+		if(lines instanceof ArrayList) {
+			((ArrayList<SupplyChainTradeLineItemType>)lines).ensureCapacity((int)Math.min(Integer.MAX_VALUE, (long)lines.size()+additionalLines));
+		}
 	}
 
 	public void addLines(CrossIndustryInvoiceType doc) {
@@ -1286,13 +1406,46 @@ Code Codename
 		});
 	}
 
+	/**
+	 * lines which are not held in the document, f.i. unmarshalled on demand by com.klst.marshaller.LazyLines.
+	 * getLines() returns this list, the transformer marshals the lines from it.
+	 * While a line source is set addLine throws IllegalStateException, the lines are added to the source.
+	 *
+	 * @param lines or null to use the lines of the document
+	 */
+	public void setLineSource(List<CoreInvoiceLine> lines) {
+		lineSource = lines;
+		totalsCalculator = null;
+	}
+
+	/**
+	 * @return the lines set by setLineSource, null if the lines are held in the document
+	 */
+	public List<CoreInvoiceLine> getLineSource() {
+		return lineSource;
+	}
+
+	/**
+	 * @return live read-only view of the lines, or the line source
+	 */
 	public List<CoreInvoiceLine> getLines() {
-		List<SupplyChainTradeLineItemType> lines = supplyChainTradeTransaction.getIncludedSupplyChainTradeLineItem();
-		List<CoreInvoiceLine> resultLines = new ArrayList<CoreInvoiceLine>(lines.size());
-		lines.forEach(line -> {
-			resultLines.add(TradeLineItem.create(line));
-		});
-		return resultLines;
+		return lineSource!=null ? lineSource : lines;
+	}
+
+	@Override
+	public CoreInvoiceLine getLine(String id) {
+		if(lineSource instanceof LineLookup) {
+			return ((LineLookup)lineSource).getLine(id);
+		}
+		return lineIdIndex.first(id);
+	}
+	@Override
+	public List<CoreInvoiceLine> findLinesByOrderLineId(String orderLineId) {
+		return orderLineIdIndex.find(orderLineId);
+	}
+	@Override
+	public List<CoreInvoiceLine> findLinesBySellerItemId(String sellerItemId) {
+		return sellerItemIdIndex.find(sellerItemId);
 	}
 	static List<TradeLineItem> getLines(CrossIndustryInvoiceType doc) {
 		List<SupplyChainTradeLineItemType> lines = doc.getSupplyChainTradeTransaction().getIncludedSupplyChainTradeLineItem();
@@ -0,0 +1,115 @@
+package com.klst.einvoice.unece.uncefact;
+
+import javax.xml.bind.Unmarshaller;
+
+import un.unece.uncefact.data.standard.crossindustryinvoice._100.CrossIndustryInvoiceType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.HeaderTradeDeliveryType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.HeaderTradeSettlementType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.NoteType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.SupplyChainTradeLineItemType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.TradeAddressType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.TradeAllowanceChargeType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.TradeContactType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.TradePartyType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.TradePaymentTermsType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.TradeSettlementFinancialCardType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.TradeSettlementPaymentMeansType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.TradeTaxType;
+import un.unece.uncefact.data.standard.unqualifieddatatype._100.BinaryObjectType;
+import un.unece.uncefact.data.standard.unqualifieddatatype._100.TextType;
+
+/**
+ * Lets the JAXB unmarshaller create the domain classes of this package instead of the generated CII types,
+ * so a parsed document is a tree of CrossIndustryInvoice, TradeLineItem, TradeParty, TradeTax, ...
+ * and the copy factories return the unmarshalled objects unchanged.
+ * <p>
+ * The JAXB reference implementation calls the public no-arg create methods of the object
+ * set as unmarshaller property "com.sun.xml.internal.bind.ObjectFactory", the method is chosen by its return type.
+ * Domain members which the copy ctors derive from the JAXB content are initialized
+ * in {@link #afterUnmarshal(Object, Object)}, so the object must also be set as unmarshaller listener.
+ * <p>
+ * Generated types with more than one or without domain class, for example ReferencedDocumentType or AmountType,
+ * are created by JAXB and copied on access as before.
+ */
+public class DomainObjectFactory extends Unmarshaller.Listener {
+
+	public CrossIndustryInvoiceType createCrossIndustryInvoiceType() {
+		return new CrossIndustryInvoice();
+	}
+
+	public HeaderTradeSettlementType createHeaderTradeSettlementType() {
+		return new HeaderTradeSettlement();
+	}
+
+	public HeaderTradeDeliveryType createHeaderTradeDeliveryType() {
+		return new HeaderTradeDelivery();
+	}
+
+	public SupplyChainTradeLineItemType createSupplyChainTradeLineItemType() {
+		return new TradeLineItem();
+	}
+
+	public TradePartyType createTradePartyType() {
+		return new TradeParty();
+	}
+
+	public TradeAddressType createTradeAddressType() {
+		return new TradeAddress();
+	}
+
+	public TradeContactType createTradeContactType() {
+		return new TradeContact();
+	}
+
+	public TradePaymentTermsType createTradePaymentTermsType() {
+		return new TradePaymentTerms();
+	}
+
+	public TradeSettlementFinancialCardType createTradeSettlementFinancialCardType() {
+		return new TradeSettlementFinancialCard();
+	}
+
+	public TradeSettlementPaymentMeansType createTradeSettlementPaymentMeansType() {
+		return new TradeSettlementPaymentMeans();
+	}
+
+	public TradeTaxType createTradeTaxType() {
+		return new TradeTax();
+	}
+
+	public TradeAllowanceChargeType createTradeAllowanceChargeType() {
+		return new TradeAllowanceCharge();
+	}
+
+	public NoteType createNoteType() {
+		return new Note();
+	}
+
+	public TextType createTextType() {
+		return new Text();
+	}
+
+	public BinaryObjectType createBinaryObjectType() {
+		return new AttachmentBinaryObject();
+	}
+
+	/*
+	 * the children are unmarshalled before their parent,
+	 * f.i. the ShipToTradeParty is a TradeParty when HeaderTradeDelivery.init is called
+	 */
+	@Override
+	public void afterUnmarshal(Object target, Object parent) {
+		if(target instanceof TradeLineItem) {
+			((TradeLineItem)target).init();
+		} else if(target instanceof TradeAllowanceCharge) {
+			((TradeAllowanceCharge)target).init();
+		} else if(target instanceof HeaderTradeDelivery) {
+			((HeaderTradeDelivery)target).init();
+		} else if(target instanceof HeaderTradeSettlement) {
+			((HeaderTradeSettlement)target).init();
+		} else if(target instanceof CrossIndustryInvoice) {
+			((CrossIndustryInvoice)target).init();
+		}
+	}
+
+}
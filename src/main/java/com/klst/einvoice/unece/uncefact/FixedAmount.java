@@ -0,0 +1,180 @@
+package com.klst.einvoice.unece.uncefact;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import un.unece.uncefact.data.specification.corecomponenttypeschemamodule._2.AmountType;
+
+/**
+ * Immutable amount for summing and comparing, the companion of {@link Amount} and {@link UnitPriceAmount}
+ * <p>
+ * The value is a {@link FixedDecimal} with scale {@link Amount#SCALE} or {@link UnitPriceAmount#SCALE},
+ * the conversions from and to the JAXB amount types are lossless, the value is rounded only by {@link #round()}.
+ * <p>
+ * Example:
+ * <pre>
+ * FixedAmount total = FixedAmount.zero("EUR");
+ * for(CoreInvoiceLine line : invoice.getLines()) {
+ *     total = total.add(FixedAmount.valueOf(line.getLineTotalAmount()));
+ * }
+ * </pre>
+ */
+public final class FixedAmount implements Comparable<FixedAmount> {
+
+	private final String currencyID;
+	private final FixedDecimal value;
+
+	private FixedAmount(String currencyID, FixedDecimal value) {
+		this.currencyID = currencyID;
+		this.value = value;
+	}
+
+	/**
+	 * @param currencyID can be null
+	 * @return amount 0.00
+	 */
+	public static FixedAmount zero(String currencyID) {
+		return new FixedAmount(currencyID, FixedDecimal.valueOf(0, Amount.SCALE));
+	}
+
+	/**
+	 * @param currencyID can be null
+	 * @param value not null
+	 * @return amount with scale 2 or more, if value has more fraction digits
+	 */
+	public static FixedAmount valueOf(String currencyID, BigDecimal value) {
+		return new FixedAmount(currencyID, FixedDecimal.valueOf(value, Amount.SCALE));
+	}
+
+	/**
+	 * @param amount Amount or UnitPriceAmount, not null
+	 * @return amount with scale 2 or 4 for a unit price
+	 */
+	public static FixedAmount valueOf(AmountType amount) {
+		int scale = amount instanceof UnitPriceAmount ? UnitPriceAmount.SCALE : Amount.SCALE;
+		return new FixedAmount(amount.getCurrencyID(), FixedDecimal.valueOf(amount.getValue(), scale));
+	}
+
+	/**
+	 * @param amount CII amount, not null
+	 * @return amount with scale 2 or more, if the value has more fraction digits
+	 */
+	public static FixedAmount valueOf(un.unece.uncefact.data.standard.unqualifieddatatype._100.AmountType amount) {
+		return valueOf(amount.getCurrencyID(), amount.getValue());
+	}
+
+	/**
+	 * @param amount UBL amount, not null
+	 * @return amount with scale 2 or more, if the value has more fraction digits
+	 */
+	public static FixedAmount valueOf(oasis.names.specification.ubl.schema.xsd.unqualifieddatatypes_2.AmountType amount) {
+		return valueOf(amount.getCurrencyID(), amount.getValue());
+	}
+
+	public String getCurrencyID() {
+		return currencyID;
+	}
+
+	public FixedDecimal getValue() {
+		return value;
+	}
+
+	/**
+	 * @param other amount in the same currency or without currency
+	 * @return the sum with the currency of this or other
+	 */
+	public FixedAmount add(FixedAmount other) {
+		return new FixedAmount(currency(other), value.add(other.value));
+	}
+
+	/**
+	 * @param other amount in the same currency or without currency
+	 * @return the difference with the currency of this or other
+	 */
+	public FixedAmount subtract(FixedAmount other) {
+		return new FixedAmount(currency(other), value.subtract(other.value));
+	}
+
+	public FixedAmount negate() {
+		return new FixedAmount(currencyID, value.negate());
+	}
+
+	/**
+	 * @return the amount rounded HALF_UP to Amount.SCALE
+	 */
+	public FixedAmount round() {
+		return value.scale()==Amount.SCALE && value.isCompact() ? this : new FixedAmount(currencyID, value.setScale(Amount.SCALE, RoundingMode.HALF_UP));
+	}
+
+	public int signum() {
+		return value.signum();
+	}
+
+	/**
+	 * compares the values, the currencies are not compared
+	 */
+	@Override
+	public int compareTo(FixedAmount other) {
+		return value.compareTo(other.value);
+	}
+
+	/**
+	 * @return the value as BigDecimal, not rounded
+	 */
+	public BigDecimal toBigDecimal() {
+		return value.toBigDecimal();
+	}
+
+	/**
+	 * @return new Amount with the value of this, not rounded
+	 */
+	public Amount toAmount() {
+		return new Amount(currencyID, value.toBigDecimal());
+	}
+
+	/**
+	 * @return new UnitPriceAmount with the value of this, not rounded
+	 */
+	public UnitPriceAmount toUnitPriceAmount() {
+		return new UnitPriceAmount(currencyID, value.toBigDecimal());
+	}
+
+	public void copyTo(un.unece.uncefact.data.standard.unqualifieddatatype._100.AmountType amount) {
+		amount.setCurrencyID(currencyID);
+		amount.setValue(value.toBigDecimal());
+	}
+
+	public void copyTo(oasis.names.specification.ubl.schema.xsd.unqualifieddatatypes_2.AmountType amount) {
+		amount.setCurrencyID(currencyID);
+		amount.setValue(value.toBigDecimal());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(this==obj) return true;
+		if(!(obj instanceof FixedAmount)) return false;
+		FixedAmount other = (FixedAmount)obj;
+		return value.equals(other.value) && (currencyID==null ? other.currencyID==null : currencyID.equals(other.currencyID));
+	}
+
+	@Override
+	public int hashCode() {
+		return 31*value.hashCode() + (currencyID==null ? 0 : currencyID.hashCode());
+	}
+
+	@Override
+	public String toString() {
+		return currencyID==null ? value.toString() : currencyID + value;
+	}
+
+	// -- private
+
+	private String currency(FixedAmount other) {
+		if(currencyID==null) return other.currencyID;
+		if(other.currencyID!=null && !currencyID.equals(other.currencyID)) {
+			throw new IllegalArgumentException("currency "+other.currencyID+" is not "+currencyID);
+		}
+		return currencyID;
+	}
+
+}
@@ -0,0 +1,280 @@
+package com.klst.einvoice.unece.uncefact;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Immutable fixed-point decimal number, the value is unscaled / 10^scale.
+ * <p>
+ * The unscaled value is held in a long, so adding, subtracting and comparing does not allocate BigDecimals.
+ * Values that do not fit into a long with the given scale, f.i. an amount with more than 2 fraction digits
+ * or more than 18 digits, are held as BigDecimal. Overflows of the long arithmetic are detected
+ * and the result falls back to BigDecimal, so no value is lost.
+ * <p>
+ * Two numbers are equal if they have the same value, 1.5 equals 1.50.
+ *
+ * @see Amount#SCALE
+ * @see UnitPriceAmount#SCALE
+ * @see Quantity#SCALE
+ */
+public final class FixedDecimal implements Comparable<FixedDecimal> {
+
+	// 10^18 is the largest power of ten in a long
+	private static final int MAX_SCALE = 18;
+	private static final long[] POW10 = new long[MAX_SCALE+1];
+	static {
+		POW10[0] = 1;
+		for(int i=1; i<=MAX_SCALE; i++) {
+			POW10[i] = POW10[i-1] * 10;
+		}
+	}
+
+	public static final FixedDecimal ZERO = new FixedDecimal(0, 0, null);
+
+	private final long unscaled;
+	private final int scale;
+	// not null if the value does not fit into unscaled
+	private final BigDecimal big;
+
+	private FixedDecimal(long unscaled, int scale, BigDecimal big) {
+		this.unscaled = unscaled;
+		this.scale = scale;
+		this.big = big;
+	}
+
+	/**
+	 * @param unscaled
+	 * @param scale 0 to 18
+	 * @return unscaled / 10^scale
+	 */
+	public static FixedDecimal valueOf(long unscaled, int scale) {
+		if(scale<0 || scale>MAX_SCALE) {
+			throw new IllegalArgumentException("scale "+scale+" not in 0 to "+MAX_SCALE);
+		}
+		return new FixedDecimal(unscaled, scale, null);
+	}
+
+	/**
+	 * lossless conversion, the value is not rounded
+	 *
+	 * @param value not null
+	 * @param scale 0 to 18, f.i. Amount.SCALE
+	 * @return value with the given scale if it has no more fraction digits, otherwise with the scale of value
+	 */
+	public static FixedDecimal valueOf(BigDecimal value, int scale) {
+		if(scale<0 || scale>MAX_SCALE) {
+			throw new IllegalArgumentException("scale "+scale+" not in 0 to "+MAX_SCALE);
+		}
+		if(value.signum()==0) {
+			return new FixedDecimal(0, scale, null);
+		}
+		BigDecimal v = value;
+		if(v.scale()>scale) {
+			// 1.500 has only one fraction digit
+			v = v.stripTrailingZeros();
+			if(v.scale()>scale) {
+				return new FixedDecimal(0, scale, value);
+			}
+		}
+		int digits = v.precision()-v.scale()+scale;
+		if(digits > MAX_SCALE+1) {
+			return new FixedDecimal(0, scale, value);
+		} else if(digits > MAX_SCALE) {
+			// 19 digits fit into a long up to Long.MAX_VALUE
+			BigInteger u = v.setScale(scale).unscaledValue();
+			return u.bitLength()<64 ? new FixedDecimal(u.longValue(), scale, null) : new FixedDecimal(0, scale, value);
+		}
+		long u = v.scale()>0 ? v.movePointRight(v.scale()).longValue() : v.longValue();
+		return new FixedDecimal(u * POW10[scale-Math.max(0, v.scale())], scale, null);
+	}
+
+	/**
+	 * @return the scale, the number of fraction digits
+	 */
+	public int scale() {
+		return scale;
+	}
+
+	/**
+	 * @return the value * 10^scale
+	 * @throws ArithmeticException if the value is not held in a long
+	 */
+	public long unscaledValue() {
+		if(big!=null) {
+			throw new ArithmeticException(big+" does not fit into a long with scale "+scale);
+		}
+		return unscaled;
+	}
+
+	/**
+	 * @return true if the value is held in a long, false if it is held as BigDecimal
+	 */
+	public boolean isCompact() {
+		return big==null;
+	}
+
+	public FixedDecimal add(FixedDecimal other) {
+		if(big==null && other.big==null) {
+			int s = Math.max(scale, other.scale);
+			try {
+				return new FixedDecimal(Math.addExact(rescale(unscaled, scale, s), rescale(other.unscaled, other.scale, s)), s, null);
+			} catch(ArithmeticException e) {
+				// overflow
+			}
+		}
+		return valueOf(toBigDecimal().add(other.toBigDecimal()), Math.max(scale, other.scale));
+	}
+
+	public FixedDecimal subtract(FixedDecimal other) {
+		return add(other.negate());
+	}
+
+	public FixedDecimal negate() {
+		if(big==null && unscaled!=Long.MIN_VALUE) {
+			return new FixedDecimal(-unscaled, scale, null);
+		}
+		return valueOf(toBigDecimal().negate(), scale);
+	}
+
+	/**
+	 * @param other
+	 * @return exact product with the sum of the scales
+	 */
+	public FixedDecimal multiply(FixedDecimal other) {
+		int s = scale + other.scale;
+		if(big==null && other.big==null && s<=MAX_SCALE) {
+			try {
+				return new FixedDecimal(Math.multiplyExact(unscaled, other.unscaled), s, null);
+			} catch(ArithmeticException e) {
+				// overflow
+			}
+		}
+		return valueOf(toBigDecimal().multiply(other.toBigDecimal()), Math.min(s, MAX_SCALE));
+	}
+
+	/**
+	 * @param n
+	 * @return this / 10^n, exact
+	 */
+	public FixedDecimal movePointLeft(int n) {
+		if(big==null && n>=0 && scale+n<=MAX_SCALE) {
+			return new FixedDecimal(unscaled, scale+n, null);
+		}
+		return valueOf(toBigDecimal().movePointLeft(n), Math.max(0, Math.min(scale+n, MAX_SCALE)));
+	}
+
+	/**
+	 * @param newScale 0 to 18
+	 * @param roundingMode used if fraction digits are cut off
+	 * @return value with newScale
+	 */
+	public FixedDecimal setScale(int newScale, RoundingMode roundingMode) {
+		if(newScale<0 || newScale>MAX_SCALE) {
+			throw new IllegalArgumentException("scale "+newScale+" not in 0 to "+MAX_SCALE);
+		}
+		if(big==null) {
+			if(newScale==scale) {
+				return this;
+			} else if(newScale>scale) {
+				try {
+					return new FixedDecimal(rescale(unscaled, scale, newScale), newScale, null);
+				} catch(ArithmeticException e) {
+					// overflow
+				}
+			} else if(roundingMode==RoundingMode.HALF_UP) {
+				long divisor = POW10[scale-newScale];
+				long q = unscaled / divisor;
+				long r = Math.abs(unscaled % divisor);
+				if(r >= divisor-r) {
+					q += Long.signum(unscaled);
+				}
+				return new FixedDecimal(q, newScale, null);
+			}
+		}
+		return valueOf(toBigDecimal().setScale(newScale, roundingMode), newScale);
+	}
+
+	public int signum() {
+		return big==null ? Long.signum(unscaled) : big.signum();
+	}
+
+	@Override
+	public int compareTo(FixedDecimal other) {
+		if(big==null && other.big==null) {
+			int s = Math.max(scale, other.scale);
+			try {
+				return Long.compare(rescale(unscaled, scale, s), rescale(other.unscaled, other.scale, s));
+			} catch(ArithmeticException e) {
+				// overflow
+			}
+		}
+		return toBigDecimal().compareTo(other.toBigDecimal());
+	}
+
+	/**
+	 * @return the value as BigDecimal with the scale of this
+	 */
+	public BigDecimal toBigDecimal() {
+		return big==null ? BigDecimal.valueOf(unscaled, scale) : big;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(this==obj) return true;
+		if(!(obj instanceof FixedDecimal)) return false;
+		return compareTo((FixedDecimal)obj)==0;
+	}
+
+	@Override
+	public int hashCode() {
+		if(big!=null) {
+			// the same hash as a compact number with the same value
+			BigDecimal n = big.stripTrailingZeros();
+			if(n.scale()<0) n = n.setScale(0);
+			return n.unscaledValue().bitLength()<64 ? hashCode(n.unscaledValue().longValue(), n.scale()) : n.hashCode();
+		}
+		long u = unscaled;
+		int s = scale;
+		while(s>0 && u%10==0) {
+			u /= 10;
+			s--;
+		}
+		return hashCode(u, s);
+	}
+
+	@Override
+	public String toString() {
+		if(big!=null) {
+			return big.toPlainString();
+		}
+		if(scale==0) {
+			return Long.toString(unscaled);
+		}
+		StringBuilder sb = new StringBuilder(21);
+		// Long.MIN_VALUE has no positive counterpart
+		String digits = Long.toString(unscaled);
+		int start = unscaled<0 ? 1 : 0;
+		if(start>0) sb.append('-');
+		int intDigits = digits.length()-start-scale;
+		if(intDigits<=0) {
+			sb.append('0').append('.');
+			for(int i=intDigits; i<0; i++) sb.append('0');
+			sb.append(digits, start, digits.length());
+		} else {
+			sb.append(digits, start, start+intDigits).append('.').append(digits, start+intDigits, digits.length());
+		}
+		return sb.toString();
+	}
+
+	// -- private
+
+	private static int hashCode(long unscaled, int scale) {
+		return 31*Long.hashCode(unscaled) + scale;
+	}
+
+	private static long rescale(long unscaled, int scale, int newScale) {
+		return newScale==scale ? unscaled : Math.multiplyExact(unscaled, POW10[newScale-scale]);
+	}
+
+}
@@ -0,0 +1,164 @@
+package com.klst.einvoice.unece.uncefact;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import un.unece.uncefact.data.specification.corecomponenttypeschemamodule._2.QuantityType;
+
+/**
+ * Immutable quantity for summing and comparing, the companion of {@link Quantity}
+ * <p>
+ * The value is a {@link FixedDecimal} with scale {@link Quantity#SCALE},
+ * the conversions from and to the JAXB quantity types are lossless, the value is rounded only by {@link #round()}.
+ */
+public final class FixedQuantity implements Comparable<FixedQuantity> {
+
+	private final String unitCode;
+	private final FixedDecimal value;
+
+	private FixedQuantity(String unitCode, FixedDecimal value) {
+		this.unitCode = unitCode;
+		this.value = value;
+	}
+
+	/**
+	 * @param unitCode can be null
+	 * @return quantity 0.0000
+	 */
+	public static FixedQuantity zero(String unitCode) {
+		return new FixedQuantity(unitCode, FixedDecimal.valueOf(0, Quantity.SCALE));
+	}
+
+	/**
+	 * @param unitCode can be null
+	 * @param value not null
+	 * @return quantity with scale 4 or more, if value has more fraction digits
+	 */
+	public static FixedQuantity valueOf(String unitCode, BigDecimal value) {
+		return new FixedQuantity(unitCode, FixedDecimal.valueOf(value, Quantity.SCALE));
+	}
+
+	/**
+	 * @param quantity Quantity, not null
+	 * @return quantity with scale 4 or more, if the value has more fraction digits
+	 */
+	public static FixedQuantity valueOf(QuantityType quantity) {
+		return valueOf(quantity.getUnitCode(), quantity.getValue());
+	}
+
+	/**
+	 * @param quantity CII quantity, not null
+	 * @return quantity with scale 4 or more, if the value has more fraction digits
+	 */
+	public static FixedQuantity valueOf(un.unece.uncefact.data.standard.unqualifieddatatype._100.QuantityType quantity) {
+		return valueOf(quantity.getUnitCode(), quantity.getValue());
+	}
+
+	/**
+	 * @param quantity UBL quantity, not null
+	 * @return quantity with scale 4 or more, if the value has more fraction digits
+	 */
+	public static FixedQuantity valueOf(oasis.names.specification.ubl.schema.xsd.unqualifieddatatypes_2.QuantityType quantity) {
+		return valueOf(quantity.getUnitCode(), quantity.getValue());
+	}
+
+	public String getUnitCode() {
+		return unitCode;
+	}
+
+	public FixedDecimal getValue() {
+		return value;
+	}
+
+	/**
+	 * @param other quantity in the same unit or without unit
+	 * @return the sum with the unit of this or other
+	 */
+	public FixedQuantity add(FixedQuantity other) {
+		return new FixedQuantity(unit(other), value.add(other.value));
+	}
+
+	/**
+	 * @param other quantity in the same unit or without unit
+	 * @return the difference with the unit of this or other
+	 */
+	public FixedQuantity subtract(FixedQuantity other) {
+		return new FixedQuantity(unit(other), value.subtract(other.value));
+	}
+
+	public FixedQuantity negate() {
+		return new FixedQuantity(unitCode, value.negate());
+	}
+
+	/**
+	 * @return the quantity rounded HALF_UP to Quantity.SCALE
+	 */
+	public FixedQuantity round() {
+		return value.scale()==Quantity.SCALE && value.isCompact() ? this : new FixedQuantity(unitCode, value.setScale(Quantity.SCALE, RoundingMode.HALF_UP));
+	}
+
+	public int signum() {
+		return value.signum();
+	}
+
+	/**
+	 * compares the values, the units are not compared
+	 */
+	@Override
+	public int compareTo(FixedQuantity other) {
+		return value.compareTo(other.value);
+	}
+
+	/**
+	 * @return the value as BigDecimal, not rounded
+	 */
+	public BigDecimal toBigDecimal() {
+		return value.toBigDecimal();
+	}
+
+	/**
+	 * @return new Quantity with the value of this, not rounded
+	 */
+	public Quantity toQuantity() {
+		return new Quantity(unitCode, value.toBigDecimal());
+	}
+
+	public void copyTo(un.unece.uncefact.data.standard.unqualifieddatatype._100.QuantityType quantity) {
+		quantity.setUnitCode(unitCode);
+		quantity.setValue(value.toBigDecimal());
+	}
+
+	public void copyTo(oasis.names.specification.ubl.schema.xsd.unqualifieddatatypes_2.QuantityType quantity) {
+		quantity.setUnitCode(unitCode);
+		quantity.setValue(value.toBigDecimal());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(this==obj) return true;
+		if(!(obj instanceof FixedQuantity)) return false;
+		FixedQuantity other = (FixedQuantity)obj;
+		return value.equals(other.value) && (unitCode==null ? other.unitCode==null : unitCode.equals(other.unitCode));
+	}
+
+	@Override
+	public int hashCode() {
+		return 31*value.hashCode() + (unitCode==null ? 0 : unitCode.hashCode());
+	}
+
+	@Override
+	public String toString() {
+		return unitCode==null ? value.toString() : value + unitCode;
+	}
+
+	// -- private
+
+	private String unit(FixedQuantity other) {
+		if(unitCode==null) return other.unitCode;
+		if(other.unitCode!=null && !unitCode.equals(other.unitCode)) {
+			throw new IllegalArgumentException("unit "+other.unitCode+" is not "+unitCode);
+		}
+		return unitCode;
+	}
+
+}
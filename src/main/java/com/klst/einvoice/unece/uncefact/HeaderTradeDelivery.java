@@ -1,6 +1,7 @@
 package com.klst.einvoice.unece.uncefact;
 
 import java.sql.Timestamp;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.ebXml.reflection.SCopyCtor;
@@ -42,16 +43,26 @@ public class HeaderTradeDelivery extends HeaderTradeDeliveryType implements BG13
 
 	private static final Logger LOG = Logger.getLogger(HeaderTradeDelivery.class.getName());
 	
+	// ctor for the unmarshaller, see DomainObjectFactory
+	HeaderTradeDelivery() {
+		super();
+	}
+
 	// copy ctor
 	private HeaderTradeDelivery(HeaderTradeDeliveryType delivery) {
 		super();
 		if(delivery!=null) {
 			SCopyCtor.getInstance().invokeCopy(this, delivery);
-			LOG.info("copy ctor:"+this);
+			if(LOG.isLoggable(Level.INFO)) LOG.info("copy ctor:"+this);
 		}
+		init();
+	}
+
+	// ShipToTradeParty as domain object, after copy ctor or unmarshal
+	void init() {
 		TradePartyType tradeParty = super.getShipToTradeParty();
 		party = tradeParty==null ? null : TradeParty.create(tradeParty);
-		LOG.fine("copy ctor ShipToTradeParty:"+party + " delivery.ActualDate ts:"+getActualDate());
+		if(LOG.isLoggable(Level.FINE)) LOG.fine("copy ctor ShipToTradeParty:"+party + " delivery.ActualDate ts:"+getActualDate());
 		setParty(party);	
 	}
 
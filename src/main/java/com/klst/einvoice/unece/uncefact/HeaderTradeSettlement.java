@@ -3,6 +3,7 @@ package com.klst.einvoice.unece.uncefact;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.ebXml.reflection.SCopyCtor;
@@ -12,6 +13,7 @@ import com.klst.einvoice.CreditTransfer;
 import com.klst.einvoice.CreditTransferFactory;
 import com.klst.einvoice.DirectDebit;
 import com.klst.einvoice.DirectDebitFactory;
+import com.klst.einvoice.ListView;
 import com.klst.einvoice.PaymentCard;
 import com.klst.einvoice.PaymentInstructions;
 import com.klst.einvoice.PaymentInstructionsFactory;
@@ -159,7 +161,7 @@ public class HeaderTradeSettlement extends HeaderTradeSettlementType
 		return new HeaderTradeSettlement(null);
 	}
 	// copy ctor:
-	static HeaderTradeSettlement create(HeaderTradeSettlementType object) {
+	public static HeaderTradeSettlement create(HeaderTradeSettlementType object) {
 		if(object instanceof HeaderTradeSettlementType && object.getClass()!=HeaderTradeSettlementType.class) {
 			// object is instance of a subclass of HeaderTradeSettlementType, but not HeaderTradeSettlementType itself
 			return (HeaderTradeSettlement)object;
@@ -175,22 +177,33 @@ public class HeaderTradeSettlement extends HeaderTradeSettlementType
 	// das erste element der Liste applicableTradeTax aus super, die anderen werden nicht genutzt
 	TradeTax tradeTax = null;
 
+	private final List<AllowancesAndCharges> allowancesAndCharges = new ListView<TradeAllowanceChargeType, AllowancesAndCharges>(
+			this::getSpecifiedTradeAllowanceCharge, TradeAllowanceCharge::create);
+
+	// ctor for the unmarshaller, see DomainObjectFactory
+	HeaderTradeSettlement() {
+		super();
+	}
+
 	// copy ctor
 	private HeaderTradeSettlement(HeaderTradeSettlementType doc) {
 		super();
 		if(doc!=null) {
 			SCopyCtor.getInstance().invokeCopy(this, doc);
-			
-			TradePaymentTermsType tpt = doc.getSpecifiedTradePaymentTerms().isEmpty() ? null : doc.getSpecifiedTradePaymentTerms().get(0);
-			tradePaymentTerms = TradePaymentTerms.create(tpt);
-			
-			TradeTaxType tt = doc.getApplicableTradeTax().isEmpty() ? null : doc.getApplicableTradeTax().get(0);
-			tradeTax = TradeTax.create(tt); 
-			
-			LOG.fine("copy ctor:"+this); // TODO toString	
+			init();
+			if(LOG.isLoggable(Level.FINE)) LOG.fine("copy ctor:"+this); // TODO toString	
 		}
 
 	}
+
+	// first payment terms and trade tax, after copy ctor or unmarshal
+	void init() {
+		TradePaymentTermsType tpt = getSpecifiedTradePaymentTerms().isEmpty() ? null : getSpecifiedTradePaymentTerms().get(0);
+		tradePaymentTerms = TradePaymentTerms.create(tpt);
+		
+		TradeTaxType tt = getApplicableTradeTax().isEmpty() ? null : getApplicableTradeTax().get(0);
+		tradeTax = TradeTax.create(tt); 
+	}
 	
 	TradePaymentTerms getTradePaymentTerms() {
 		return tradePaymentTerms;
@@ -602,12 +615,7 @@ in super gibt es 0..n <ram:SpecifiedTradeSettlementPaymentMeans> - Objekte
 		super.getSpecifiedTradeAllowanceCharge().add((TradeAllowanceCharge)allowanceOrCharge); // ram:SpecifiedTradeAllowanceCharge
 	}
 	public List<AllowancesAndCharges> getAllowancesAndCharges() {
-		List<TradeAllowanceChargeType> list = super.getSpecifiedTradeAllowanceCharge();
-		List<AllowancesAndCharges> res = new ArrayList<AllowancesAndCharges>(list.size());
-		list.forEach(stac -> {
-			res.add(TradeAllowanceCharge.create(stac));
-		});
-		return res;
+		return allowancesAndCharges;
 	}
 
 // ---------------- TODO BG22
@@ -647,6 +655,18 @@ in super gibt es 0..n <ram:SpecifiedTradeSettlementPaymentMeans> - Objekte
 			getSpecifiedTradeSettlementHeaderMonetarySummation().getDuePayableAmount().add(payableAmt); // add to list
 		}
 	}
+	// removes BT-106 to BT-112 and BT-115, keeps BT-113 and BT-114 - used by CrossIndustryInvoice.recalculate
+	void removeCalculatedTotals() {
+		TradeSettlementHeaderMonetarySummationType gesamtsummen = super.getSpecifiedTradeSettlementHeaderMonetarySummation();
+		if(gesamtsummen==null) return;
+		gesamtsummen.getLineTotalAmount().clear();
+		gesamtsummen.getAllowanceTotalAmount().clear();
+		gesamtsummen.getChargeTotalAmount().clear();
+		gesamtsummen.getTaxBasisTotalAmount().clear();
+		gesamtsummen.getTaxTotalAmount().clear();
+		gesamtsummen.getGrandTotalAmount().clear();
+		gesamtsummen.getDuePayableAmount().clear();
+	}
 	// BG-22.BT-106 - 1..1/1..1
 	Amount getInvoiceLineNetTotal() {
 		if(super.getSpecifiedTradeSettlementHeaderMonetarySummation() == null) return null;
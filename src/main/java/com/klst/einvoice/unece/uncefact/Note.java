@@ -1,6 +1,5 @@
 package com.klst.einvoice.unece.uncefact;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import com.klst.ebXml.reflection.SCopyCtor;
@@ -30,14 +29,6 @@ public class Note extends NoteType implements InvoiceNote, InvoiceNoteFactory {
 		return create(null, content);
 	}
 
-	static List<InvoiceNote> getInvoiceNotes(List<NoteType> list) {
-		List<InvoiceNote> result = new ArrayList<InvoiceNote>(list.size());
-		list.forEach(note -> {
-			result.add(Note.create(note));
-		});
-		return result;
-	}
-
 	// copy factory
 	static Note create(NoteType object) {
 		if(object instanceof NoteType && object.getClass()!=NoteType.class) {
@@ -53,6 +44,11 @@ public class Note extends NoteType implements InvoiceNote, InvoiceNoteFactory {
 		setCode(subjectCode);
 		setNote(content);
 	}
+	// ctor for the unmarshaller, see DomainObjectFactory
+	Note() {
+		super();
+	}
+
 	// copy ctor
 	private Note(NoteType note) {
 		super();
@@ -3,6 +3,7 @@ package com.klst.einvoice.unece.uncefact;
 import java.sql.Timestamp;
 import java.util.List;
 
+import com.klst.einvoice.AttachmentContent;
 import com.klst.einvoice.BG24_AdditionalSupportingDocs;
 import com.klst.einvoice.PrecedingInvoice;
 import com.klst.einvoice.Reference;
@@ -122,7 +123,7 @@ public class ReferencedDocument extends ReferencedDocumentType implements BG24_A
 	@Override
 	public void setAttachedDocument(byte[] content, String mimeCode, String filename) {
 		if(super.getAttachmentBinaryObject().isEmpty()) {
-			BinaryObjectType e = new BinaryObjectType();
+			BinaryObjectType e = new AttachmentBinaryObject();
 			e.setValue(content);
 			e.setMimeCode(mimeCode);
 			e.setFilename(filename);
@@ -130,6 +131,13 @@ public class ReferencedDocument extends ReferencedDocumentType implements BG24_A
 		}
 	}
 
+	@Override
+	public void setAttachedDocument(AttachmentContent content, String mimeCode, String filename) {
+		if(super.getAttachmentBinaryObject().isEmpty()) {
+			super.getAttachmentBinaryObject().add(new AttachmentBinaryObject(content, mimeCode, filename));
+		}
+	}
+
 	@Override
 	public byte[] getAttachedDocument() {
 		List<BinaryObjectType> binaryObjects = super.getAttachmentBinaryObject();
@@ -137,6 +145,49 @@ public class ReferencedDocument extends ReferencedDocumentType implements BG24_A
 		return binaryObjects.get(0).getValue();
 	}
 
+	@Override
+	public AttachmentContent getAttachedDocumentContent() {
+		List<BinaryObjectType> binaryObjects = super.getAttachmentBinaryObject();
+		if(binaryObjects.isEmpty()) return null;
+		BinaryObjectType binaryObject = binaryObjects.get(0);
+		if(binaryObject instanceof AttachmentContent.Holder) {
+			AttachmentContent content = ((AttachmentContent.Holder)binaryObject).getContent();
+			if(content!=null) return content;
+		}
+		return binaryObject.getValue()==null ? null : AttachmentContent.of(binaryObject.getValue());
+	}
+
+	@Override
+	public String getAttachedDocumentUri() {
+		List<BinaryObjectType> binaryObjects = super.getAttachmentBinaryObject();
+		if(binaryObjects.isEmpty()) return null;
+		return binaryObjects.get(0).getUri();
+	}
+
+	// the list is a copy, the binary objects are shared with the invoice: change them in place, do not replace them
+	@Override
+	public void setAttachedDocumentReference(String uri) {
+		List<BinaryObjectType> binaryObjects = super.getAttachmentBinaryObject();
+		if(binaryObjects.isEmpty()) return;
+		BinaryObjectType binaryObject = binaryObjects.get(0);
+		binaryObject.setValue(null); // AttachmentBinaryObject drops the content too
+		binaryObject.setUri(uri);
+	}
+
+	@Override
+	public void setAttachedDocumentContent(AttachmentContent content) {
+		List<BinaryObjectType> binaryObjects = super.getAttachmentBinaryObject();
+		if(binaryObjects.isEmpty()) return;
+		BinaryObjectType binaryObject = binaryObjects.get(0);
+		if(binaryObject instanceof AttachmentContent.Holder) {
+			((AttachmentContent.Holder)binaryObject).setContent(content);
+		} else {
+			// plain jaxb object (no DomainObjectFactory) cannot stream the content
+			binaryObject.setValue(content==null ? null : content.toByteArray());
+		}
+		binaryObject.setUri(null);
+	}
+
 	@Override
 	public String getAttachedDocumentMimeCode() {
 		List<BinaryObjectType> binaryObjects = super.getAttachmentBinaryObject();
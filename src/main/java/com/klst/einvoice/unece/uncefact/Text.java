@@ -35,6 +35,11 @@ public class Text extends TextType {
 		super.setValue(value);
 	}
 	
+	// ctor for the unmarshaller, see DomainObjectFactory
+	Text() {
+		super();
+	}
+
 	private Text(TextType object) {
 		super();
 		if (object != null) {
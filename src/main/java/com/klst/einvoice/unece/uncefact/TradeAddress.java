@@ -35,6 +35,11 @@ public class TradeAddress extends TradeAddressType implements PostalAddress {
 		}
 	}
 
+	// ctor for the unmarshaller, see DomainObjectFactory
+	TradeAddress() {
+		super();
+	}
+
 	// copy ctor
 	private TradeAddress(TradeAddressType address) {
 		super();
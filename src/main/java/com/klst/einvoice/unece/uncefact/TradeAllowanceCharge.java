@@ -2,6 +2,7 @@ package com.klst.einvoice.unece.uncefact;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.ebXml.reflection.SCopyCtor;
@@ -94,15 +95,25 @@ public class TradeAllowanceCharge extends TradeAllowanceChargeType implements Al
 		setAssessmentBase(baseAmount);
 		setPercentage(percentage);
 	}
+	// ctor for the unmarshaller, see DomainObjectFactory
+	TradeAllowanceCharge() {
+		super();
+	}
+
 	// copy ctor
 	private TradeAllowanceCharge(TradeAllowanceChargeType tradeAllowanceCharge) {
 		super();
 		if(tradeAllowanceCharge!=null) {
 			SCopyCtor.getInstance().invokeCopy(this, tradeAllowanceCharge);
-			if(getCategoryTradeTax().isEmpty()) {
-				LOG.warning(NO_TRADETAX_ELEMENT);
-			}
-			LOG.fine("copy ctor:"+this);
+			init();
+			if(LOG.isLoggable(Level.FINE)) LOG.fine("copy ctor:"+this);
+		}
+	}
+
+	// after copy ctor or unmarshal
+	void init() {
+		if(getCategoryTradeTax().isEmpty()) {
+			LOG.warning(NO_TRADETAX_ELEMENT);
 		}
 	}
 	
@@ -31,6 +31,11 @@ public class TradeContact extends TradeContactType implements IContact {
 		}
 	}
 
+	// ctor for the unmarshaller, see DomainObjectFactory
+	TradeContact() {
+		super();
+	}
+
 	// copy ctor
 	private TradeContact(TradeContactType contact) {
 		super();
@@ -61,7 +61,7 @@ public class TradeLineItem extends SupplyChainTradeLineItemType implements CoreI
 	}
 
 	// copy factory
-	static TradeLineItem create(SupplyChainTradeLineItemType object) {
+	public static TradeLineItem create(SupplyChainTradeLineItemType object) {
 		if(object instanceof SupplyChainTradeLineItemType && object.getClass()!=SupplyChainTradeLineItemType.class) {
 			// object is instance of a subclass of SupplyChainTradeLineItemType, but not SupplyChainTradeLineItemType itself
 			return (TradeLineItem)object;
@@ -72,6 +72,11 @@ public class TradeLineItem extends SupplyChainTradeLineItemType implements CoreI
 
 	private static final Logger LOG = Logger.getLogger(TradeLineItem.class.getName());
 
+	// ctor for the unmarshaller, see DomainObjectFactory
+	TradeLineItem() {
+		super();
+	}
+
 	// copy ctor
 	private TradeLineItem(SupplyChainTradeLineItemType line) {
 		super();
@@ -79,6 +84,11 @@ public class TradeLineItem extends SupplyChainTradeLineItemType implements CoreI
 			SCopyCtor.getInstance().invokeCopy(this, line);
 			//LOG.fine("copy ctor:"+this);
 		}
+		init();
+	}
+
+	// first line trade tax, after copy ctor or unmarshal
+	void init() {
 		if(specifiedLineTradeSettlement.getApplicableTradeTax().isEmpty()) {
 			tradeTax = null; //TradeTax.create();
 		} else {
@@ -2,6 +2,7 @@ package com.klst.einvoice.unece.uncefact;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.ebXml.reflection.SCopyCtor;
@@ -40,7 +41,7 @@ public class TradeParty extends TradePartyType implements BusinessParty, Busines
 		return new TradeParty((TradePartyType)null);
 	}
 	// copy factory
-	static TradeParty create(TradePartyType object) {
+	public static TradeParty create(TradePartyType object) {
 		// @see https://stackoverflow.com/questions/2699788/java-is-there-a-subclassof-like-instanceof
 		if(object instanceof TradePartyType && object.getClass()!=TradePartyType.class) {
 			// object is instance of a subclass of TradePartyType, but not TradePartyType itself
@@ -52,12 +53,17 @@ public class TradeParty extends TradePartyType implements BusinessParty, Busines
 
 	private static final Logger LOG = Logger.getLogger(TradeParty.class.getName());
 
+	// ctor for the unmarshaller, see DomainObjectFactory
+	TradeParty() {
+		super();
+	}
+
 	// copy ctor
 	private TradeParty(TradePartyType doc) {
 		super();
 		if(doc!=null) {
 			SCopyCtor.getInstance().invokeCopy(this, doc);
-			LOG.config("copy ctor:"+this);
+			if(LOG.isLoggable(Level.CONFIG)) LOG.config("copy ctor:"+this);
 		}
 	}
 
@@ -2,6 +2,7 @@ package com.klst.einvoice.unece.uncefact;
 
 import java.sql.Timestamp;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.ebXml.reflection.SCopyCtor;
@@ -65,11 +66,16 @@ public class TradePaymentTerms extends TradePaymentTermsType {
 		}
 	}
 
+	// ctor for the unmarshaller, see DomainObjectFactory
+	TradePaymentTerms() {
+		super();
+	}
+
 	private TradePaymentTerms(TradePaymentTermsType doc) {
 		super();
 		if(doc!=null) {
 			SCopyCtor.getInstance().invokeCopy(this, doc);
-			LOG.fine("copy ctor:"+this);
+			if(LOG.isLoggable(Level.FINE)) LOG.fine("copy ctor:"+this);
 		}
 	}
 /*
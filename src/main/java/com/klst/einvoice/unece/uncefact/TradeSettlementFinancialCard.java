@@ -1,5 +1,6 @@
 package com.klst.einvoice.unece.uncefact;
 
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.ebXml.reflection.SCopyCtor;
@@ -51,11 +52,16 @@ public class TradeSettlementFinancialCard extends TradeSettlementFinancialCardTy
 		}
 	}
 
+	// ctor for the unmarshaller, see DomainObjectFactory
+	TradeSettlementFinancialCard() {
+		super();
+	}
+
 	private TradeSettlementFinancialCard(TradeSettlementFinancialCardType financialCard) {
 		super();
 		if(financialCard!=null) {
 			SCopyCtor.getInstance().invokeCopy(this, financialCard);
-			LOG.fine("copy ctor:"+this);
+			if(LOG.isLoggable(Level.FINE)) LOG.fine("copy ctor:"+this);
 		}
 	}
 	
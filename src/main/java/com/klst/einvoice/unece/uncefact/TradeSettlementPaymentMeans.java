@@ -1,5 +1,6 @@
 package com.klst.einvoice.unece.uncefact;
 
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.ebXml.reflection.SCopyCtor;
@@ -113,11 +114,16 @@ public class TradeSettlementPaymentMeans extends TradeSettlementPaymentMeansType
 
 	private static final Logger LOG = Logger.getLogger(TradeSettlementPaymentMeans.class.getName());
 
+	// ctor for the unmarshaller, see DomainObjectFactory
+	TradeSettlementPaymentMeans() {
+		super();
+	}
+
 	private TradeSettlementPaymentMeans(TradeSettlementPaymentMeansType tradeSettlementPaymentMeans) {
 		super();
 		if(tradeSettlementPaymentMeans!=null) {
 			SCopyCtor.getInstance().invokeCopy(this, tradeSettlementPaymentMeans);
-			LOG.fine("copy ctor:"+this);
+			if(LOG.isLoggable(Level.FINE)) LOG.fine("copy ctor:"+this);
 		}
 	}
 	
@@ -125,7 +131,7 @@ public class TradeSettlementPaymentMeans extends TradeSettlementPaymentMeansType
 		super();
 		this.setTypeCode(code);
 		this.setPaymentMeansText(text);
-		LOG.config("done:"+this);
+		if(LOG.isLoggable(Level.CONFIG)) LOG.config("done:"+this);
 	}
 	private TradeSettlementPaymentMeans(PaymentMeansEnum code) {
 		this(code, null);
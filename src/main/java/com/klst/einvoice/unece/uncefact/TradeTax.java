@@ -2,6 +2,7 @@ package com.klst.einvoice.unece.uncefact;
 
 import java.math.BigDecimal;
 import java.sql.Timestamp;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.klst.ebXml.reflection.SCopyCtor;
@@ -171,12 +172,17 @@ public class TradeTax extends TradeTaxType
 		setTaxPercentage(taxRate);
 	}
 	
+	// ctor for the unmarshaller, see DomainObjectFactory
+	TradeTax() {
+		super();
+	}
+
 	// copy ctor
 	private TradeTax(TradeTaxType doc) {
 		super();
 		if(doc!=null) {
 			SCopyCtor.getInstance().invokeCopy(this, doc);
-			LOG.config("copy ctor:"+this);
+			if(LOG.isLoggable(Level.CONFIG)) LOG.config("copy ctor:"+this);
 		}
 	}
 	
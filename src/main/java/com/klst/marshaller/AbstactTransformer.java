@@ -2,10 +2,27 @@ package com.klst.marshaller;
 
 import static javax.xml.bind.JAXBContext.newInstance;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
 import java.util.logging.Logger;
 
 import javax.inject.Named;
@@ -15,7 +32,12 @@ import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.PropertyException;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.ValidationEventHandler;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.Source;
+import javax.xml.transform.stax.StAXSource;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
@@ -23,7 +45,12 @@ import javax.xml.validation.Validator;
 
 import org.xml.sax.SAXException;
 
+import com.klst.einvoice.AttachmentContent;
+import com.klst.einvoice.ColumnarLines;
+import com.klst.einvoice.CoreInvoice;
+import com.klst.einvoice.CoreInvoiceLine;
 import com.klst.einvoice.ubl.GenericInvoice;
+import com.klst.einvoice.unece.uncefact.CrossIndustryInvoice;
 
 //in java 1.8 'NamespacePrefixMapper' is not in API (restriction on required library ... jdk1.8.0_241\jre\lib\rt.jar')
 //Proposal JEP-320(http://openjdk.java.net/jeps/320) to remove the Java EE and CORBA modules from the JDK.
@@ -48,35 +75,189 @@ public abstract class AbstactTransformer {
 
 	private static final Logger LOG = Logger.getLogger(AbstactTransformer.class.getName());
 	
-	final JAXBContext jaxbContext;
+	static final int BUFFER_SIZE = 1<<16;
+	
+	private static final String NAMESPACE_PREFIX_MAPPER = "com.sun.xml.internal.bind.namespacePrefixMapper";
+	
+	// JAXBContext is thread-safe but expensive to create, it is created once per context key on first use
+	private static final ConcurrentMap<String, FutureTask<JAXBContext>> JAXB_CONTEXTS = 
+			new ConcurrentHashMap<String, FutureTask<JAXBContext>>();
+	
+	// streamed attachments are loaded into memory only while JAXB marshals their element
+	private static final Marshaller.Listener ATTACHMENT_LISTENER = new Marshaller.Listener() {
+		@Override
+		public void beforeMarshal(Object source) {
+			if(source instanceof AttachmentContent.Holder) ((AttachmentContent.Holder)source).beforeMarshal();
+		}
+		@Override
+		public void afterMarshal(Object source) {
+			if(source instanceof AttachmentContent.Holder) ((AttachmentContent.Holder)source).afterMarshal();
+		}
+	};
+	
+	// configured once, see setXmlProvider
+	private static volatile XmlProvider xmlProvider = XmlProvider.JDK;
+	
+	private final String contentPath;
+	
+	// the compiled xsd is immutable and thread-safe, it is created once on first use
+	private volatile Schema schema;
+	private volatile BindingWriter bindingWriter;
+	private volatile BindingReader bindingReader;
+	// Validator is not thread-safe, reuse instances per transformer
+	private final ResourcePool<Validator, SAXException> validatorPool = 
+			new ResourcePool<Validator, SAXException>(() -> getSchema().newValidator(), Validator::reset);
+	// Marshaller and Unmarshaller are not thread-safe, but expensive to create and configure
+	// the validation schema and event handler are removed before an instance is put back
+	private final ResourcePool<Marshaller, JAXBException> marshallerPool = 
+			new ResourcePool<Marshaller, JAXBException>(this::createMarshaller, AbstactTransformer::resetValidation);
+	private final ResourcePool<Unmarshaller, JAXBException> unmarshallerPool = 
+			new ResourcePool<Unmarshaller, JAXBException>(this::createUnmarshaller, AbstactTransformer::resetValidation);
 	
 	// this is a SINGLETON! Use getInstance() in subclasses
 	@SuppressWarnings("unused")
 	private AbstactTransformer() {
-		this.jaxbContext = null;
+		this.contentPath = null;
 	}
 	
-	// ctor
+	// ctor, the JAXBContext is not created here, see getJAXBContext()
 	protected AbstactTransformer(String contentPath, AbstactTransformer instance) {
 		LOG.fine("ctor "+contentPath + " SINGLETON:"+instance);
-		if(instance==null) try {
-			this.jaxbContext = newInstance(contentPath);
-			LOG.finer(jaxbContext.toString());
-			instance = this;
-		} catch (JAXBException ex) {
+		this.contentPath = instance==null ? contentPath : instance.contentPath;
+	}
+
+	/**
+	 * the JAXBContext of this transformer. 
+	 * It is created on first use and shared by all transformers with the same context key.
+	 * If the context is just being created by another thread, f.i. by {@link #warmUp()}, the caller waits for it.
+	 * 
+	 * @return thread-safe JAXBContext
+	 */
+	JAXBContext getJAXBContext() {
+		String contextKey = getContextKey();
+		FutureTask<JAXBContext> task = JAXB_CONTEXTS.computeIfAbsent(contextKey, 
+				key -> new FutureTask<JAXBContext>(this::createJAXBContext));
+		task.run(); // no-op if already run or running
+		try {
+			return task.get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
 			throw new TransformationException(TransformationException.JAXB_INSTANTIATE_ERROR, ex);
-		} else {
-			this.jaxbContext = instance.jaxbContext;
+		} catch (ExecutionException ex) {
+			JAXB_CONTEXTS.remove(contextKey, task); // allows a retry
+			throw new TransformationException(TransformationException.JAXB_INSTANTIATE_ERROR, ex.getCause());
 		}
-		LOG.fine("ctor >>>>>>>>>>>>>>>>>>"+instance.toString());
+	}
+
+	// transformers with the same key share one JAXBContext
+	String getContextKey() {
+		return contentPath;
+	}
+
+	// called once per context key, subclasses can bind a customized context
+	JAXBContext createJAXBContext() throws JAXBException {
+		return newInstance(contentPath);
+	}
+
+	/**
+	 * creates the JAXBContext of this transformer, if not yet done.
+	 * Use it to move the expensive context creation out of the first request,
+	 * see {@link TransformerDispatcher#warmUp(java.util.concurrent.Executor)}.
+	 */
+	public void warmUp() {
+		long start = System.currentTimeMillis();
+		LOG.finer(getJAXBContext().toString());
+		LOG.fine(getContextKey()+" ready after "+(System.currentTimeMillis()-start)+" ms");
+	}
+
+	/**
+	 * selects the XML parser and writer factories of all transformers.
+	 * Set it once at startup, the xsd of a transformer is compiled with the SchemaFactory of the provider at first use.
+	 * 
+	 * @param provider f.i. {@link XmlProvider#woodstox()}, default is {@link XmlProvider#JDK}
+	 */
+	public static void setXmlProvider(XmlProvider provider) {
+		LOG.config("XmlProvider "+provider);
+		xmlProvider = provider;
+	}
+	
+	public static XmlProvider getXmlProvider() {
+		return xmlProvider;
 	}
 
 	public boolean isValid(File xmlfile) {
+		Validator validator = null;
+		try {
+			validator = validatorPool.borrow();
+			return isValid(validator, xmlfile);
+		} catch (SAXException ex) {
+			LOG.severe("cannot create validator for "+getResource()+" : "+ex.getMessage());
+			return false;
+		} finally {
+			validatorPool.release(validator);
+		}
+	}
+	
+	/**
+	 * validates a batch of xml files against the xsd of this transformer.
+	 * The compiled schema and a pooled Validator are reused for all files.
+	 * 
+	 * @param xmlfiles to validate
+	 * @return validation result per file, in the iteration order of xmlfiles
+	 */
+	public Map<Path, Boolean> isValid(Collection<Path> xmlfiles) {
+		Map<Path, Boolean> result = new LinkedHashMap<Path, Boolean>();
+		Validator validator = null;
+		try {
+			validator = validatorPool.borrow();
+			for(Path xmlfile : xmlfiles) {
+				result.put(xmlfile, isValid(validator, xmlfile.toFile()));
+			}
+		} catch (SAXException ex) {
+			LOG.severe("cannot create validator for "+getResource()+" : "+ex.getMessage());
+			xmlfiles.forEach(xmlfile -> result.putIfAbsent(xmlfile, Boolean.FALSE));
+		} finally {
+			validatorPool.release(validator);
+		}
+		return result;
+	}
+	
+	boolean isValid(Source xmlSource) {
+		Validator validator = null;
+		try {
+			validator = validatorPool.borrow();
+			return isValid(validator, xmlSource);
+		} catch (SAXException ex) {
+			LOG.severe("cannot create validator for "+getResource()+" : "+ex.getMessage());
+			return false;
+		} finally {
+			validatorPool.release(validator);
+		}
+	}
+	
+	// the file is parsed with the StAX parser of the XmlProvider or by the validator itself
+	private boolean isValid(Validator validator, File xmlfile) {
+		XmlProvider provider = xmlProvider;
+		if(!provider.isJaxbStax()) {
+			return isValid(validator, new StreamSource(xmlfile));
+		}
+		try(InputStream xmlInputStream = new BufferedInputStream(Files.newInputStream(xmlfile.toPath()), BUFFER_SIZE)) {
+			XMLStreamReader xmlStreamReader = provider.getXMLInputFactory().createXMLStreamReader(xmlInputStream);
+			try {
+				return isValid(validator, new StAXSource(xmlStreamReader));
+			} finally {
+				xmlStreamReader.close();
+			}
+		} catch (IOException | XMLStreamException ex) {
+			LOG.warning("validate against "+getResource()+" failed: "+ex.getMessage());
+			return false;
+		}
+	}
+	
+	private boolean isValid(Validator validator, Source xmlSource) {
 		String resource = getResource();
 		try {
-			Source xmlFile = new StreamSource(xmlfile);
-			Validator validator = this.getSchemaValidator(); // throws SAXException, Exception
-			validator.validate(xmlFile);
+			validator.validate(xmlSource);
 			LOG.info("validate against "+resource+" passed.");
 		} catch (SAXException ex) {
 			LOG.warning("validate against "+resource+" failed, SAXException: "+ex.getMessage());
@@ -87,60 +268,456 @@ public abstract class AbstactTransformer {
 		return true;
 	}
 	
+	/**
+	 * a new Validator for the exclusive use of the caller, created from the cached schema.
+	 * 
+	 * @return Validator
+	 * @throws SAXException if the xsd cannot be compiled
+	 */
 	public Validator getSchemaValidator() throws SAXException {
-		return getSchemaValidator(getResource());
+		return getSchema().newValidator();
+	}
+	
+	/**
+	 * the compiled xsd of this transformer. 
+	 * It is compiled only once and can be shared between threads.
+	 * 
+	 * @return immutable Schema
+	 * @throws SAXException if the xsd cannot be compiled
+	 */
+	public Schema getSchema() throws SAXException {
+		Schema result = schema;
+		if(result==null) {
+			synchronized(this) {
+				result = schema;
+				if(result==null) {
+					result = newSchema(getResource());
+					schema = result;
+				}
+			}
+		}
+		return result;
 	}
 	
 	public abstract <T> T toModel(InputStream xmlInputStream);
 	
+	/**
+	 * unmarshal and validate against the xsd in one pass.
+	 * The cached Schema is attached to the Unmarshaller, validation events are passed to handler.
+	 * Check the handler after the call instead of calling isValid before.
+	 * Notice: the JAXB reference implementation reports xsd errors as FATAL_ERROR,
+	 * {@link javax.xml.bind.util.ValidationEventCollector} stops at the first error and a TransformationException is thrown.
+	 * To collect all errors use a handler which returns true.
+	 * 
+	 * @param xmlInputStream the document
+	 * @param handler receives the validation events, unmarshalling stops if it returns false
+	 * @return the JAXB model of the document
+	 */
+	public abstract <T> T toModel(InputStream xmlInputStream, ValidationEventHandler handler);
+	
+	/**
+	 * unmarshal a xml file, the file is read through a buffered channel
+	 * 
+	 * @param xmlfile path of the xml document
+	 * @return the JAXB model of the document
+	 */
+	public <T> T toModel(Path xmlfile) {
+		return toModel(xmlfile, null);
+	}
+	
+	/**
+	 * unmarshal and validate a xml file in one pass, see {@link #toModel(InputStream, ValidationEventHandler)}
+	 * 
+	 * @param xmlfile path of the xml document
+	 * @param handler receives the validation events, null for no validation
+	 * @return the JAXB model of the document
+	 */
+	public <T> T toModel(Path xmlfile, ValidationEventHandler handler) {
+		try(InputStream xmlInputStream = new BufferedInputStream(Files.newInputStream(xmlfile), BUFFER_SIZE)) {
+			return handler==null ? toModel(xmlInputStream) : toModel(xmlInputStream, handler);
+		} catch (IOException ex) {
+			throw new TransformationException(TransformationException.IO_ERROR, ex);
+		}
+	}
+	
 	<T extends Object> T toModel(InputStream xmlInputStream, Class<T> declaredType) {
+		return toModel(xmlInputStream, declaredType, null);
+	}
+	
+	<T extends Object> T toModel(InputStream xmlInputStream, Class<T> declaredType, ValidationEventHandler handler) {
+		Unmarshaller unmarshaller = null;
 		try {
-			Unmarshaller unmarshaller = createUnmarshaller();
+			unmarshaller = unmarshallerPool.borrow();
+			if(handler!=null) {
+				unmarshaller.setSchema(getValidationSchema());
+				unmarshaller.setEventHandler(handler);
+			}
+			XMLStreamReader xmlStreamReader = createXMLStreamReader(xmlInputStream);
+			if(xmlStreamReader!=null) {
+				try {
+					return unmarshaller.unmarshal(xmlStreamReader, declaredType).getValue();
+				} finally {
+					xmlStreamReader.close();
+				}
+			}
 			return unmarshaller.unmarshal(new StreamSource(xmlInputStream), declaredType).getValue();
+		} catch (JAXBException | XMLStreamException ex) {
+			throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+		} finally {
+			unmarshallerPool.release(unmarshaller);
+		}
+	}
+
+	// the reader to unmarshal from, null to let JAXB parse the stream with its own SAX parser
+	XMLStreamReader createXMLStreamReader(InputStream xmlInputStream) throws XMLStreamException {
+		XmlProvider provider = xmlProvider;
+		return provider.isJaxbStax() ? provider.getXMLInputFactory().createXMLStreamReader(xmlInputStream) : null;
+	}
+
+	/**
+	 * unmarshal the element at the current position of xmlStreamReader.
+	 * After the call the reader is positioned after the end tag of the element,
+	 * this allows to read large documents element by element.
+	 * 
+	 * @param xmlStreamReader positioned at START_DOCUMENT or START_ELEMENT
+	 * @param declaredType JAXB type of the element
+	 * @return the JAXB model of the element
+	 */
+	<T extends Object> T toModel(XMLStreamReader xmlStreamReader, Class<T> declaredType) {
+		Unmarshaller unmarshaller = null;
+		try {
+			unmarshaller = unmarshallerPool.borrow();
+			return unmarshaller.unmarshal(xmlStreamReader, declaredType).getValue();
 		} catch (JAXBException ex) {
 			throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+		} finally {
+			unmarshallerPool.release(unmarshaller);
 		}
 	}
 
 	public byte[] fromModel(Object document) {
 		ByteArrayOutputStream outputStream = new ByteArrayOutputStream(16000);
+		fromModel(document, outputStream);
+		return outputStream.toByteArray();
+	}
+
+	/**
+	 * marshal the document directly into outputStream, no copy of the xml is held in heap
+	 * 
+	 * @param document GenericInvoice or CrossIndustryInvoice
+	 * @param outputStream the stream is not closed
+	 */
+	public void fromModel(Object document, OutputStream outputStream) {
+		fromModel(document, outputStream, formatXmlOutput());
+	}
+
+	/**
+	 * marshal the document directly into outputStream.
+	 * The lines of a document with a line source (setLineSource of GenericInvoice and CrossIndustryInvoice)
+	 * are marshalled one by one from the line source.
+	 * 
+	 * @param document GenericInvoice or CrossIndustryInvoice
+	 * @param outputStream the stream is not closed
+	 * @param formatted false for compact (unindented) output
+	 */
+	public void fromModel(Object document, OutputStream outputStream, boolean formatted) {
+		fromModel(document, outputStream, formatted, null);
+	}
+
+	/**
+	 * marshal the document and validate it against the xsd in one pass.
+	 * The cached Schema is attached to the Marshaller, validation events are passed to handler.
+	 * Notice: the JAXB reference implementation reports xsd errors while marshalling as fatal,
+	 * so marshalling stops at the first error and a TransformationException is thrown.
+	 * 
+	 * @param document GenericInvoice or CrossIndustryInvoice
+	 * @param outputStream the stream is not closed
+	 * @param formatted false for compact (unindented) output
+	 * @param handler receives the validation events, marshalling stops if it returns false; null for no validation
+	 * @throws TransformationException if handler is set and the document has a line source
+	 */
+	public void fromModel(Object document, OutputStream outputStream, boolean formatted, ValidationEventHandler handler) {
+		List<CoreInvoiceLine> lineSource = getLineSource(document);
+		if(lineSource==null) {
+			marshal(document, outputStream, formatted, handler);
+		} else if(handler==null) {
+			fromModel(document, lineSource instanceof ColumnarLines ? ((ColumnarLines)lineSource).materialize() : lineSource.iterator(), outputStream, formatted);
+		} else {
+			// the lines are not in the JAXB tree
+			throw new TransformationException(TransformationException.MARSHALLING_ERROR 
+					+ ": a document with line source cannot be validated while marshalling");
+		}
+	}
+
+	// the lines set by setLineSource, null if the lines are held in the document
+	static List<CoreInvoiceLine> getLineSource(Object document) {
+		if(document instanceof GenericInvoice<?>) {
+			return ((GenericInvoice<?>)document).getLineSource();
+		} else if(document instanceof CrossIndustryInvoice) {
+			return ((CrossIndustryInvoice)document).getLineSource();
+		}
+		return null;
+	}
+
+	/* streaming marshal of the document and the lines, 
+	 * implemented by UblTransformer and CiiTransformer
+	 */
+	abstract void fromModel(Object document, Iterator<? extends CoreInvoiceLine> lines, OutputStream outputStream, boolean formatted);
+
+	// marshal the JAXB tree of document
+	void marshal(Object document, OutputStream outputStream, boolean formatted, ValidationEventHandler handler) {
+		Marshaller marshaller = null;
 		try {
-			Marshaller marshaller = createMarshaller();
+			marshaller = marshallerPool.borrow();
+			marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formatted);
+			if(handler!=null) {
+				marshaller.setSchema(getValidationSchema());
+				marshaller.setEventHandler(handler);
+			}
 			// TODO : siehe 5.3.3. Marshalling a non-element in file:///C:/proj/jaxb-ri/docs/ch03.html#marshalling
-			if(document instanceof GenericInvoice<?>) {
-				marshaller.marshal(((GenericInvoice)document).get(), outputStream);
-			} else if(document instanceof CrossIndustryInvoiceType) {
-				marshaller.marshal((CrossIndustryInvoiceType)document, outputStream);
+			Object root = document instanceof GenericInvoice<?> ? ((GenericInvoice<?>)document).get() : document;
+			if(!(document instanceof GenericInvoice<?>) && !(document instanceof CrossIndustryInvoiceType)) {
+				return;
+			}
+			XmlProvider provider = xmlProvider;
+			if(provider.isJaxbStax()) {
+				// JAXB does not indent the output of a XMLStreamWriter
+				XMLStreamWriter xmlStreamWriter = provider.getXMLOutputFactory().createXMLStreamWriter(outputStream, "UTF-8");
+				marshaller.marshal(root, xmlStreamWriter);
+				xmlStreamWriter.close();
+			} else {
+				marshaller.marshal(root, outputStream);
+			}
+		} catch (JAXBException | XMLStreamException ex) {
+			throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+		} finally {
+			marshallerPool.release(marshaller);
+		}
+	}
+
+	/**
+	 * marshal a sequence of elements as xml fragments (without xml declaration) into outputStream.
+	 * Each element is converted and marshalled while iterating, so only one element is held in heap.
+	 * 
+	 * @param elements source objects
+	 * @param toElement maps a source object to a JAXB element, f.i. JAXBElement
+	 * @param outputStream the stream is not closed
+	 * @param formatted false for compact (unindented) output
+	 * @param inScope prefix and namespace URI pairs declared on an ancestor, f.i. by {@link #getRootNamespaces(byte[])}, 
+	 * they are not declared again on each fragment
+	 */
+	<T> void fromModel(Iterator<T> elements, Function<? super T, ?> toElement, OutputStream outputStream, boolean formatted, String[] inScope) {
+		Marshaller marshaller = null;
+		try {
+			marshaller = marshallerPool.borrow();
+			marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formatted);
+			marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+			marshaller.setProperty(NAMESPACE_PREFIX_MAPPER, getNamespacePrefixMapper(inScope));
+			try {
+				while(elements.hasNext()) {
+					marshaller.marshal(toElement.apply(elements.next()), outputStream);
+				}
+			} finally {
+				marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.FALSE);
+				marshaller.setProperty(NAMESPACE_PREFIX_MAPPER, getNamespacePrefixMapper());
 			}
 		} catch (JAXBException ex) {
 			throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+		} finally {
+			marshallerPool.release(marshaller);
 		}
-		return outputStream.toByteArray();
+	}
+
+	// the prefixes of getNamespacePrefixMapper(), the namespaces inScope are known to the marshaller as declared
+	@SuppressWarnings("restriction")
+	private NamespacePrefixMapper getNamespacePrefixMapper(String[] inScope) {
+		NamespacePrefixMapper mapper = getNamespacePrefixMapper();
+		return new NamespacePrefixMapper() {
+			@Override
+			public String getPreferredPrefix(String namespaceUri, String suggestion, boolean requirePrefix) {
+				return mapper.getPreferredPrefix(namespaceUri, suggestion, requirePrefix);
+			}
+			@Override
+			public String[] getContextualNamespaceDecls() {
+				return inScope;
+			}
+		};
+	}
+
+	/**
+	 * @param document marshalled xml
+	 * @return prefix and namespace URI pairs declared on the root element
+	 */
+	static String[] getRootNamespaces(byte[] document) {
+		XMLStreamReader reader = null;
+		try {
+			reader = xmlProvider.getXMLInputFactory().createXMLStreamReader(new ByteArrayInputStream(document));
+			reader.nextTag();
+			String[] declarations = new String[2*reader.getNamespaceCount()];
+			for(int i=0; i<reader.getNamespaceCount(); i++) {
+				String prefix = reader.getNamespacePrefix(i);
+				declarations[2*i] = prefix==null ? XMLConstants.DEFAULT_NS_PREFIX : prefix;
+				declarations[2*i+1] = reader.getNamespaceURI(i);
+			}
+			return declarations;
+		} catch (XMLStreamException ex) {
+			throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+		} finally {
+			if(reader!=null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException ex) {
+					LOG.warning("close "+ex.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * marshal the document into a file
+	 * 
+	 * @param document GenericInvoice or CrossIndustryInvoice
+	 * @param xmlfile created or overwritten
+	 * @param formatted false for compact (unindented) output
+	 */
+	public void fromModel(Object document, Path xmlfile, boolean formatted) {
+		try(OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(xmlfile), BUFFER_SIZE)) {
+			fromModel(document, outputStream, formatted);
+		} catch (IOException ex) {
+			throw new TransformationException(TransformationException.IO_ERROR, ex);
+		}
+	}
+
+	public void fromModel(Object document, Path xmlfile) {
+		fromModel(document, xmlfile, formatXmlOutput());
 	}
 
 	abstract String getResource();
 	
+	private Schema getValidationSchema() {
+		try {
+			return getSchema();
+		} catch (SAXException ex) {
+			throw new TransformationException(TransformationException.SCHEMA_ERROR+" "+getResource(), ex);
+		}
+	}
+	
 	Validator getSchemaValidator(String resource) throws SAXException {
+		if(resource.equals(getResource())) {
+			return getSchemaValidator();
+		}
+		return newSchema(resource).newValidator();
+	}
+
+	private Schema newSchema(String resource) throws SAXException {
 		LOG.fine("resource:"+resource + "Class:"+this.getClass());
 		URL schemaURL = this.getClass().getResource(resource);
-		SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+		SchemaFactory sf = xmlProvider.newSchemaFactory();
 		LOG.fine("schemaURL:"+schemaURL);
-		Schema schema = sf.newSchema(schemaURL);
-		return schema.newValidator();
+		return sf.newSchema(schemaURL);
 	}
 
+	// the mapper is stateless, implementations should return always the same instance
 	abstract NamespacePrefixMapper getNamespacePrefixMapper();
 	
+	// namespace URI -> prefix of all namespaces mapped by getNamespacePrefixMapper()
+	abstract Map<String, String> getNamespacePrefixes();
+	
+	/**
+	 * a writer which serializes the documents of this transformer without JAXB, see {@link BindingWriter}.
+	 * 
+	 * @return thread-safe BindingWriter
+	 */
+	public BindingWriter getBindingWriter() {
+		BindingWriter result = bindingWriter;
+		if(result==null) {
+			synchronized(this) {
+				result = bindingWriter;
+				if(result==null) {
+					result = new BindingWriter(this, getNamespacePrefixes());
+					bindingWriter = result;
+				}
+			}
+		}
+		return result;
+	}
+	
+	// JAXB class of the document root
+	abstract Class<?> getRootType();
+
+	// the document of the unmarshalled root, f.i. GenericInvoice
+	abstract Function<Object, CoreInvoice> getDocumentFactory();
+
+	// unmarshaller property of the JAXB RI: an object whose no-arg create methods instantiate the JAXB classes
+	private static final String OBJECT_FACTORY = "com.sun.xml.internal.bind.ObjectFactory";
+
+	/* creates the domain subclasses instead of the JAXB classes while unmarshalling
+	 * and initializes them as listener, so no copy is needed.
+	 * The create methods return the JAXB type, f.i. TradePartyType createTradePartyType() { return new TradeParty(); }
+	 */
+	abstract Unmarshaller.Listener getDomainObjectFactory();
+
+	/**
+	 * a reader which builds the domain objects of this transformer without JAXB, see {@link BindingReader}.
+	 * 
+	 * @return thread-safe BindingReader
+	 */
+	public BindingReader getBindingReader() {
+		BindingReader result = bindingReader;
+		if(result==null) {
+			synchronized(this) {
+				result = bindingReader;
+				if(result==null) {
+					result = new BindingReader(this, getRootType(), getDocumentFactory(), getDomainObjectFactory());
+					bindingReader = result;
+				}
+			}
+		}
+		return result;
+	}
+	
 	// -- private
 	
+	private static void resetValidation(Marshaller marshaller) {
+		if(marshaller.getSchema()==null) return;
+		marshaller.setSchema(null);
+		try {
+			marshaller.setEventHandler(marshaller instanceof ValidationEventHandler ? (ValidationEventHandler)marshaller : null); // the default handler
+		} catch (JAXBException ex) {
+			throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+		}
+	}
+
+	private static void resetValidation(Unmarshaller unmarshaller) {
+		if(unmarshaller.getSchema()==null) return;
+		unmarshaller.setSchema(null);
+		try {
+			// the JAXB RI is its own default handler which ignores unexpected elements,
+			// setEventHandler(null) would install the stricter DefaultValidationEventHandler
+			unmarshaller.setEventHandler(unmarshaller instanceof ValidationEventHandler ? (ValidationEventHandler)unmarshaller : null);
+		} catch (JAXBException ex) {
+			throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+		}
+	}
+
+	// the unmarshaller creates the domain objects directly, see getDomainObjectFactory
 	private Unmarshaller createUnmarshaller() throws JAXBException {
-		return jaxbContext.createUnmarshaller();
+		Unmarshaller unmarshaller = getJAXBContext().createUnmarshaller();
+		Unmarshaller.Listener factory = getDomainObjectFactory();
+		try {
+			unmarshaller.setProperty(OBJECT_FACTORY, factory);
+			unmarshaller.setListener(factory);
+		} catch (PropertyException ex) {
+			// not the JAXB reference implementation of the jdk: the copy factories copy the JAXB objects
+			LOG.warning(OBJECT_FACTORY+" not supported:"+ex);
+		}
+		return unmarshaller;
 	}
 
 	// override the default namespace prefixes ns1, ns2, ... created by the Marshaller.
 	// @see http://hwellmann.blogspot.com/2011/03/jaxb-marshalling-with-custom-namespace.html
 	private Marshaller createMarshaller() throws JAXBException {
-		Marshaller marshaller = jaxbContext.createMarshaller();
+		Marshaller marshaller = getJAXBContext().createMarshaller();
 		marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formatXmlOutput());
 		
 		// see https://stackoverflow.com/questions/277996/remove-standalone-yes-from-generated-xml
@@ -151,11 +728,12 @@ public abstract class AbstactTransformer {
 		// see https://stackoverflow.com/questions/2161350/jaxb-xjc-code-generation-schemalocation-missing-in-xml-generated-by-marshall
 //		marshaller.setProperty(Marshaller.JAXB_SCHEMA_LOCATION, "urn:oasis:names:specification:ubl:schema:xsd:Invoice-2 http://docs.oasis-open.org/ubl/os-UBL-2.1/xsd/maindoc/UBL-Invoice-2.1.xsd");
         try {
-        	marshaller.setProperty("com.sun.xml.internal.bind.namespacePrefixMapper", getNamespacePrefixMapper());
+        	marshaller.setProperty(NAMESPACE_PREFIX_MAPPER, getNamespacePrefixMapper());
         } catch(PropertyException ex) {
             // In case another JAXB implementation is used
 			throw new TransformationException(TransformationException.NAMESPACE_PREFIX_MAPPER_ERROR, ex);
         }
+		marshaller.setListener(ATTACHMENT_LISTENER);
 
 		return marshaller;
 	}
@@ -0,0 +1,168 @@
+package com.klst.marshaller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.logging.Logger;
+
+import com.klst.einvoice.AttachmentContent;
+import com.klst.einvoice.BG24_AdditionalSupportingDocs;
+import com.klst.einvoice.CoreInvoice;
+
+/**
+ * Content-addressed store for the attached documents (BG-24.BT-125) of many invoices.
+ * <p>
+ * {@link #extract(CoreInvoice)} moves the attachments into the store, one file per SHA-256 hash of the content,
+ * and leaves the reference "urn:sha256:&lt;hash&gt;" in the uri attribute of the binary object.
+ * A document attached to many invoices (terms and conditions, price sheets) is stored once,
+ * the archived invoice is small and parsed without the base64 payload.
+ * <p>
+ * {@link #inject(CoreInvoice)} re-inlines the attachments before the invoice is exported,
+ * they are streamed from the store when the invoice is written with the BindingWriter.
+ * <p>
+ * The store is thread-safe, blobs are written to a temporary file and moved into place.
+ */
+public class AttachmentStore {
+
+	private static final Logger LOG = Logger.getLogger(AttachmentStore.class.getName());
+
+	public static final String URI_PREFIX = "urn:sha256:";
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final Path directory;
+
+	/**
+	 * @param directory of the store, created if necessary
+	 */
+	public AttachmentStore(Path directory) {
+		this.directory = directory;
+		try {
+			Files.createDirectories(directory);
+		} catch (IOException ex) {
+			throw new TransformationException(TransformationException.IO_ERROR, ex);
+		}
+	}
+
+	/**
+	 * replaces the attached documents of invoice by references into this store
+	 * 
+	 * @param invoice
+	 * @return number of attachments moved into the store
+	 */
+	public int extract(CoreInvoice invoice) {
+		int count = 0;
+		for(BG24_AdditionalSupportingDocs doc : invoice.getAdditionalSupportingDocuments()) {
+			if(isReference(doc.getAttachedDocumentUri())) continue;
+			AttachmentContent content = doc.getAttachedDocumentContent();
+			if(content==null) continue;
+			doc.setAttachedDocumentReference(URI_PREFIX+put(content));
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * replaces the references into this store by the attached documents
+	 * 
+	 * @param invoice
+	 * @return number of attachments re-inlined
+	 */
+	public int inject(CoreInvoice invoice) {
+		int count = 0;
+		for(BG24_AdditionalSupportingDocs doc : invoice.getAdditionalSupportingDocuments()) {
+			String uri = doc.getAttachedDocumentUri();
+			if(!isReference(uri)) continue;
+			doc.setAttachedDocumentContent(AttachmentContent.of(get(uri.substring(URI_PREFIX.length()))));
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * @param content
+	 * @return SHA-256 hash of the content (hex), the address in the store
+	 */
+	public String put(AttachmentContent content) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			Path temp = Files.createTempFile(directory, "put", null);
+			try {
+				try(InputStream in = content.openStream(); 
+					OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+					byte[] buffer = new byte[AbstactTransformer.BUFFER_SIZE];
+					for(int n = in.read(buffer); n!=-1; n = in.read(buffer)) {
+						out.write(buffer, 0, n);
+					}
+				}
+				String hash = hex(digest.digest());
+				Path blob = path(hash);
+				if(Files.exists(blob)) {
+					LOG.fine("already stored "+hash);
+				} else {
+					Files.createDirectories(blob.getParent());
+					try {
+						Files.move(temp, blob, StandardCopyOption.ATOMIC_MOVE);
+					} catch (FileAlreadyExistsException ex) {
+						// stored concurrently
+					}
+				}
+				return hash;
+			} finally {
+				Files.deleteIfExists(temp);
+			}
+		} catch (IOException ex) {
+			throw new TransformationException(TransformationException.IO_ERROR, ex);
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex); // SHA-256 is supported by every JRE
+		}
+	}
+
+	/**
+	 * @param hash SHA-256 hash of the content (hex)
+	 * @return file of the content
+	 */
+	public Path get(String hash) {
+		Path blob = path(hash);
+		if(!Files.isRegularFile(blob)) {
+			throw new TransformationException(TransformationException.ATTACHMENT_NOT_FOUND+" "+hash);
+		}
+		return blob;
+	}
+
+	/**
+	 * @param hash SHA-256 hash of the content (hex)
+	 * @return true if the content is stored
+	 */
+	public boolean contains(String hash) {
+		return Files.isRegularFile(path(hash));
+	}
+
+	// the first two hex digits as directory, to limit the number of files per directory
+	private Path path(String hash) {
+		if(!hash.matches("[0-9a-f]{64}")) {
+			throw new IllegalArgumentException("no SHA-256 hash: "+hash);
+		}
+		return directory.resolve(hash.substring(0, 2)).resolve(hash);
+	}
+
+	private static boolean isReference(String uri) {
+		return uri!=null && uri.startsWith(URI_PREFIX);
+	}
+
+	private static String hex(byte[] bytes) {
+		char[] chars = new char[bytes.length*2];
+		for(int i=0; i<bytes.length; i++) {
+			chars[2*i] = HEX[(bytes[i]>>4) & 0xF];
+			chars[2*i+1] = HEX[bytes[i] & 0xF];
+		}
+		return new String(chars);
+	}
+
+}
@@ -0,0 +1,224 @@
+package com.klst.marshaller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import com.klst.einvoice.CoreInvoice;
+
+/**
+ * Transforms batches of documents in parallel.
+ * <p>
+ * The documents are processed on an executor, by default on virtual threads if the runtime supports them
+ * (java 21+), else on a pool with one thread per processor.
+ * At most <code>maxInFlight</code> documents are processed at once,
+ * the caller thread waits before submitting more, so a lazy Stream (f.i. from a database cursor) is consumed
+ * not faster than it is processed.
+ * <p>
+ * The results are in input order. A failing document does not abort the batch,
+ * its {@link Result} holds the TransformationException instead.
+ */
+public class BatchTransformer implements AutoCloseable {
+
+	private static final Logger LOG = Logger.getLogger(BatchTransformer.class.getName());
+
+	static final int DEFAULT_MAX_IN_FLIGHT = 4 * ResourcePool.DEFAULT_CAPACITY;
+
+	/**
+	 * result of one document, either a value or a TransformationException
+	 */
+	public static class Result<T> {
+		private final int index;
+		private final T value;
+		private final TransformationException exception;
+
+		Result(int index, T value, TransformationException exception) {
+			this.index = index;
+			this.value = value;
+			this.exception = exception;
+		}
+
+		/**
+		 * @return position of the document in the batch, 0 based
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		public boolean isSuccess() {
+			return exception==null;
+		}
+
+		/**
+		 * @return the value or null if the document failed
+		 */
+		public T getValue() {
+			return value;
+		}
+
+		/**
+		 * @return the exception or null if the document succeeded
+		 */
+		public TransformationException getException() {
+			return exception;
+		}
+
+		/**
+		 * @return the value
+		 * @throws TransformationException if the document failed
+		 */
+		public T get() {
+			if(exception!=null) throw exception;
+			return value;
+		}
+
+		public String toString() {
+			return "["+index+(isSuccess() ? " OK" : " "+exception.getMessage())+"]";
+		}
+	}
+
+	private final Executor executor;
+	private final ExecutorService ownExecutor; // shut down on close
+	private final int maxInFlight;
+
+	/**
+	 * @param executor runs the transformations
+	 * @param maxInFlight max number of documents processed at once
+	 */
+	public BatchTransformer(Executor executor, int maxInFlight) {
+		if(maxInFlight<1) throw new IllegalArgumentException("maxInFlight:"+maxInFlight);
+		this.executor = executor;
+		this.ownExecutor = null;
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * uses virtual threads if available
+	 *
+	 * @param maxInFlight max number of documents processed at once
+	 */
+	public BatchTransformer(int maxInFlight) {
+		if(maxInFlight<1) throw new IllegalArgumentException("maxInFlight:"+maxInFlight);
+		this.ownExecutor = newDefaultExecutor();
+		this.executor = ownExecutor;
+		this.maxInFlight = maxInFlight;
+	}
+
+	public BatchTransformer() {
+		this(DEFAULT_MAX_IN_FLIGHT);
+	}
+
+	/**
+	 * marshal documents of any supported type, the transformer is chosen per document
+	 *
+	 * @param documents GenericInvoice or CrossIndustryInvoice
+	 * @return xml per document in input order
+	 */
+	public List<Result<byte[]>> fromModel(Stream<? extends CoreInvoice> documents) {
+		return transform(documents, document -> TransformerDispatcher.getTransformer(document).fromModel(document));
+	}
+
+	public List<Result<byte[]>> fromModel(Collection<? extends CoreInvoice> documents) {
+		return fromModel(documents.stream());
+	}
+
+	/**
+	 * unmarshal documents of any supported type, see {@link TransformerDispatcher#toModel(InputStream)}.
+	 * Each stream is closed after it is read.
+	 *
+	 * @param xmlInputStreams UBL Invoice, UBL CreditNote or CII documents
+	 * @return GenericInvoice or CrossIndustryInvoice per document in input order
+	 */
+	public List<Result<CoreInvoice>> toModel(Stream<? extends InputStream> xmlInputStreams) {
+		return transform(xmlInputStreams, xmlInputStream -> {
+			try(InputStream is = xmlInputStream) {
+				return TransformerDispatcher.toModel(is);
+			} catch (IOException ex) {
+				throw new TransformationException(TransformationException.IO_ERROR, ex);
+			}
+		});
+	}
+
+	public List<Result<CoreInvoice>> toModel(Collection<? extends InputStream> xmlInputStreams) {
+		return toModel(xmlInputStreams.stream());
+	}
+
+	/**
+	 * applies function to each input in parallel
+	 *
+	 * @param inputs consumed sequentially by the caller thread
+	 * @param function a transformation, should throw TransformationException on failure
+	 * @return results in input order
+	 */
+	public <S, T> List<Result<T>> transform(Stream<? extends S> inputs, Function<? super S, ? extends T> function) {
+		Semaphore inFlight = new Semaphore(maxInFlight);
+		List<CompletableFuture<Result<T>>> futures = new ArrayList<CompletableFuture<Result<T>>>();
+		inputs.sequential().forEachOrdered(input -> {
+			int index = futures.size();
+			inFlight.acquireUninterruptibly();
+			try {
+				futures.add(CompletableFuture.supplyAsync(() -> apply(index, input, function), executor)
+					.whenComplete((result, throwable) -> inFlight.release()));
+			} catch (RuntimeException ex) { // f.i. RejectedExecutionException
+				inFlight.release();
+				futures.add(CompletableFuture.completedFuture(new Result<T>(index, null, toTransformationException(ex))));
+			}
+		});
+		List<Result<T>> results = new ArrayList<Result<T>>(futures.size());
+		futures.forEach(future -> results.add(future.join()));
+		return results;
+	}
+
+	@Override
+	public void close() {
+		if(ownExecutor!=null) {
+			ownExecutor.shutdown();
+		}
+	}
+
+	// -- private
+
+	private static <S, T> Result<T> apply(int index, S input, Function<? super S, ? extends T> function) {
+		try {
+			return new Result<T>(index, function.apply(input), null);
+		} catch (RuntimeException ex) {
+			LOG.warning("document "+index+" failed: "+ex.getMessage());
+			return new Result<T>(index, null, toTransformationException(ex));
+		}
+	}
+
+	private static TransformationException toTransformationException(RuntimeException ex) {
+		if(ex instanceof TransformationException) {
+			return (TransformationException)ex;
+		}
+		return new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+	}
+
+	// Executors.newVirtualThreadPerTaskExecutor() is available since java 21
+	private static ExecutorService newDefaultExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			LOG.config("using virtual threads");
+			return (ExecutorService)method.invoke(null);
+		} catch (ReflectiveOperationException ex) {
+			LOG.config("virtual threads not available, using "+ResourcePool.DEFAULT_CAPACITY+" platform threads");
+			return Executors.newFixedThreadPool(ResourcePool.DEFAULT_CAPACITY, runnable -> {
+				Thread thread = new Thread(runnable, "BatchTransformer");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+}
@@ -0,0 +1,887 @@
+package com.klst.marshaller;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlNsForm;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSchema;
+import javax.xml.bind.annotation.XmlSchemaType;
+import javax.xml.bind.annotation.XmlTransient;
+import javax.xml.bind.annotation.XmlType;
+import javax.xml.bind.annotation.XmlValue;
+import javax.xml.bind.annotation.adapters.XmlAdapter;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+
+import com.klst.einvoice.AttachmentContent;
+import com.klst.einvoice.CoreInvoice;
+
+/**
+ * Reads UBL and CII documents without JAXB unmarshalling.
+ * <p>
+ * For each JAXB class a binding plan is derived once from its annotations
+ * (&#64;XmlElement, &#64;XmlAttribute, &#64;XmlValue, &#64;XmlJavaTypeAdapter) and cached.
+ * The document is read in one pass with a StAX pull parser, the elements are looked up in the plan
+ * and the objects are created and filled directly.
+ * <p>
+ * JAXB classes with a domain subclass (f.i. TradeLineItem, TradeParty, HeaderTradeSettlement in CII)
+ * are instantiated by the create methods of the transformers DomainObjectFactory and initialized
+ * by its afterUnmarshal as soon as the element is complete, exactly as the JAXB unmarshaller does.
+ * So the getters of the document return them without a copy.
+ * The root is returned as GenericInvoice resp. CrossIndustryInvoice.
+ * <p>
+ * Elements the plan cannot read (extensions with xs:any, xsi:type) are unmarshalled by JAXB 
+ * from the same parser, the document is not read twice.
+ * As by JAXB unknown elements and mixed content are ignored and values which cannot be parsed are left empty.
+ * <p>
+ * Attachments (BG-24.BT-125) larger than 256 KiB of a document read with {@link #open(Path)} are decoded to a temporary file,
+ * the heap use does not depend on their size. The files are deleted when the {@link Document} is closed.
+ */
+public class BindingReader {
+
+	private static final Logger LOG = Logger.getLogger(BindingReader.class.getName());
+
+	private static final String DEFAULT = "##default";
+
+	// attachments with more decoded bytes are not held in memory
+	static final int ATTACHMENT_THRESHOLD = 1<<18;
+
+	// the JDK implementation is stateless
+	private static final DatatypeFactory DATATYPE_FACTORY = newDatatypeFactory();
+
+	private static DatatypeFactory newDatatypeFactory() {
+		try {
+			return DatatypeFactory.newInstance();
+		} catch (DatatypeConfigurationException ex) {
+			throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+		}
+	}
+
+	private final AbstactTransformer transformer;
+	private final Class<?> rootType;
+	private final Function<Object, CoreInvoice> documentFactory;
+	private final Unmarshaller.Listener domainObjectFactory;
+	private final Map<Class<?>, Method> createMethods = new HashMap<Class<?>, Method>(); // by JAXB class
+	private final ClassValue<Bean> beans = new ClassValue<Bean>() {
+		@Override
+		protected Bean computeValue(Class<?> type) {
+			return new Bean(type);
+		}
+	};
+
+	/*
+	 * the no-arg create methods of domainObjectFactory are chosen by their return type
+	 * as by the JAXB RI unmarshaller property "com.sun.xml.internal.bind.ObjectFactory"
+	 */
+	BindingReader(AbstactTransformer transformer, Class<?> rootType, Function<Object, CoreInvoice> documentFactory, Unmarshaller.Listener domainObjectFactory) {
+		this.transformer = transformer;
+		this.rootType = rootType;
+		this.documentFactory = documentFactory;
+		this.domainObjectFactory = domainObjectFactory;
+		for(Method method : domainObjectFactory.getClass().getMethods()) {
+			if(method.getParameterCount()==0 && method.getName().startsWith("create") && method.getReturnType().isAnnotationPresent(XmlType.class)) {
+				createMethods.put(method.getReturnType(), method);
+			}
+		}
+	}
+
+	/**
+	 * @param xmlInputStream the document, the stream is not closed
+	 * @return GenericInvoice or CrossIndustryInvoice
+	 */
+	public CoreInvoice read(InputStream xmlInputStream) {
+		return readDocument(xmlInputStream, new Context(false));
+	}
+
+	/**
+	 * @param xmlfile the document
+	 * @return GenericInvoice or CrossIndustryInvoice
+	 */
+	public CoreInvoice read(Path xmlfile) {
+		try(InputStream xmlInputStream = Files.newInputStream(xmlfile)) {
+			return read(xmlInputStream);
+		} catch (IOException ex) {
+			throw new TransformationException(TransformationException.IO_ERROR, ex);
+		}
+	}
+
+	/**
+	 * @param xml the document
+	 * @return GenericInvoice or CrossIndustryInvoice
+	 */
+	public CoreInvoice read(byte[] xml) {
+		return read(new ByteArrayInputStream(xml));
+	}
+
+	/**
+	 * reads a document with large attachments, they are decoded to temporary files.
+	 * 
+	 * @param xmlInputStream the document, the stream is not closed
+	 * @return the invoice, close deletes the temporary files
+	 */
+	public Document open(InputStream xmlInputStream) {
+		Context context = new Context(true);
+		return new Document(readDocument(xmlInputStream, context), context.attachments);
+	}
+
+	/**
+	 * reads a document with large attachments, they are decoded to temporary files.
+	 * 
+	 * @param xmlfile the document
+	 * @return the invoice, close deletes the temporary files
+	 */
+	public Document open(Path xmlfile) {
+		try(InputStream xmlInputStream = Files.newInputStream(xmlfile)) {
+			return open(xmlInputStream);
+		} catch (IOException ex) {
+			throw new TransformationException(TransformationException.IO_ERROR, ex);
+		}
+	}
+
+	/**
+	 * A document read by {@link BindingReader#open(Path)} and the temporary files of its attachments.
+	 */
+	public static class Document implements Closeable {
+		private final CoreInvoice invoice;
+		private final List<AttachmentContent> attachments;
+
+		Document(CoreInvoice invoice, List<AttachmentContent> attachments) {
+			this.invoice = invoice;
+			this.attachments = attachments;
+		}
+
+		/**
+		 * @return GenericInvoice or CrossIndustryInvoice
+		 */
+		public CoreInvoice getInvoice() {
+			return invoice;
+		}
+
+		/**
+		 * deletes the temporary files, the large attachments of the invoice cannot be read afterwards
+		 */
+		@Override
+		public void close() throws IOException {
+			IOException failure = null;
+			for(AttachmentContent attachment : attachments) {
+				try {
+					attachment.close();
+				} catch (IOException ex) {
+					if(failure==null) {
+						failure = ex;
+					} else {
+						failure.addSuppressed(ex);
+					}
+				}
+			}
+			if(failure!=null) throw failure;
+		}
+	}
+
+	/**
+	 * @param xml the document
+	 * @return true if every element of the document is read by the binding plan, without JAXB and without ignored content
+	 */
+	public boolean isSupported(byte[] xml) {
+		Context context = new Context(false);
+		readDocument(new ByteArrayInputStream(xml), context);
+		return context.complete;
+	}
+
+	// -- private
+
+	// a lambda calling the default constructor, faster than Constructor.newInstance
+	@SuppressWarnings("unchecked")
+	private static Supplier<Object> newConstructor(Class<?> type) {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+			return (Supplier<Object>)LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+					MethodType.methodType(Object.class), constructor, MethodType.methodType(type)).getTarget().invokeExact();
+		} catch (Throwable ex) { // f.i. no public default constructor
+			throw new Unsupported(type.getName()+" constructor "+ex);
+		}
+	}
+
+	// a lambda calling the create method of factory, the domain classes have no public constructor
+	@SuppressWarnings("unchecked")
+	private static Supplier<Object> newFactoryMethod(Object factory, Method create) {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			return (Supplier<Object>)LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class, factory.getClass()),
+					MethodType.methodType(Object.class), lookup.unreflect(create), MethodType.methodType(create.getReturnType())).getTarget().invoke(factory);
+		} catch (Throwable ex) {
+			throw new Unsupported(create+" "+ex);
+		}
+	}
+
+	private CoreInvoice readDocument(InputStream xml, Context context) {
+		try {
+			XMLStreamReader reader = AbstactTransformer.getXmlProvider().getXMLInputFactory().createXMLStreamReader(xml);
+			try {
+				reader.nextTag();
+				XmlRootElement rootElement = rootType.getAnnotation(XmlRootElement.class);
+				if(rootElement==null || !rootElement.name().equals(reader.getLocalName())
+					|| !namespace(rootElement.namespace(), rootType.getPackage()).equals(reader.getNamespaceURI())) {
+					// JAXB unmarshals any root as declared type
+					context.skip("root element {"+reader.getNamespaceURI()+"}"+reader.getLocalName());
+					return documentFactory.apply(transformer.toModel(reader, rootType));
+				}
+				return documentFactory.apply(readChild(rootType, reader, null, context));
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException ex) {
+			deleteAll(context.attachments);
+			throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+		} catch (RuntimeException ex) {
+			deleteAll(context.attachments);
+			throw ex;
+		}
+	}
+
+	private static void deleteAll(List<AttachmentContent> attachments) {
+		attachments.forEach(attachment -> {
+			try {
+				attachment.close();
+			} catch (IOException ex) {
+				LOG.warning("cannot delete "+attachment+": "+ex);
+			}
+		});
+	}
+
+	// reader is positioned on the start tag, afterwards after the end tag
+	private Object readChild(Class<?> declaredType, XMLStreamReader reader, Object parent, Context context) throws XMLStreamException {
+		Bean bean = beans.get(declaredType);
+		String unsupported = bean.unsupported;
+		for(int i=0; unsupported==null && i<reader.getAttributeCount(); i++) {
+			if(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI.equals(reader.getAttributeNamespace(i))) {
+				unsupported = "xsi:"+reader.getAttributeLocalName(i)+" in "+reader.getLocalName();
+			}
+		}
+		if(unsupported!=null) {
+			context.skip("unmarshal with JAXB: "+unsupported);
+			return transformer.toModel(context.inScopeNamespaces(reader), declaredType);
+		}
+		return readElement(bean, reader, parent, context);
+	}
+
+	// reader is positioned on the start tag, afterwards after the end tag
+	private Object readElement(Bean bean, XMLStreamReader reader, Object parent, Context context) throws XMLStreamException {
+		Object object = bean.newInstance();
+		int namespaces = context.pushNamespaces(reader);
+		for(int i=0; i<reader.getAttributeCount(); i++) {
+			Property attribute = find(bean.attributes, reader.getAttributeNamespace(i), reader.getAttributeLocalName(i));
+			if(attribute!=null) { // unknown attributes are ignored as by JAXB
+				try {
+					attribute.set(object, attribute.parse(reader.getAttributeValue(i)));
+				} catch (Unsupported ex) {
+					context.skip(ex.getMessage());
+				}
+			}
+		}
+		if(bean.value!=null) {
+			Object value = readText(bean.value, reader, context, true);
+			if(value instanceof AttachmentContent) {
+				// a large attachment decoded to a temporary file
+				if(object instanceof AttachmentContent.Holder) {
+					((AttachmentContent.Holder)object).setContent((AttachmentContent)value);
+				} else {
+					bean.value.set(object, ((AttachmentContent)value).toByteArray());
+				}
+			} else if(value!=null) {
+				bean.value.set(object, value);
+			}
+		} else {
+			int event = reader.next();
+			while(event!=XMLStreamConstants.END_ELEMENT) {
+				if(event==XMLStreamConstants.START_ELEMENT) {
+					Property element = find(bean.elements, reader.getNamespaceURI(), reader.getLocalName());
+					if(element==null) {
+						context.skip("unknown element {"+reader.getNamespaceURI()+"}"+reader.getLocalName()+" in "+bean.type.getName());
+						skipElement(reader);
+					} else {
+						Object value;
+						if(element.declaredType==null) {
+							value = readText(element, reader, context, false);
+							reader.next();
+						} else {
+							value = readChild(element.declaredType, reader, object, context);
+						}
+						if(value==null) {
+							// not parsable, left empty
+						} else if(element.isList) {
+							element.add(object, value);
+						} else {
+							element.set(object, value);
+						}
+					}
+					event = reader.getEventType();
+				} else {
+					if((event==XMLStreamConstants.CHARACTERS || event==XMLStreamConstants.CDATA) && !reader.isWhiteSpace()) {
+						context.skip("mixed content in "+bean.type.getName());
+					}
+					event = reader.next();
+				}
+			}
+		}
+		context.popNamespaces(namespaces);
+		reader.next();
+		if(bean.isDomainObject) {
+			domainObjectFactory.afterUnmarshal(object, parent);
+		}
+		return object;
+	}
+
+	// reader is positioned on the start tag, afterwards after the end tag
+	private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+		for(int depth = 1; depth>0; ) {
+			int event = reader.next();
+			if(event==XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if(event==XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+		reader.next();
+	}
+
+	/* reader is positioned on the start tag, afterwards on the end tag, returns null if the text cannot be parsed
+	 * 
+	 * base64Binary (f.i. BG-24 attachments) is decoded chunk by chunk from the parser buffer.
+	 * Attachments larger than ATTACHMENT_THRESHOLD are decoded to a temporary file 
+	 * and returned as AttachmentContent, if the property is a bean value and the context keeps temporary files
+	 */
+	private static Object readText(Property property, XMLStreamReader reader, Context context, boolean isValue) throws XMLStreamException {
+		if(!property.isBase64) {
+			try {
+				return property.parse(elementText(reader, context));
+			} catch (Unsupported ex) {
+				context.skip(ex.getMessage());
+				return null;
+			}
+		}
+		Base64Decoder decoder = new Base64Decoder(AbstactTransformer.BUFFER_SIZE);
+		AttachmentContent content = null;
+		OutputStream fileOutputStream = null;
+		try {
+			int event = reader.next();
+			while(event!=XMLStreamConstants.END_ELEMENT) {
+				if(event==XMLStreamConstants.START_ELEMENT) {
+					context.skip("element content in base64 element "+property.name);
+					skipElement(reader);
+					event = reader.getEventType();
+					continue;
+				}
+				if(decoder!=null && (event==XMLStreamConstants.CHARACTERS || event==XMLStreamConstants.CDATA || event==XMLStreamConstants.SPACE)) {
+					try {
+						decoder.decode(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+					} catch (IllegalArgumentException ex) {
+						context.skip(property.name+" "+ex.getMessage());
+						decoder = null;
+					}
+					if(decoder!=null && isValue && context.temporaryFiles && decoder.size()>=ATTACHMENT_THRESHOLD) {
+						if(fileOutputStream==null) {
+							content = AttachmentContent.temporary(Files.createTempFile("attachment", null));
+							context.attachments.add(content);
+							fileOutputStream = Files.newOutputStream(content.getFile());
+						}
+						decoder.writeTo(fileOutputStream);
+					}
+				}
+				event = reader.next();
+			}
+			if(decoder==null) {
+				return null;
+			} else if(fileOutputStream==null) {
+				return decoder.toByteArray();
+			}
+			decoder.finish();
+			decoder.writeTo(fileOutputStream);
+			return content;
+		} catch (IllegalArgumentException ex) { // incomplete base64
+			context.skip(property.name+" "+ex.getMessage());
+			return null;
+		} catch (IOException ex) {
+			throw new TransformationException(TransformationException.IO_ERROR, ex);
+		} finally {
+			if(fileOutputStream!=null) {
+				try {
+					fileOutputStream.close();
+				} catch (IOException ex) {
+					LOG.warning("cannot close "+content+": "+ex);
+				}
+			}
+		}
+	}
+
+	// as XMLStreamReader.getElementText without copying the common single text event into a StringBuffer
+	private static String elementText(XMLStreamReader reader, Context context) throws XMLStreamException {
+		String text = null;
+		StringBuilder sb = null;
+		int event = reader.next();
+		while(event!=XMLStreamConstants.END_ELEMENT) {
+			if(event==XMLStreamConstants.START_ELEMENT) {
+				context.skip("element content in text only element "+reader.getLocalName());
+				skipElement(reader);
+				event = reader.getEventType();
+				continue;
+			}
+			if(event==XMLStreamConstants.CHARACTERS || event==XMLStreamConstants.CDATA
+					|| event==XMLStreamConstants.SPACE || event==XMLStreamConstants.ENTITY_REFERENCE) {
+				if(text==null) {
+					text = reader.getText();
+				} else {
+					if(sb==null) sb = new StringBuilder(text);
+					sb.append(reader.getText());
+				}
+			}
+			event = reader.next();
+		}
+		return sb!=null ? sb.toString() : text==null ? "" : text;
+	}
+
+	private static Property find(Map<String, Property> properties, String namespace, String localName) {
+		String ns = namespace==null ? "" : namespace;
+		for(Property property = properties.get(localName); property!=null; property = property.next) {
+			if(property.namespace.equals(ns)) return property;
+		}
+		return null;
+	}
+
+	private static String namespace(String namespace, Package pkg) {
+		if(!DEFAULT.equals(namespace)) return namespace;
+		XmlSchema schema = pkg==null ? null : pkg.getAnnotation(XmlSchema.class);
+		return schema==null ? "" : schema.namespace();
+	}
+
+	// the state of one read
+	private static class Context {
+		final boolean temporaryFiles; // large attachments are decoded to temporary files
+		final List<AttachmentContent> attachments = new ArrayList<AttachmentContent>();
+		boolean complete = true; // false if content is ignored or unmarshalled by JAXB
+		// namespace declarations of the open elements, prefix and uri
+		private final List<String> namespaces = new ArrayList<String>();
+
+		Context(boolean temporaryFiles) {
+			this.temporaryFiles = temporaryFiles;
+		}
+
+		void skip(String reason) {
+			complete = false;
+			if(LOG.isLoggable(Level.FINE)) LOG.fine(reason);
+		}
+
+		int pushNamespaces(XMLStreamReader reader) {
+			int count = reader.getNamespaceCount();
+			for(int i=0; i<count; i++) {
+				namespaces.add(reader.getNamespacePrefix(i));
+				namespaces.add(reader.getNamespaceURI(i));
+			}
+			return count;
+		}
+
+		void popNamespaces(int count) {
+			for(int i=0; i<2*count; i++) {
+				namespaces.remove(namespaces.size()-1);
+			}
+		}
+
+		/* reader positioned on a start tag which is unmarshalled by JAXB:
+		 * JAXB declares the in-scope namespaces on xs:any content,
+		 * the namespaces of the open elements are added to the declarations of the start tag
+		 * as if JAXB had unmarshalled the whole document
+		 */
+		XMLStreamReader inScopeNamespaces(XMLStreamReader reader) {
+			List<String> inScope = new ArrayList<String>();
+			for(int i=namespaces.size()-2; i>=0; i-=2) {
+				String prefix = namespaces.get(i);
+				boolean declared = false;
+				for(int j=0; !declared && j<reader.getNamespaceCount(); j++) {
+					declared = equals(prefix, reader.getNamespacePrefix(j));
+				}
+				for(int j=0; !declared && j<inScope.size(); j+=2) {
+					declared = equals(prefix, inScope.get(j));
+				}
+				if(!declared) {
+					inScope.add(prefix);
+					inScope.add(namespaces.get(i+1));
+				}
+			}
+			return inScope.isEmpty() ? reader : new StreamReaderDelegate(reader) {
+				private boolean isStartTag = true;
+				@Override
+				public int next() throws XMLStreamException {
+					isStartTag = false;
+					return super.next();
+				}
+				@Override
+				public int nextTag() throws XMLStreamException {
+					isStartTag = false;
+					return super.nextTag();
+				}
+				@Override
+				public int getNamespaceCount() {
+					return super.getNamespaceCount() + (isStartTag ? inScope.size()/2 : 0);
+				}
+				@Override
+				public String getNamespacePrefix(int index) {
+					int count = super.getNamespaceCount();
+					return index<count ? super.getNamespacePrefix(index) : inScope.get(2*(index-count));
+				}
+				@Override
+				public String getNamespaceURI(int index) {
+					int count = super.getNamespaceCount();
+					return index<count ? super.getNamespaceURI(index) : inScope.get(2*(index-count)+1);
+				}
+			};
+		}
+
+		// the default namespace prefix is null or ""
+		private static boolean equals(String prefix, String other) {
+			return (prefix==null ? "" : prefix).equals(other==null ? "" : other);
+		}
+	}
+
+	// the binding plan of a JAXB class
+	private class Bean {
+		final Class<?> type;
+		final Map<String, Property> attributes = new HashMap<String, Property>(); // by local name
+		final Map<String, Property> elements = new HashMap<String, Property>(); // by local name
+		Property value;
+		Supplier<Object> constructor;
+		boolean isDomainObject; // created by the domainObjectFactory
+		String unsupported; // reason why this class cannot be read without JAXB
+
+		Bean(Class<?> type) {
+			this.type = type;
+			try {
+				if(!type.isAnnotationPresent(XmlType.class) || Modifier.isAbstract(type.getModifiers())) {
+					throw new Unsupported(type.getName()+" cannot be instantiated");
+				}
+				Method create = createMethods.get(type);
+				isDomainObject = create!=null;
+				constructor = isDomainObject ? newFactoryMethod(domainObjectFactory, create) : newConstructor(type);
+				for(Class<?> c = type; c!=null && c.isAnnotationPresent(XmlType.class); c = c.getSuperclass()) {
+					addProperties(c);
+				}
+				if(value!=null && !elements.isEmpty()) {
+					throw new Unsupported(type.getName()+" mixed content");
+				}
+			} catch (Unsupported ex) {
+				unsupported = ex.getMessage();
+			}
+		}
+
+		private void addProperties(Class<?> c) {
+			for(Field field : c.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				if(Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isAnnotationPresent(XmlTransient.class)) continue;
+				Property property = new Property(field);
+				if(field.isAnnotationPresent(XmlAttribute.class)) {
+					add(attributes, property);
+				} else if(field.isAnnotationPresent(XmlValue.class)) {
+					value = property;
+				} else {
+					add(elements, property);
+				}
+			}
+		}
+
+		private void add(Map<String, Property> properties, Property property) {
+			property.next = properties.put(property.name, property);
+		}
+
+		Object newInstance() {
+			return constructor.get();
+		}
+	}
+
+	private class Property {
+		final Field field;
+		final String name;
+		final String namespace;
+		final boolean isList;
+		final boolean isBase64;
+		Property next; // with the same local name in another namespace
+		Class<?> declaredType; // bound class of complex types, null for leaf types
+		Function<String, Object> parser;
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Property(Field field) {
+			this.field = field;
+			field.setAccessible(true);
+			Class<?> type = field.getType();
+			isList = List.class.isAssignableFrom(type);
+			if(isList) {
+				Type itemType = field.getGenericType() instanceof ParameterizedType ? ((ParameterizedType)field.getGenericType()).getActualTypeArguments()[0] : null;
+				if(!(itemType instanceof Class)) throw new Unsupported(field+" item type");
+				type = (Class<?>)itemType;
+			}
+			Package pkg = field.getDeclaringClass().getPackage();
+			XmlAttribute attribute = field.getAnnotation(XmlAttribute.class);
+			XmlElement element = field.getAnnotation(XmlElement.class);
+			if(field.getAnnotations().length>(element==null ? 0 : 1) + (attribute==null ? 0 : 1)
+					+ (field.isAnnotationPresent(XmlValue.class) ? 1 : 0) + (field.isAnnotationPresent(XmlSchemaType.class) ? 1 : 0)
+					+ (field.isAnnotationPresent(XmlJavaTypeAdapter.class) ? 1 : 0)) {
+				// f.i. xs:any
+				throw new Unsupported(field+" annotations");
+			}
+			if(attribute!=null) {
+				name = DEFAULT.equals(attribute.name()) ? field.getName() : attribute.name();
+				namespace = DEFAULT.equals(attribute.namespace()) ? formNamespace(pkg, false) : attribute.namespace();
+			} else if(field.isAnnotationPresent(XmlValue.class)) {
+				name = field.getName();
+				namespace = "";
+			} else {
+				name = element==null || DEFAULT.equals(element.name()) ? field.getName() : element.name();
+				String ns = element==null ? DEFAULT : element.namespace();
+				namespace = DEFAULT.equals(ns) ? formNamespace(pkg, true) : ns;
+			}
+			XmlJavaTypeAdapter adapter = field.getAnnotation(XmlJavaTypeAdapter.class);
+			isBase64 = adapter==null && type==byte[].class;
+			if(adapter!=null) {
+				XmlAdapter xmlAdapter;
+				try {
+					xmlAdapter = adapter.value().newInstance();
+				} catch (ReflectiveOperationException ex) {
+					throw new Unsupported(field+" adapter "+ex);
+				}
+				parser = text -> {
+					try {
+						return xmlAdapter.unmarshal(text);
+					} catch (Exception ex) {
+						throw new Unsupported(field.getName()+" "+ex);
+					}
+				};
+			} else {
+				parser = leafParser(type);
+			}
+			if(parser==null) {
+				if(attribute!=null || field.isAnnotationPresent(XmlValue.class) || !type.isAnnotationPresent(XmlType.class)) {
+					throw new Unsupported(field+" type "+type.getName());
+				}
+				declaredType = BindingWriter.getBoundClass(type);
+			}
+		}
+
+		Object parse(String text) {
+			try {
+				return parser.apply(text);
+			} catch (RuntimeException ex) { // f.i. NumberFormatException, JAXB reports the error
+				throw new Unsupported(name+" "+ex);
+			}
+		}
+
+		void set(Object object, Object value) {
+			try {
+				field.set(object, value);
+			} catch (IllegalAccessException ex) {
+				throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		void add(Object object, Object value) {
+			try {
+				List<Object> list = (List<Object>)field.get(object);
+				if(list==null) {
+					list = new ArrayList<Object>();
+					field.set(object, list);
+				}
+				list.add(value);
+			} catch (IllegalAccessException ex) {
+				throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+			}
+		}
+
+		private String formNamespace(Package pkg, boolean isElement) {
+			XmlSchema schema = pkg==null ? null : pkg.getAnnotation(XmlSchema.class);
+			XmlNsForm form = schema==null ? null : (isElement ? schema.elementFormDefault() : schema.attributeFormDefault());
+			return form==XmlNsForm.QUALIFIED ? schema.namespace() : "";
+		}
+	}
+
+	// parsers as in javax.xml.bind.DatatypeConverter, null for complex types
+	private static Function<String, Object> leafParser(Class<?> type) {
+		if(type==String.class) {
+			return text -> text;
+		} else if(type==BigDecimal.class) {
+			return text -> new BigDecimal(trimPlus(text));
+		} else if(type==BigInteger.class) {
+			return text -> new BigInteger(trimPlus(text));
+		} else if(type==Integer.class || type==int.class) {
+			return text -> Integer.valueOf(trimPlus(text));
+		} else if(type==Long.class || type==long.class) {
+			return text -> Long.valueOf(trimPlus(text));
+		} else if(type==Short.class || type==short.class) {
+			return text -> Short.valueOf(trimPlus(text));
+		} else if(type==Boolean.class || type==boolean.class) {
+			return BindingReader::parseBoolean;
+		} else if(type==byte[].class) {
+			return BindingReader::parseBase64;
+		} else if(type==XMLGregorianCalendar.class) {
+			return text -> DATATYPE_FACTORY.newXMLGregorianCalendar(text.trim());
+		}
+		return null;
+	}
+
+	private static String trimPlus(String text) {
+		String s = text.trim();
+		return s.startsWith("+") ? s.substring(1) : s;
+	}
+
+	private static byte[] parseBase64(String text) {
+		Base64Decoder decoder = new Base64Decoder(text.length());
+		decoder.decode(text.toCharArray(), 0, text.length());
+		return decoder.toByteArray();
+	}
+
+	private static Boolean parseBoolean(String text) {
+		String s = text.trim();
+		if("true".equals(s) || "1".equals(s)) return Boolean.TRUE;
+		if("false".equals(s) || "0".equals(s)) return Boolean.FALSE;
+		throw new IllegalArgumentException("boolean "+s);
+	}
+
+	// base64Binary decoder for text in chunks, whitespace is skipped
+	private static class Base64Decoder {
+		private static final byte[] ALPHABET = new byte[128];
+		static {
+			Arrays.fill(ALPHABET, (byte)-1);
+			String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+			for(int i=0; i<chars.length(); i++) {
+				ALPHABET[chars.charAt(i)] = (byte)i;
+			}
+		}
+
+		private byte[] buf;
+		private int count = 0;
+		private int bits = 0;
+		private int chars = 0; // in the current quantum
+		private boolean padding = false;
+
+		Base64Decoder(int length) {
+			buf = new byte[length/4*3+3];
+		}
+
+		void decode(char[] text, int start, int length) {
+			if(count+length/4*3+3>buf.length) {
+				buf = Arrays.copyOf(buf, Math.max(buf.length<<1, count+length/4*3+3));
+			}
+			byte[] b = buf;
+			int n = count;
+			int end = start+length;
+			for(int i=start; i<end; i++) {
+				if(chars==0 && i+4<=end) { // fast path: a complete quantum without whitespace
+					int c0 = text[i], c1 = text[i+1], c2 = text[i+2], c3 = text[i+3];
+					if((c0|c1|c2|c3)<128) {
+						int quantum = ALPHABET[c0]<<18 | ALPHABET[c1]<<12 | ALPHABET[c2]<<6 | ALPHABET[c3];
+						if(quantum>=0 && !padding) {
+							b[n++] = (byte)(quantum>>16);
+							b[n++] = (byte)(quantum>>8);
+							b[n++] = (byte)quantum;
+							i += 3;
+							continue;
+						}
+					}
+				}
+				char c = text[i];
+				int value = c<128 ? ALPHABET[c] : -1;
+				if(value<0) {
+					if(c=='=') {
+						padding = true;
+					} else if(c!=' ' && c!='\t' && c!='\r' && c!='\n') {
+						throw new IllegalArgumentException("illegal base64 char "+(int)c);
+					}
+					continue;
+				}
+				if(padding) throw new IllegalArgumentException("base64 char after padding");
+				bits = bits<<6 | value;
+				if(++chars==4) {
+					b[n++] = (byte)(bits>>16);
+					b[n++] = (byte)(bits>>8);
+					b[n++] = (byte)bits;
+					bits = 0;
+					chars = 0;
+				}
+			}
+			count = n;
+		}
+
+		int size() {
+			return count;
+		}
+
+		// the last incomplete quantum
+		void finish() {
+			if(chars==1) {
+				throw new IllegalArgumentException("incomplete base64");
+			} else if(chars==2) {
+				buf[count++] = (byte)(bits>>4);
+			} else if(chars==3) {
+				buf[count++] = (byte)(bits>>10);
+				buf[count++] = (byte)(bits>>2);
+			}
+			chars = 0;
+		}
+
+		byte[] toByteArray() {
+			finish();
+			return count==buf.length ? buf : Arrays.copyOf(buf, count);
+		}
+
+		// writes and discards the decoded bytes
+		void writeTo(OutputStream outputStream) throws IOException {
+			outputStream.write(buf, 0, count);
+			count = 0;
+		}
+	}
+
+	/* content not supported by the binding plan:
+	 * a class which is unmarshalled with JAXB or a value which cannot be parsed and is left empty
+	 */
+	private static class Unsupported extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+		Unsupported(String message) {
+			super(message, null, false, false);
+		}
+	}
+
+}
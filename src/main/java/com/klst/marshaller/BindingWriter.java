@@ -0,0 +1,631 @@
+package com.klst.marshaller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import javax.xml.bind.DatatypeConverter;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlNsForm;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSchema;
+import javax.xml.bind.annotation.XmlSchemaType;
+import javax.xml.bind.annotation.XmlTransient;
+import javax.xml.bind.annotation.XmlType;
+import javax.xml.bind.annotation.XmlValue;
+import javax.xml.bind.annotation.adapters.XmlAdapter;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import com.klst.einvoice.AttachmentContent;
+import com.klst.einvoice.ubl.GenericInvoice;
+
+/**
+ * Serializes UBL and CII documents without JAXB marshalling.
+ * <p>
+ * For each JAXB class a binding plan is derived once from its annotations
+ * (&#64;XmlType propOrder, &#64;XmlElement, &#64;XmlAttribute, &#64;XmlValue, &#64;XmlJavaTypeAdapter, &#64;XmlSchemaType)
+ * and cached. Start and end tags are pre-encoded in UTF-8 with the prefixes of the transformers NamespacePrefixMapper,
+ * so writing a document is a walk over the object tree that appends bytes to a buffer.
+ * <p>
+ * The output is the same as {@link AbstactTransformer#fromModel(Object)}, except the order of the namespace declarations.
+ * Documents with content that needs JAXB (xs:any extension content, xsi:type, namespaces not known to the
+ * NamespacePrefixMapper) are marshalled by the transformer.
+ * <p>
+ * Attachments supplied as {@link AttachmentContent} are base64-encoded from their file or stream
+ * directly into the OutputStream.
+ */
+public class BindingWriter {
+
+	private static final Logger LOG = Logger.getLogger(BindingWriter.class.getName());
+
+	private static final String DEFAULT = "##default";
+	private static final byte[] XML_DECLARATION = bytes("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>");
+	private static final byte[] INDENT = bytes("    ");
+
+	private final AbstactTransformer transformer;
+	private final Map<String, String> prefixes;
+	private final ClassValue<Bean> beans = new ClassValue<Bean>() {
+		@Override
+		protected Bean computeValue(Class<?> type) {
+			Class<?> bound = getBoundClass(type);
+			return bound==type ? new Bean(type) : beans.get(bound);
+		}
+	};
+
+	BindingWriter(AbstactTransformer transformer, Map<String, String> prefixes) {
+		this.transformer = transformer;
+		this.prefixes = prefixes;
+	}
+
+	/**
+	 * @param document GenericInvoice or CrossIndustryInvoice
+	 * @param formatted false for compact (unindented) output
+	 * @return xml
+	 */
+	public byte[] write(Object document, boolean formatted) {
+		if(AbstactTransformer.getLineSource(document)!=null) {
+			// the lines are not in the document, the transformer streams them
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream(16000);
+			transformer.fromModel(document, outputStream, formatted);
+			return outputStream.toByteArray();
+		}
+		Object root = document instanceof GenericInvoice<?> ? ((GenericInvoice<?>)document).get() : document;
+		try {
+			Output out = new Output(formatted);
+			writeDocument(root, out);
+			return out.toByteArray();
+		} catch (Unsupported ex) {
+			LOG.fine("marshal with JAXB: "+ex.getMessage());
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream(16000);
+			transformer.fromModel(document, outputStream, formatted);
+			return outputStream.toByteArray();
+		} catch (IOException ex) {
+			throw new TransformationException(TransformationException.IO_ERROR, ex);
+		}
+	}
+
+	/**
+	 * @param document GenericInvoice or CrossIndustryInvoice
+	 * @param outputStream the stream is not closed
+	 * @param formatted false for compact (unindented) output
+	 */
+	public void write(Object document, OutputStream outputStream, boolean formatted) {
+		if(AbstactTransformer.getLineSource(document)!=null) {
+			// the lines are not in the document, the transformer streams them
+			transformer.fromModel(document, outputStream, formatted);
+			return;
+		}
+		Object root = document instanceof GenericInvoice<?> ? ((GenericInvoice<?>)document).get() : document;
+		Output out = new Output(formatted);
+		try {
+			writeDocument(root, out);
+		} catch (Unsupported ex) {
+			LOG.fine("marshal with JAXB: "+ex.getMessage());
+			transformer.fromModel(document, outputStream, formatted);
+			return;
+		}
+		try {
+			out.writeTo(outputStream);
+		} catch (IOException ex) {
+			throw new TransformationException(TransformationException.IO_ERROR, ex);
+		}
+	}
+
+	/**
+	 * @param document GenericInvoice or CrossIndustryInvoice
+	 * @return true if document can be written without JAXB
+	 */
+	public boolean isSupported(Object document) {
+		Object root = document instanceof GenericInvoice<?> ? ((GenericInvoice<?>)document).get() : document;
+		try {
+			writeDocument(root, new Output(false));
+			return true;
+		} catch (Unsupported ex) {
+			return false;
+		}
+	}
+
+	// -- private
+
+	private void writeDocument(Object root, Output out) {
+		Bean bean = beans.get(root.getClass());
+		XmlRootElement rootElement = bean.type.getAnnotation(XmlRootElement.class);
+		if(rootElement==null) {
+			throw new Unsupported(bean.type+" is no root element");
+		}
+		String namespace = namespace(rootElement.namespace(), bean.type.getPackage());
+		String rootPrefix = prefix(namespace);
+		String name = (rootPrefix.isEmpty() ? "" : rootPrefix+":") + rootElement.name();
+		out.write(XML_DECLARATION);
+		out.startTag(bytes("<"+name));
+		out.write(bytes(" xmlns"+(rootPrefix.isEmpty() ? "" : ":"+rootPrefix)+"=\""+namespace+"\""));
+		prefixes.forEach((uri, prefix) -> {
+			if(!prefix.equals(rootPrefix)) out.write(bytes(" xmlns:"+prefix+"=\""+uri+"\""));
+		});
+		writeContent(bean, root, out);
+		out.endTag(bytes("</"+name+">"));
+	}
+
+	private void writeContent(Bean bean, Object object, Output out) {
+		if(bean.unsupported!=null) {
+			throw new Unsupported(bean.unsupported);
+		}
+		for(Property attribute : bean.attributes) {
+			Object value = attribute.get(object);
+			if(value!=null) {
+				out.write(attribute.startTag);
+				out.escape(attribute.print(value), true);
+				out.write('"');
+			}
+		}
+		if(bean.value!=null) {
+			Object value = bean.value.get(object);
+			AttachmentContent content = object instanceof AttachmentContent.Holder ? ((AttachmentContent.Holder)object).getContent() : null;
+			if(content!=null) {
+				out.base64(content);
+			} else if(value instanceof byte[]) {
+				out.base64((byte[])value);
+			} else if(value!=null) {
+				out.text(bean.value.print(value));
+			}
+		}
+		for(Property element : bean.elements) {
+			Object value = element.get(object);
+			if(value==null) continue;
+			if(element.isList) {
+				for(Object item : (List<?>)value) {
+					if(item!=null) writeElement(element, item, out);
+				}
+			} else {
+				writeElement(element, value, out);
+			}
+		}
+	}
+
+	private void writeElement(Property element, Object value, Output out) {
+		if(element.declaredType==null) { // leaf
+			out.startTag(element.startTag);
+			if(value instanceof byte[]) {
+				out.base64((byte[])value);
+			} else {
+				out.text(element.print(value));
+			}
+			out.endTag(element.endTag);
+			return;
+		}
+		Bean bean = beans.get(value.getClass());
+		if(bean.type!=element.declaredType) {
+			throw new Unsupported(element.name+" needs xsi:type "+bean.type.getName());
+		}
+		out.startTag(element.startTag);
+		writeContent(bean, value, out);
+		out.endTag(element.endTag);
+	}
+
+	// nearest class known to JAXB, subclasses not annotated with XmlType are marshalled as their superclass
+	static Class<?> getBoundClass(Class<?> type) {
+		for(Class<?> c = type; c!=null && c!=Object.class; c = c.getSuperclass()) {
+			if(c.isAnnotationPresent(XmlType.class)) return c;
+		}
+		return type;
+	}
+
+	private static String namespace(String namespace, Package pkg) {
+		if(!DEFAULT.equals(namespace)) return namespace;
+		XmlSchema schema = pkg==null ? null : pkg.getAnnotation(XmlSchema.class);
+		return schema==null ? "" : schema.namespace();
+	}
+
+	private String prefix(String namespace) {
+		if(namespace.isEmpty()) return "";
+		String prefix = prefixes.get(namespace);
+		if(prefix==null) {
+			throw new Unsupported("no prefix for namespace "+namespace);
+		}
+		return prefix;
+	}
+
+	private static byte[] bytes(String s) {
+		return s.getBytes(StandardCharsets.UTF_8);
+	}
+
+	// the binding plan of a JAXB class
+	private class Bean {
+		final Class<?> type;
+		final List<Property> attributes = new ArrayList<Property>();
+		final List<Property> elements = new ArrayList<Property>();
+		Property value;
+		String unsupported; // reason why this class cannot be written without JAXB
+
+		Bean(Class<?> type) {
+			this.type = type;
+			List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+			for(Class<?> c = type; c!=null && c.isAnnotationPresent(XmlType.class); c = c.getSuperclass()) {
+				hierarchy.add(0, c);
+			}
+			try {
+				for(Class<?> c : hierarchy) {
+					addProperties(c);
+				}
+			} catch (Unsupported ex) {
+				unsupported = ex.getMessage();
+			}
+		}
+
+		private void addProperties(Class<?> c) {
+			Map<String, Field> fields = new LinkedHashMap<String, Field>();
+			for(Field field : c.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				if(Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isAnnotationPresent(XmlTransient.class)) continue;
+				if(field.isAnnotationPresent(XmlAttribute.class)) {
+					attributes.add(new Property(field));
+				} else {
+					fields.put(field.getName(), field);
+				}
+			}
+			String[] propOrder = c.getAnnotation(XmlType.class).propOrder();
+			List<String> order = propOrder.length==0 || (propOrder.length==1 && propOrder[0].isEmpty())
+					? new ArrayList<String>(fields.keySet()) : Arrays.asList(propOrder);
+			for(String name : order) {
+				Field field = fields.remove(name);
+				if(field==null) throw new Unsupported(c.getName()+" propOrder "+name);
+				if(field.isAnnotationPresent(XmlValue.class)) {
+					value = new Property(field);
+				} else {
+					elements.add(new Property(field));
+				}
+			}
+			if(!fields.isEmpty()) throw new Unsupported(c.getName()+" fields not in propOrder "+fields.keySet());
+		}
+	}
+
+	private class Property {
+		final Field field;
+		final String name;
+		final boolean isList;
+		final byte[] startTag; // "<prefix:name" for elements, " name=\"" for attributes
+		final byte[] endTag;
+		Class<?> declaredType; // bound class of complex types, null for leaf types
+		Function<Object, String> printer;
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Property(Field field) {
+			this.field = field;
+			field.setAccessible(true);
+			Class<?> type = field.getType();
+			isList = List.class.isAssignableFrom(type);
+			if(isList) {
+				Type itemType = field.getGenericType() instanceof ParameterizedType ? ((ParameterizedType)field.getGenericType()).getActualTypeArguments()[0] : null;
+				if(!(itemType instanceof Class)) throw new Unsupported(field+" item type");
+				type = (Class<?>)itemType;
+			}
+			Package pkg = field.getDeclaringClass().getPackage();
+			XmlAttribute attribute = field.getAnnotation(XmlAttribute.class);
+			XmlElement element = field.getAnnotation(XmlElement.class);
+			if(attribute!=null) {
+				name = DEFAULT.equals(attribute.name()) ? field.getName() : attribute.name();
+				String namespace = DEFAULT.equals(attribute.namespace()) ? attributeNamespace(pkg) : attribute.namespace();
+				String prefix = prefix(namespace);
+				startTag = bytes(" "+(prefix.isEmpty() ? "" : prefix+":")+name+"=\"");
+				endTag = null;
+			} else if(field.isAnnotationPresent(XmlValue.class)) {
+				name = field.getName();
+				startTag = null;
+				endTag = null;
+			} else {
+				if(field.getAnnotations().length>(element==null ? 0 : 1) + (field.isAnnotationPresent(XmlSchemaType.class) ? 1 : 0)
+						+ (field.isAnnotationPresent(XmlJavaTypeAdapter.class) ? 1 : 0)) {
+					throw new Unsupported(field+" annotations "+Arrays.toString(field.getAnnotations()));
+				}
+				name = element==null || DEFAULT.equals(element.name()) ? field.getName() : element.name();
+				String namespace = element==null ? DEFAULT : element.namespace();
+				namespace = DEFAULT.equals(namespace) ? elementNamespace(pkg) : namespace;
+				String prefix = prefix(namespace);
+				String qName = (prefix.isEmpty() ? "" : prefix+":") + name;
+				startTag = bytes("<"+qName);
+				endTag = bytes("</"+qName+">");
+			}
+			XmlJavaTypeAdapter adapter = field.getAnnotation(XmlJavaTypeAdapter.class);
+			if(adapter!=null) {
+				XmlAdapter xmlAdapter;
+				try {
+					xmlAdapter = adapter.value().newInstance();
+				} catch (ReflectiveOperationException ex) {
+					throw new Unsupported(field+" adapter "+ex);
+				}
+				printer = value -> {
+					try {
+						return String.valueOf(xmlAdapter.marshal(value));
+					} catch (Exception ex) {
+						throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+					}
+				};
+			} else {
+				printer = leafPrinter(type, field.getAnnotation(XmlSchemaType.class));
+			}
+			if(printer==null) {
+				if(attribute!=null || endTag==null || !type.isAnnotationPresent(XmlType.class)) {
+					throw new Unsupported(field+" type "+type.getName());
+				}
+				declaredType = getBoundClass(type);
+			}
+		}
+
+		Object get(Object object) {
+			try {
+				return field.get(object);
+			} catch (IllegalAccessException ex) {
+				throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+			}
+		}
+
+		String print(Object value) {
+			return printer.apply(value);
+		}
+
+		private String elementNamespace(Package pkg) {
+			XmlSchema schema = pkg==null ? null : pkg.getAnnotation(XmlSchema.class);
+			return schema!=null && schema.elementFormDefault()==XmlNsForm.QUALIFIED ? schema.namespace() : "";
+		}
+
+		private String attributeNamespace(Package pkg) {
+			XmlSchema schema = pkg==null ? null : pkg.getAnnotation(XmlSchema.class);
+			return schema!=null && schema.attributeFormDefault()==XmlNsForm.QUALIFIED ? schema.namespace() : "";
+		}
+	}
+
+	// printers as in javax.xml.bind.DatatypeConverter, null for complex types
+	private static Function<Object, String> leafPrinter(Class<?> type, XmlSchemaType schemaType) {
+		if(type==String.class) {
+			return value -> (String)value;
+		} else if(type==BigDecimal.class) {
+			return value -> ((BigDecimal)value).toPlainString();
+		} else if(type==BigInteger.class || type==Boolean.class || type==boolean.class || type==Integer.class || type==int.class
+				|| type==Long.class || type==long.class || type==Short.class || type==short.class) {
+			return String::valueOf;
+		} else if(type==byte[].class) {
+			return value -> DatatypeConverter.printBase64Binary((byte[])value);
+		} else if(type==XMLGregorianCalendar.class) {
+			String name = schemaType==null ? null : schemaType.name();
+			if("date".equals(name)) {
+				return value -> printCalendar((XMLGregorianCalendar)value, false, true);
+			} else if("time".equals(name)) {
+				return value -> printCalendar((XMLGregorianCalendar)value, true, false);
+			}
+			return value -> ((XMLGregorianCalendar)value).toXMLFormat();
+		}
+		return null;
+	}
+
+	private static String printCalendar(XMLGregorianCalendar calendar, boolean clearDate, boolean clearTime) {
+		if((clearTime && calendar.getHour()!=DatatypeConstants.FIELD_UNDEFINED) || (clearDate && calendar.getYear()!=DatatypeConstants.FIELD_UNDEFINED)) {
+			XMLGregorianCalendar c = (XMLGregorianCalendar)calendar.clone();
+			if(clearTime) {
+				c.setTime(DatatypeConstants.FIELD_UNDEFINED, DatatypeConstants.FIELD_UNDEFINED, DatatypeConstants.FIELD_UNDEFINED);
+				c.setFractionalSecond(null);
+			}
+			if(clearDate) {
+				c.setYear(DatatypeConstants.FIELD_UNDEFINED);
+				c.setMonth(DatatypeConstants.FIELD_UNDEFINED);
+				c.setDay(DatatypeConstants.FIELD_UNDEFINED);
+			}
+			return c.toXMLFormat();
+		}
+		return calendar.toXMLFormat();
+	}
+
+	// content not supported by the binding plan, the document is marshalled with JAXB
+	private static class Unsupported extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+		Unsupported(String message) {
+			super(message, null, false, false);
+		}
+	}
+
+	/*
+	 * UTF-8 output into a growing buffer,
+	 * indentation as in the JAXB reference implementation (com.sun.xml.bind.v2.runtime.output.IndentingUTF8XmlOutput).
+	 * Streamed attachments are not buffered, only their position is recorded and they are encoded in writeTo
+	 */
+	private static class Output {
+		private final boolean formatted;
+		private byte[] buf = new byte[1<<14];
+		private int count = 0;
+		private final List<AttachmentContent> contents = new ArrayList<AttachmentContent>();
+		private final List<Integer> positions = new ArrayList<Integer>();
+		private int depth = 0;
+		private boolean closeStartTagPending = false;
+		private boolean textWasWritten = false;
+
+		Output(boolean formatted) {
+			this.formatted = formatted;
+		}
+
+		void startTag(byte[] tag) {
+			closeStartTag();
+			if(formatted) {
+				if(!textWasWritten) printIndent();
+				depth++;
+				textWasWritten = false;
+			}
+			write(tag);
+			closeStartTagPending = true;
+		}
+
+		void endTag(byte[] tag) {
+			if(formatted) {
+				depth--;
+				if(!closeStartTagPending && !textWasWritten) printIndent();
+				textWasWritten = false;
+			}
+			if(closeStartTagPending) {
+				write('/');
+				write('>');
+				closeStartTagPending = false;
+			} else {
+				write(tag);
+			}
+			if(formatted && depth==0) write('\n');
+		}
+
+		void text(String text) {
+			closeStartTag();
+			escape(text, false);
+			textWasWritten = true;
+		}
+
+		private void closeStartTag() {
+			if(closeStartTagPending) {
+				write('>');
+				closeStartTagPending = false;
+			}
+		}
+
+		private void printIndent() {
+			write('\n');
+			for(int i=0; i<depth; i++) write(INDENT);
+		}
+
+		void write(int b) {
+			if(count==buf.length) grow(1);
+			buf[count++] = (byte)b;
+		}
+
+		void write(byte[] bytes) {
+			if(count+bytes.length>buf.length) grow(bytes.length);
+			System.arraycopy(bytes, 0, buf, count, bytes.length);
+			count += bytes.length;
+		}
+
+		// base64Binary is written without the detour over a String
+		void base64(byte[] value) {
+			closeStartTag();
+			write(Base64.getEncoder().encode(value));
+			textWasWritten = true;
+		}
+
+		void base64(AttachmentContent content) {
+			closeStartTag();
+			contents.add(content);
+			positions.add(count);
+			textWasWritten = true;
+		}
+
+		// escapes &lt; &amp; &gt; and in attributes &quot;, encodes UTF-8
+		void escape(String s, boolean isAttribute) {
+			int length = s.length();
+			if(count+6*length>buf.length) grow(6*length); // max 6 bytes per char: &quot;
+			byte[] b = buf;
+			int n = count;
+			for(int i=0; i<length; i++) {
+				char c = s.charAt(i);
+				if(c<0x80) {
+					switch(c) {
+					case '&': n = copy(AMP, b, n); break;
+					case '<': n = copy(LT, b, n); break;
+					case '>': n = copy(GT, b, n); break;
+					case '"': 
+						if(isAttribute) { n = copy(QUOT, b, n); break; }
+						b[n++] = (byte)c; break;
+					default: b[n++] = (byte)c;
+					}
+				} else {
+					int codePoint = c;
+					if(Character.isSurrogate(c)) {
+						if(Character.isHighSurrogate(c) && i+1<length && Character.isLowSurrogate(s.charAt(i+1))) {
+							codePoint = Character.toCodePoint(c, s.charAt(++i));
+						} else {
+							b[n++] = '?'; // unpaired surrogate, replaced like the JAXB UTF-8 encoder does
+							continue;
+						}
+					}
+					if(codePoint<0x800) {
+						b[n++] = (byte)(0xC0 | (codePoint>>6));
+						b[n++] = (byte)(0x80 | (codePoint & 0x3F));
+					} else if(codePoint<0x10000) {
+						b[n++] = (byte)(0xE0 | (codePoint>>12));
+						b[n++] = (byte)(0x80 | ((codePoint>>6) & 0x3F));
+						b[n++] = (byte)(0x80 | (codePoint & 0x3F));
+					} else {
+						b[n++] = (byte)(0xF0 | (codePoint>>18));
+						b[n++] = (byte)(0x80 | ((codePoint>>12) & 0x3F));
+						b[n++] = (byte)(0x80 | ((codePoint>>6) & 0x3F));
+						b[n++] = (byte)(0x80 | (codePoint & 0x3F));
+					}
+				}
+			}
+			count = n;
+		}
+
+		private static int copy(byte[] src, byte[] dst, int pos) {
+			System.arraycopy(src, 0, dst, pos, src.length);
+			return pos+src.length;
+		}
+
+		private void grow(int minGrowth) {
+			buf = Arrays.copyOf(buf, Math.max(buf.length<<1, count+minGrowth));
+		}
+
+		byte[] toByteArray() throws IOException {
+			if(contents.isEmpty()) {
+				return Arrays.copyOf(buf, count);
+			}
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream(count);
+			writeTo(outputStream);
+			return outputStream.toByteArray();
+		}
+
+		void writeTo(OutputStream outputStream) throws IOException {
+			int from = 0;
+			for(int i=0; i<contents.size(); i++) {
+				int position = positions.get(i);
+				outputStream.write(buf, from, position-from);
+				from = position;
+				// the encoder writes the padding on close, the outputStream stays open
+				try(InputStream in = contents.get(i).openStream();
+					OutputStream encoder = Base64.getEncoder().wrap(new FilterOutputStream(outputStream) {
+						@Override
+						public void write(byte[] b, int off, int len) throws IOException {
+							out.write(b, off, len);
+						}
+						@Override
+						public void close() throws IOException {
+							flush();
+						}
+					})) {
+					byte[] buffer = new byte[AbstactTransformer.BUFFER_SIZE];
+					for(int n = in.read(buffer); n!=-1; n = in.read(buffer)) {
+						encoder.write(buffer, 0, n);
+					}
+				}
+			}
+			outputStream.write(buf, from, count-from);
+		}
+
+		private static final byte[] AMP = bytes("&amp;");
+		private static final byte[] LT = bytes("&lt;");
+		private static final byte[] GT = bytes("&gt;");
+		private static final byte[] QUOT = bytes("&quot;");
+	}
+
+}
@@ -0,0 +1,215 @@
+package com.klst.marshaller;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.xml.stream.StreamFilter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.klst.einvoice.CoreInvoiceLine;
+import com.klst.einvoice.unece.uncefact.CrossIndustryInvoice;
+import com.klst.einvoice.unece.uncefact.TradeLineItem;
+
+import un.unece.uncefact.data.standard.crossindustryinvoice._100.CrossIndustryInvoiceType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.SupplyChainTradeLineItemType;
+
+/**
+ * Constant-memory reader for large CII documents.
+ * <p>
+ * The header (ExchangedDocumentContext, ExchangedDocument, header agreement, delivery and settlement)
+ * is unmarshalled into a {@link CrossIndustryInvoice} without lines.
+ * The lines (BG-25 IncludedSupplyChainTradeLineItem) are unmarshalled one at a time while iterating,
+ * so only the current line is held in heap.
+ * <p>
+ * In the CII schema the lines precede the header trade agreement, so the file is read twice:
+ * once for the header, skipping all lines, and once for the lines.
+ * <p>
+ * Example:
+ * <pre>
+ * try(CiiLineReader reader = CiiLineReader.open(xmlfile)) {
+ *     CrossIndustryInvoice header = reader.getHeader();
+ *     reader.lines().forEach(line -> ...);
+ * }
+ * </pre>
+ * A reader is not thread-safe.
+ */
+public class CiiLineReader implements Iterator<CoreInvoiceLine>, Closeable {
+
+	private static final Logger LOG = Logger.getLogger(CiiLineReader.class.getName());
+
+	static final String RAM_NS = "urn:un:unece:uncefact:data:standard:ReusableAggregateBusinessInformationEntity:100";
+	static final String LINE_ELEMENT = "IncludedSupplyChainTradeLineItem";
+
+	/**
+	 * opens a CII document, the header is read immediately
+	 *
+	 * @param xmlfile path of the CII document
+	 * @return reader positioned before the first line, must be closed by the caller
+	 */
+	public static CiiLineReader open(Path xmlfile) {
+		return new CiiLineReader(CiiTransformer.getInstance(), xmlfile);
+	}
+
+	private final AbstactTransformer transformer;
+	private final CrossIndustryInvoice header;
+	private final InputStream inputStream;
+	private final XMLStreamReader xmlStreamReader;
+	private boolean lookedAhead = false;
+	private boolean hasNext = false;
+	private int lineCount = 0;
+
+	private CiiLineReader(AbstactTransformer transformer, Path xmlfile) {
+		this.transformer = transformer;
+		this.header = readHeader(xmlfile);
+		try {
+			this.inputStream = new BufferedInputStream(Files.newInputStream(xmlfile), AbstactTransformer.BUFFER_SIZE);
+		} catch (IOException ex) {
+			throw new TransformationException(TransformationException.IO_ERROR, ex);
+		}
+		try {
+			this.xmlStreamReader = AbstactTransformer.getXmlProvider().getXMLInputFactory().createXMLStreamReader(inputStream);
+		} catch (XMLStreamException ex) {
+			closeQuietly(inputStream);
+			throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+		}
+	}
+
+	/**
+	 * @return the document without lines
+	 */
+	public CrossIndustryInvoice getHeader() {
+		return header;
+	}
+
+	/**
+	 * @return number of lines returned by {@link #next()} so far
+	 */
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if(!lookedAhead) {
+			hasNext = skipToNextLine();
+			lookedAhead = true;
+		}
+		return hasNext;
+	}
+
+	@Override
+	public CoreInvoiceLine next() {
+		if(!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		lookedAhead = false;
+		SupplyChainTradeLineItemType line = transformer.toModel(xmlStreamReader, SupplyChainTradeLineItemType.class);
+		lineCount++;
+		return TradeLineItem.create(line);
+	}
+
+	/**
+	 * the remaining lines as a sequential stream, closing the stream closes this reader
+	 *
+	 * @return Stream of lines
+	 */
+	public Stream<CoreInvoiceLine> lines() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(this::close);
+	}
+
+	@Override
+	public void close() {
+		try {
+			xmlStreamReader.close();
+		} catch (XMLStreamException ex) {
+			LOG.warning("close "+ex.getMessage());
+		}
+		closeQuietly(inputStream);
+	}
+
+	// -- private
+
+	private boolean skipToNextLine() {
+		try {
+			// after unmarshalling a line the reader is already positioned on the next event
+			int event = xmlStreamReader.getEventType();
+			while(true) {
+				if(event==XMLStreamConstants.START_ELEMENT && isLine(xmlStreamReader)) {
+					return true;
+				}
+				if(!xmlStreamReader.hasNext()) {
+					return false;
+				}
+				event = xmlStreamReader.next();
+			}
+		} catch (XMLStreamException ex) {
+			throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+		}
+	}
+
+	private CrossIndustryInvoice readHeader(Path xmlfile) {
+		try(InputStream is = new BufferedInputStream(Files.newInputStream(xmlfile), AbstactTransformer.BUFFER_SIZE)) {
+			XMLInputFactory xmlInputFactory = AbstactTransformer.getXmlProvider().getXMLInputFactory();
+			XMLStreamReader reader = xmlInputFactory.createFilteredReader(xmlInputFactory.createXMLStreamReader(is), new SkipLines());
+			try {
+				CrossIndustryInvoiceType doc = transformer.toModel(reader, CrossIndustryInvoiceType.class);
+				return CrossIndustryInvoice.create(doc);
+			} finally {
+				reader.close();
+			}
+		} catch (IOException ex) {
+			throw new TransformationException(TransformationException.IO_ERROR, ex);
+		} catch (XMLStreamException ex) {
+			throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+		}
+	}
+
+	private static boolean isLine(XMLStreamReader reader) {
+		return LINE_ELEMENT.equals(reader.getLocalName()) && RAM_NS.equals(reader.getNamespaceURI());
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException ex) {
+			LOG.warning("close "+ex.getMessage());
+		}
+	}
+
+	// drops all events of IncludedSupplyChainTradeLineItem subtrees
+	private static class SkipLines implements StreamFilter {
+		private int depth = 0;
+		@Override
+		public boolean accept(XMLStreamReader reader) {
+			int event = reader.getEventType();
+			if(depth==0) {
+				if(event==XMLStreamConstants.START_ELEMENT && isLine(reader)) {
+					depth = 1;
+					return false;
+				}
+				return true;
+			}
+			if(event==XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if(event==XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+			return false;
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package com.klst.marshaller;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -61,4 +62,10 @@ public class CiiNamespacePrefixMapper extends NamespacePrefixMapper {
 		return namespaceMap.getOrDefault(namespaceUri, suggestion);
 	}
 
+
+	// namespace URI -> prefix, used by BindingWriter to declare the namespaces on the root element
+	Map<String, String> getNamespaceMap() {
+		return Collections.unmodifiableMap(namespaceMap);
+	}
+
 }
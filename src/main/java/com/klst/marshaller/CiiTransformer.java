@@ -1,16 +1,36 @@
 package com.klst.marshaller;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.ValidationEventHandler;
+import javax.xml.namespace.QName;
 
 // in java 1.8 'NamespacePrefixMapper' is not in API
 // Proposal JEP-320(http://openjdk.java.net/jeps/320) to remove the Java EE and CORBA modules from the JDK.
 // In Java SE 11, the module java.se.ee has been removed. To use JAX-WS and JAXB you need to add them to your project as separate libraries.
+import com.klst.einvoice.CoreInvoice;
+import com.klst.einvoice.CoreInvoiceLine;
+import com.klst.einvoice.unece.uncefact.CrossIndustryInvoice;
+import com.klst.einvoice.unece.uncefact.DomainObjectFactory;
+import com.klst.einvoice.unece.uncefact.TradeLineItem;
 import com.sun.xml.internal.bind.marshaller.NamespacePrefixMapper;
 
 import un.unece.uncefact.data.standard.crossindustryinvoice._100.CrossIndustryInvoiceType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.SupplyChainTradeLineItemType;
 
 @Named
 /* Notice 
@@ -32,7 +52,8 @@ public class CiiTransformer extends AbstactTransformer {
 	// xsd file name in the output folder started with "/" == project_loc
 	private static final String CII_100_XSD = "/cii/maindoc/CrossIndustryInvoice_100pD16B.xsd";
 	// CONTENT_PATH aka package name
-	private static final String CONTENT_PATH = "un.unece.uncefact.data.standard.crossindustryinvoice._100";
+	static final String CONTENT_PATH = "un.unece.uncefact.data.standard.crossindustryinvoice._100";
+	private static final CiiNamespacePrefixMapper NAMESPACE_PREFIX_MAPPER = new CiiNamespacePrefixMapper();
 	
 	private CiiTransformer() {
 		super(CONTENT_PATH, SINGLETON);
@@ -43,6 +64,11 @@ public class CiiTransformer extends AbstactTransformer {
 		return CII_100_XSD;
 	}
 
+	@Override
+	Class<?> getRootType() {
+		return CrossIndustryInvoiceType.class;
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public <T extends Object> T toModel(InputStream xmlInputStream) {
@@ -50,10 +76,100 @@ public class CiiTransformer extends AbstactTransformer {
 		return (T) result;
 	}
 
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Object> T toModel(InputStream xmlInputStream, ValidationEventHandler handler) {
+		Object result = this.toModel(xmlInputStream, CrossIndustryInvoiceType.class, handler);
+		return (T) result;
+	}
+
+	/**
+	 * streaming marshal of large documents.
+	 * <p>
+	 * The header of document is marshalled first, then the lines are pulled from the iterator
+	 * and each ram:IncludedSupplyChainTradeLineItem is marshalled as a xml fragment straight into outputStream.
+	 * Peak memory depends on the header and the largest line, not on the number of lines.
+	 * In CII the lines precede ram:ApplicableHeaderTradeAgreement,
+	 * lines already contained in document are written before the streamed lines.
+	 * 
+	 * @param document the header
+	 * @param lines TradeLineItem, f.i. materialized from com.klst.einvoice.ColumnarLines
+	 * @param outputStream the stream is not closed
+	 * @param formatted false for compact (unindented) output
+	 */
+	public void fromModel(CrossIndustryInvoice document, Iterator<? extends CoreInvoiceLine> lines, OutputStream outputStream, boolean formatted) {
+		ByteArrayOutputStream header = new ByteArrayOutputStream(16000);
+		marshal(document, header, formatted, null);
+		byte[] bytes = header.toByteArray();
+		int linesEnd = indexOfLinesEnd(bytes);
+		try {
+			outputStream.write(bytes, 0, linesEnd);
+			fromModel(lines, CiiTransformer::toElement, outputStream, formatted, getRootNamespaces(bytes));
+			outputStream.write(bytes, linesEnd, bytes.length-linesEnd);
+		} catch (IOException ex) {
+			throw new TransformationException(TransformationException.IO_ERROR, ex);
+		}
+	}
+
+	@Override
+	void fromModel(Object document, Iterator<? extends CoreInvoiceLine> lines, OutputStream outputStream, boolean formatted) {
+		fromModel((CrossIndustryInvoice)document, lines, outputStream, formatted);
+	}
+
+	public void fromModel(CrossIndustryInvoice document, Iterator<? extends CoreInvoiceLine> lines, Path xmlfile, boolean formatted) {
+		try(OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(xmlfile), BUFFER_SIZE)) {
+			fromModel(document, lines, outputStream, formatted);
+		} catch (IOException ex) {
+			throw new TransformationException(TransformationException.IO_ERROR, ex);
+		}
+	}
+
+	private static final QName LINE_NAME = new QName(CiiLineReader.RAM_NS, CiiLineReader.LINE_ELEMENT);
+	private static final byte[] HEADER_TRADE_AGREEMENT = "<ram:ApplicableHeaderTradeAgreement".getBytes(StandardCharsets.UTF_8);
+
+	private static Object toElement(CoreInvoiceLine line) {
+		if(line instanceof TradeLineItem) {
+			return new JAXBElement<SupplyChainTradeLineItemType>(LINE_NAME, SupplyChainTradeLineItemType.class, (TradeLineItem)line);
+		}
+		throw new TransformationException(TransformationException.MARSHALLING_ERROR 
+				+ ": line "+line+" does not fit to CrossIndustryInvoice");
+	}
+
+	// position after the last line, the whitespace before ram:ApplicableHeaderTradeAgreement is written after the lines
+	private static int indexOfLinesEnd(byte[] bytes) {
+		for(int i=0; i+HEADER_TRADE_AGREEMENT.length<=bytes.length; i++) {
+			int j = 0;
+			while(j<HEADER_TRADE_AGREEMENT.length && bytes[i+j]==HEADER_TRADE_AGREEMENT[j]) j++;
+			if(j==HEADER_TRADE_AGREEMENT.length) {
+				while(i>0 && bytes[i-1]!='>') i--;
+				return i;
+			}
+		}
+		throw new TransformationException(TransformationException.MARSHALLING_ERROR + ": no ApplicableHeaderTradeAgreement");
+	}
+
 	// implements com.klst.marshaller.AbstactTransformer.getNamespacePrefixMapper
 	@Override
 	NamespacePrefixMapper getNamespacePrefixMapper() {
-		return new CiiNamespacePrefixMapper();
+		return NAMESPACE_PREFIX_MAPPER;
+	}
+
+	@Override
+	Map<String, String> getNamespacePrefixes() {
+		return NAMESPACE_PREFIX_MAPPER.getNamespaceMap();
+	}
+
+	// the DomainObjectFactory creates the root as CrossIndustryInvoice
+	@Override
+	Function<Object, CoreInvoice> getDocumentFactory() {
+		return doc -> (CrossIndustryInvoice)doc;
+	}
+
+	private static final DomainObjectFactory DOMAIN_OBJECT_FACTORY = new DomainObjectFactory();
+
+	@Override
+	Unmarshaller.Listener getDomainObjectFactory() {
+		return DOMAIN_OBJECT_FACTORY;
 	}
 
 }
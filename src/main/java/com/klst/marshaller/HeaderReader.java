@@ -0,0 +1,201 @@
+package com.klst.marshaller;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.klst.marshaller.InvoiceHeader.Field;
+
+/**
+ * Header-only projection parse for routing and indexing.
+ * <p>
+ * The requested {@link InvoiceHeader.Field fields} are read with StAX directly from the element texts,
+ * no JAXB objects are created. Subtrees which cannot contain a requested field are skipped
+ * without reading their text, this includes the lines and the base64 attachments.
+ * Reading stops as soon as all requested fields are found.
+ * <p>
+ * In UBL the header, including TaxTotal and LegalMonetaryTotal, precedes cac:InvoiceLine,
+ * so the reader never stops later than the first line.
+ * In CII the lines precede the header trade agreement and settlement,
+ * fields of the agreement or settlement are found after skipping all lines.
+ * <p>
+ * Example:
+ * <pre>
+ * HeaderReader reader = new HeaderReader(EnumSet.of(Field.INVOICE_NUMBER, Field.BUYER_REFERENCE));
+ * InvoiceHeader header = reader.read(xmlfile);
+ * </pre>
+ * A reader is immutable and thread-safe.
+ */
+public class HeaderReader {
+
+	private static final HeaderReader ALL = new HeaderReader(EnumSet.allOf(Field.class));
+
+	/**
+	 * @return reader for all fields
+	 */
+	public static HeaderReader getInstance() {
+		return ALL;
+	}
+
+	// UBL elements following the header
+	private static final Set<String> UBL_LINES = new HashSet<String>(Arrays.asList("InvoiceLine", "CreditNoteLine"));
+
+	private final Set<Field> fields;
+	private final Projection ubl;
+	private final Projection cii;
+
+	/**
+	 * @param fields the fields to project
+	 */
+	public HeaderReader(Collection<Field> fields) {
+		this.fields = fields.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(EnumSet.copyOf(fields));
+		this.ubl = new Projection(this.fields, false);
+		this.cii = new Projection(this.fields, true);
+	}
+
+	public Set<Field> getFields() {
+		return fields;
+	}
+
+	/**
+	 * @param xmlInputStream UBL Invoice, UBL CreditNote or CII document, the stream is not closed
+	 * @return the projection
+	 */
+	public InvoiceHeader read(InputStream xmlInputStream) {
+		XMLStreamReader reader = null;
+		try {
+			reader = AbstactTransformer.getXmlProvider().getXMLInputFactory().createXMLStreamReader(xmlInputStream);
+			return read(reader);
+		} catch (XMLStreamException ex) {
+			throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+		} finally {
+			if(reader!=null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException ex) {
+					// ignore, the stream is closed by the caller
+				}
+			}
+		}
+	}
+
+	public InvoiceHeader read(Path xmlfile) {
+		try(InputStream xmlInputStream = new BufferedInputStream(Files.newInputStream(xmlfile), AbstactTransformer.BUFFER_SIZE)) {
+			return read(xmlInputStream);
+		} catch (IOException ex) {
+			throw new TransformationException(TransformationException.IO_ERROR, ex);
+		}
+	}
+
+	public InvoiceHeader read(byte[] xml) {
+		return read(new ByteArrayInputStream(xml));
+	}
+
+	// -- private
+
+	private InvoiceHeader read(XMLStreamReader reader) throws XMLStreamException {
+		while(reader.hasNext() && reader.next()!=XMLStreamConstants.START_ELEMENT);
+		if(!reader.isStartElement()) {
+			throw new TransformationException(TransformationException.MARSHALLING_ERROR+" no root element");
+		}
+		String syntax = reader.getNamespaceURI();
+		boolean isCii = TransformerDispatcher.CII_NS.equals(syntax);
+		if(!isCii && !TransformerDispatcher.UBL_INVOICE_NS.equals(syntax) && !TransformerDispatcher.UBL_CREDITNOTE_NS.equals(syntax)) {
+			throw new TransformationException(TransformationException.MARSHALLING_ERROR+" unknown root namespace "+syntax);
+		}
+		Projection projection = isCii ? cii : ubl;
+		Map<Field, String> values = new EnumMap<Field, String>(Field.class);
+		StringBuilder path = new StringBuilder(128);
+		int[] lengths = new int[16];
+		int depth = 0;
+		while(values.size()<fields.size() && reader.hasNext()) {
+			int event = reader.next();
+			if(event==XMLStreamConstants.END_ELEMENT) {
+				if(depth==0) break; // end of root
+				depth--;
+				path.setLength(lengths[depth]);
+			} else if(event==XMLStreamConstants.START_ELEMENT) {
+				String name = reader.getLocalName();
+				if(depth==0 && !isCii && UBL_LINES.contains(name)) break;
+				if(depth==lengths.length) lengths = Arrays.copyOf(lengths, 2*depth);
+				lengths[depth] = path.length();
+				if(depth>0) path.append('/');
+				path.append(name);
+				String key = path.toString();
+				Field field = projection.paths.get(key);
+				if(field!=null) {
+					String text = reader.getElementText(); // positioned on END_ELEMENT
+					path.setLength(lengths[depth]);
+					if(!values.containsKey(field)) {
+						values.put(field, normalize(field, isCii, text.trim()));
+					}
+				} else if(projection.prefixes.contains(key)) {
+					depth++;
+				} else {
+					skipElement(reader);
+					path.setLength(lengths[depth]);
+				}
+			}
+		}
+		return new InvoiceHeader(syntax, values);
+	}
+
+	// CII DateTimeString format 102 and UBL xsd:date with time zone to yyyy-MM-dd
+	private static String normalize(Field field, boolean isCii, String value) {
+		if(field==Field.ISSUE_DATE) {
+			if(isCii && value.length()==8) {
+				return value.substring(0, 4)+"-"+value.substring(4, 6)+"-"+value.substring(6);
+			} else if(!isCii && value.length()>10) {
+				return value.substring(0, 10);
+			}
+		}
+		return value;
+	}
+
+	// skips the subtree of the current START_ELEMENT without reading the text
+	private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+		int depth = 1;
+		while(depth>0) {
+			int event = reader.next();
+			if(event==XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if(event==XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	// the paths of the requested fields for one syntax and all their proper prefixes
+	private static class Projection {
+		final Map<String, Field> paths = new HashMap<String, Field>();
+		final Set<String> prefixes = new HashSet<String>();
+
+		Projection(Set<Field> fields, boolean isCii) {
+			for(Field field : fields) {
+				for(String path : field.getPaths(isCii)) {
+					paths.put(path, field);
+					for(int i = path.indexOf('/'); i>0; i = path.indexOf('/', i+1)) {
+						prefixes.add(path.substring(0, i));
+					}
+				}
+			}
+		}
+	}
+
+}
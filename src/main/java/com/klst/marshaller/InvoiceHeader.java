@@ -0,0 +1,156 @@
+package com.klst.marshaller;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable projection of a few header fields, read by {@link HeaderReader} without unmarshalling the document.
+ * <p>
+ * The values are the trimmed element texts of the source document,
+ * only the issue date is normalized to yyyy-MM-dd without time zone.
+ * A field is absent if it was not requested or not found.
+ */
+public final class InvoiceHeader {
+
+	/**
+	 * the projectable fields with their element paths relative to the root element,
+	 * local names only, alternatives separated by |
+	 */
+	public enum Field {
+		INVOICE_NUMBER("BT-1", "ID", "ExchangedDocument/ID"),
+		ISSUE_DATE("BT-2", "IssueDate", "ExchangedDocument/IssueDateTime/DateTimeString"),
+		TYPE_CODE("BT-3", "InvoiceTypeCode|CreditNoteTypeCode", "ExchangedDocument/TypeCode"),
+		CURRENCY("BT-5", "DocumentCurrencyCode", "SupplyChainTradeTransaction/ApplicableHeaderTradeSettlement/InvoiceCurrencyCode"),
+		BUYER_REFERENCE("BT-10", "BuyerReference", "SupplyChainTradeTransaction/ApplicableHeaderTradeAgreement/BuyerReference"),
+		SELLER_NAME("BT-27"
+			, "AccountingSupplierParty/Party/PartyLegalEntity/RegistrationName"
+			, "SupplyChainTradeTransaction/ApplicableHeaderTradeAgreement/SellerTradeParty/Name"),
+		SELLER_ID("BT-29"
+			, "AccountingSupplierParty/Party/PartyIdentification/ID"
+			, "SupplyChainTradeTransaction/ApplicableHeaderTradeAgreement/SellerTradeParty/ID"
+			+ "|SupplyChainTradeTransaction/ApplicableHeaderTradeAgreement/SellerTradeParty/GlobalID"),
+		SELLER_LEGAL_ID("BT-30"
+			, "AccountingSupplierParty/Party/PartyLegalEntity/CompanyID"
+			, "SupplyChainTradeTransaction/ApplicableHeaderTradeAgreement/SellerTradeParty/SpecifiedLegalOrganization/ID"),
+		SELLER_ELECTRONIC_ADDRESS("BT-34"
+			, "AccountingSupplierParty/Party/EndpointID"
+			, "SupplyChainTradeTransaction/ApplicableHeaderTradeAgreement/SellerTradeParty/URIUniversalCommunication/URIID"),
+		BUYER_NAME("BT-44"
+			, "AccountingCustomerParty/Party/PartyLegalEntity/RegistrationName"
+			, "SupplyChainTradeTransaction/ApplicableHeaderTradeAgreement/BuyerTradeParty/Name"),
+		BUYER_ID("BT-46"
+			, "AccountingCustomerParty/Party/PartyIdentification/ID"
+			, "SupplyChainTradeTransaction/ApplicableHeaderTradeAgreement/BuyerTradeParty/ID"
+			+ "|SupplyChainTradeTransaction/ApplicableHeaderTradeAgreement/BuyerTradeParty/GlobalID"),
+		BUYER_LEGAL_ID("BT-47"
+			, "AccountingCustomerParty/Party/PartyLegalEntity/CompanyID"
+			, "SupplyChainTradeTransaction/ApplicableHeaderTradeAgreement/BuyerTradeParty/SpecifiedLegalOrganization/ID"),
+		BUYER_ELECTRONIC_ADDRESS("BT-49"
+			, "AccountingCustomerParty/Party/EndpointID"
+			, "SupplyChainTradeTransaction/ApplicableHeaderTradeAgreement/BuyerTradeParty/URIUniversalCommunication/URIID"),
+		LINE_NET_TOTAL("BT-106"
+			, "LegalMonetaryTotal/LineExtensionAmount"
+			, "SupplyChainTradeTransaction/ApplicableHeaderTradeSettlement/SpecifiedTradeSettlementHeaderMonetarySummation/LineTotalAmount"),
+		TOTAL_TAX_EXCLUSIVE("BT-109"
+			, "LegalMonetaryTotal/TaxExclusiveAmount"
+			, "SupplyChainTradeTransaction/ApplicableHeaderTradeSettlement/SpecifiedTradeSettlementHeaderMonetarySummation/TaxBasisTotalAmount"),
+		// the first TaxTotal resp. TaxTotalAmount is in document currency
+		TOTAL_TAX("BT-110"
+			, "TaxTotal/TaxAmount"
+			, "SupplyChainTradeTransaction/ApplicableHeaderTradeSettlement/SpecifiedTradeSettlementHeaderMonetarySummation/TaxTotalAmount"),
+		TOTAL_TAX_INCLUSIVE("BT-112"
+			, "LegalMonetaryTotal/TaxInclusiveAmount"
+			, "SupplyChainTradeTransaction/ApplicableHeaderTradeSettlement/SpecifiedTradeSettlementHeaderMonetarySummation/GrandTotalAmount"),
+		DUE_PAYABLE("BT-115"
+			, "LegalMonetaryTotal/PayableAmount"
+			, "SupplyChainTradeTransaction/ApplicableHeaderTradeSettlement/SpecifiedTradeSettlementHeaderMonetarySummation/DuePayableAmount");
+
+		private final String businessTerm;
+		private final String[] ublPaths;
+		private final String[] ciiPaths;
+
+		private Field(String businessTerm, String ublPaths, String ciiPaths) {
+			this.businessTerm = businessTerm;
+			this.ublPaths = ublPaths.split("\\|");
+			this.ciiPaths = ciiPaths.split("\\|");
+		}
+
+		public String getBusinessTerm() {
+			return businessTerm;
+		}
+
+		String[] getPaths(boolean cii) {
+			return cii ? ciiPaths : ublPaths;
+		}
+
+	}
+
+	private final String syntax;
+	private final Map<Field, String> values;
+
+	InvoiceHeader(String syntax, Map<Field, String> values) {
+		this.syntax = syntax;
+		this.values = values.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(new EnumMap<Field, String>(values));
+	}
+
+	/**
+	 * @return the namespace of the root element, UBL Invoice, UBL CreditNote or CII
+	 */
+	public String getSyntax() {
+		return syntax;
+	}
+
+	/**
+	 * @param field
+	 * @return element text or null
+	 */
+	public String get(Field field) {
+		return values.get(field);
+	}
+
+	/**
+	 * @param field one of the BG-22 totals
+	 * @return amount or null
+	 * @throws NumberFormatException if the value is not a decimal
+	 */
+	public BigDecimal getAmount(Field field) {
+		String value = values.get(field);
+		return value==null ? null : new BigDecimal(value);
+	}
+
+	/**
+	 * @return unmodifiable map of the found fields
+	 */
+	public Map<Field, String> getValues() {
+		return values;
+	}
+
+	public String getId() {
+		return get(Field.INVOICE_NUMBER);
+	}
+
+	public String getDocumentCurrency() {
+		return get(Field.CURRENCY);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(this==obj) return true;
+		if(!(obj instanceof InvoiceHeader)) return false;
+		InvoiceHeader other = (InvoiceHeader)obj;
+		return syntax.equals(other.syntax) && values.equals(other.values);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31*syntax.hashCode() + values.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return "InvoiceHeader"+values;
+	}
+
+}
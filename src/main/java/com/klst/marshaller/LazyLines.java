@@ -0,0 +1,536 @@
+package com.klst.marshaller;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.logging.Logger;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.klst.einvoice.CoreInvoice;
+import com.klst.einvoice.CoreInvoiceLine;
+import com.klst.einvoice.LineLookup;
+import com.klst.einvoice.ubl.GenericInvoice;
+import com.klst.einvoice.ubl.GenericLine;
+import com.klst.einvoice.unece.uncefact.CrossIndustryInvoice;
+import com.klst.einvoice.unece.uncefact.TradeLineItem;
+
+import oasis.names.specification.ubl.schema.xsd.commonaggregatecomponents_2.CreditNoteLineType;
+import oasis.names.specification.ubl.schema.xsd.commonaggregatecomponents_2.InvoiceLineType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.SupplyChainTradeLineItemType;
+
+/**
+ * Random access to the lines of a large document without holding them in heap.
+ * <p>
+ * The document file is memory-mapped and scanned once for the byte ranges of the line elements
+ * (BG-25 cac:InvoiceLine, cac:CreditNoteLine or ram:IncludedSupplyChainTradeLineItem).
+ * The header is unmarshalled from the bytes outside these ranges.
+ * A line is unmarshalled from its byte range when accessed by {@link #get(int)} or {@link #getLine(String)},
+ * the most recently used lines are cached up to a limit.
+ * <p>
+ * Example:
+ * <pre>
+ * CoreInvoice invoice = LazyLines.load(xmlfile);
+ * try(LazyLines lines = (LazyLines)invoice.getLines()) {
+ *     CoreInvoiceLine line = lines.get(4711);
+ * }
+ * </pre>
+ * The invoice returned by {@link #load(Path)} is a GenericInvoice or CrossIndustryInvoice
+ * whose getLines() returns this list, fromModel of the transformer marshals the lines one by one from it.
+ * The list is read-only and thread-safe. The file must be smaller than 2 GB
+ * and in an ASCII compatible encoding like UTF-8 or ISO-8859-1.
+ * <p>
+ * The mapping holds the file open (and locked on Windows) until {@link #close()} unmaps it,
+ * the lines cannot be accessed after that. Without close the mapping is released when the list is garbage collected.
+ */
+public class LazyLines extends AbstractList<CoreInvoiceLine> implements RandomAccess, LineLookup, Closeable {
+
+	private static final Logger LOG = Logger.getLogger(LazyLines.class.getName());
+
+	public static final int DEFAULT_CACHE_SIZE = 1000;
+
+	static final String CAC_NS = "urn:oasis:names:specification:ubl:schema:xsd:CommonAggregateComponents-2";
+	private static final String WRAPPER = "lines";
+
+	/**
+	 * @param xmlfile UBL Invoice, UBL CreditNote or CII document
+	 * @return the invoice with lines unmarshalled on demand
+	 */
+	public static CoreInvoice load(Path xmlfile) {
+		return load(xmlfile, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * @param xmlfile UBL Invoice, UBL CreditNote or CII document
+	 * @param cacheSize max number of unmarshalled lines held in heap
+	 * @return the invoice with lines unmarshalled on demand
+	 */
+	public static CoreInvoice load(Path xmlfile, int cacheSize) {
+		LazyLines lines = new LazyLines(map(xmlfile), cacheSize);
+		CoreInvoice invoice;
+		try {
+			invoice = TransformerDispatcher.toModel(lines.headerStream());
+		} catch (RuntimeException ex) {
+			lines.close();
+			throw ex;
+		}
+		if(invoice instanceof CrossIndustryInvoice) {
+			((CrossIndustryInvoice)invoice).setLineSource(lines);
+		} else {
+			((GenericInvoice<?>)invoice).setLineSource(lines);
+		}
+		LOG.config(xmlfile+": "+lines.size()+" lines");
+		return invoice;
+	}
+
+	private ByteBuffer buffer; // null when closed, accessed with the lock held after construction
+	private final int cacheSize;
+	private final AbstactTransformer transformer;
+	private final Class<?> lineType;
+	private final boolean isCii;
+	private byte[] wrapperStart; // xml declaration and wrapper element with the namespaces in scope of the lines
+	private int[] starts = new int[0];
+	private int[] ends = new int[0];
+	private int size = 0;
+	private final Map<Integer, CoreInvoiceLine> cache;
+	private Map<String, Integer> idIndex = null;
+	private int unmarshalCount = 0;
+
+	private LazyLines(ByteBuffer buffer, int cacheSize) {
+		if(cacheSize<1) {
+			throw new IllegalArgumentException("cacheSize "+cacheSize);
+		}
+		this.buffer = buffer;
+		this.cacheSize = cacheSize;
+		this.cache = new LinkedHashMap<Integer, CoreInvoiceLine>(Math.min(cacheSize, 1<<10)*4/3+1, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, CoreInvoiceLine> eldest) {
+				return size()>LazyLines.this.cacheSize;
+			}
+		};
+		String lineName = readNamespaces();
+		String namespace = TransformerDispatcher.getRootNamespace(new BufferInputStream(buffer, 0, buffer.limit()));
+		this.transformer = TransformerDispatcher.getTransformer(namespace);
+		this.isCii = TransformerDispatcher.CII_NS.equals(namespace);
+		this.lineType = isCii ? SupplyChainTradeLineItemType.class
+				: TransformerDispatcher.UBL_INVOICE_NS.equals(namespace) ? InvoiceLineType.class : CreditNoteLineType.class;
+		if(lineName!=null) {
+			scan(lineName);
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * unmarshals the line or returns it from the cache
+	 */
+	@Override
+	public synchronized CoreInvoiceLine get(int index) {
+		if(index<0 || index>=size) {
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+		}
+		ensureOpen();
+		CoreInvoiceLine line = cache.get(index);
+		if(line==null) {
+			line = unmarshal(index);
+			cache.put(index, line);
+		}
+		return line;
+	}
+
+	/**
+	 * the index of the line ids is built with the first call
+	 *
+	 * @param id BT-126 Invoice line identifier
+	 * @return the line or null
+	 */
+	@Override
+	public CoreInvoiceLine getLine(String id) {
+		Integer index;
+		synchronized(this) {
+			if(idIndex==null) {
+				ensureOpen();
+				idIndex = buildIdIndex();
+			}
+			index = idIndex.get(id);
+		}
+		return index==null ? null : get(index);
+	}
+
+	public int getCacheSize() {
+		return cacheSize;
+	}
+
+	/**
+	 * @return number of lines unmarshalled so far, including lines evicted from the cache
+	 */
+	public synchronized int getUnmarshalCount() {
+		return unmarshalCount;
+	}
+
+	/**
+	 * unmaps the file, the lines are not accessible after that
+	 */
+	@Override
+	public synchronized void close() {
+		if(buffer==null) return;
+		ByteBuffer mapped = buffer;
+		buffer = null;
+		cache.clear();
+		unmap(mapped);
+	}
+
+	// -- private
+
+	private void ensureOpen() {
+		if(buffer==null) {
+			throw new IllegalStateException("LazyLines closed");
+		}
+	}
+
+	/*
+	 * there is no public api to unmap a MappedByteBuffer, the cleaner of the direct buffer is called (java 8).
+	 * Where it is not accessible the mapping is released by the garbage collector
+	 */
+	private static void unmap(ByteBuffer mapped) {
+		try {
+			Method cleanerMethod = mapped.getClass().getMethod("cleaner");
+			cleanerMethod.setAccessible(true);
+			Object cleaner = cleanerMethod.invoke(mapped);
+			if(cleaner!=null) {
+				cleaner.getClass().getMethod("clean").invoke(cleaner);
+			}
+		} catch (ReflectiveOperationException | RuntimeException ex) {
+			LOG.fine("mapping released by the garbage collector: "+ex);
+		}
+	}
+
+
+	private static ByteBuffer map(Path xmlfile) {
+		try(FileChannel channel = FileChannel.open(xmlfile, StandardOpenOption.READ)) {
+			if(channel.size()>Integer.MAX_VALUE) {
+				throw new TransformationException(TransformationException.IO_ERROR+" file too large to map: "+xmlfile);
+			}
+			// the mapping remains valid after the channel is closed
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} catch (IOException ex) {
+			throw new TransformationException(TransformationException.IO_ERROR, ex);
+		}
+	}
+
+	/*
+	 * reads up to the first line to collect the namespace declarations in scope of the line
+	 * and to build the wrapper element for the line fragments
+	 * @return the qualified name of the line element or null if there are no lines
+	 */
+	private String readNamespaces() {
+		XMLStreamReader reader = null;
+		try {
+			reader = AbstactTransformer.getXmlProvider().getXMLInputFactory().createXMLStreamReader(new BufferInputStream(buffer, 0, buffer.limit()));
+			String encoding = reader.getCharacterEncodingScheme()==null ? reader.getEncoding() : reader.getCharacterEncodingScheme();
+			if(encoding==null) {
+				encoding = StandardCharsets.UTF_8.name();
+			} else if(encoding.toUpperCase().startsWith("UTF-16") || encoding.toUpperCase().startsWith("UTF-32")) {
+				throw new TransformationException(TransformationException.UNKNOWN_DOCUMENT+" encoding "+encoding);
+			}
+			Deque<Map<String, String>> scopes = new ArrayDeque<Map<String, String>>();
+			while(reader.hasNext()) {
+				int event = reader.next();
+				if(event==XMLStreamConstants.START_ELEMENT) {
+					if(isLine(reader)) {
+						wrapperStart = wrapperStart(encoding, scopes);
+						String prefix = reader.getPrefix();
+						return prefix==null || prefix.isEmpty() ? reader.getLocalName() : prefix+":"+reader.getLocalName();
+					}
+					Map<String, String> declarations = new LinkedHashMap<String, String>();
+					for(int i=0; i<reader.getNamespaceCount(); i++) {
+						String prefix = reader.getNamespacePrefix(i);
+						declarations.put(prefix==null ? XMLConstants.DEFAULT_NS_PREFIX : prefix, reader.getNamespaceURI(i));
+					}
+					scopes.push(declarations);
+				} else if(event==XMLStreamConstants.END_ELEMENT) {
+					scopes.pop();
+				}
+			}
+			return null;
+		} catch (XMLStreamException ex) {
+			throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+		} finally {
+			if(reader!=null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException ex) {
+					LOG.warning("close "+ex.getMessage());
+				}
+			}
+		}
+	}
+
+	private boolean isLine(XMLStreamReader reader) {
+		String name = reader.getLocalName();
+		if(CiiLineReader.LINE_ELEMENT.equals(name)) {
+			return CiiLineReader.RAM_NS.equals(reader.getNamespaceURI());
+		}
+		return ("InvoiceLine".equals(name) || "CreditNoteLine".equals(name)) && CAC_NS.equals(reader.getNamespaceURI());
+	}
+
+	private static byte[] wrapperStart(String encoding, Deque<Map<String, String>> scopes) {
+		Map<String, String> inScope = new LinkedHashMap<String, String>();
+		// scopes is a stack, the innermost declaration wins
+		scopes.descendingIterator().forEachRemaining(inScope::putAll);
+		StringBuilder wrapper = new StringBuilder("<?xml version=\"1.0\" encoding=\"").append(encoding).append("\"?><").append(WRAPPER);
+		inScope.forEach((prefix, uri) -> {
+			wrapper.append(prefix.isEmpty() ? " xmlns" : " xmlns:"+prefix).append("=\"").append(uri.replace("&", "&amp;").replace("\"", "&quot;")).append('"');
+		});
+		return wrapper.append('>').toString().getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	/*
+	 * records the byte ranges of all line elements, skips comments, CDATA sections and processing instructions.
+	 * Lines do not nest, the element names of the document must use the prefix of the first line.
+	 */
+	private void scan(String qname) {
+		byte[] open = ("<"+qname).getBytes(StandardCharsets.ISO_8859_1);
+		byte[] close = ("</"+qname).getBytes(StandardCharsets.ISO_8859_1);
+		starts = new int[1<<10];
+		ends = new int[1<<10];
+		int limit = buffer.limit();
+		int start = -1;
+		for(int i=0; i<limit; i++) {
+			if(buffer.get(i)!='<' || i+1>=limit) continue;
+			byte next = buffer.get(i+1);
+			if(next=='!') {
+				if(startsWith(i, "<!--")) {
+					i = indexOf(i+4, "-->")+2;
+				} else if(startsWith(i, "<![CDATA[")) {
+					i = indexOf(i+9, "]]>")+2;
+				}
+			} else if(next=='?') {
+				i = indexOf(i+2, "?>")+1;
+			} else if(start<0 && startsWith(i, open) && isNameEnd(i+open.length)) {
+				start = i;
+				int end = tagEnd(i+open.length);
+				if(buffer.get(end-1)=='/') { // empty element
+					add(start, end+1);
+					start = -1;
+				}
+				i = end;
+			} else if(start>=0 && next=='/' && startsWith(i, close) && isNameEnd(i+close.length)) {
+				int end = tagEnd(i+close.length);
+				add(start, end+1);
+				start = -1;
+				i = end;
+			}
+		}
+		if(start>=0) {
+			throw new TransformationException(TransformationException.MARSHALLING_ERROR+" unclosed line element at byte "+start);
+		}
+	}
+
+	private void add(int start, int end) {
+		if(size==starts.length) {
+			starts = Arrays.copyOf(starts, 2*size);
+			ends = Arrays.copyOf(ends, 2*size);
+		}
+		starts[size] = start;
+		ends[size] = end;
+		size++;
+	}
+
+	private boolean startsWith(int index, String prefix) {
+		return startsWith(index, prefix.getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	private boolean startsWith(int index, byte[] prefix) {
+		if(index+prefix.length>buffer.limit()) return false;
+		for(int j=0; j<prefix.length; j++) {
+			if(buffer.get(index+j)!=prefix[j]) return false;
+		}
+		return true;
+	}
+
+	private int indexOf(int from, String target) {
+		byte[] bytes = target.getBytes(StandardCharsets.ISO_8859_1);
+		for(int i=from; i<buffer.limit(); i++) {
+			if(startsWith(i, bytes)) return i;
+		}
+		throw new TransformationException(TransformationException.MARSHALLING_ERROR+" missing "+target);
+	}
+
+	private boolean isNameEnd(int index) {
+		if(index>=buffer.limit()) return false;
+		byte b = buffer.get(index);
+		return b=='>' || b=='/' || b==' ' || b=='\t' || b=='\r' || b=='\n';
+	}
+
+	// index of the closing > of a tag, > in quoted attribute values is skipped
+	private int tagEnd(int from) {
+		byte quote = 0;
+		for(int i=from; i<buffer.limit(); i++) {
+			byte b = buffer.get(i);
+			if(quote!=0) {
+				if(b==quote) quote = 0;
+			} else if(b=='"' || b=='\'') {
+				quote = b;
+			} else if(b=='>') {
+				return i;
+			}
+		}
+		throw new TransformationException(TransformationException.MARSHALLING_ERROR+" unclosed tag");
+	}
+
+	// the document without the line ranges
+	private InputStream headerStream() {
+		return new SequenceInputStream(new Enumeration<InputStream>() {
+			private int gap = 0;
+			@Override
+			public boolean hasMoreElements() {
+				return gap<=size;
+			}
+			@Override
+			public InputStream nextElement() {
+				if(gap>size) throw new NoSuchElementException();
+				int from = gap==0 ? 0 : ends[gap-1];
+				int to = gap==size ? buffer.limit() : starts[gap];
+				gap++;
+				return new BufferInputStream(buffer, from, to);
+			}
+		});
+	}
+
+	private XMLStreamReader fragmentReader(int index) throws XMLStreamException {
+		InputStream fragment = new SequenceInputStream(
+				new SequenceInputStream(new ByteArrayInputStream(wrapperStart), new BufferInputStream(buffer, starts[index], ends[index])),
+				new ByteArrayInputStream(("</"+WRAPPER+">").getBytes(StandardCharsets.ISO_8859_1)));
+		XMLStreamReader reader = AbstactTransformer.getXmlProvider().getXMLInputFactory().createXMLStreamReader(fragment);
+		reader.nextTag(); // wrapper
+		reader.nextTag(); // line
+		return reader;
+	}
+
+	private CoreInvoiceLine unmarshal(int index) {
+		try {
+			XMLStreamReader reader = fragmentReader(index);
+			try {
+				Object line = transformer.toModel(reader, lineType);
+				unmarshalCount++;
+				if(isCii) {
+					return TradeLineItem.create((SupplyChainTradeLineItemType)line);
+				} else if(line instanceof InvoiceLineType) {
+					return GenericLine.create((InvoiceLineType)line);
+				}
+				return GenericLine.create((CreditNoteLineType)line);
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException ex) {
+			throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+		}
+	}
+
+	// reads only up to the line id of each line: UBL cbc:ID, CII AssociatedDocumentLineDocument/LineID
+	private Map<String, Integer> buildIdIndex() {
+		Map<String, Integer> index = new HashMap<String, Integer>(size*4/3+1);
+		for(int i=0; i<size; i++) {
+			try {
+				XMLStreamReader reader = fragmentReader(i);
+				try {
+					String id = readLineId(reader);
+					if(id!=null) index.putIfAbsent(id, i);
+				} finally {
+					reader.close();
+				}
+			} catch (XMLStreamException ex) {
+				throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+			}
+		}
+		return index;
+	}
+
+	private String readLineId(XMLStreamReader reader) throws XMLStreamException {
+		int depth = 0;
+		while(reader.hasNext()) {
+			int event = reader.next();
+			if(event==XMLStreamConstants.START_ELEMENT) {
+				depth++;
+				String name = reader.getLocalName();
+				if(isCii ? (depth==2 && "LineID".equals(name)) : (depth==1 && "ID".equals(name))) {
+					return reader.getElementText().trim();
+				}
+			} else if(event==XMLStreamConstants.END_ELEMENT) {
+				if(depth==0) return null; // end of line
+				depth--;
+			}
+		}
+		return null;
+	}
+
+	// read-only view of a range of the buffer
+	private static class BufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+		BufferInputStream(ByteBuffer buffer, int from, int to) {
+			this.buffer = buffer.duplicate();
+			this.buffer.limit(to).position(from);
+		}
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+		}
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if(len==0) return 0;
+			if(!buffer.hasRemaining()) return -1;
+			int n = Math.min(len, buffer.remaining());
+			buffer.get(b, off, n);
+			return n;
+		}
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+		@Override
+		public long skip(long n) {
+			int skipped = (int)Math.max(0, Math.min(n, buffer.remaining()));
+			buffer.position(buffer.position()+skipped);
+			return skipped;
+		}
+		@Override
+		public boolean markSupported() {
+			return true;
+		}
+		@Override
+		public synchronized void mark(int readlimit) {
+			buffer.mark();
+		}
+		@Override
+		public synchronized void reset() {
+			buffer.reset();
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.klst.marshaller;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * A bounded pool of objects which are expensive to create and not thread-safe,
+ * f.i. {@link javax.xml.validation.Validator}, {@link javax.xml.bind.Marshaller} or {@link javax.xml.bind.Unmarshaller}.
+ * <p>
+ * {@link #borrow()} never blocks: if no idle object is available a new one is created.
+ * {@link #release(Object)} keeps at most <code>capacity</code> idle objects, surplus objects are dropped.
+ * The pool itself is thread-safe.
+ *
+ * @param <T> type of the pooled objects
+ * @param <X> exception thrown by the factory
+ */
+class ResourcePool<T, X extends Exception> {
+
+	static final int DEFAULT_CAPACITY = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	@FunctionalInterface
+	interface Factory<T, X extends Exception> {
+		T create() throws X;
+	}
+
+	private final BlockingQueue<T> idle;
+	private final Factory<T, X> factory;
+	private final Consumer<T> reset;
+
+	/**
+	 * @param capacity max number of idle objects kept
+	 * @param factory creates a new object if the pool is empty
+	 * @param reset (optional) restores the initial state of an object before it is put back into the pool
+	 */
+	ResourcePool(int capacity, Factory<T, X> factory, Consumer<T> reset) {
+		this.idle = new ArrayBlockingQueue<T>(capacity);
+		this.factory = factory;
+		this.reset = reset;
+	}
+
+	ResourcePool(Factory<T, X> factory, Consumer<T> reset) {
+		this(DEFAULT_CAPACITY, factory, reset);
+	}
+
+	T borrow() throws X {
+		T t = idle.poll();
+		return t==null ? factory.create() : t;
+	}
+
+	void release(T t) {
+		if(t==null) return;
+		if(reset!=null) {
+			try {
+				reset.accept(t);
+			} catch (RuntimeException ex) {
+				return; // do not pool an object in an unknown state
+			}
+		}
+		idle.offer(t);
+	}
+
+	int idleCount() {
+		return idle.size();
+	}
+
+}
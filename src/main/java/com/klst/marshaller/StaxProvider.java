@@ -0,0 +1,58 @@
+package com.klst.marshaller;
+
+import java.util.function.Supplier;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+
+// the StAX factories are created once, the XMLInputFactory is secured against DTDs and external entities
+class StaxProvider implements XmlProvider {
+
+	private final String name;
+	private final boolean jaxbStax;
+	private final XMLInputFactory xmlInputFactory;
+	private final XMLOutputFactory xmlOutputFactory;
+
+	StaxProvider(String name, boolean jaxbStax, Supplier<XMLInputFactory> xmlInputFactory, Supplier<XMLOutputFactory> xmlOutputFactory) {
+		this.name = name;
+		this.jaxbStax = jaxbStax;
+		this.xmlInputFactory = xmlInputFactory.get();
+		this.xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		this.xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		this.xmlOutputFactory = xmlOutputFactory.get();
+	}
+
+	static <T> T newInstance(Class<T> type, String className) {
+		try {
+			return type.cast(Class.forName(className).newInstance());
+		} catch (ReflectiveOperationException | LinkageError ex) {
+			throw new TransformationException(TransformationException.XML_PROVIDER_ERROR+" "+className, ex);
+		}
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public XMLInputFactory getXMLInputFactory() {
+		return xmlInputFactory;
+	}
+
+	@Override
+	public XMLOutputFactory getXMLOutputFactory() {
+		return xmlOutputFactory;
+	}
+
+	@Override
+	public boolean isJaxbStax() {
+		return jaxbStax;
+	}
+
+	@Override
+	public String toString() {
+		return name+" "+xmlInputFactory.getClass().getName();
+	}
+
+}
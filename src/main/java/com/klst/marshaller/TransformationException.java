@@ -5,6 +5,11 @@ public class TransformationException extends RuntimeException {
 	public static final String JAXB_INSTANTIATE_ERROR = "Could not instantiate JaxB Context";
 	public static final String MARSHALLING_ERROR = "Marshalling error";
 	public static final String NAMESPACE_PREFIX_MAPPER_ERROR = "cannot set property namespacePrefixMapper";
+	public static final String IO_ERROR = "I/O error";
+	public static final String UNKNOWN_DOCUMENT = "Unknown document type";
+	public static final String SCHEMA_ERROR = "cannot compile xsd";
+	public static final String ATTACHMENT_NOT_FOUND = "attachment not in store";
+	public static final String XML_PROVIDER_ERROR = "cannot instantiate xml provider";
 
 	private static final long serialVersionUID = 1L;
 
@@ -0,0 +1,220 @@
+package com.klst.marshaller;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.klst.einvoice.CoreInvoice;
+import com.klst.einvoice.ubl.GenericInvoice;
+import com.klst.einvoice.unece.uncefact.CrossIndustryInvoice;
+
+import oasis.names.specification.ubl.schema.xsd.creditnote_2.CreditNoteType;
+import oasis.names.specification.ubl.schema.xsd.invoice_2.InvoiceType;
+import un.unece.uncefact.data.standard.crossindustryinvoice._100.CrossIndustryInvoiceType;
+
+/**
+ * Entry point for inbound documents of unknown syntax.
+ * <p>
+ * The namespace of the root element is detected with a StAX look-ahead on a marked stream,
+ * then the stream is reset and the document is unmarshalled once by the matching transformer:
+ * <br>UBL Invoice, UBL CreditNote or CII.
+ */
+public class TransformerDispatcher {
+
+	private static final Logger LOG = Logger.getLogger(TransformerDispatcher.class.getName());
+
+	public static final String UBL_INVOICE_NS = "urn:oasis:names:specification:ubl:schema:xsd:Invoice-2";
+	public static final String UBL_CREDITNOTE_NS = "urn:oasis:names:specification:ubl:schema:xsd:CreditNote-2";
+	public static final String CII_NS = "urn:un:unece:uncefact:data:standard:CrossIndustryInvoice:100";
+
+	// max number of bytes read ahead to find the root element
+	static final int READ_AHEAD_LIMIT = AbstactTransformer.BUFFER_SIZE;
+
+	/**
+	 * unmarshal a document of unknown syntax
+	 *
+	 * @param xmlInputStream UBL Invoice, UBL CreditNote or CII document, the stream is not closed
+	 * @return GenericInvoice or CrossIndustryInvoice
+	 */
+	public static CoreInvoice toModel(InputStream xmlInputStream) {
+		InputStream is = xmlInputStream.markSupported() ? xmlInputStream : new BufferedInputStream(xmlInputStream, AbstactTransformer.BUFFER_SIZE);
+		String namespace = getRootNamespace(is);
+		AbstactTransformer transformer = getTransformer(namespace);
+		Object model = transformer.toModel(is);
+		if(model instanceof CrossIndustryInvoiceType) {
+			return CrossIndustryInvoice.create((CrossIndustryInvoiceType)model);
+		} else if(model instanceof InvoiceType) {
+			return new GenericInvoice<InvoiceType>((InvoiceType)model);
+		}
+		return new GenericInvoice<CreditNoteType>((CreditNoteType)model);
+	}
+
+	public static CoreInvoice toModel(Path xmlfile) {
+		try(InputStream xmlInputStream = new BufferedInputStream(Files.newInputStream(xmlfile), AbstactTransformer.BUFFER_SIZE)) {
+			return toModel(xmlInputStream);
+		} catch (IOException ex) {
+			throw new TransformationException(TransformationException.IO_ERROR, ex);
+		}
+	}
+
+	/**
+	 * creates the JAXB contexts of all transformers in parallel.
+	 * Invoice and CreditNote share one context, so two contexts are created.
+	 *
+	 * @param executor runs the context creation, f.i. a background thread pool
+	 * @return completes when all contexts are ready
+	 */
+	public static CompletableFuture<Void> warmUp(Executor executor) {
+		return CompletableFuture.allOf(
+				CompletableFuture.runAsync(() -> CiiTransformer.getInstance().warmUp(), executor),
+				CompletableFuture.runAsync(() -> UblInvoiceTransformer.getInstance().warmUp(), executor),
+				CompletableFuture.runAsync(() -> UblCreditNoteTransformer.getInstance().warmUp(), executor));
+	}
+
+	/**
+	 * creates the JAXB contexts of all transformers in the background, using the common ForkJoinPool
+	 *
+	 * @return completes when all contexts are ready
+	 */
+	public static CompletableFuture<Void> warmUp() {
+		return warmUp(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param namespace of the root element
+	 * @return the transformer for the document
+	 * @throws TransformationException if the namespace is not supported
+	 */
+	public static AbstactTransformer getTransformer(String namespace) {
+		if(UBL_INVOICE_NS.equals(namespace)) {
+			return UblInvoiceTransformer.getInstance();
+		} else if(UBL_CREDITNOTE_NS.equals(namespace)) {
+			return UblCreditNoteTransformer.getInstance();
+		} else if(CII_NS.equals(namespace)) {
+			return CiiTransformer.getInstance();
+		}
+		throw new TransformationException(TransformationException.UNKNOWN_DOCUMENT + " namespace:"+namespace);
+	}
+
+	/**
+	 * @param document GenericInvoice or CrossIndustryInvoice
+	 * @return the transformer to marshal the document
+	 * @throws TransformationException if the document type is not supported
+	 */
+	public static AbstactTransformer getTransformer(CoreInvoice document) {
+		if(document instanceof CrossIndustryInvoiceType) {
+			return CiiTransformer.getInstance();
+		} else if(document instanceof GenericInvoice<?>) {
+			Object t = ((GenericInvoice<?>)document).get();
+			if(t instanceof InvoiceType) {
+				return UblInvoiceTransformer.getInstance();
+			} else if(t instanceof CreditNoteType) {
+				return UblCreditNoteTransformer.getInstance();
+			}
+		}
+		throw new TransformationException(TransformationException.UNKNOWN_DOCUMENT + " "+(document==null ? null : document.getClass()));
+	}
+
+	/**
+	 * peeks at the root element, the stream is reset to its current position afterwards.
+	 * <p>
+	 * The parser reads at most READ_AHEAD_LIMIT bytes,
+	 * if the prolog is longer (comments, processing instructions) the stream is reset and read again with a doubled limit.
+	 *
+	 * @param xmlInputStream must support mark/reset
+	 * @return namespace URI of the root element
+	 */
+	static String getRootNamespace(InputStream xmlInputStream) {
+		for(int limit = READ_AHEAD_LIMIT; ; limit = limit>Integer.MAX_VALUE/2 ? Integer.MAX_VALUE : limit*2) {
+			xmlInputStream.mark(limit);
+			BoundedInputStream bounded = new BoundedInputStream(xmlInputStream, limit);
+			try {
+				// XMLStreamReader.close does not close the underlying stream
+				XMLStreamReader reader = AbstactTransformer.getXmlProvider().getXMLInputFactory().createXMLStreamReader(bounded);
+				try {
+					reader.nextTag();
+					String namespace = reader.getNamespaceURI();
+					LOG.fine("root element {"+namespace+"}"+reader.getLocalName());
+					return namespace;
+				} finally {
+					reader.close();
+				}
+			} catch (XMLStreamException ex) {
+				if(!bounded.isLimitReached() || limit==Integer.MAX_VALUE) {
+					throw new TransformationException(TransformationException.MARSHALLING_ERROR, ex);
+				}
+				LOG.fine("no root element within "+limit+" bytes, read again");
+			} finally {
+				try {
+					xmlInputStream.reset();
+				} catch (IOException ex) {
+					throw new TransformationException(TransformationException.IO_ERROR, ex);
+				}
+			}
+		}
+	}
+
+	// reads at most limit bytes from the underlying stream, which is not closed
+	private static class BoundedInputStream extends FilterInputStream {
+
+		private int remaining;
+
+		BoundedInputStream(InputStream in, int limit) {
+			super(in);
+			remaining = limit;
+		}
+
+		boolean isLimitReached() {
+			return remaining==0;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if(remaining==0) return -1;
+			int b = super.read();
+			if(b>=0) remaining--;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if(remaining==0) return -1;
+			int n = super.read(b, off, Math.min(len, remaining));
+			if(n>0) remaining -= n;
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(Math.min(n, remaining));
+			remaining -= skipped;
+			return skipped;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return Math.min(super.available(), remaining);
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+
+		@Override
+		public void close() {
+			// the stream is reset and read again by the caller
+		}
+	}
+
+}
@@ -3,6 +3,7 @@ package com.klst.marshaller;
 import java.io.InputStream;
 
 import javax.inject.Named;
+import javax.xml.bind.ValidationEventHandler;
 
 import oasis.names.specification.ubl.schema.xsd.creditnote_2.CreditNoteType;
 
@@ -17,10 +18,9 @@ public class UblCreditNoteTransformer extends UblTransformer {
 	}
 	
 	private static final String UBL_CREDITNOTE_XSD_21 = "/ubl/maindoc/UBL-CreditNote-2.1.xsd";
-	private static final String CONTENT_PATH = "oasis.names.specification.ubl.schema.xsd.creditnote_2";
 	
 	private UblCreditNoteTransformer() {
-		super(CONTENT_PATH, SINGLETON);
+		super(UblNamespacePrefixMapper.CREDITNOTE, SINGLETON);
 	}
 	
 	@Override
@@ -28,9 +28,20 @@ public class UblCreditNoteTransformer extends UblTransformer {
 		return UBL_CREDITNOTE_XSD_21;
 	}
 
+	@Override
+	Class<?> getRootType() {
+		return CreditNoteType.class;
+	}
+
 	@Override
 	public <T extends Object> T toModel(InputStream xmlInputStream) {
 		return (T) this.toModel(xmlInputStream, CreditNoteType.class);
 	}
 
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Object> T toModel(InputStream xmlInputStream, ValidationEventHandler handler) {
+		return (T) this.toModel(xmlInputStream, CreditNoteType.class, handler);
+	}
+
 }
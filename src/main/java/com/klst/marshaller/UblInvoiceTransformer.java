@@ -4,6 +4,7 @@ import java.io.InputStream;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
+import javax.xml.bind.ValidationEventHandler;
 
 import oasis.names.specification.ubl.schema.xsd.invoice_2.InvoiceType;
 
@@ -27,10 +28,9 @@ public class UblInvoiceTransformer extends UblTransformer {
 	}
 
 	private static final String UBL_INVOICE_XSD_21 = "/ubl/maindoc/UBL-Invoice-2.1.xsd";
-	private static final String CONTENT_PATH = "oasis.names.specification.ubl.schema.xsd.invoice_2";
 	
 	private UblInvoiceTransformer() {
-		super(CONTENT_PATH, SINGLETON);
+		super(UblNamespacePrefixMapper.INVOICE, SINGLETON);
 //		LOG.info(this.toString());
 	}
 
@@ -39,9 +39,20 @@ public class UblInvoiceTransformer extends UblTransformer {
 		return UBL_INVOICE_XSD_21;
 	}
 
+	@Override
+	Class<?> getRootType() {
+		return InvoiceType.class;
+	}
+
 	@Override
 	public <T extends Object> T toModel(InputStream xmlInputStream) {
 		return (T) this.toModel(xmlInputStream, InvoiceType.class);
 	}
 
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Object> T toModel(InputStream xmlInputStream, ValidationEventHandler handler) {
+		return (T) this.toModel(xmlInputStream, InvoiceType.class, handler);
+	}
+
 }
@@ -1,5 +1,6 @@
 package com.klst.marshaller;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -19,8 +20,8 @@ import com.sun.xml.internal.bind.marshaller.NamespacePrefixMapper;
  */
 public class UblNamespacePrefixMapper extends NamespacePrefixMapper {
 
-	private static final String INVOICE="urn:oasis:names:specification:ubl:schema:xsd:Invoice-2";
-	private static final String CREDITNOTE="urn:oasis:names:specification:ubl:schema:xsd:CreditNote-2";
+	static final String INVOICE="urn:oasis:names:specification:ubl:schema:xsd:Invoice-2";
+	static final String CREDITNOTE="urn:oasis:names:specification:ubl:schema:xsd:CreditNote-2";
 	
 	/**
 	 * shprt prefix for XML Namespace Common Aggregate Components
@@ -64,6 +65,18 @@ public class UblNamespacePrefixMapper extends NamespacePrefixMapper {
 		namespaceMap.put(CEC, "cec"); // oder "ext" 
 	}
 
+	/**
+	 * Create mappings for one document type.
+	 * Use it if the JAXBContext knows Invoice and CreditNote, 
+	 * else the marshaller would bind "ubl" to the first and generate a prefix for the root of the other.
+	 * 
+	 * @param documentNamespace INVOICE or CREDITNOTE namespace, mapped to "ubl"
+	 */
+	UblNamespacePrefixMapper(String documentNamespace) {
+		this();
+		namespaceMap.remove(documentNamespace.equals(INVOICE) ? CREDITNOTE : INVOICE);
+	}
+
 	/* (non-Javadoc)
 	 * Returning null when not found based on spec.
 	 * @see com.sun.xml.bind.marshaller.NamespacePrefixMapper#getPreferredPrefix(java.lang.String, java.lang.String, boolean)
@@ -72,4 +85,10 @@ public class UblNamespacePrefixMapper extends NamespacePrefixMapper {
 	public String getPreferredPrefix(String namespaceUri, String suggestion, boolean requirePrefix) {
 		return namespaceMap.getOrDefault(namespaceUri, suggestion);
 	}
-}
\ No newline at end of file
+
+	// namespace URI -> prefix, used by BindingWriter to declare the namespaces on the root element
+	Map<String, String> getNamespaceMap() {
+		return Collections.unmodifiableMap(namespaceMap);
+	}
+
+}
@@ -0,0 +1,235 @@
+package com.klst.marshaller;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlSeeAlso;
+import javax.xml.bind.annotation.XmlTransient;
+import javax.xml.bind.annotation.XmlType;
+
+import com.sun.xml.internal.bind.v2.model.annotation.Locatable;
+import com.sun.xml.internal.bind.v2.model.annotation.RuntimeAnnotationReader;
+import com.sun.xml.internal.bind.v2.model.annotation.RuntimeInlineAnnotationReader;
+import com.sun.xml.internal.bind.v2.model.core.ErrorHandler;
+
+/*
+ * reads the annotations of the generated UBL classes for the EN16931 subset binding, see UblSubsetTransformer.
+ * 
+ * A field with an @XmlElement which is not in ELEMENTS is reported as @XmlTransient
+ * and removed from the propOrder of its @XmlType. 
+ * @XmlSeeAlso is ignored, in the unqualified data types it lists all 875 basic components.
+ * So the JAXB RI binds only the classes reachable from Invoice and CreditNote through the subset.
+ */
+@SuppressWarnings({ "restriction", "rawtypes" })
+class UblSubsetAnnotationReader implements RuntimeAnnotationReader {
+
+	// local names of the UBL elements accessed by GenericInvoice, GenericLine and the other ubl domain classes
+	private static final Set<String> ELEMENTS = new HashSet<String>(Arrays.asList(
+		"AccountFormatCode", "AccountTypeCode", "AccountingCost", "AccountingCustomerParty", "AccountingSupplierParty",
+		"ActualDeliveryDate", "AdditionalDocumentReference", "AdditionalItemProperty", "AdditionalStreetName",
+		"Address", "AddressLine", "AliasName", "AllowanceCharge", "AllowanceChargeReason", "AllowanceChargeReasonCode",
+		"AllowanceTotalAmount", "Amount", "Attachment", "BaseAmount", "BaseQuantity", "BillingReference",
+		"BuildingName", "BuildingNumber", "BuyerReference", "BuyersItemIdentification", "CardAccount",
+		"ChargeIndicator", "ChargeTotalAmount", "CityName", "ClassifiedTaxCategory", "CommodityClassification",
+		"CompanyID", "CompanyLegalForm", "Contact", "Content", "ContractDocumentReference", "Country",
+		"CountrySubentity", "CreditAccount", "CreditNoteLine", "CreditNoteTypeCode", "CreditedQuantity",
+		"CurrencyCode", "CustomizationID", "Date", "Delivery", "DeliveryLocation", "DeliveryParty", "Description",
+		"DescriptionCode", "DespatchDocumentReference", "DocumentCurrencyCode", "DocumentDescription",
+		"DocumentReference", "DocumentTypeCode", "DueDate", "ElectronicMail", "EmbeddedDocumentBinaryObject",
+		"EndDate", "EndpointID", "ExemptionReason", "ExemptionReasonCode", "ExternalReference", "FinancialAccount",
+		"FinancialInstitution", "FinancialInstitutionBranch", "HolderName", "ID", "IdentificationCode", "Information",
+		"InstructionID", "InstructionNote", "InvoiceDocumentReference", "InvoiceLine", "InvoicePeriod",
+		"InvoiceTypeCode", "InvoicedQuantity", "IssueDate", "Item", "ItemClassificationCode", "LegalMonetaryTotal",
+		"Line", "LineExtensionAmount", "LineID", "MimeCode", "MultiplierFactorNumeric", "Name", "NetworkID", "Note",
+		"OrderLineReference", "OrderReference", "OriginCountry", "OriginatorDocumentReference", "Package", "Party",
+		"PartyIdentification", "PartyLegalEntity", "PartyName", "PartyTaxScheme", "PayableAmount",
+		"PayableRoundingAmount", "PayeeFinancialAccount", "PayeeParty", "PayerFinancialAccount", "PaymentChannelCode",
+		"PaymentDueDate", "PaymentID", "PaymentMandate", "PaymentMeans", "PaymentMeansCode", "PaymentNote",
+		"PaymentTerms", "Percent", "Period", "PostalAddress", "PostalZone", "PrepaidAmount", "Price", "PriceAmount",
+		"PrimaryAccountNumberID", "ProfileID", "ProjectReference", "Quantity", "Rate", "ReceiptDocumentReference",
+		"RegistrationName", "RoundingAmount", "SalesOrderID", "SellersItemIdentification",
+		"StandardItemIdentification", "StartDate", "StreetName", "SupportingDocumentReference", "TaxAmount",
+		"TaxCategory", "TaxCurrencyCode", "TaxExclusiveAmount", "TaxExemptionReason", "TaxExemptionReasonCode",
+		"TaxInclusiveAmount", "TaxPointDate", "TaxRepresentativeParty", "TaxScheme", "TaxSubtotal", "TaxTotal",
+		"TaxableAmount", "Telephone", "Text", "TradeFinancing", "TypeCode", "URI", "Value"));
+
+	@XmlTransient
+	private static Object xmlTransient;
+	private static final XmlTransient XML_TRANSIENT = getXmlTransient();
+
+	private static XmlTransient getXmlTransient() {
+		try {
+			return UblSubsetAnnotationReader.class.getDeclaredField("xmlTransient").getAnnotation(XmlTransient.class);
+		} catch (NoSuchFieldException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static boolean isDropped(Field field) {
+		XmlElement element = field.getAnnotation(XmlElement.class);
+		return element!=null && !isBound(element.name());
+	}
+
+	/**
+	 * @param localName of an element in the UBL common namespaces
+	 * @return false if the element is not bound by the subset
+	 */
+	static boolean isBound(String localName) {
+		return ELEMENTS.contains(localName);
+	}
+
+	private final RuntimeInlineAnnotationReader delegate = new RuntimeInlineAnnotationReader();
+
+	@Override
+	public void setErrorHandler(ErrorHandler errorHandler) {
+		delegate.setErrorHandler(errorHandler);
+	}
+
+	@Override
+	public <A extends Annotation> A getFieldAnnotation(Class<A> annotation, Field field, Locatable srcPos) {
+		if(isDropped(field)) {
+			return annotation==XmlTransient.class ? annotation.cast(XML_TRANSIENT) : null;
+		}
+		return delegate.getFieldAnnotation(annotation, field, srcPos);
+	}
+
+	@Override
+	public boolean hasFieldAnnotation(Class<? extends Annotation> annotationType, Field field) {
+		if(isDropped(field)) {
+			return annotationType==XmlTransient.class;
+		}
+		return delegate.hasFieldAnnotation(annotationType, field);
+	}
+
+	@Override
+	public Annotation[] getAllFieldAnnotations(Field field, Locatable srcPos) {
+		if(isDropped(field)) {
+			return new Annotation[] { XML_TRANSIENT };
+		}
+		return delegate.getAllFieldAnnotations(field, srcPos);
+	}
+
+	@Override
+	public <A extends Annotation> A getClassAnnotation(Class<A> annotation, Class clazz, Locatable srcPos) {
+		if(annotation==XmlSeeAlso.class) {
+			return null;
+		}
+		A a = delegate.getClassAnnotation(annotation, clazz, srcPos);
+		if(annotation==XmlType.class && a!=null) {
+			return annotation.cast(new SubsetType((XmlType)a, clazz));
+		}
+		return a;
+	}
+
+	@Override
+	public boolean hasClassAnnotation(Class clazz, Class<? extends Annotation> annotationType) {
+		return delegate.hasClassAnnotation(clazz, annotationType);
+	}
+
+	@Override
+	public <A extends Annotation> A getPackageAnnotation(Class<A> annotation, Class clazz, Locatable srcPos) {
+		return delegate.getPackageAnnotation(annotation, clazz, srcPos);
+	}
+
+	@Override
+	public <A extends Annotation> A getMethodAnnotation(Class<A> annotation, Method getter, Method setter, Locatable srcPos) {
+		return delegate.getMethodAnnotation(annotation, getter, setter, srcPos);
+	}
+
+	@Override
+	public boolean hasMethodAnnotation(Class<? extends Annotation> annotation, String propertyName, Method getter, Method setter, Locatable srcPos) {
+		return delegate.hasMethodAnnotation(annotation, propertyName, getter, setter, srcPos);
+	}
+
+	@Override
+	public Annotation[] getAllMethodAnnotations(Method method, Locatable srcPos) {
+		return delegate.getAllMethodAnnotations(method, srcPos);
+	}
+
+	@Override
+	public <A extends Annotation> A getMethodAnnotation(Class<A> annotation, Method method, Locatable srcPos) {
+		return delegate.getMethodAnnotation(annotation, method, srcPos);
+	}
+
+	@Override
+	public boolean hasMethodAnnotation(Class<? extends Annotation> annotation, Method method) {
+		return delegate.hasMethodAnnotation(annotation, method);
+	}
+
+	@Override
+	public <A extends Annotation> A getMethodParameterAnnotation(Class<A> annotation, Method method, int paramIndex, Locatable srcPos) {
+		return delegate.getMethodParameterAnnotation(annotation, method, paramIndex, srcPos);
+	}
+
+	@Override
+	public Type getClassValue(Annotation annotation, String name) {
+		return delegate.getClassValue(annotation, name);
+	}
+
+	@Override
+	public Type[] getClassArrayValue(Annotation annotation, String name) {
+		return delegate.getClassArrayValue(annotation, name);
+	}
+
+	// @XmlType without the dropped properties
+	@SuppressWarnings("all")
+	private static class SubsetType implements XmlType {
+
+		private final XmlType xmlType;
+		private final String[] propOrder;
+
+		SubsetType(XmlType xmlType, Class<?> clazz) {
+			this.xmlType = xmlType;
+			List<String> properties = new ArrayList<String>();
+			for(String property : xmlType.propOrder()) {
+				try {
+					if(isDropped(clazz.getDeclaredField(property))) continue;
+				} catch (NoSuchFieldException ex) {
+					// property of a getter
+				}
+				properties.add(property);
+			}
+			this.propOrder = properties.toArray(new String[properties.size()]);
+		}
+
+		@Override
+		public Class<? extends Annotation> annotationType() {
+			return XmlType.class;
+		}
+
+		@Override
+		public String name() {
+			return xmlType.name();
+		}
+
+		@Override
+		public String[] propOrder() {
+			return propOrder.clone();
+		}
+
+		@Override
+		public String namespace() {
+			return xmlType.namespace();
+		}
+
+		@Override
+		public Class factoryClass() {
+			return xmlType.factoryClass();
+		}
+
+		@Override
+		public String factoryMethod() {
+			return xmlType.factoryMethod();
+		}
+
+	}
+
+}
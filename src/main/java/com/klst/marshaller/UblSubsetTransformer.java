@@ -0,0 +1,153 @@
+package com.klst.marshaller;
+
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.ValidationEventHandler;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+
+import com.sun.xml.internal.bind.api.JAXBRIContext;
+
+import oasis.names.specification.ubl.schema.xsd.creditnote_2.CreditNoteType;
+import oasis.names.specification.ubl.schema.xsd.invoice_2.InvoiceType;
+
+/**
+ * UBL Invoice and CreditNote transformer with a JAXBContext of the EN16931 subset.
+ * <p>
+ * The full UBL binding binds 1021 classes of the common packages, 
+ * this binding only the 147 classes reachable through the elements used by the ubl domain classes, 
+ * see {@link UblSubsetAnnotationReader}.
+ * The context is created faster and needs less metaspace.
+ * The model is the same as with {@link UblInvoiceTransformer} and {@link UblCreditNoteTransformer},
+ * but elements outside the subset are skipped when unmarshalling, so they are not marshalled.
+ * A warning lists the skipped elements of each document.
+ * In the test documents these are cbc:UBLVersionID, cac:Person, cbc:CustomerAssignedAccountID, 
+ * cbc:SupplierAssignedAccountID, cbc:SettlementDiscountPercent, cac:SettlementPeriod 
+ * and the XRechnung extension cac:SubInvoiceLine.
+ * ext:UBLExtensions is not bound, the marshalled document does not declare the namespace of the extension components.
+ * Use it when the documents are processed as EN16931 invoices only.
+ */
+@SuppressWarnings("restriction")
+public class UblSubsetTransformer extends UblTransformer {
+
+	private static final Logger LOG = Logger.getLogger(UblSubsetTransformer.class.getName());
+
+	public static final AbstactTransformer INVOICE = 
+			new UblSubsetTransformer(UblNamespacePrefixMapper.INVOICE, InvoiceType.class, "/ubl/maindoc/UBL-Invoice-2.1.xsd");
+	public static final AbstactTransformer CREDITNOTE = 
+			new UblSubsetTransformer(UblNamespacePrefixMapper.CREDITNOTE, CreditNoteType.class, "/ubl/maindoc/UBL-CreditNote-2.1.xsd");
+
+	public static AbstactTransformer getInstance() {
+		return INVOICE;
+	}
+
+	// one subset context for both document types
+	private static final String CONTEXT_KEY = "EN16931 subset of " + CONTENT_PATH;
+
+	private final Class<?> rootType;
+	private final String resource;
+
+	private UblSubsetTransformer(String documentNamespace, Class<?> rootType, String resource) {
+		super(documentNamespace, null);
+		this.rootType = rootType;
+		this.resource = resource;
+	}
+
+	@Override
+	String getContextKey() {
+		return CONTEXT_KEY;
+	}
+
+	@Override
+	JAXBContext createJAXBContext() throws JAXBException {
+		Map<String, Object> properties = 
+				Collections.singletonMap(JAXBRIContext.ANNOTATION_READER, new UblSubsetAnnotationReader());
+		return JAXBContext.newInstance(new Class<?>[] { 
+				oasis.names.specification.ubl.schema.xsd.invoice_2.ObjectFactory.class,
+				oasis.names.specification.ubl.schema.xsd.creditnote_2.ObjectFactory.class }, properties);
+	}
+
+	// the JAXB RI reports skipped elements only up to a limit per JVM, so the parser events are checked here
+	@Override
+	XMLStreamReader createXMLStreamReader(InputStream xmlInputStream) throws XMLStreamException {
+		return new SkippedContentReader(getXmlProvider().getXMLInputFactory().createXMLStreamReader(xmlInputStream));
+	}
+
+	@Override
+	String getResource() {
+		return resource;
+	}
+
+	@Override
+	Class<?> getRootType() {
+		return rootType;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Object> T toModel(InputStream xmlInputStream) {
+		return (T) this.toModel(xmlInputStream, rootType);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Object> T toModel(InputStream xmlInputStream, ValidationEventHandler handler) {
+		return (T) this.toModel(xmlInputStream, rootType, handler);
+	}
+
+	// counts the UBL elements outside the subset, a warning is logged on close
+	private static class SkippedContentReader extends StreamReaderDelegate {
+
+		private static final String UBL_COMMON = "urn:oasis:names:specification:ubl:schema:xsd:Common";
+
+		private final Map<String, Integer> skipped = new TreeMap<String, Integer>();
+		private int skipDepth = 0; // >0 inside a skipped element
+
+		SkippedContentReader(XMLStreamReader reader) {
+			super(reader);
+		}
+
+		@Override
+		public int next() throws XMLStreamException {
+			return track(super.next());
+		}
+
+		@Override
+		public int nextTag() throws XMLStreamException {
+			return track(super.nextTag());
+		}
+
+		private int track(int event) {
+			if(event==XMLStreamConstants.START_ELEMENT) {
+				if(skipDepth>0) {
+					skipDepth++;
+				} else if(getNamespaceURI()!=null && getNamespaceURI().startsWith(UBL_COMMON) 
+						&& !UblSubsetAnnotationReader.isBound(getLocalName())) {
+					skipped.merge(getLocalName(), 1, Integer::sum);
+					skipDepth = 1;
+				}
+			} else if(event==XMLStreamConstants.END_ELEMENT && skipDepth>0) {
+				skipDepth--;
+			}
+			return event;
+		}
+
+		@Override
+		public void close() throws XMLStreamException {
+			if(!skipped.isEmpty()) {
+				LOG.warning("elements outside the EN16931 subset skipped: "+skipped);
+			}
+			super.close();
+		}
+
+	}
+
+}
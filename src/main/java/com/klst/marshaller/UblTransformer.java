@@ -1,19 +1,48 @@
 package com.klst.marshaller;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.ValidationEventHandler;
 
+import com.klst.einvoice.CoreInvoice;
+import com.klst.einvoice.CoreInvoiceLine;
+import com.klst.einvoice.ubl.DomainObjectFactory;
+import com.klst.einvoice.ubl.GenericInvoice;
+import com.klst.einvoice.ubl.GenericLine;
 import com.sun.xml.internal.bind.marshaller.NamespacePrefixMapper;
 
+import oasis.names.specification.ubl.schema.xsd.commonaggregatecomponents_2.CreditNoteLineType;
+import oasis.names.specification.ubl.schema.xsd.commonaggregatecomponents_2.InvoiceLineType;
+import oasis.names.specification.ubl.schema.xsd.commonaggregatecomponents_2.ObjectFactory;
+import oasis.names.specification.ubl.schema.xsd.creditnote_2.CreditNoteType;
+import oasis.names.specification.ubl.schema.xsd.invoice_2.InvoiceType;
+
 @Named
 @Singleton
 public abstract class UblTransformer extends AbstactTransformer {
 
+	// shared by Invoice and CreditNote transformer
+	// one JAXBContext for both document types, they bind the same common packages
+	static final String CONTENT_PATH = "oasis.names.specification.ubl.schema.xsd.invoice_2"
+			+ ":oasis.names.specification.ubl.schema.xsd.creditnote_2";
+	private final UblNamespacePrefixMapper namespacePrefixMapper;
+
 	// ctor
-	protected UblTransformer(String contentPath, AbstactTransformer instance) {
-		super(contentPath, instance);
+	protected UblTransformer(String documentNamespace, AbstactTransformer instance) {
+		super(CONTENT_PATH, instance);
+		namespacePrefixMapper = new UblNamespacePrefixMapper(documentNamespace);
 	}
 	
 	@Override
@@ -22,12 +51,101 @@ public abstract class UblTransformer extends AbstactTransformer {
 	@Override
 	abstract public <T> T toModel(InputStream xmlInputStream);
 
+	@Override
+	abstract public <T> T toModel(InputStream xmlInputStream, ValidationEventHandler handler);
+
+	/**
+	 * streaming marshal of large documents.
+	 * <p>
+	 * The header of document (everything but the lines) is marshalled first,
+	 * then the lines are pulled from the iterator and each cac:InvoiceLine resp. cac:CreditNoteLine
+	 * is marshalled as a xml fragment straight into outputStream.
+	 * Peak memory depends on the header and the largest line, not on the number of lines.
+	 * In UBL the lines are the last elements of Invoice and CreditNote, 
+	 * lines already contained in document are written before the streamed lines.
+	 * 
+	 * @param document the header, GenericInvoice of InvoiceType or CreditNoteType
+	 * @param lines GenericLine of InvoiceLineType resp. CreditNoteLineType, f.i. created from a database cursor
+	 * @param outputStream the stream is not closed
+	 * @param formatted false for compact (unindented) output
+	 */
+	public void fromModel(GenericInvoice<?> document, Iterator<? extends CoreInvoiceLine> lines, OutputStream outputStream, boolean formatted) {
+		ByteArrayOutputStream header = new ByteArrayOutputStream(16000);
+		marshal(document, header, formatted, null);
+		byte[] bytes = header.toByteArray();
+		int rootEndTag = lastIndexOfEndTag(bytes);
+		boolean isInvoiceType = document.get() instanceof InvoiceType;
+		try {
+			outputStream.write(bytes, 0, rootEndTag);
+			fromModel(lines, line -> toElement(line, isInvoiceType), outputStream, formatted, getRootNamespaces(bytes));
+			outputStream.write(bytes, rootEndTag, bytes.length-rootEndTag);
+		} catch (IOException ex) {
+			throw new TransformationException(TransformationException.IO_ERROR, ex);
+		}
+	}
+
+	@Override
+	void fromModel(Object document, Iterator<? extends CoreInvoiceLine> lines, OutputStream outputStream, boolean formatted) {
+		fromModel((GenericInvoice<?>)document, lines, outputStream, formatted);
+	}
+
+	public void fromModel(GenericInvoice<?> document, Iterator<? extends CoreInvoiceLine> lines, Path xmlfile, boolean formatted) {
+		try(OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(xmlfile), BUFFER_SIZE)) {
+			fromModel(document, lines, outputStream, formatted);
+		} catch (IOException ex) {
+			throw new TransformationException(TransformationException.IO_ERROR, ex);
+		}
+	}
+
+	private static final ObjectFactory CAC_FACTORY = new ObjectFactory();
+	
+	private static Object toElement(CoreInvoiceLine line, boolean isInvoiceType) {
+		Object t = line instanceof GenericLine<?> ? ((GenericLine<?>)line).get() : null;
+		if(isInvoiceType && t instanceof InvoiceLineType) {
+			return CAC_FACTORY.createInvoiceLine((InvoiceLineType)t);
+		} else if(!isInvoiceType && t instanceof CreditNoteLineType) {
+			return CAC_FACTORY.createCreditNoteLine((CreditNoteLineType)t);
+		}
+		throw new TransformationException(TransformationException.MARSHALLING_ERROR 
+				+ ": line "+line+" does not fit to " + (isInvoiceType ? "Invoice" : "CreditNote"));
+	}
+
+	// position of the end tag of the root element
+	private static int lastIndexOfEndTag(byte[] bytes) {
+		for(int i=bytes.length-2; i>=0; i--) {
+			if(bytes[i]=='<' && bytes[i+1]=='/') return i;
+		}
+		throw new TransformationException(TransformationException.MARSHALLING_ERROR + ": no root end tag");
+	}
+
 	@SuppressWarnings("restriction")
 	@Override // implements abstract method
 	NamespacePrefixMapper getNamespacePrefixMapper() {
-		return new UblNamespacePrefixMapper();
+		return namespacePrefixMapper;
+	}
+
+	@Override
+	Map<String, String> getNamespacePrefixes() {
+		return namespacePrefixMapper.getNamespaceMap();
+	}
+
+	// Invoice and CreditNote are wrapped, not subclassed
+	private static final Function<Object, CoreInvoice> DOCUMENT_FACTORY = doc -> doc instanceof InvoiceType
+			? new GenericInvoice<InvoiceType>((InvoiceType)doc) : new GenericInvoice<CreditNoteType>((CreditNoteType)doc);
+
+	@Override
+	Function<Object, CoreInvoice> getDocumentFactory() {
+		return DOCUMENT_FACTORY;
 	}
 	
+	// shared by Invoice and CreditNote transformer
+	private static final DomainObjectFactory DOMAIN_OBJECT_FACTORY = new DomainObjectFactory();
+
+	@Override
+	Unmarshaller.Listener getDomainObjectFactory() {
+		return DOMAIN_OBJECT_FACTORY;
+	}
+
 }
 
 
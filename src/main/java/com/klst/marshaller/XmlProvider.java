@@ -0,0 +1,82 @@
+package com.klst.marshaller;
+
+import java.util.function.Supplier;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.validation.SchemaFactory;
+
+/**
+ * Selects the XML parser and writer factories of the transformers, see {@link AbstactTransformer#setXmlProvider(XmlProvider)}.
+ * <p>
+ * The default {@link #JDK} lets JAXB parse and write with its own SAX parser and UTF-8 output,
+ * the StAX factories of the JDK are used by the JAXB-free readers.
+ * Other providers, f.i. {@link #woodstox()} or {@link #aalto()}, are used for all parsing:
+ * JAXB unmarshalling, xsd validation, the BindingReader, the CiiLineReader and the TransformerDispatcher.
+ * JAXB marshals through their XMLStreamWriter, this output is not indented.
+ * <p>
+ * The factories are created and configured once per provider and shared by all threads.
+ */
+public interface XmlProvider {
+
+	public static final XmlProvider JDK = new StaxProvider("jdk", false, XMLInputFactory::newInstance, XMLOutputFactory::newInstance);
+
+	/**
+	 * @param name
+	 * @param xmlInputFactory creates the StAX parser factory
+	 * @param xmlOutputFactory creates the StAX writer factory
+	 * @return a provider for all parsing and JAXB marshalling
+	 */
+	public static XmlProvider of(String name, Supplier<XMLInputFactory> xmlInputFactory, Supplier<XMLOutputFactory> xmlOutputFactory) {
+		return new StaxProvider(name, true, xmlInputFactory, xmlOutputFactory);
+	}
+
+	/**
+	 * @param name
+	 * @param xmlInputFactoryClassName implementation of XMLInputFactory
+	 * @param xmlOutputFactoryClassName implementation of XMLOutputFactory
+	 * @return a provider for all parsing and JAXB marshalling
+	 * @throws TransformationException if the implementation is not in the classpath
+	 */
+	public static XmlProvider of(String name, String xmlInputFactoryClassName, String xmlOutputFactoryClassName) {
+		return of(name, () -> StaxProvider.newInstance(XMLInputFactory.class, xmlInputFactoryClassName),
+				() -> StaxProvider.newInstance(XMLOutputFactory.class, xmlOutputFactoryClassName));
+	}
+
+	// com.fasterxml.woodstox:woodstox-core
+	public static XmlProvider woodstox() {
+		return of("woodstox", "com.ctc.wstx.stax.WstxInputFactory", "com.ctc.wstx.stax.WstxOutputFactory");
+	}
+
+	// com.fasterxml:aalto-xml
+	public static XmlProvider aalto() {
+		return of("aalto", "com.fasterxml.aalto.stax.InputFactoryImpl", "com.fasterxml.aalto.stax.OutputFactoryImpl");
+	}
+
+	public String getName();
+
+	/**
+	 * @return thread-safe factory, DTDs and external entities are not supported
+	 */
+	public XMLInputFactory getXMLInputFactory();
+
+	/**
+	 * @return thread-safe factory
+	 */
+	public XMLOutputFactory getXMLOutputFactory();
+
+	/**
+	 * @return a new SchemaFactory, it is not thread-safe
+	 */
+	default SchemaFactory newSchemaFactory() {
+		return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+	}
+
+	/**
+	 * @return true if JAXB and the xsd validation use the StAX factories of this provider,
+	 * false if JAXB uses its own SAX parser and output
+	 */
+	public boolean isJaxbStax();
+
+}
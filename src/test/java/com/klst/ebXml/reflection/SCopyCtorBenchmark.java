@@ -0,0 +1,22 @@
+package com.klst.ebXml.reflection;
+
+import java.util.logging.Logger;
+
+import com.klst.marshaller.Benchmark;
+
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.SupplyChainTradeLineItemType;
+
+/*
+ * nanoseconds to copy a CII line with the cached copy plan
+ */
+public class SCopyCtorBenchmark {
+
+	private static final Logger LOG = Logger.getLogger(SCopyCtorBenchmark.class.getName());
+
+	public static void main(String[] args) throws Exception {
+		SupplyChainTradeLineItemType line = SCopyCtorTest.line();
+		long nanos = Benchmark.timePerCall(100000, () -> SCopyCtor.getInstance().invokeCopy(new SupplyChainTradeLineItemType(), line));
+		LOG.info(String.format("invokeCopy %d ns", nanos));
+	}
+
+}
@@ -0,0 +1,70 @@
+package com.klst.ebXml.reflection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.klst.einvoice.unece.uncefact.TradeLineItem;
+import com.klst.marshaller.CiiTransformer;
+
+import un.unece.uncefact.data.standard.crossindustryinvoice._100.CrossIndustryInvoiceType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.SupplyChainTradeLineItemType;
+
+public class SCopyCtorTest {
+
+	private static final String TESTFILE = "src/test/resources/01.01a-INVOICE_uncefact.xml";
+
+	// the unmarshaller creates TradeLineItem objects, the copy source must be the JAXB class itself
+	static SupplyChainTradeLineItemType line() {
+		CrossIndustryInvoiceType doc = CiiTransformer.getInstance().toModel(Paths.get(TESTFILE));
+		SupplyChainTradeLineItemType line = new SupplyChainTradeLineItemType();
+		SCopyCtor.getInstance().invokeCopy(line, doc.getSupplyChainTradeTransaction().getIncludedSupplyChainTradeLineItem().get(0));
+		return line;
+	}
+
+	@Test
+	public void copyTest() {
+		SupplyChainTradeLineItemType line = line();
+		TradeLineItem copy = TradeLineItem.create(line);
+		assertNotSame(line, copy);
+		// the copy shares the members of line
+		assertSame(line.getAssociatedDocumentLineDocument(), copy.getAssociatedDocumentLineDocument());
+		assertSame(line.getSpecifiedTradeProduct(), copy.getSpecifiedTradeProduct());
+		assertSame(line.getIncludedSubordinateTradeLineItem(), copy.getIncludedSubordinateTradeLineItem()); // List without setter
+		assertEquals(line.getAssociatedDocumentLineDocument().getLineID().getValue(), copy.getId());
+	}
+
+	// copy plans are built concurrently without corruption
+	@Test
+	public void concurrentTest() throws Exception {
+		final int threads = 8;
+		SupplyChainTradeLineItemType line = line();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<String>> futures = new ArrayList<Future<String>>();
+			for(int i=0; i<threads*10; i++) {
+				futures.add(executor.submit(() -> TradeLineItem.create(line).getId()));
+			}
+			String[] expected = new String[futures.size()];
+			String[] ids = new String[futures.size()];
+			for(int i=0; i<ids.length; i++) {
+				expected[i] = line.getAssociatedDocumentLineDocument().getLineID().getValue();
+				ids[i] = futures.get(i).get();
+			}
+			assertArrayEquals(expected, ids);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.klst.einvoice;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AttachmentContentTest {
+
+	@Test
+	public void streamTest() throws IOException {
+		byte[] pdf = new byte[100000];
+		new Random(125).nextBytes(pdf);
+		boolean[] closed = new boolean[1];
+		InputStream inputStream = new ByteArrayInputStream(pdf) {
+			@Override
+			public void close() {
+				closed[0] = true;
+			}
+		};
+		AttachmentContent content = AttachmentContent.of(inputStream);
+		assertNull(content.getFile());
+		// the stream is spooled when it is first read, the content can be read again
+		assertArrayEquals(pdf, content.toByteArray());
+		assertTrue(closed[0]);
+		Path file = content.getFile();
+		assertNotNull(file);
+		try(InputStream in = content.openStream()) {
+			byte[] read = new byte[pdf.length];
+			int n = 0;
+			for(int r = in.read(read); r>0; r = in.read(read, n, read.length-n)) n += r;
+			assertArrayEquals(pdf, read);
+		}
+		assertArrayEquals(pdf, content.toByteArray());
+		content.close();
+		assertFalse(Files.exists(file));
+		assertNull(content.getFile());
+		content.close();
+	}
+
+	@Test
+	public void temporaryTest() throws IOException {
+		Path file = Files.createTempFile("attachment", null);
+		AttachmentContent content = AttachmentContent.temporary(file);
+		assertTrue(Files.exists(file));
+		content.close();
+		assertFalse(Files.exists(file));
+	}
+
+	// the deleted file is not opened
+	@Test(expected = IllegalStateException.class)
+	public void closedTest() throws IOException {
+		AttachmentContent content = AttachmentContent.of(new ByteArrayInputStream(new byte[10]));
+		content.toByteArray();
+		content.close();
+		content.openStream();
+	}
+
+}
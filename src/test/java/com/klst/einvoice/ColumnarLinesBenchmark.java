@@ -0,0 +1,43 @@
+package com.klst.einvoice;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import com.klst.marshaller.Benchmark;
+import com.klst.marshaller.TransformerDispatcher;
+
+/*
+ * heap bytes per line, lines held as objects and in the columns of ColumnarLines
+ */
+public class ColumnarLinesBenchmark {
+
+	private static final Logger LOG = Logger.getLogger(ColumnarLinesBenchmark.class.getName());
+
+	private static final String TESTDIR = "src/test/resources/";
+
+	public static void main(String[] args) {
+		final int count = 100000;
+		for(String name : new String[] {"01.01a-INVOICE_ubl.xml", "01.01a-INVOICE_uncefact.xml"}) {
+			CoreInvoice invoice = TransformerDispatcher.toModel(Paths.get(TESTDIR, name));
+			long before = Benchmark.usedMemory();
+			List<CoreInvoiceLine> objects = new ArrayList<CoreInvoiceLine>(count);
+			for(int i=0; i<count; i++) {
+				objects.add(ColumnarLinesTest.createLine(invoice, i));
+			}
+			long objectBytes = Benchmark.usedMemory()-before;
+			LOG.fine(objects.size()+" objects");
+			objects = null;
+			before = Benchmark.usedMemory();
+			ColumnarLines columnar = new ColumnarLines(invoice, count);
+			for(int i=0; i<count; i++) {
+				columnar.add(ColumnarLinesTest.createLine(invoice, i));
+			}
+			long columnarBytes = Benchmark.usedMemory()-before;
+			LOG.info(String.format("%s: %d lines as objects %d bytes per line, in columns %d bytes per line (%d held as object)"
+					, name, count, objectBytes/count, columnarBytes/count, columnar.getObjectCount()));
+		}
+	}
+
+}
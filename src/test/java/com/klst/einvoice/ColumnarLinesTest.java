@@ -0,0 +1,149 @@
+package com.klst.einvoice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import com.klst.einvoice.ubl.GenericInvoice;
+import com.klst.einvoice.unece.uncefact.Amount;
+import com.klst.einvoice.unece.uncefact.CrossIndustryInvoice;
+import com.klst.einvoice.unece.uncefact.Quantity;
+import com.klst.einvoice.unece.uncefact.UnitPriceAmount;
+import com.klst.marshaller.AbstactTransformer;
+import com.klst.marshaller.CiiLineReader;
+import com.klst.marshaller.CiiTransformer;
+import com.klst.marshaller.LazyLines;
+import com.klst.marshaller.TransformerDispatcher;
+import com.klst.marshaller.UblTransformer;
+import com.klst.untdid.codelist.TaxCategoryCode;
+
+public class ColumnarLinesTest {
+
+	private static final Logger LOG = Logger.getLogger(ColumnarLinesTest.class.getName());
+
+	private static final String TESTDIR = "src/test/resources/";
+
+	// the views of the rows return the same as the lines
+	@Test
+	public void sameAsLinesTest() {
+		File[] files = new File(TESTDIR).listFiles((dir, name) -> name.endsWith("INVOICE_ubl.xml") || name.endsWith("INVOICE_uncefact.xml"));
+		int objects = 0;
+		int rows = 0;
+		for(File file : files) {
+			String name = file.getName();
+			CoreInvoice invoice = TransformerDispatcher.toModel(file.toPath());
+			ColumnarLines columnar = ColumnarLines.read(invoice, invoice.getLines().iterator());
+			assertEquals(name, invoice.getLines().size(), columnar.size());
+			for(int i=0; i<columnar.size(); i++) {
+				assertLine(name, invoice.getLines().get(i), columnar.get(i));
+				assertLine(name, invoice.getLines().get(i), columnar.toLine(i));
+			}
+			objects += columnar.getObjectCount();
+			rows += columnar.size();
+		}
+		LOG.info(rows+" lines, "+objects+" held as object");
+		assertTrue(objects<rows);
+	}
+
+	@Test
+	public void setTest() {
+		for(String name : new String[] {"01.01a-INVOICE_ubl.xml", "01.01a-INVOICE_uncefact.xml"}) {
+			CoreInvoice invoice = TransformerDispatcher.toModel(Paths.get(TESTDIR, name));
+			ColumnarLines columnar = new ColumnarLines(invoice);
+			CoreInvoiceLine line = columnar.addLine("1", new Quantity("XPP", new BigDecimal("2.5")), new Amount("EUR", new BigDecimal("25.10"))
+					, new UnitPriceAmount("EUR", new BigDecimal("10.04")), "item", TaxCategoryCode.StandardRate, new BigDecimal("19"));
+			assertEquals(0, columnar.getObjectCount());
+			line.setOrderLineID("order 1");
+			assertEquals(name, "order 1", columnar.get(0).getOrderLineID());
+			assertNull(name, line.getStartDateAsTimestamp());
+			// a line period is not held in columns
+			line.setPeriod("2020-01-01", "2020-01-31");
+			assertEquals(1, columnar.getObjectCount());
+			assertEquals(name, "order 1", line.getOrderLineID());
+			assertEquals(name, "2020-01-31", line.getEndDateAsTimestamp().toString().substring(0, 10));
+			assertEquals(name, "1", columnar.get(0).getId());
+			assertEquals(name, 0, new BigDecimal("25.10").compareTo(columnar.get(0).getLineTotalAmount().getValue()));
+		}
+	}
+
+	// CII read with CiiLineReader, UBL with LazyLines and both written by the streaming writers
+	@Test
+	public void streamingTest() throws Exception {
+		Path cii = Paths.get(TESTDIR, "01.01a-INVOICE_uncefact.xml");
+		ColumnarLines lines;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try(CiiLineReader reader = CiiLineReader.open(cii)) {
+			CrossIndustryInvoice header = reader.getHeader();
+			lines = ColumnarLines.read(header, reader);
+			((CiiTransformer)CiiTransformer.getInstance()).fromModel(header, lines.materialize(), out, true);
+		}
+		assertWritten(cii, out.toByteArray());
+
+		Path ubl = Paths.get(TESTDIR, "01.01a-INVOICE_ubl.xml");
+		CoreInvoice header = LazyLines.load(ubl);
+		try(LazyLines lazyLines = (LazyLines)header.getLines()) {
+			lines = ColumnarLines.read(header, lazyLines.iterator());
+		}
+		out = new ByteArrayOutputStream();
+		((UblTransformer)TransformerDispatcher.getTransformer(header)).fromModel((GenericInvoice<?>)header, lines.materialize(), out, false);
+		assertWritten(ubl, out.toByteArray());
+	}
+
+	static CoreInvoiceLine createLine(CoreInvoice invoice, int i) {
+		CoreInvoiceLine line = invoice.createInvoiceLine("line "+i, new Quantity("XPP", new BigDecimal(i%10+1)), new Amount("EUR", new BigDecimal(i%100))
+				, new UnitPriceAmount("EUR", new BigDecimal(i%100)), "item "+(i%100), TaxCategoryCode.StandardRate, new BigDecimal(19));
+		line.setOrderLineID("order "+i);
+		return line;
+	}
+
+	private static void assertWritten(Path expectedFile, byte[] xml) throws Exception {
+		String name = expectedFile.getFileName().toString();
+		CoreInvoice invoice = TransformerDispatcher.toModel(new ByteArrayInputStream(xml));
+		AbstactTransformer transformer = TransformerDispatcher.getTransformer(invoice);
+		Path tmp = Files.createTempFile("columnar", ".xml");
+		try {
+			Files.write(tmp, xml);
+			assertTrue(name, transformer.isValid(tmp.toFile()));
+		} finally {
+			Files.delete(tmp);
+		}
+		CoreInvoice expected = TransformerDispatcher.toModel(expectedFile);
+		assertEquals(name, expected.getLines().size(), invoice.getLines().size());
+		for(int i=0; i<invoice.getLines().size(); i++) {
+			assertLine(name, expected.getLines().get(i), invoice.getLines().get(i));
+		}
+		assertEquals(name, 0, expected.getDuePayable().getValue().compareTo(invoice.getDuePayable().getValue()));
+	}
+
+	private static void assertLine(String name, CoreInvoiceLine expected, CoreInvoiceLine actual) {
+		assertEquals(name, expected.getId(), actual.getId());
+		assertEquals(name, expected.getQuantity().getUnitCode(), actual.getQuantity().getUnitCode());
+		assertEquals(name, 0, expected.getQuantity().getValue().compareTo(actual.getQuantity().getValue()));
+		assertEquals(name, 0, expected.getLineTotalAmount().getValue().compareTo(actual.getLineTotalAmount().getValue()));
+		assertEquals(name, expected.getLineTotalAmount().getCurrencyID(), actual.getLineTotalAmount().getCurrencyID());
+		assertEquals(name, 0, expected.getUnitPriceAmount().getValue().compareTo(actual.getUnitPriceAmount().getValue()));
+		assertEquals(name, expected.getTaxCategory(), actual.getTaxCategory());
+		assertEquals(name, expected.getTaxRate(), actual.getTaxRate());
+		assertEquals(name, expected.getItemName(), actual.getItemName());
+		assertEquals(name, expected.getNote(), actual.getNote());
+		assertEquals(name, expected.getOrderLineID(), actual.getOrderLineID());
+		assertEquals(name, expected.getBuyerAccountingReference(), actual.getBuyerAccountingReference());
+		assertEquals(name, expected.getDescription(), actual.getDescription());
+		assertEquals(name, expected.getSellerAssignedID(), actual.getSellerAssignedID());
+		assertEquals(name, expected.getBuyerAssignedID(), actual.getBuyerAssignedID());
+		assertEquals(name, expected.getAllowancesAndCharges().size(), actual.getAllowancesAndCharges().size());
+		assertEquals(name, expected.getItemAttributes(), actual.getItemAttributes());
+	}
+
+}
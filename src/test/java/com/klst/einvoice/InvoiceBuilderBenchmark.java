@@ -0,0 +1,36 @@
+package com.klst.einvoice;
+
+import java.nio.file.Paths;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+import com.klst.marshaller.Benchmark;
+import com.klst.marshaller.TransformerDispatcher;
+
+/*
+ * milliseconds to add many lines one by one with addLine and in bulk with the presizing InvoiceBuilder
+ */
+public class InvoiceBuilderBenchmark {
+
+	private static final Logger LOG = Logger.getLogger(InvoiceBuilderBenchmark.class.getName());
+
+	private static final String TESTDIR = "src/test/resources/";
+
+	public static void main(String[] args) throws Exception {
+		final int count = 100000;
+		for(String name : new String[] {"01.01a-INVOICE_ubl.xml", "01.01a-INVOICE_uncefact.xml"}) {
+			CoreInvoice[] invoice = new CoreInvoice[1];
+			// each run on a new invoice, not timed
+			long[] nanos = Benchmark.time(1, () -> invoice[0] = TransformerDispatcher.toModel(Paths.get(TESTDIR, name)), () -> {
+				for(int i=0; i<count; i++) {
+					invoice[0].addLine(InvoiceBuilderTest.createLine(invoice[0], i));
+				}
+			}, () -> invoice[0] = TransformerDispatcher.toModel(Paths.get(TESTDIR, name)), () -> {
+				new InvoiceBuilder(invoice[0], count).addLines(IntStream.range(0, count).mapToObj(i -> InvoiceBuilderTest.createLine(invoice[0], i)));
+			});
+			LOG.info(String.format("%s: %d lines addLine %d ms, InvoiceBuilder %d ms"
+					, name, count, Benchmark.millis(nanos[1]), Benchmark.millis(nanos[3])));
+		}
+	}
+
+}
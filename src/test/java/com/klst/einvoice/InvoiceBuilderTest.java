@@ -0,0 +1,64 @@
+package com.klst.einvoice;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import com.klst.einvoice.unece.uncefact.Amount;
+import com.klst.einvoice.unece.uncefact.Quantity;
+import com.klst.einvoice.unece.uncefact.UnitPriceAmount;
+import com.klst.marshaller.AbstactTransformer;
+import com.klst.marshaller.TransformerDispatcher;
+import com.klst.untdid.codelist.TaxCategoryCode;
+
+public class InvoiceBuilderTest {
+
+	private static final String TESTDIR = "src/test/resources/";
+
+	// the builder produces the same document as addLine
+	@Test
+	public void sameAsAddLineTest() {
+		final int count = 30;
+		for(String name : new String[] {"01.01a-INVOICE_ubl.xml", "01.01a-INVOICE_uncefact.xml", "01.05a-INVOICE_ubl.xml"}) {
+			CoreInvoice expected = TransformerDispatcher.toModel(Paths.get(TESTDIR, name));
+			for(int i=0; i<count; i++) {
+				CoreInvoiceLine line = createLine(expected, i);
+				expected.addLine(line);
+			}
+			expected.recalculate();
+
+			CoreInvoice invoice = TransformerDispatcher.toModel(Paths.get(TESTDIR, name));
+			List<CoreInvoiceLine> lines = new ArrayList<CoreInvoiceLine>();
+			for(int i=0; i<count/3; i++) {
+				lines.add(createLine(invoice, i));
+			}
+			InvoiceBuilder builder = new InvoiceBuilder(invoice, invoice.getLines().size()+count);
+			builder.addLines(lines);
+			builder.addLines(IntStream.range(count/3, count-1).mapToObj(i -> createLine(invoice, i)));
+			builder.addLine("new "+(count-1), new Quantity("XPP", BigDecimal.ONE), new Amount("EUR", new BigDecimal(count-1))
+					, new UnitPriceAmount("EUR", new BigDecimal(count-1)), "item", TaxCategoryCode.StandardRate, new BigDecimal(19))
+					.setOrderLineID("order "+(count-1));
+			builder.build().recalculate();
+
+			assertEquals(name, expected.getLines().size(), invoice.getLines().size());
+			assertEquals(name, 0, expected.getDuePayable().getValue().compareTo(invoice.getDuePayable().getValue()));
+			AbstactTransformer transformer = TransformerDispatcher.getTransformer(invoice);
+			assertArrayEquals(name, transformer.fromModel(expected), transformer.fromModel(invoice));
+		}
+	}
+
+	static CoreInvoiceLine createLine(CoreInvoice invoice, int i) {
+		CoreInvoiceLine line = invoice.createInvoiceLine("new "+i, new Quantity("XPP", BigDecimal.ONE), new Amount("EUR", new BigDecimal(i))
+				, new UnitPriceAmount("EUR", new BigDecimal(i)), "item", TaxCategoryCode.StandardRate, new BigDecimal(19));
+		line.setOrderLineID("order "+i);
+		return line;
+	}
+
+}
@@ -0,0 +1,36 @@
+package com.klst.einvoice;
+
+import java.nio.file.Paths;
+import java.util.logging.Logger;
+
+import com.klst.marshaller.Benchmark;
+import com.klst.marshaller.TransformerDispatcher;
+
+/*
+ * milliseconds to find lines by order line id with the line index, one lookup per line
+ */
+public class ListIndexBenchmark {
+
+	private static final Logger LOG = Logger.getLogger(ListIndexBenchmark.class.getName());
+
+	private static final String TESTDIR = "src/test/resources/";
+
+	public static void main(String[] args) throws Exception {
+		final int count = 50000;
+		for(String name : new String[] {"01.01a-INVOICE_ubl.xml", "01.01a-INVOICE_uncefact.xml"}) {
+			CoreInvoice invoice = TransformerDispatcher.toModel(Paths.get(TESTDIR, name));
+			for(int i=0; i<count; i++) {
+				invoice.addLine(ListIndexTest.createLine(invoice, "line "+i, "order "+i, "item "+(i%1000)));
+			}
+			int[] n = new int[1];
+			long nanos = Benchmark.time(() -> {
+				for(int i=0; i<count; i++) {
+					n[0] += invoice.findLinesByOrderLineId("order "+i).size();
+				}
+			});
+			LOG.info(String.format("%s: %d order line lookups over %d lines %d ms (%d found)"
+					, name, count, invoice.getLines().size(), Benchmark.millis(nanos), n[0]));
+		}
+	}
+
+}
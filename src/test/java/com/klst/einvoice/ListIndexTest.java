@@ -0,0 +1,160 @@
+package com.klst.einvoice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import com.klst.einvoice.ubl.GenericInvoice;
+import com.klst.einvoice.unece.uncefact.Amount;
+import com.klst.einvoice.unece.uncefact.CrossIndustryInvoice;
+import com.klst.einvoice.unece.uncefact.Quantity;
+import com.klst.einvoice.unece.uncefact.UnitPriceAmount;
+import com.klst.marshaller.LazyLines;
+import com.klst.marshaller.TransformerDispatcher;
+import com.klst.untdid.codelist.DocumentNameCode;
+import com.klst.untdid.codelist.TaxCategoryCode;
+
+public class ListIndexTest {
+
+	private static final String TESTDIR = "src/test/resources/";
+
+	// the indexed lookups find the same as a linear scan
+	@Test
+	public void sameAsScanTest() {
+		File[] files = new File(TESTDIR).listFiles((dir, name) -> name.endsWith("INVOICE_ubl.xml") || name.endsWith("INVOICE_uncefact.xml"));
+		for(File file : files) {
+			String name = file.getName();
+			CoreInvoice invoice = TransformerDispatcher.toModel(file.toPath());
+			for(CoreInvoiceLine line : invoice.getLines()) {
+				assertEquals(name, line.getId(), invoice.getLine(line.getId()).getId());
+				assertIds(name, scan(invoice, CoreInvoiceLine::getOrderLineID, line.getOrderLineID()), invoice.findLinesByOrderLineId(line.getOrderLineID()));
+				assertIds(name, scan(invoice, CoreInvoiceLine::getSellerAssignedID, line.getSellerAssignedID()), invoice.findLinesBySellerItemId(line.getSellerAssignedID()));
+			}
+			assertNull(name, invoice.getLine("no such id"));
+			assertTrue(name, invoice.findLinesByOrderLineId("no such id").isEmpty());
+			assertTrue(name, invoice.findLinesBySellerItemId(null).isEmpty());
+			// BG-24 without BT-17 and BT-18
+			List<BG24_AdditionalSupportingDocs> docs = invoice.getAdditionalSupportingDocuments();
+			assertEquals(name, docs.size(), invoice.getAdditionalSupportingDocuments(DocumentNameCode.RelatedDocument).size());
+		}
+	}
+
+	@Test
+	public void referencedDocumentTest() {
+		CoreInvoice ubl = TransformerDispatcher.toModel(Paths.get(TESTDIR, "01.15a-INVOICE_ubl.xml"));
+		List<BG24_AdditionalSupportingDocs> docs = ubl.getAdditionalSupportingDocuments(DocumentNameCode.InvoicingDataSheet);
+		assertEquals(1, docs.size());
+		assertEquals(ubl.getInvoicedObject(), docs.get(0).getDocumentReference().getContent());
+		assertTrue(ubl.getAdditionalSupportingDocuments(DocumentNameCode.CommercialInvoice).isEmpty());
+
+		CoreInvoice cii = TransformerDispatcher.toModel(Paths.get(TESTDIR, "02.01a-INVOICE_uncefact.xml"));
+		docs = cii.getAdditionalSupportingDocuments(DocumentNameCode.ValidatedPricedTender);
+		assertEquals(1, docs.size());
+		assertEquals("ANG987654321", cii.getTenderOrLotReference());
+		assertEquals(cii.getTenderOrLotReference(), docs.get(0).getDocumentReference().getContent());
+		assertNull(cii.getInvoicedObjectIdentifier());
+	}
+
+	// the indexes follow added lines and documents
+	@Test
+	public void invalidateTest() {
+		for(String name : new String[] {"01.01a-INVOICE_ubl.xml", "01.01a-INVOICE_uncefact.xml"}) {
+			CoreInvoice invoice = TransformerDispatcher.toModel(Paths.get(TESTDIR, name));
+			assertNull(name, invoice.getLine("new"));
+			assertNull(name, invoice.getTenderOrLotReference());
+			invoice.addLine(createLine(invoice, "new", "order 1", "item 1"));
+			assertEquals(name, "new", invoice.getLine("new").getId());
+			assertEquals(name, 1, invoice.findLinesByOrderLineId("order 1").size());
+			invoice.addLine(createLine(invoice, "new 2", "order 1", "item 2"));
+			assertEquals(name, 2, invoice.findLinesByOrderLineId("order 1").size());
+			assertEquals(name, "new 2", invoice.findLinesByOrderLineId("order 1").get(1).getId());
+			assertEquals(name, 1, invoice.findLinesBySellerItemId("item 2").size());
+			invoice.setTenderOrLotReference("tender");
+			assertEquals(name, "tender", invoice.getTenderOrLotReference());
+		}
+	}
+
+	@Test
+	public void lazyLinesTest() {
+		CoreInvoice lazy = LazyLines.load(Paths.get(TESTDIR, "01.01a-INVOICE_ubl.xml"));
+		try(LazyLines lines = (LazyLines)lazy.getLines()) {
+			String id = TransformerDispatcher.toModel(Paths.get(TESTDIR, "01.01a-INVOICE_ubl.xml")).getLines().get(1).getId();
+			assertSame(lines.getLine(id), lazy.getLine(id));
+			assertEquals(1, lines.getUnmarshalCount());
+		}
+	}
+
+	// a line source with its own index is asked instead of the index of the invoice
+	@Test
+	public void lineLookupTest() {
+		for(String name : new String[] {"01.01a-INVOICE_ubl.xml", "01.01a-INVOICE_uncefact.xml"}) {
+			CoreInvoice invoice = TransformerDispatcher.toModel(Paths.get(TESTDIR, name));
+			LookupLines lines = new LookupLines(new ArrayList<CoreInvoiceLine>(invoice.getLines()));
+			if(invoice instanceof GenericInvoice<?>) {
+				((GenericInvoice<?>)invoice).setLineSource(lines);
+			} else {
+				((CrossIndustryInvoice)invoice).setLineSource(lines);
+			}
+			String id = lines.get(0).getId();
+			assertSame(name, lines.get(0), invoice.getLine(id));
+			assertEquals(name, 1, lines.lookups);
+		}
+	}
+
+	private static class LookupLines extends AbstractList<CoreInvoiceLine> implements LineLookup {
+		private final List<CoreInvoiceLine> lines;
+		int lookups = 0;
+		LookupLines(List<CoreInvoiceLine> lines) {
+			this.lines = lines;
+		}
+		@Override
+		public CoreInvoiceLine get(int index) {
+			return lines.get(index);
+		}
+		@Override
+		public int size() {
+			return lines.size();
+		}
+		@Override
+		public CoreInvoiceLine getLine(String id) {
+			lookups++;
+			return id.equals(lines.get(0).getId()) ? lines.get(0) : null;
+		}
+	}
+
+	static CoreInvoiceLine createLine(CoreInvoice invoice, String id, String orderLineId, String sellerItemId) {
+		CoreInvoiceLine line = invoice.createInvoiceLine(id, new Quantity("XPP", new BigDecimal(1)), new Amount("EUR", new BigDecimal(1))
+				, new UnitPriceAmount("EUR", new BigDecimal(1)), "item", TaxCategoryCode.StandardRate, new BigDecimal(19));
+		line.setOrderLineID(orderLineId);
+		line.setSellerAssignedID(sellerItemId);
+		return line;
+	}
+
+	private static List<CoreInvoiceLine> scan(CoreInvoice invoice, Function<CoreInvoiceLine, String> key, String value) {
+		List<CoreInvoiceLine> result = new ArrayList<CoreInvoiceLine>();
+		if(value==null) return result;
+		for(CoreInvoiceLine line : invoice.getLines()) {
+			if(value.equals(key.apply(line))) result.add(line);
+		}
+		return result;
+	}
+
+	private static void assertIds(String name, List<CoreInvoiceLine> expected, List<CoreInvoiceLine> actual) {
+		assertEquals(name, expected.size(), actual.size());
+		for(int i=0; i<expected.size(); i++) {
+			assertEquals(name, expected.get(i).getId(), actual.get(i).getId());
+		}
+	}
+
+}
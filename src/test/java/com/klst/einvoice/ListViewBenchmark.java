@@ -0,0 +1,32 @@
+package com.klst.einvoice;
+
+import java.nio.file.Paths;
+import java.util.logging.Logger;
+
+import com.klst.marshaller.Benchmark;
+import com.klst.marshaller.TransformerDispatcher;
+
+/*
+ * nanoseconds to iterate the live list views of the VAT breakdowns and lines of a CII invoice
+ */
+public class ListViewBenchmark {
+
+	private static final Logger LOG = Logger.getLogger(ListViewBenchmark.class.getName());
+
+	private static final String TESTDIR = "src/test/resources/";
+
+	public static void main(String[] args) throws Exception {
+		CoreInvoice invoice = TransformerDispatcher.toModel(Paths.get(TESTDIR, "01.01a-INVOICE_uncefact.xml"));
+		int[] n = new int[1];
+		long nanos = Benchmark.timePerCall(100000, () -> {
+			for(VatBreakdown vatBreakdown : invoice.getVATBreakDowns()) {
+				if(vatBreakdown.getTaxCategoryCode()!=null) n[0]++;
+			}
+			for(CoreInvoiceLine line : invoice.getLines()) {
+				if(line.getId()!=null) n[0]++;
+			}
+		});
+		LOG.info(String.format("iterate VAT breakdowns and lines %d ns (%d)", nanos, n[0]));
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.klst.einvoice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.klst.marshaller.TransformerDispatcher;
+
+public class ListViewTest {
+
+	private static final String TESTDIR = "src/test/resources/";
+
+	// the getters return the same live views on every call
+	@Test
+	public void viewTest() {
+		File[] files = new File(TESTDIR).listFiles((dir, name) -> name.endsWith("INVOICE_ubl.xml") || name.endsWith("INVOICE_uncefact.xml"));
+		for(File file : files) {
+			String name = file.getName();
+			CoreInvoice invoice = TransformerDispatcher.toModel(file.toPath());
+			assertSame(name, invoice.getLines(), invoice.getLines());
+			assertSame(name, invoice.getVATBreakDowns(), invoice.getVATBreakDowns());
+			assertSame(name, invoice.getInvoiceNotes(), invoice.getInvoiceNotes());
+			assertSame(name, invoice.getAllowancesAndCharges(), invoice.getAllowancesAndCharges());
+			assertSame(name, invoice.getPrecedingInvoices(), invoice.getPrecedingInvoices());
+			for(VatBreakdown vatBreakdown : invoice.getVATBreakDowns()) {
+				assertTrue(name, vatBreakdown.getTaxCategoryCode()!=null);
+			}
+		}
+	}
+
+	@Test
+	public void liveTest() {
+		for(String name : new String[] {"01.01a-INVOICE_ubl.xml", "01.01a-INVOICE_uncefact.xml"}) {
+			CoreInvoice invoice = TransformerDispatcher.toModel(Paths.get(TESTDIR, name));
+			List<InvoiceNote> notes = invoice.getInvoiceNotes();
+			int size = notes.size();
+			invoice.addNote("ADU", "live");
+			assertEquals(name, size+1, notes.size());
+			assertEquals(name, "ADU", notes.get(size).getCode());
+			assertEquals(name, "live", notes.get(size).getNote());
+		}
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void readOnlyTest() {
+		CoreInvoice invoice = TransformerDispatcher.toModel(Paths.get(TESTDIR, "01.01a-INVOICE_uncefact.xml"));
+		invoice.getLines().add(invoice.getLines().get(0));
+	}
+
+	@Test
+	public void pageTest() {
+		CoreInvoice invoice = TransformerDispatcher.toModel(Paths.get(TESTDIR, "01.01a-INVOICE_ubl.xml"));
+		List<CoreInvoiceLine> lines = invoice.getLines();
+		int size = lines.size();
+		assertTrue(size>1);
+		assertEquals(1, invoice.getLines(1, 1).size());
+		assertEquals(lines.get(1).getId(), invoice.getLines(1, 1).get(0).getId());
+		assertEquals(size-1, invoice.getLines(1, Integer.MAX_VALUE).size());
+		assertEquals(size, invoice.getLines(0, size+10).size());
+		assertTrue(invoice.getLines(size, 10).isEmpty());
+		assertTrue(invoice.getLines(size+10, 10).isEmpty());
+		assertTrue(invoice.getLines(0, 0).isEmpty());
+	}
+
+	// forEach visits the same elements as get
+	@Test
+	public void forEachTest() {
+		for(String name : new String[] {"01.01a-INVOICE_ubl.xml", "01.01a-INVOICE_uncefact.xml"}) {
+			CoreInvoice invoice = TransformerDispatcher.toModel(Paths.get(TESTDIR, name));
+			List<CoreInvoiceLine> lines = invoice.getLines();
+			int[] i = new int[1];
+			lines.forEach(line -> assertEquals(name, lines.get(i[0]++).getId(), line.getId()));
+			assertEquals(name, lines.size(), i[0]);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeOffsetTest() {
+		CoreInvoice invoice = TransformerDispatcher.toModel(Paths.get(TESTDIR, "01.01a-INVOICE_ubl.xml"));
+		invoice.getLines(-1, 10);
+	}
+
+}
@@ -0,0 +1,39 @@
+package com.klst.einvoice;
+
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.util.logging.Logger;
+
+import com.klst.einvoice.unece.uncefact.Amount;
+import com.klst.einvoice.unece.uncefact.Quantity;
+import com.klst.einvoice.unece.uncefact.UnitPriceAmount;
+import com.klst.marshaller.Benchmark;
+import com.klst.marshaller.TransformerDispatcher;
+import com.klst.untdid.codelist.TaxCategoryCode;
+
+/*
+ * adding many lines with running BG-22/BG-23 totals, and a recalculate from scratch
+ */
+public class TotalsCalculatorBenchmark {
+
+	private static final Logger LOG = Logger.getLogger(TotalsCalculatorBenchmark.class.getName());
+
+	private static final String TESTDIR = "src/test/resources/";
+
+	public static void main(String[] args) throws Exception {
+		final int count = 100000;
+		for(String name : new String[] {"01.01a-INVOICE_ubl.xml", "01.01a-INVOICE_uncefact.xml"}) {
+			CoreInvoice invoice = TransformerDispatcher.toModel(Paths.get(TESTDIR, name));
+			long added = Benchmark.time(() -> {
+				for(int i=0; i<count; i++) {
+					invoice.addLine(invoice.createInvoiceLine("line "+i, new Quantity("XPP", BigDecimal.ONE), new Amount("EUR", BigDecimal.ONE)
+							, new UnitPriceAmount("EUR", BigDecimal.ONE), "item", TaxCategoryCode.StandardRate, new BigDecimal(19)));
+				}
+			});
+			long recalculated = Benchmark.time(invoice::recalculate);
+			LOG.info(String.format("%s: add %d lines %d ms, recalculate %d us, tax %s"
+					, name, count, Benchmark.millis(added), recalculated/1000, invoice.getInvoiceTax()));
+		}
+	}
+
+}
@@ -0,0 +1,131 @@
+package com.klst.einvoice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.klst.ebXml.reflection.SCopyCtor;
+import com.klst.einvoice.unece.uncefact.Amount;
+import com.klst.einvoice.unece.uncefact.CrossIndustryInvoice;
+import com.klst.einvoice.unece.uncefact.Quantity;
+import com.klst.einvoice.unece.uncefact.UnitPriceAmount;
+import com.klst.marshaller.TransformerDispatcher;
+import com.klst.untdid.codelist.TaxCategoryCode;
+
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.SupplyChainTradeLineItemType;
+
+public class TotalsCalculatorTest {
+
+	private static final String TESTDIR = "src/test/resources/";
+
+	// the calculated totals of the test documents are the totals in the documents
+	@Test
+	public void sameAsDocumentTest() {
+		File[] files = new File(TESTDIR).listFiles((dir, name) -> name.endsWith("INVOICE_ubl.xml") || name.endsWith("INVOICE_uncefact.xml"));
+		for(File file : files) {
+			String name = file.getName();
+			CoreInvoice invoice = TransformerDispatcher.toModel(file.toPath());
+			TotalsCalculator totals = invoice.getTotalsCalculator();
+			assertAmount(name+" BT-106", invoice.getInvoiceLineNetTotal(), totals.getInvoiceLineNetTotal());
+			assertAmount(name+" BT-109", invoice.getInvoiceTotalTaxExclusive(), totals.getInvoiceTotalTaxExclusive());
+			assertAmount(name+" BT-110", invoice.getInvoiceTax(), totals.getInvoiceTax());
+			assertAmount(name+" BT-112", invoice.getInvoiceTotalTaxInclusive(), totals.getInvoiceTotalTaxInclusive());
+			assertAmount(name+" BT-115", invoice.getDuePayable(), totals.getDuePayable(invoice.getPrepaid(), invoice.getRounding()));
+			assertEquals(name, invoice.getVATBreakDowns().size(), totals.getVatCategoryCount());
+		}
+	}
+
+	// recalculate writes the same totals and VAT breakdowns
+	@Test
+	public void recalculateTest() {
+		File[] files = new File(TESTDIR).listFiles((dir, name) -> name.endsWith("INVOICE_ubl.xml") || name.endsWith("INVOICE_uncefact.xml"));
+		for(File file : files) {
+			String name = file.getName();
+			CoreInvoice expected = TransformerDispatcher.toModel(file.toPath());
+			CoreInvoice invoice = TransformerDispatcher.toModel(file.toPath());
+			invoice.recalculate();
+			invoice = TransformerDispatcher.toModel(new ByteArrayInputStream(TransformerDispatcher.getTransformer(invoice).fromModel(invoice)));
+			assertAmount(name, expected.getInvoiceLineNetTotal(), invoice.getInvoiceLineNetTotal().getValue());
+			assertAmount(name, expected.getInvoiceTotalTaxExclusive(), invoice.getInvoiceTotalTaxExclusive().getValue());
+			assertAmount(name, expected.getInvoiceTax(), invoice.getInvoiceTax().getValue());
+			assertAmount(name, expected.getInvoiceTotalTaxInclusive(), invoice.getInvoiceTotalTaxInclusive().getValue());
+			assertAmount(name, expected.getDuePayable(), invoice.getDuePayable().getValue());
+			assertAmount(name, expected.getPrepaid(), invoice.getPrepaid()==null ? null : invoice.getPrepaid().getValue());
+			List<VatBreakdown> vatBreakdowns = invoice.getVATBreakDowns();
+			assertEquals(name, expected.getVATBreakDowns().size(), vatBreakdowns.size());
+			for(int i=0; i<vatBreakdowns.size(); i++) {
+				VatBreakdown vatBreakdown = expected.getVATBreakDowns().get(i);
+				assertEquals(name, vatBreakdown.getTaxCategoryCode(), vatBreakdowns.get(i).getTaxCategoryCode());
+				assertAmount(name, vatBreakdown.getTaxBaseAmount(), vatBreakdowns.get(i).getTaxBaseAmount().getValue());
+				assertAmount(name, vatBreakdown.getCalculatedTaxAmount(), vatBreakdowns.get(i).getCalculatedTaxAmount().getValue());
+				assertEquals(name, vatBreakdown.getTaxExemptionReasonText(), vatBreakdowns.get(i).getTaxExemptionReasonText());
+				assertEquals(name, 0, vatBreakdown.getTaxPercentage().compareTo(vatBreakdowns.get(i).getTaxPercentage()));
+			}
+		}
+	}
+
+	// the totals follow added lines and allowances
+	@Test
+	public void incrementalTest() {
+		for(String name : new String[] {"01.01a-INVOICE_ubl.xml", "01.01a-INVOICE_uncefact.xml"}) {
+			CoreInvoice invoice = TransformerDispatcher.toModel(Paths.get(TESTDIR, name));
+			TotalsCalculator totals = invoice.getTotalsCalculator();
+			BigDecimal lineNet = totals.getInvoiceLineNetTotal();
+			BigDecimal tax = totals.getInvoiceTax();
+			invoice.addLine(invoice.createInvoiceLine("new", new Quantity("XPP", BigDecimal.ONE), new Amount("EUR", new BigDecimal("10.05"))
+					, new UnitPriceAmount("EUR", new BigDecimal("10.05")), "item", TaxCategoryCode.StandardRate, new BigDecimal("19.00")));
+			assertEquals(name, lineNet.add(new BigDecimal("10.05")), totals.getInvoiceLineNetTotal());
+			AllowancesAndCharges allowance = invoice.createAllowance(new Amount("EUR", new BigDecimal("0.05")), null, null);
+			allowance.setTaxCategoryCode(TaxCategoryCode.StandardRate);
+			allowance.setTaxPercentage(new BigDecimal(19));
+			allowance.setReasonText("Rabatt");
+			invoice.addAllowanceCharge(allowance);
+			assertEquals(name, new BigDecimal("0.05"), totals.getAllowancesTotal());
+			assertEquals(name, lineNet.add(new BigDecimal("10.00")), totals.getInvoiceTotalTaxExclusive());
+			// 19% of 10.00
+			assertEquals(name, new BigDecimal("1.90"), totals.getInvoiceTax().subtract(tax));
+
+			invoice.recalculate();
+			assertAmount(name, invoice.getInvoiceTotalTaxExclusive(), totals.getInvoiceTotalTaxExclusive());
+			assertAmount(name, invoice.getAllowancesTotal(), new BigDecimal("0.05"));
+			assertNull(name, invoice.getChargesTotal());
+			assertAmount(name, invoice.getDuePayable(), totals.getInvoiceTotalTaxInclusive());
+		}
+	}
+
+	// plain jaxb lines are summed up from their values, the same totals as for the TradeLineItem lines
+	@Test
+	public void jaxbLineTest() {
+		CrossIndustryInvoice invoice = (CrossIndustryInvoice)TransformerDispatcher.toModel(Paths.get(TESTDIR, "01.01a-INVOICE_uncefact.xml"));
+		TotalsCalculator totals = invoice.getTotalsCalculator();
+		BigDecimal lineNet = totals.getInvoiceLineNetTotal();
+		for(CoreInvoiceLine line : new ArrayList<CoreInvoiceLine>(invoice.getLines())) {
+			SupplyChainTradeLineItemType plain = new SupplyChainTradeLineItemType();
+			SCopyCtor.getInstance().invokeCopy(plain, line);
+			invoice.addLine(plain);
+		}
+		assertEquals(lineNet.add(lineNet), totals.getInvoiceLineNetTotal());
+		TotalsCalculator expected = new TotalsCalculator();
+		invoice.getLines().forEach(line -> expected.add(line));
+		assertEquals(expected.getInvoiceLineNetTotal(), totals.getInvoiceLineNetTotal());
+		assertEquals(expected.getInvoiceTax(), totals.getInvoiceTax());
+		assertEquals(expected.getVatCategoryCount(), totals.getVatCategoryCount());
+	}
+
+	private static void assertAmount(String name, Amount expected, BigDecimal actual) {
+		if(expected==null) {
+			assertNull(name, actual);
+		} else {
+			assertEquals(name, 0, expected.getValue().compareTo(actual));
+		}
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.klst.einvoice.ubl;
+
+import static com.klst.marshaller.CopyPathAssert.assertSameAsCopyPath;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import com.klst.marshaller.UblInvoiceTransformer;
+
+import oasis.names.specification.ubl.schema.xsd.commonaggregatecomponents_2.TaxSubtotalType;
+import oasis.names.specification.ubl.schema.xsd.invoice_2.InvoiceType;
+
+public class DomainObjectFactoryTest {
+
+	private static final String TESTDIR = "src/test/resources/";
+	private static final Path UBL_FILE = Paths.get(TESTDIR, "01.01a-INVOICE_ubl.xml");
+
+	@Test
+	public void ublTest() {
+		InvoiceType doc = UblInvoiceTransformer.getInstance().toModel(UBL_FILE);
+		assertTrue(doc.getAccountingSupplierParty().getParty() instanceof Party);
+		assertTrue(doc.getAccountingCustomerParty().getParty() instanceof Party);
+		for(TaxSubtotalType subtotal : doc.getTaxTotal().get(0).getTaxSubtotal()) {
+			assertTrue(subtotal instanceof TaxSubtotal);
+		}
+	}
+
+	// the objects created directly are marshalled like the copies of the plain JAXB tree
+	@Test
+	public void copyPathTest() throws Exception {
+		File[] files = new File(TESTDIR).listFiles((dir, name) -> name.endsWith("INVOICE_ubl.xml"));
+		for(File file : files) {
+			assertSameAsCopyPath(file.toPath());
+		}
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.klst.einvoice.unece.uncefact;
+
+import static com.klst.marshaller.CopyPathAssert.assertSameAsCopyPath;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.klst.einvoice.CoreInvoice;
+import com.klst.marshaller.CiiTransformer;
+import com.klst.marshaller.TransformerDispatcher;
+
+import un.unece.uncefact.data.standard.crossindustryinvoice._100.CrossIndustryInvoiceType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.HeaderTradeAgreementType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.SupplyChainTradeLineItemType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.SupplyChainTradeTransactionType;
+
+public class DomainObjectFactoryTest {
+
+	private static final String TESTDIR = "src/test/resources/";
+	private static final Path CII_FILE = Paths.get(TESTDIR, "01.01a-INVOICE_uncefact.xml");
+
+	// the unmarshalled CII document is a tree of domain objects, the copy factories return them unchanged
+	@Test
+	public void ciiTest() {
+		CrossIndustryInvoiceType doc = CiiTransformer.getInstance().toModel(CII_FILE);
+		assertTrue(doc instanceof CrossIndustryInvoice);
+		assertSame(doc, CrossIndustryInvoice.create(doc));
+
+		SupplyChainTradeTransactionType transaction = doc.getSupplyChainTradeTransaction();
+		assertTrue(transaction.getApplicableHeaderTradeSettlement() instanceof HeaderTradeSettlement);
+		HeaderTradeAgreementType agreement = transaction.getApplicableHeaderTradeAgreement();
+		assertTrue(agreement.getSellerTradeParty() instanceof TradeParty);
+		assertSame(agreement.getBuyerTradeParty(), TradeParty.create(agreement.getBuyerTradeParty()));
+
+		List<SupplyChainTradeLineItemType> items = transaction.getIncludedSupplyChainTradeLineItem();
+		CoreInvoice invoice = TransformerDispatcher.toModel(CII_FILE);
+		assertEquals(items.size(), invoice.getLines().size());
+		for(SupplyChainTradeLineItemType item : items) {
+			assertTrue(item instanceof TradeLineItem);
+			assertSame(item, TradeLineItem.create(item));
+			// BG-30 is initialized after unmarshal
+			assertNotNull(((TradeLineItem)item).getTaxCategory());
+		}
+		assertEquals(CrossIndustryInvoice.create(doc).getDocumentCurrency(), invoice.getDocumentCurrency());
+	}
+
+	// the objects created directly are marshalled like the copies of the plain JAXB tree
+	@Test
+	public void copyPathTest() throws Exception {
+		File[] files = new File(TESTDIR).listFiles((dir, name) -> name.endsWith("INVOICE_uncefact.xml"));
+		for(File file : files) {
+			assertSameAsCopyPath(file.toPath());
+		}
+	}
+
+}
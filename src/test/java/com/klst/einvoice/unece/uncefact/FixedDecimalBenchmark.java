@@ -0,0 +1,49 @@
+package com.klst.einvoice.unece.uncefact;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import com.klst.marshaller.Benchmark;
+
+/*
+ * running sum of amounts and the tax on it, with BigDecimal and with the long-backed FixedDecimal
+ */
+public class FixedDecimalBenchmark {
+
+	private static final Logger LOG = Logger.getLogger(FixedDecimalBenchmark.class.getName());
+
+	private static BigDecimal tax;
+	private static FixedDecimal fixedTax;
+
+	public static void main(String[] args) throws Exception {
+		final int count = 200000;
+		BigDecimal[] values = new BigDecimal[1000];
+		FixedDecimal[] fixed = new FixedDecimal[values.length];
+		Random random = new Random(4711);
+		for(int i=0; i<values.length; i++) {
+			values[i] = BigDecimal.valueOf(random.nextInt(100000000), Amount.SCALE);
+			fixed[i] = FixedDecimal.valueOf(values[i], Amount.SCALE);
+		}
+		BigDecimal rate = new BigDecimal("19.00");
+		BigDecimal hundred = new BigDecimal(100);
+		FixedDecimal fixedRate = FixedDecimal.valueOf(rate, Amount.SCALE);
+		long[] nanos = Benchmark.time(1, () -> {
+			BigDecimal sum = BigDecimal.ZERO;
+			for(int i=0; i<count; i++) {
+				sum = sum.add(values[i%values.length]);
+				tax = sum.setScale(Amount.SCALE, RoundingMode.HALF_UP).multiply(rate).divide(hundred).setScale(Amount.SCALE, RoundingMode.HALF_UP);
+			}
+		}, () -> {
+			FixedDecimal fixedSum = FixedDecimal.valueOf(0, Amount.SCALE);
+			for(int i=0; i<count; i++) {
+				fixedSum = fixedSum.add(fixed[i%fixed.length]);
+				fixedTax = fixedSum.setScale(Amount.SCALE, RoundingMode.HALF_UP).multiply(fixedRate).movePointLeft(2).setScale(Amount.SCALE, RoundingMode.HALF_UP);
+			}
+		});
+		LOG.info(String.format("sum and tax of %d amounts BigDecimal %d ms, FixedDecimal %d ms (tax %s, %s)"
+				, count, Benchmark.millis(nanos[0]), Benchmark.millis(nanos[1]), tax, fixedTax));
+	}
+
+}
@@ -0,0 +1,125 @@
+package com.klst.einvoice.unece.uncefact;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.klst.einvoice.CoreInvoice;
+import com.klst.einvoice.CoreInvoiceLine;
+import com.klst.marshaller.TransformerDispatcher;
+
+public class FixedDecimalTest {
+
+	private static final String TESTDIR = "src/test/resources/";
+
+	// the conversions from and to the JAXB types do not change the values of the test documents
+	@Test
+	public void losslessTest() {
+		File[] files = new File(TESTDIR).listFiles((dir, name) -> name.endsWith("INVOICE_ubl.xml") || name.endsWith("INVOICE_uncefact.xml"));
+		for(File file : files) {
+			String name = file.getName();
+			CoreInvoice invoice = TransformerDispatcher.toModel(file.toPath());
+			for(CoreInvoiceLine line : invoice.getLines()) {
+				assertLossless(name, line.getLineTotalAmount());
+				assertLossless(name, line.getUnitPriceAmount());
+				FixedQuantity quantity = FixedQuantity.valueOf(line.getQuantity());
+				assertEquals(name, 0, line.getQuantity().getValue().compareTo(quantity.toBigDecimal()));
+				assertEquals(name, line.getQuantity().getUnitCode(), quantity.toQuantity().getUnitCode());
+				un.unece.uncefact.data.standard.unqualifieddatatype._100.QuantityType cii = new un.unece.uncefact.data.standard.unqualifieddatatype._100.QuantityType();
+				quantity.copyTo(cii);
+				assertEquals(name, quantity, FixedQuantity.valueOf(cii));
+			}
+			assertLossless(name, invoice.getInvoiceTotalTaxExclusive());
+			assertLossless(name, invoice.getDuePayable());
+		}
+	}
+
+	@Test
+	public void arithmeticTest() {
+		Random random = new Random(4711);
+		for(int i=0; i<10000; i++) {
+			BigDecimal a = BigDecimal.valueOf(random.nextLong()%10000000000L, random.nextInt(5));
+			BigDecimal b = BigDecimal.valueOf(random.nextLong()%10000000000L, random.nextInt(5));
+			FixedDecimal fa = FixedDecimal.valueOf(a, Amount.SCALE);
+			FixedDecimal fb = FixedDecimal.valueOf(b, Amount.SCALE);
+			assertEquals(0, a.add(b).compareTo(fa.add(fb).toBigDecimal()));
+			assertEquals(0, a.subtract(b).compareTo(fa.subtract(fb).toBigDecimal()));
+			assertEquals(0, a.multiply(b).compareTo(fa.multiply(fb).toBigDecimal()));
+			assertEquals(a.compareTo(b), fa.compareTo(fb));
+			assertEquals(a.setScale(Amount.SCALE, RoundingMode.HALF_UP), fa.setScale(Amount.SCALE, RoundingMode.HALF_UP).toBigDecimal());
+			assertEquals(fa.toBigDecimal().toPlainString(), fa.toString());
+			assertEquals(0, new BigDecimal(fa.toString()).compareTo(a));
+		}
+		assertEquals(new BigDecimal("-0.13"), FixedDecimal.valueOf(new BigDecimal("-0.125"), 4).setScale(2, RoundingMode.HALF_UP).toBigDecimal());
+		assertEquals("-0.0050", FixedDecimal.valueOf(-50, 4).toString());
+	}
+
+	// overflows fall back to BigDecimal
+	@Test
+	public void overflowTest() {
+		FixedDecimal max = FixedDecimal.valueOf(Long.MAX_VALUE, Amount.SCALE);
+		assertTrue(max.isCompact());
+		FixedDecimal sum = max.add(max);
+		assertFalse(sum.isCompact());
+		assertEquals(BigDecimal.valueOf(Long.MAX_VALUE, 2).multiply(new BigDecimal(2)), sum.toBigDecimal());
+		assertTrue(sum.subtract(max).isCompact());
+		assertEquals(max, sum.subtract(max));
+		assertEquals(max.hashCode(), sum.subtract(max).hashCode());
+		assertTrue(max.compareTo(sum)<0);
+		assertEquals(BigDecimal.valueOf(Long.MAX_VALUE, 2).pow(2), max.multiply(max).toBigDecimal());
+		assertEquals(BigDecimal.valueOf(Long.MIN_VALUE, 2).negate(), FixedDecimal.valueOf(Long.MIN_VALUE, 2).negate().toBigDecimal());
+
+		// more fraction digits than the scale
+		BigDecimal precise = new BigDecimal("1.23456");
+		FixedDecimal f = FixedDecimal.valueOf(precise, UnitPriceAmount.SCALE);
+		assertFalse(f.isCompact());
+		assertEquals(precise, f.toBigDecimal());
+		assertEquals(new BigDecimal("1.2346"), f.setScale(UnitPriceAmount.SCALE, RoundingMode.HALF_UP).toBigDecimal());
+		assertTrue(FixedDecimal.valueOf(new BigDecimal("1.500000"), Amount.SCALE).isCompact());
+		assertTrue(FixedDecimal.valueOf(new BigDecimal("1E+3"), Amount.SCALE).isCompact());
+		assertEquals(new BigDecimal("1000.00"), FixedDecimal.valueOf(new BigDecimal("1E+3"), Amount.SCALE).toBigDecimal());
+	}
+
+	@Test
+	public void equalsTest() {
+		FixedDecimal a = FixedDecimal.valueOf(new BigDecimal("1.5"), 1);
+		FixedDecimal b = FixedDecimal.valueOf(new BigDecimal("1.50"), Amount.SCALE);
+		assertEquals(a, b);
+		assertEquals(a.hashCode(), b.hashCode());
+		FixedDecimal c = FixedDecimal.valueOf(new BigDecimal("1.2345"), Amount.SCALE);
+		FixedDecimal d = FixedDecimal.valueOf(new BigDecimal("1.2345"), UnitPriceAmount.SCALE);
+		assertFalse(c.isCompact());
+		assertEquals(c, d);
+		assertEquals(c.hashCode(), d.hashCode());
+		assertEquals(FixedAmount.valueOf("EUR", new BigDecimal("10.1")), FixedAmount.valueOf(new Amount("EUR", new BigDecimal("10.10"))));
+		assertFalse(FixedAmount.valueOf("EUR", BigDecimal.ONE).equals(FixedAmount.valueOf("USD", BigDecimal.ONE)));
+		assertEquals("EUR10.10", FixedAmount.valueOf("EUR", new BigDecimal("10.1")).toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void currencyTest() {
+		FixedAmount.valueOf("EUR", BigDecimal.ONE).add(FixedAmount.valueOf("USD", BigDecimal.ONE));
+	}
+
+	// running sum and 19% tax of the rounded sum like in TotalsCalculator
+	private static void assertLossless(String name, Amount amount) {
+		if(amount==null) return;
+		FixedAmount fixed = FixedAmount.valueOf(amount);
+		assertEquals(name, 0, amount.getValue().compareTo(fixed.toBigDecimal()));
+		assertEquals(name, amount.getCurrencyID(), fixed.toAmount().getCurrencyID());
+		un.unece.uncefact.data.standard.unqualifieddatatype._100.AmountType cii = new un.unece.uncefact.data.standard.unqualifieddatatype._100.AmountType();
+		fixed.copyTo(cii);
+		assertEquals(name, fixed, FixedAmount.valueOf(cii));
+		oasis.names.specification.ubl.schema.xsd.unqualifieddatatypes_2.AmountType ubl = new oasis.names.specification.ubl.schema.xsd.unqualifieddatatypes_2.AmountType();
+		fixed.copyTo(ubl);
+		assertEquals(name, 0, amount.getValue().compareTo(ubl.getValue()));
+	}
+
+}
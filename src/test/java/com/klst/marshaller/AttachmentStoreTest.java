@@ -0,0 +1,136 @@
+package com.klst.marshaller;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.JAXBIntrospector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.klst.einvoice.BG24_AdditionalSupportingDocs;
+import com.klst.einvoice.CoreInvoice;
+import com.klst.einvoice.unece.uncefact.CrossIndustryInvoice;
+
+import un.unece.uncefact.data.standard.crossindustryinvoice._100.CrossIndustryInvoiceType;
+
+public class AttachmentStoreTest {
+
+	// both with an embedded pdf
+	private static final String[] TESTFILES = {"src/test/resources/01.15a-INVOICE_ubl.xml", "src/test/resources/01.15a-INVOICE_uncefact.xml"};
+
+	private Path directory;
+	private AttachmentStore store;
+
+	@Before
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("store");
+		store = new AttachmentStore(directory);
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		try(Stream<Path> paths = Files.walk(directory)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Test
+	public void extractInjectTest() {
+		for(String testfile : TESTFILES) {
+			CoreInvoice invoice = TransformerDispatcher.toModel(Paths.get(testfile));
+			AbstactTransformer transformer = TransformerDispatcher.getTransformer(invoice);
+			byte[] pdf = attachment(invoice).getAttachedDocument();
+			byte[] xml = transformer.fromModel(invoice);
+			byte[] written = transformer.getBindingWriter().write(invoice, true);
+
+			assertEquals(1, store.extract(invoice));
+			String uri = attachment(invoice).getAttachedDocumentUri();
+			assertTrue(uri.startsWith(AttachmentStore.URI_PREFIX));
+			assertTrue(store.contains(uri.substring(AttachmentStore.URI_PREFIX.length())));
+			assertEquals(0, store.extract(invoice)); // already a reference
+			byte[] archived = transformer.fromModel(invoice);
+			assertTrue(testfile, archived.length < xml.length/10);
+			assertTrue(new String(archived, StandardCharsets.UTF_8).contains(uri));
+
+			// the archived invoice is parsed without the payload
+			CoreInvoice restored = transformer.getBindingReader().read(archived);
+			assertEquals(1, store.inject(restored));
+			assertNull(attachment(restored).getAttachedDocumentUri());
+			assertEquals("application/pdf", attachment(restored).getAttachedDocumentMimeCode());
+			assertArrayEquals(testfile, pdf, attachment(restored).getAttachedDocument());
+			assertArrayEquals(testfile, written, transformer.getBindingWriter().write(restored, true));
+			// JAXB path
+			restored = TransformerDispatcher.toModel(new ByteArrayInputStream(archived));
+			assertEquals(1, store.inject(restored));
+			assertArrayEquals(testfile, xml, transformer.fromModel(restored));
+		}
+	}
+
+	// the fallback path: an unmarshaller without the domain object factory, the binary objects are plain jaxb objects
+	@Test
+	public void plainObjectsTest() throws JAXBException {
+		AbstactTransformer transformer = TransformerDispatcher.getTransformer(TransformerDispatcher.toModel(Paths.get(TESTFILES[1])));
+		Object plain = JAXBIntrospector.getValue(transformer.getJAXBContext().createUnmarshaller().unmarshal(new File(TESTFILES[1])));
+		CoreInvoice invoice = CrossIndustryInvoice.create((CrossIndustryInvoiceType)plain);
+		byte[] pdf = attachment(invoice).getAttachedDocument();
+		byte[] xml = transformer.fromModel(invoice);
+
+		assertEquals(1, store.extract(invoice));
+		assertNull(attachment(invoice).getAttachedDocument());
+		assertEquals(0, store.extract(invoice));
+		byte[] archived = transformer.fromModel(invoice);
+		assertTrue(archived.length < xml.length/10);
+
+		assertEquals(1, store.inject(invoice));
+		assertArrayEquals(pdf, attachment(invoice).getAttachedDocument());
+		assertArrayEquals(xml, transformer.fromModel(invoice));
+	}
+
+	@Test
+	public void deduplicationTest() throws IOException {
+		for(int i=0; i<3; i++) {
+			store.extract(TransformerDispatcher.toModel(Paths.get(TESTFILES[0])));
+		}
+		store.extract(TransformerDispatcher.toModel(Paths.get(TESTFILES[1])));
+		try(Stream<Path> paths = Files.walk(directory)) {
+			// ubl and cii example carry the same pdf
+			assertEquals(1, paths.filter(Files::isRegularFile).count());
+		}
+	}
+
+	@Test(expected = TransformationException.class)
+	public void notFoundTest() {
+		CoreInvoice invoice = TransformerDispatcher.toModel(Paths.get(TESTFILES[0]));
+		store.extract(invoice);
+		String hash = attachment(invoice).getAttachedDocumentUri().substring(AttachmentStore.URI_PREFIX.length());
+		assertTrue(store.get(hash).toFile().delete());
+		assertFalse(store.contains(hash));
+		store.inject(invoice);
+	}
+
+	private static BG24_AdditionalSupportingDocs attachment(CoreInvoice invoice) {
+		List<BG24_AdditionalSupportingDocs> docs = invoice.getAdditionalSupportingDocuments();
+		for(BG24_AdditionalSupportingDocs doc : docs) {
+			if(doc.getAttachedDocumentMimeCode()!=null) return doc;
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.klst.marshaller;
+
+/*
+ * timing and memory helpers of the *Benchmark classes in the test tree.
+ * The benchmarks are started with main, the unit tests do not run them.
+ */
+public final class Benchmark {
+
+	public static final int WARM_UP_ROUNDS = 2;
+
+	@FunctionalInterface
+	public interface Task {
+		void run() throws Exception;
+	}
+
+	private Benchmark() {
+	}
+
+	/**
+	 * runs the tasks one after the other, WARM_UP_ROUNDS not measured and rounds measured
+	 *
+	 * @return nanoseconds per task, summed up over the measured rounds
+	 */
+	public static long[] time(int rounds, Task... tasks) throws Exception {
+		long[] nanos = new long[tasks.length];
+		for(int r=0; r<WARM_UP_ROUNDS+rounds; r++) {
+			for(int t=0; t<tasks.length; t++) {
+				long start = System.nanoTime();
+				tasks[t].run();
+				if(r>=WARM_UP_ROUNDS) {
+					nanos[t] += System.nanoTime()-start;
+				}
+			}
+		}
+		return nanos;
+	}
+
+	/**
+	 * @return nanoseconds of a single run, without warm up
+	 */
+	public static long time(Task task) throws Exception {
+		long start = System.nanoTime();
+		task.run();
+		return System.nanoTime()-start;
+	}
+
+	/**
+	 * @return nanoseconds per call, averaged over count calls after count/10 calls to warm up
+	 */
+	public static long timePerCall(int count, Task task) throws Exception {
+		for(int i=0; i<count/10; i++) {
+			task.run();
+		}
+		long start = System.nanoTime();
+		for(int i=0; i<count; i++) {
+			task.run();
+		}
+		return (System.nanoTime()-start)/count;
+	}
+
+	public static long perSecond(long count, long nanos) {
+		return count*1000000000L/Math.max(1, nanos);
+	}
+
+	public static long millis(long nanos) {
+		return nanos/1000000;
+	}
+
+	/**
+	 * @return heap used after garbage collection
+	 */
+	public static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for(int i=0; i<3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory()-runtime.freeMemory();
+	}
+
+}
@@ -0,0 +1,31 @@
+package com.klst.marshaller;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.logging.Logger;
+
+/*
+ * documents per second read by JAXB (toModel) and by the StAX BindingReader
+ */
+public class BindingReaderBenchmark {
+
+	private static final Logger LOG = Logger.getLogger(BindingReaderBenchmark.class.getName());
+
+	public static void main(String[] args) throws Exception {
+		BindingReaderTest.setup();
+		List<byte[]> xmls = BindingReaderTest.xmls;
+		final int rounds = 20;
+		long[] nanos = Benchmark.time(rounds, () -> {
+			for(byte[] xml : xmls) {
+				TransformerDispatcher.toModel(new ByteArrayInputStream(xml));
+			}
+		}, () -> {
+			for(int i=0; i<xmls.size(); i++) {
+				BindingReaderTest.transformers.get(i).getBindingReader().read(xmls.get(i));
+			}
+		});
+		int count = rounds*xmls.size();
+		LOG.info("JAXB: "+Benchmark.perSecond(count, nanos[0])+" docs/s, BindingReader: "+Benchmark.perSecond(count, nanos[1])+" docs/s");
+	}
+
+}
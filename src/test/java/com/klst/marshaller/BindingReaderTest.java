@@ -0,0 +1,168 @@
+package com.klst.marshaller;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.klst.einvoice.AttachmentContent;
+import com.klst.einvoice.BG24_AdditionalSupportingDocs;
+import com.klst.einvoice.CoreInvoice;
+import com.klst.einvoice.unece.uncefact.CrossIndustryInvoice;
+import com.klst.einvoice.unece.uncefact.HeaderTradeSettlement;
+import com.klst.einvoice.unece.uncefact.TradeLineItem;
+import com.klst.einvoice.unece.uncefact.TradeParty;
+
+/*
+ * differential test: the BindingReader builds the same documents as the JAXB Unmarshaller
+ */
+public class BindingReaderTest {
+
+	private static final Logger LOG = Logger.getLogger(BindingReaderTest.class.getName());
+
+	private static final String TESTDIR = "src/test/resources/";
+
+	static List<byte[]> xmls = new ArrayList<byte[]>();
+	static List<AbstactTransformer> transformers = new ArrayList<AbstactTransformer>();
+	static List<String> names = new ArrayList<String>();
+
+	@BeforeClass
+	public static void setup() throws IOException {
+		File[] files = new File(TESTDIR).listFiles((dir, name) -> name.endsWith(".xml"));
+		for(File file : files) {
+			byte[] xml = Files.readAllBytes(file.toPath());
+			try {
+				String namespace = TransformerDispatcher.getRootNamespace(new ByteArrayInputStream(xml));
+				transformers.add(TransformerDispatcher.getTransformer(namespace));
+				xmls.add(xml);
+				names.add(file.getName());
+			} catch (TransformationException ex) {
+				LOG.info(file.getName()+" is not an invoice: "+ex.getMessage());
+			}
+		}
+		LOG.info(xmls.size()+" documents of "+files.length+" files");
+	}
+
+	@Test
+	public void sameModelTest() {
+		int supported = 0;
+		for(int i=0; i<xmls.size(); i++) {
+			AbstactTransformer transformer = transformers.get(i);
+			BindingReader reader = transformer.getBindingReader();
+			if(reader.isSupported(xmls.get(i))) supported++;
+			CoreInvoice expected = TransformerDispatcher.toModel(new ByteArrayInputStream(xmls.get(i)));
+			CoreInvoice actual = reader.read(xmls.get(i));
+			assertEquals(names.get(i), expected.getClass(), actual.getClass());
+			assertArrayEquals(names.get(i), transformer.fromModel(expected), transformer.fromModel(actual));
+		}
+		LOG.info(supported+" of "+xmls.size()+" documents read without JAXB");
+		assertTrue(supported > xmls.size()/2);
+	}
+
+	@Test
+	public void domainObjectTest() {
+		for(int i=0; i<xmls.size(); i++) {
+			if(transformers.get(i)!=CiiTransformer.getInstance() || !transformers.get(i).getBindingReader().isSupported(xmls.get(i))) continue;
+			CrossIndustryInvoice cii = (CrossIndustryInvoice)transformers.get(i).getBindingReader().read(xmls.get(i));
+			assertTrue(cii.getSupplyChainTradeTransaction().getApplicableHeaderTradeSettlement() instanceof HeaderTradeSettlement);
+			assertTrue(cii.getSupplyChainTradeTransaction().getApplicableHeaderTradeAgreement().getSellerTradeParty() instanceof TradeParty);
+			cii.getSupplyChainTradeTransaction().getIncludedSupplyChainTradeLineItem().forEach(line -> assertTrue(line instanceof TradeLineItem));
+			// no copy
+			assertTrue(cii.getSeller()==cii.getSupplyChainTradeTransaction().getApplicableHeaderTradeAgreement().getSellerTradeParty());
+			return;
+		}
+	}
+
+	@Test
+	public void fallbackTest() {
+		// documents with UBLExtensions carry xs:any content
+		for(int i=0; i<xmls.size(); i++) {
+			AbstactTransformer transformer = transformers.get(i);
+			BindingReader reader = transformer.getBindingReader();
+			if(!reader.isSupported(xmls.get(i))) {
+				CoreInvoice expected = TransformerDispatcher.toModel(new ByteArrayInputStream(xmls.get(i)));
+				assertArrayEquals(names.get(i), transformer.fromModel(expected), transformer.fromModel(reader.read(xmls.get(i))));
+				return;
+			}
+		}
+		LOG.info("all documents supported");
+	}
+
+	@Test
+	public void unknownElementTest() {
+		// an unknown extension element is ignored by the reader as by JAXB
+		String xml = new String(xmls.get(0), StandardCharsets.UTF_8);
+		int afterRootStartTag = xml.indexOf('>', xml.indexOf("?>")+2) + 1;
+		byte[] extended = (xml.substring(0, afterRootStartTag) + "<Extension xmlns=\"urn:example\">x</Extension>"
+				+ xml.substring(afterRootStartTag)).getBytes(StandardCharsets.UTF_8);
+		AbstactTransformer transformer = transformers.get(0);
+		BindingReader reader = transformer.getBindingReader();
+		assertFalse(reader.isSupported(extended));
+		CoreInvoice expected = TransformerDispatcher.toModel(new ByteArrayInputStream(xmls.get(0)));
+		assertArrayEquals(names.get(0), transformer.fromModel(expected), transformer.fromModel(reader.read(extended)));
+	}
+
+	@Test
+	public void attachmentTest() throws IOException {
+		// a streamed attachment is written and read without holding it in memory
+		byte[] pdf = new byte[3*BindingReader.ATTACHMENT_THRESHOLD+1];
+		new Random(125).nextBytes(pdf);
+		Path content = Files.createTempFile("BT-125", ".pdf");
+		Path xmlfile = Files.createTempFile("BG-24", ".xml");
+		try {
+			Files.write(content, pdf);
+			for(AbstactTransformer transformer : new AbstactTransformer[] {UblInvoiceTransformer.getInstance(), CiiTransformer.getInstance()}) {
+				int i = transformers.indexOf(transformer);
+				while(!transformers.get(i).getBindingReader().isSupported(xmls.get(i))) i++; 
+				CoreInvoice invoice = transformer.getBindingReader().read(xmls.get(i));
+				invoice.addSupportigDocument("BT-122", "Timesheet", AttachmentContent.of(content), "application/pdf", "timesheet.pdf");
+				try(OutputStream outputStream = Files.newOutputStream(xmlfile)) {
+					transformer.getBindingWriter().write(invoice, outputStream, false);
+				}
+				// JAXB loads the attachment while marshalling
+				List<BG24_AdditionalSupportingDocs> marshalled = transformer.getBindingReader().read(transformer.fromModel(invoice)).getAdditionalSupportingDocuments();
+				assertArrayEquals(names.get(i), pdf, marshalled.get(marshalled.size()-1).getAttachedDocument());
+
+				// read into memory
+				List<BG24_AdditionalSupportingDocs> docs = transformer.getBindingReader().read(xmlfile).getAdditionalSupportingDocuments();
+				assertNull(names.get(i), docs.get(docs.size()-1).getAttachedDocumentContent().getFile());
+				assertArrayEquals(names.get(i), pdf, docs.get(docs.size()-1).getAttachedDocument());
+
+				AttachmentContent attachment;
+				Path file;
+				try(BindingReader.Document document = transformer.getBindingReader().open(xmlfile)) {
+					docs = document.getInvoice().getAdditionalSupportingDocuments();
+					attachment = docs.get(docs.size()-1).getAttachedDocumentContent();
+					file = attachment.getFile();
+					assertNotNull(names.get(i), file);
+					assertArrayEquals(names.get(i), pdf, Files.readAllBytes(file));
+					assertArrayEquals(names.get(i), pdf, docs.get(docs.size()-1).getAttachedDocument());
+					assertEquals("timesheet.pdf", docs.get(docs.size()-1).getAttachedDocumentFilename());
+				}
+				assertFalse(Files.exists(file));
+				assertNull(attachment.getFile());
+			}
+		} finally {
+			Files.delete(content);
+			Files.delete(xmlfile);
+		}
+	}
+
+}
@@ -0,0 +1,30 @@
+package com.klst.marshaller;
+
+import java.util.logging.Logger;
+
+import com.klst.einvoice.CoreInvoice;
+
+/*
+ * documents per second written by the JAXB Marshaller and by the BindingWriter, same documents and output
+ */
+public class BindingWriterBenchmark {
+
+	private static final Logger LOG = Logger.getLogger(BindingWriterBenchmark.class.getName());
+
+	public static void main(String[] args) throws Exception {
+		BindingWriterTest.setup();
+		final int rounds = 20;
+		long[] nanos = Benchmark.time(rounds, () -> {
+			for(CoreInvoice document : BindingWriterTest.documents) {
+				BindingWriterTest.jaxb(TransformerDispatcher.getTransformer(document), document, false);
+			}
+		}, () -> {
+			for(CoreInvoice document : BindingWriterTest.documents) {
+				TransformerDispatcher.getTransformer(document).getBindingWriter().write(document, false);
+			}
+		});
+		int count = rounds*BindingWriterTest.documents.size();
+		LOG.info("JAXB: "+Benchmark.perSecond(count, nanos[0])+" docs/s, BindingWriter: "+Benchmark.perSecond(count, nanos[1])+" docs/s");
+	}
+
+}
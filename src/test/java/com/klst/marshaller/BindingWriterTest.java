@@ -0,0 +1,176 @@
+package com.klst.marshaller;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import com.klst.einvoice.CoreInvoice;
+
+/*
+ * differential test: the BindingWriter produces the same xml as the JAXB Marshaller
+ */
+public class BindingWriterTest {
+
+	private static final Logger LOG = Logger.getLogger(BindingWriterTest.class.getName());
+
+	private static final String TESTDIR = "src/test/resources/";
+	private static final String XMLNS = "http://www.w3.org/2000/xmlns/";
+
+	static List<CoreInvoice> documents = new ArrayList<CoreInvoice>();
+	static List<String> names = new ArrayList<String>();
+
+	@BeforeClass
+	public static void setup() {
+		File[] files = new File(TESTDIR).listFiles((dir, name) -> name.endsWith(".xml"));
+		for(File file : files) {
+			try {
+				documents.add(TransformerDispatcher.toModel(file.toPath()));
+				names.add(file.getName());
+			} catch (TransformationException ex) {
+				LOG.info(file.getName()+" is not an invoice: "+ex.getMessage());
+			}
+		}
+		LOG.info(documents.size()+" documents of "+files.length+" files");
+	}
+
+	@Test
+	public void sameXmlTest() throws Exception {
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true);
+		DocumentBuilder builder = factory.newDocumentBuilder();
+		int supported = 0;
+		for(int i=0; i<documents.size(); i++) {
+			CoreInvoice document = documents.get(i);
+			AbstactTransformer transformer = TransformerDispatcher.getTransformer(document);
+			BindingWriter writer = transformer.getBindingWriter();
+			if(writer.isSupported(document)) supported++;
+			for(boolean formatted : new boolean[] {true, false}) {
+				byte[] expected = jaxb(transformer, document, formatted);
+				byte[] actual = writer.write(document, formatted);
+				Element expectedRoot = builder.parse(new ByteArrayInputStream(expected)).getDocumentElement();
+				Element actualRoot = builder.parse(new ByteArrayInputStream(actual)).getDocumentElement();
+				assertSameElement(names.get(i), expectedRoot, actualRoot);
+				// the same bytes, except the namespace declarations of the root element
+				assertArrayEquals(names.get(i), afterRootStartTag(expected), afterRootStartTag(actual));
+			}
+		}
+		LOG.info(supported+" of "+documents.size()+" documents written without JAXB");
+		assertTrue(supported > documents.size()/2);
+	}
+
+	@Test
+	public void fallbackTest() throws Exception {
+		// documents with UBLExtensions carry xs:any content
+		for(int i=0; i<documents.size(); i++) {
+			CoreInvoice document = documents.get(i);
+			AbstactTransformer transformer = TransformerDispatcher.getTransformer(document);
+			BindingWriter writer = transformer.getBindingWriter();
+			if(!writer.isSupported(document)) {
+				assertArrayEquals(transformer.fromModel(document), writer.write(document, true));
+				return;
+			}
+		}
+		LOG.info("all documents supported");
+	}
+
+	// surrogate pairs are encoded as 4 bytes, unpaired surrogates are written as '?' like String.getBytes does
+	@Test
+	public void surrogateTest() throws Exception {
+		String pair = "pair \uD83D\uDE00";
+		String unpaired = " high \uD83Dx low \uDE00 end \uD83D";
+		for(String name : new String[] {"01.01a-INVOICE_ubl.xml", "01.01a-INVOICE_uncefact.xml"}) {
+			CoreInvoice document = TransformerDispatcher.toModel(new File(TESTDIR, name).toPath());
+			document.addNote(pair);
+			AbstactTransformer transformer = TransformerDispatcher.getTransformer(document);
+			BindingWriter writer = transformer.getBindingWriter();
+			assertTrue(name, writer.isSupported(document));
+			assertArrayEquals(name, afterRootStartTag(jaxb(transformer, document, false)), afterRootStartTag(writer.write(document, false)));
+
+			// the JAXB RI fails on a high surrogate at the end of a text
+			document.addNote(pair+unpaired);
+			byte[] actual = writer.write(document, false);
+			String xml = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(actual)).toString(); // strict, valid UTF-8
+			assertTrue(name, xml.contains(new String((pair+unpaired).getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8)+"<"));
+			assertTrue(name, xml.contains("pair \uD83D\uDE00 high ?x low ? end ?<"));
+		}
+	}
+
+	static byte[] jaxb(AbstactTransformer transformer, CoreInvoice document, boolean formatted) {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream(16000);
+		transformer.fromModel(document, outputStream, formatted);
+		return outputStream.toByteArray();
+	}
+
+	private static byte[] afterRootStartTag(byte[] xml) {
+		String s = new String(xml, StandardCharsets.UTF_8);
+		int root = s.indexOf('>', s.indexOf("?>")+2);
+		return s.substring(root).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static void assertSameElement(String file, Element expected, Element actual) {
+		String path = file+" "+expected.getTagName();
+		assertEquals(path, expected.getNamespaceURI(), actual.getNamespaceURI());
+		assertEquals(path, expected.getLocalName(), actual.getLocalName());
+		assertEquals(path, attributes(expected), attributes(actual));
+		List<Node> expectedChildren = children(expected);
+		List<Node> actualChildren = children(actual);
+		assertEquals(path, expectedChildren.size(), actualChildren.size());
+		for(int i=0; i<expectedChildren.size(); i++) {
+			Node e = expectedChildren.get(i);
+			Node a = actualChildren.get(i);
+			assertEquals(path, e.getNodeType(), a.getNodeType());
+			if(e.getNodeType()==Node.ELEMENT_NODE) {
+				assertSameElement(file, (Element)e, (Element)a);
+			} else {
+				assertEquals(path, e.getNodeValue(), a.getNodeValue());
+			}
+		}
+	}
+
+	private static String attributes(Element element) {
+		NamedNodeMap map = element.getAttributes();
+		List<String> result = new ArrayList<String>();
+		for(int i=0; i<map.getLength(); i++) {
+			Attr attr = (Attr)map.item(i);
+			if(XMLNS.equals(attr.getNamespaceURI())) continue;
+			result.add("{"+attr.getNamespaceURI()+"}"+attr.getLocalName()+"="+attr.getValue());
+		}
+		result.sort(null);
+		return result.toString();
+	}
+
+	// elements and non-whitespace text
+	private static List<Node> children(Element element) {
+		List<Node> result = new ArrayList<Node>();
+		for(Node child = element.getFirstChild(); child!=null; child = child.getNextSibling()) {
+			if(child.getNodeType()==Node.ELEMENT_NODE) {
+				result.add(child);
+			} else if(child.getNodeType()==Node.TEXT_NODE && !child.getNodeValue().trim().isEmpty()) {
+				result.add(child);
+			} else if(child.getNodeType()!=Node.TEXT_NODE) {
+				fail(element.getTagName()+" unexpected node "+child);
+			}
+		}
+		return result;
+	}
+}
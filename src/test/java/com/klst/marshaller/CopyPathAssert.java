@@ -0,0 +1,49 @@
+package com.klst.marshaller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.nio.file.Path;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.JAXBIntrospector;
+
+import com.klst.einvoice.CoreInvoice;
+import com.klst.einvoice.ubl.Party;
+import com.klst.einvoice.unece.uncefact.CrossIndustryInvoice;
+
+import oasis.names.specification.ubl.schema.xsd.commonaggregatecomponents_2.PartyType;
+import oasis.names.specification.ubl.schema.xsd.creditnote_2.CreditNoteType;
+import oasis.names.specification.ubl.schema.xsd.invoice_2.InvoiceType;
+import un.unece.uncefact.data.standard.crossindustryinvoice._100.CrossIndustryInvoiceType;
+
+/*
+ * compares the domain objects created by the unmarshaller with the copies of the former copy path
+ */
+public class CopyPathAssert {
+
+	/**
+	 * the document unmarshalled into domain objects is marshalled to the same output 
+	 * as the plain JAXB tree wrapped resp. copied by create()
+	 * 
+	 * @param xmlfile UBL or CII document
+	 */
+	public static void assertSameAsCopyPath(Path xmlfile) throws JAXBException {
+		CoreInvoice invoice = TransformerDispatcher.toModel(xmlfile);
+		AbstactTransformer transformer = TransformerDispatcher.getTransformer(invoice);
+		// an unmarshaller without the domain object factory
+		Object plain = JAXBIntrospector.getValue(transformer.getJAXBContext().createUnmarshaller().unmarshal(xmlfile.toFile()));
+		CoreInvoice copy;
+		if(plain instanceof CrossIndustryInvoiceType) {
+			assertFalse(plain instanceof CrossIndustryInvoice);
+			copy = CrossIndustryInvoice.create((CrossIndustryInvoiceType)plain);
+		} else {
+			PartyType seller = plain instanceof InvoiceType ? ((InvoiceType)plain).getAccountingSupplierParty().getParty()
+					: ((CreditNoteType)plain).getAccountingSupplierParty().getParty();
+			assertFalse(seller instanceof Party);
+			copy = transformer.getDocumentFactory().apply(plain);
+		}
+		assertEquals(xmlfile.toString(), new String(transformer.fromModel(copy)), new String(transformer.fromModel(invoice)));
+	}
+
+}
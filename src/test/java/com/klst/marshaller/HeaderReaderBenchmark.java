@@ -0,0 +1,38 @@
+package com.klst.marshaller;
+
+import java.io.ByteArrayInputStream;
+import java.util.EnumSet;
+import java.util.logging.Logger;
+
+import com.klst.marshaller.InvoiceHeader.Field;
+
+/*
+ * documents per second of a full toModel, of the HeaderReader with all fields and with the routing fields only
+ */
+public class HeaderReaderBenchmark {
+
+	private static final Logger LOG = Logger.getLogger(HeaderReaderBenchmark.class.getName());
+
+	public static void main(String[] args) throws Exception {
+		HeaderReaderTest.setup();
+		final int rounds = 10;
+		HeaderReader reader = new HeaderReader(EnumSet.of(Field.INVOICE_NUMBER, Field.SELLER_ID, Field.BUYER_REFERENCE));
+		long[] nanos = Benchmark.time(rounds, () -> {
+			for(byte[] xml : HeaderReaderTest.xmls) {
+				TransformerDispatcher.toModel(new ByteArrayInputStream(xml));
+			}
+		}, () -> {
+			for(byte[] xml : HeaderReaderTest.xmls) {
+				HeaderReader.getInstance().read(xml);
+			}
+		}, () -> {
+			for(byte[] xml : HeaderReaderTest.xmls) {
+				reader.read(xml);
+			}
+		});
+		long count = rounds*HeaderReaderTest.xmls.size();
+		LOG.info(String.format("docs/s toModel %d, all header fields %d, routing fields %d"
+				, Benchmark.perSecond(count, nanos[0]), Benchmark.perSecond(count, nanos[1]), Benchmark.perSecond(count, nanos[2])));
+	}
+
+}
@@ -0,0 +1,117 @@
+package com.klst.marshaller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.klst.einvoice.BG22_DocumentTotals;
+import com.klst.einvoice.BG4_Seller;
+import com.klst.einvoice.BG7_Buyer;
+import com.klst.einvoice.BusinessParty;
+import com.klst.einvoice.CoreInvoice;
+import com.klst.einvoice.Identifier;
+import com.klst.einvoice.unece.uncefact.Amount;
+import com.klst.marshaller.InvoiceHeader.Field;
+
+public class HeaderReaderTest {
+
+	private static final Logger LOG = Logger.getLogger(HeaderReaderTest.class.getName());
+
+	private static final String TESTDIR = "src/test/resources/";
+
+	static List<String> names = new ArrayList<String>();
+	static List<byte[]> xmls = new ArrayList<byte[]>();
+
+	@BeforeClass
+	public static void setup() throws IOException {
+		File[] files = new File(TESTDIR).listFiles((dir, name) -> name.endsWith(".xml"));
+		for(File file : files) {
+			byte[] xml = Files.readAllBytes(file.toPath());
+			try {
+				TransformerDispatcher.getRootNamespace(new ByteArrayInputStream(xml));
+				names.add(file.getName());
+				xmls.add(xml);
+			} catch (TransformationException ex) {
+				LOG.info(file.getName()+" is not an invoice: "+ex.getMessage());
+			}
+		}
+	}
+
+	// the projection and the unmarshalled model agree
+	@Test
+	public void sameAsModelTest() {
+		SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd");
+		for(int i=0; i<xmls.size(); i++) {
+			String name = names.get(i);
+			InvoiceHeader header = HeaderReader.getInstance().read(xmls.get(i));
+			CoreInvoice invoice = TransformerDispatcher.toModel(new ByteArrayInputStream(xmls.get(i)));
+			assertEquals(name, invoice.getId(), header.getId());
+			assertEquals(name, iso.format(invoice.getIssueDateAsTimestamp()), header.get(Field.ISSUE_DATE));
+			assertEquals(name, invoice.getTypeCode().getValueAsString(), header.get(Field.TYPE_CODE));
+			assertEquals(name, invoice.getDocumentCurrency(), header.getDocumentCurrency());
+			assertEquals(name, invoice.getBuyerReferenceValue(), header.get(Field.BUYER_REFERENCE));
+			assertParty(name, ((BG4_Seller)invoice).getSeller(), header
+					, Field.SELLER_NAME, Field.SELLER_ID, Field.SELLER_LEGAL_ID, Field.SELLER_ELECTRONIC_ADDRESS);
+			assertParty(name, ((BG7_Buyer)invoice).getBuyer(), header
+					, Field.BUYER_NAME, Field.BUYER_ID, Field.BUYER_LEGAL_ID, Field.BUYER_ELECTRONIC_ADDRESS);
+			BG22_DocumentTotals totals = (BG22_DocumentTotals)invoice;
+			assertAmount(name, totals.getInvoiceLineNetTotal(), header.getAmount(Field.LINE_NET_TOTAL));
+			assertAmount(name, totals.getInvoiceTotalTaxExclusive(), header.getAmount(Field.TOTAL_TAX_EXCLUSIVE));
+			if(totals.getInvoiceTax()!=null) { // CrossIndustryInvoice returns null if the tax currency differs
+				assertAmount(name, totals.getInvoiceTax(), header.getAmount(Field.TOTAL_TAX));
+			}
+			assertAmount(name, totals.getInvoiceTotalTaxInclusive(), header.getAmount(Field.TOTAL_TAX_INCLUSIVE));
+			assertAmount(name, totals.getDuePayable(), header.getAmount(Field.DUE_PAYABLE));
+		}
+	}
+
+	@Test
+	public void fieldSetTest() {
+		HeaderReader reader = new HeaderReader(EnumSet.of(Field.INVOICE_NUMBER, Field.DUE_PAYABLE));
+		for(byte[] xml : xmls) {
+			InvoiceHeader header = reader.read(xml);
+			InvoiceHeader all = HeaderReader.getInstance().read(xml);
+			assertEquals(all.getId(), header.getId());
+			assertEquals(all.get(Field.DUE_PAYABLE), header.get(Field.DUE_PAYABLE));
+			assertNull(header.get(Field.ISSUE_DATE));
+			assertEquals(header, reader.read(xml));
+		}
+		assertTrue(new HeaderReader(EnumSet.noneOf(Field.class)).read(xmls.get(0)).getValues().isEmpty());
+	}
+
+	@Test(expected = TransformationException.class)
+	public void notAnInvoiceTest() {
+		HeaderReader.getInstance().read("<root xmlns=\"urn:test\"/>".getBytes());
+	}
+
+	private static void assertParty(String name, BusinessParty party, InvoiceHeader header, Field... fields) {
+		assertEquals(name, party.getRegistrationName(), header.get(fields[0]));
+		assertEquals(name, party.getId(), header.get(fields[1]));
+		assertEquals(name, party.getCompanyId(), header.get(fields[2]));
+		Identifier uri = party.getUriUniversalCommunication();
+		assertEquals(name, uri==null ? null : uri.getContent(), header.get(fields[3]));
+	}
+
+	private static void assertAmount(String name, Amount amount, BigDecimal value) {
+		if(amount==null) {
+			assertNull(name, value);
+		} else {
+			assertEquals(name, 0, amount.getValue().compareTo(value));
+		}
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.klst.marshaller;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.logging.Logger;
+
+import javax.xml.bind.JAXBContext;
+
+import com.sun.xml.internal.bind.v2.runtime.JAXBContextImpl;
+
+/*
+ * startup and footprint of the JAXB contexts: UBL binds the full common packages, 
+ * UBL-subset the EN16931 subset of them and CII the D16B subset.
+ * The generated classes loaded by one context are reused by the next one,
+ * run it with a single context name as argument for the cold numbers, f.i. "UBL-subset"
+ */
+@SuppressWarnings("restriction")
+public class JaxbContextBenchmark {
+
+	private static final Logger LOG = Logger.getLogger(JaxbContextBenchmark.class.getName());
+
+	public static void main(String[] args) throws Exception {
+		final int rounds = 5;
+		Map<String, Callable<JAXBContext>> contexts = new LinkedHashMap<String, Callable<JAXBContext>>();
+		contexts.put("UBL-subset", ((UblSubsetTransformer)UblSubsetTransformer.getInstance())::createJAXBContext);
+		contexts.put("UBL", () -> JAXBContext.newInstance(UblTransformer.CONTENT_PATH));
+		contexts.put("CII", () -> JAXBContext.newInstance(CiiTransformer.CONTENT_PATH));
+		// without the shared context: Invoice and CreditNote built separately, beans of the CreditNote context
+		contexts.put("UBL-separate", () -> {
+			JAXBContext.newInstance("oasis.names.specification.ubl.schema.xsd.invoice_2");
+			return JAXBContext.newInstance("oasis.names.specification.ubl.schema.xsd.creditnote_2");
+		});
+		// all transformers in the background, the contexts are cached after the first call
+		contexts.put("warmUp", () -> {
+			TransformerDispatcher.warmUp().get();
+			return UblInvoiceTransformer.getInstance().getJAXBContext();
+		});
+		List<String> names = args.length==0 ? Arrays.asList(contexts.keySet().toArray(new String[0])) : Arrays.asList(args);
+		StringBuilder report = new StringBuilder("context      first ms  classes loaded  metaspace KB  beans  avg ms");
+		for(String name : names) {
+			Callable<JAXBContext> newInstance = contexts.get(name);
+			long loaded = ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount();
+			long metaspace = getMetaspaceUsed();
+			JAXBContext[] context = new JAXBContext[1];
+			long first = Benchmark.time(() -> context[0] = newInstance.call());
+			loaded = ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount()-loaded;
+			metaspace = getMetaspaceUsed()-metaspace;
+			long avg = Benchmark.time(rounds, newInstance::call)[0]/rounds;
+			int beans = ((JAXBContextImpl)context[0]).getTypeInfoSet().beans().size();
+			report.append(String.format("%n%-12s %8d %15d %13d %6d %7d", name
+					, Benchmark.millis(first), loaded, metaspace/1024, beans, Benchmark.millis(avg)));
+		}
+		LOG.info(report.toString());
+	}
+
+	private static long getMetaspaceUsed() {
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if("Metaspace".equals(pool.getName())) return pool.getUsage().getUsed();
+		}
+		return 0;
+	}
+
+}
@@ -0,0 +1,211 @@
+package com.klst.marshaller;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import com.klst.einvoice.AllowancesAndCharges;
+import com.klst.einvoice.CoreInvoice;
+import com.klst.einvoice.CoreInvoiceLine;
+import com.klst.einvoice.unece.uncefact.Amount;
+import com.klst.untdid.codelist.TaxCategoryCode;
+
+public class LazyLinesTest {
+
+	private static final Logger LOG = Logger.getLogger(LazyLinesTest.class.getName());
+
+	private static final String TESTDIR = "src/test/resources/";
+	private static final String LINE_START = "<ram:IncludedSupplyChainTradeLineItem>";
+	private static final String LINE_END = "</ram:IncludedSupplyChainTradeLineItem>";
+
+	// lazy and eager loaded invoices have the same header and lines
+	@Test
+	public void sameAsModelTest() {
+		File[] files = new File(TESTDIR).listFiles((dir, name) -> name.endsWith("INVOICE_ubl.xml") || name.endsWith("INVOICE_uncefact.xml"));
+		for(File file : files) {
+			String name = file.getName();
+			CoreInvoice invoice = TransformerDispatcher.toModel(file.toPath());
+			CoreInvoice lazy = LazyLines.load(file.toPath());
+			assertEquals(name, invoice.getId(), lazy.getId());
+			assertEquals(name, invoice.getBuyerReferenceValue(), lazy.getBuyerReferenceValue());
+			assertEquals(name, invoice.getDocumentCurrency(), lazy.getDocumentCurrency());
+			List<CoreInvoiceLine> lines = invoice.getLines();
+			try(LazyLines lazyLines = (LazyLines)lazy.getLines()) {
+				assertEquals(name, lines.size(), lazyLines.size());
+				for(int i=0; i<lines.size(); i++) {
+					assertLine(name, lines.get(i), lazyLines.get(i));
+					assertSame(name, lazyLines.get(i), lazyLines.getLine(lines.get(i).getId()));
+				}
+				assertEquals(name, lines.size(), lazyLines.getUnmarshalCount());
+				assertNull(lazyLines.getLine("no such id"));
+			}
+		}
+	}
+
+	// the lines of the line source are marshalled with the header
+	@Test
+	public void fromModelTest() {
+		File[] files = new File(TESTDIR).listFiles((dir, name) -> name.endsWith("INVOICE_ubl.xml") || name.endsWith("INVOICE_uncefact.xml"));
+		for(File file : files) {
+			String name = file.getName();
+			CoreInvoice invoice = TransformerDispatcher.toModel(file.toPath());
+			CoreInvoice lazy = LazyLines.load(file.toPath());
+			AbstactTransformer transformer = TransformerDispatcher.getTransformer(invoice);
+			ByteArrayOutputStream expected = new ByteArrayOutputStream();
+			transformer.fromModel(invoice, expected, false);
+			try(LazyLines lazyLines = (LazyLines)lazy.getLines()) {
+				// the streamed lines use the namespaces declared on the root
+				ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+				transformer.fromModel(lazy, streamed, false);
+				assertArrayEquals(name, expected.toByteArray(), streamed.toByteArray());
+				for(byte[] xml : new byte[][] {transformer.fromModel(lazy), transformer.getBindingWriter().write(lazy, false)}) {
+					ByteArrayOutputStream actual = new ByteArrayOutputStream();
+					transformer.fromModel(TransformerDispatcher.toModel(new ByteArrayInputStream(xml)), actual, false);
+					assertArrayEquals(name, expected.toByteArray(), actual.toByteArray());
+				}
+			}
+		}
+	}
+
+	// a line added to the document would be lost, the line source is read-only
+	@Test
+	public void addLineTest() {
+		for(String name : new String[] {"01.01a-INVOICE_ubl.xml", "01.01a-INVOICE_uncefact.xml"}) {
+			CoreInvoice lazy = LazyLines.load(Paths.get(TESTDIR, name));
+			CoreInvoiceLine line = TransformerDispatcher.toModel(Paths.get(TESTDIR, name)).getLines().get(0);
+			try(LazyLines lazyLines = (LazyLines)lazy.getLines()) {
+				try {
+					lazy.addLine(line);
+					fail(name);
+				} catch (IllegalStateException ex) {
+					assertEquals(name, line.getId(), lazyLines.get(0).getId());
+				}
+			}
+		}
+	}
+
+	// the totals are calculated when needed, an allowance does not load the lines
+	@Test
+	public void allowanceTest() {
+		for(String name : new String[] {"01.01a-INVOICE_ubl.xml", "01.01a-INVOICE_uncefact.xml"}) {
+			CoreInvoice lazy = LazyLines.load(Paths.get(TESTDIR, name));
+			try(LazyLines lazyLines = (LazyLines)lazy.getLines()) {
+				AllowancesAndCharges allowance = lazy.createAllowance(new Amount("EUR", new BigDecimal("0.05")), null, null);
+				allowance.setTaxCategoryCode(TaxCategoryCode.StandardRate);
+				allowance.setTaxPercentage(new BigDecimal(19));
+				lazy.addAllowanceCharge(allowance);
+				assertEquals(name, 0, lazyLines.getUnmarshalCount());
+				assertEquals(name, new BigDecimal("0.05"), lazy.getTotalsCalculator().getAllowancesTotal());
+				assertEquals(name, lazyLines.size(), lazyLines.getUnmarshalCount());
+			}
+		}
+	}
+
+	@Test(expected = TransformationException.class)
+	public void validateTest() {
+		CoreInvoice lazy = LazyLines.load(Paths.get(TESTDIR, "01.01a-INVOICE_ubl.xml"));
+		try(LazyLines lazyLines = (LazyLines)lazy.getLines()) {
+			TransformerDispatcher.getTransformer(lazy).fromModel(lazy, new ByteArrayOutputStream(), false, event -> true);
+		}
+	}
+
+	// the closed list is not accessible, the file can be deleted
+	@Test
+	public void closeTest() throws IOException {
+		Path xmlfile = Files.createTempFile("lazy", ".xml");
+		Files.copy(Paths.get(TESTDIR, "01.01a-INVOICE_ubl.xml"), xmlfile, StandardCopyOption.REPLACE_EXISTING);
+		CoreInvoice lazy = LazyLines.load(xmlfile);
+		LazyLines lines = (LazyLines)lazy.getLines();
+		String id = lines.get(0).getId();
+		lines.close();
+		lines.close(); // idempotent
+		Files.delete(xmlfile);
+		for(Runnable access : new Runnable[] {() -> lines.get(0), () -> lines.getLine(id)}) {
+			try {
+				access.run();
+				fail();
+			} catch (IllegalStateException ex) {
+				assertEquals(1, lines.getUnmarshalCount());
+			}
+		}
+	}
+
+	@Test
+	public void largeDocumentTest() throws IOException {
+		final int count = 20000;
+		Path xmlfile = createLargeDocument(Paths.get(TESTDIR, "01.01a-INVOICE_uncefact.xml"), count);
+		try {
+			long start = System.nanoTime();
+			CoreInvoice lazy = LazyLines.load(xmlfile, 100);
+			long loaded = System.nanoTime();
+			try(LazyLines lines = (LazyLines)lazy.getLines()) {
+				assertEquals(count, lines.size());
+				assertEquals("line 4711", lines.get(4711).getId());
+				assertEquals("line 19999", lines.getLine("line 19999").getId());
+				long found = System.nanoTime();
+				assertEquals(2, lines.getUnmarshalCount());
+				// evicted lines are unmarshalled again
+				for(int i=0; i<300; i++) {
+					lines.get(i);
+				}
+				lines.get(0);
+				assertEquals(303, lines.getUnmarshalCount());
+				lines.get(299);
+				assertEquals(303, lines.getUnmarshalCount());
+				LOG.info(String.format("%d lines, %d bytes: load %d ms, id lookup %d ms"
+						, count, Files.size(xmlfile), (loaded-start)/1000000, (found-loaded)/1000000));
+			}
+		} finally {
+			Files.delete(xmlfile);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void cacheSizeTest() {
+		LazyLines.load(Paths.get(TESTDIR, "01.01a-INVOICE_ubl.xml"), 0);
+	}
+
+	private static void assertLine(String name, CoreInvoiceLine expected, CoreInvoiceLine actual) {
+		assertEquals(name, expected.getId(), actual.getId());
+		assertEquals(name, expected.getItemName(), actual.getItemName());
+		assertEquals(name, expected.getOrderLineID(), actual.getOrderLineID());
+		assertEquals(name, expected.getLineTotalAmount().toString(), actual.getLineTotalAmount().toString());
+		assertEquals(name, expected.getQuantity().toString(), actual.getQuantity().toString());
+	}
+
+	// replaces the lines of a CII document with count copies of the first line
+	private static Path createLargeDocument(Path template, int count) throws IOException {
+		String xml = new String(Files.readAllBytes(template), StandardCharsets.UTF_8);
+		int start = xml.indexOf(LINE_START);
+		int end = xml.lastIndexOf(LINE_END)+LINE_END.length();
+		String line = xml.substring(start, xml.indexOf(LINE_END)+LINE_END.length());
+		String lineId = line.substring(line.indexOf("<ram:LineID>"), line.indexOf("</ram:LineID>"));
+		assertTrue(lineId.length()>0);
+		Path xmlfile = Files.createTempFile("lazy", ".xml");
+		StringBuilder lines = new StringBuilder(count*line.length());
+		for(int i=0; i<count; i++) {
+			lines.append(line.replace(lineId, "<ram:LineID>line "+i)).append("\n        ");
+		}
+		Files.write(xmlfile, (xml.substring(0, start)+lines+xml.substring(end)).getBytes(StandardCharsets.UTF_8));
+		return xmlfile;
+	}
+
+}
@@ -1,15 +1,36 @@
 package com.klst.marshaller;
 
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import javax.xml.bind.ValidationEvent;
+import javax.xml.bind.util.ValidationEventCollector;
 import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Validator;
@@ -22,9 +43,21 @@ import org.junit.rules.ExpectedException;
 import org.junit.runners.MethodSorters;
 import org.xml.sax.SAXException;
 
+import com.klst.einvoice.CoreInvoice;
+import com.klst.einvoice.CoreInvoiceLine;
+import com.klst.einvoice.ubl.GenericInvoice;
+import com.klst.einvoice.unece.uncefact.CrossIndustryInvoice;
+
+import oasis.names.specification.ubl.schema.xsd.creditnote_2.CreditNoteType;
+import oasis.names.specification.ubl.schema.xsd.invoice_2.InvoiceType;
+import un.unece.uncefact.data.standard.crossindustryinvoice._100.CrossIndustryInvoiceType;
+import un.unece.uncefact.data.standard.reusableaggregatebusinessinformationentity._100.SupplyChainTradeLineItemType;
+
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class TransformerTest {
 
+	private static final Logger LOG = Logger.getLogger(TransformerTest.class.getName());
+
 	static private AbstactTransformer ublInvoiceTransformer, ublInvoiceTransformer2;
 	static private AbstactTransformer ublCreditNoteTransformer, ciiTransformer;
 
@@ -157,6 +190,257 @@ public class TransformerTest {
 
     }
 
+    @Test
+    public void validateBatchTest() throws SAXException {
+    	assertSame(ublInvoiceTransformer.getSchema(), ublInvoiceTransformer2.getSchema());
+    	assertNotEquals(ublInvoiceTransformer.getSchema(), ublCreditNoteTransformer.getSchema());
+    	
+    	List<Path> files = Arrays.asList(Paths.get(TESTDIR+UBL_XML), Paths.get(TESTDIR+UNCEFACT_XML), Paths.get(TESTDIR+"01.02a-INVOICE_ubl.xml"));
+    	Map<Path, Boolean> results = ublInvoiceTransformer.isValid(files);
+    	assertEquals(files.size(), results.size());
+    	assertEquals(files, Arrays.asList(results.keySet().toArray()));
+    	assertTrue(results.get(files.get(0)));
+    	assertFalse(results.get(files.get(1))); // CII is not valid against UBL Invoice xsd
+    	assertTrue(results.get(files.get(2)));
+    	
+    	results = ciiTransformer.isValid(files);
+    	assertFalse(results.get(files.get(0)));
+    	assertTrue(results.get(files.get(1)));
+    }
+
+    @Test
+    public void marshallerPoolTest() throws Exception {
+    	InvoiceType invoice = ublInvoiceTransformer.toModel(new FileInputStream(getUblFile(TESTDIR+UBL_XML)));
+    	GenericInvoice<InvoiceType> genericInvoice = new GenericInvoice<InvoiceType>(invoice);
+    	byte[] expected = ublInvoiceTransformer.fromModel(genericInvoice);
+    	
+    	ExecutorService executor = Executors.newFixedThreadPool(4);
+    	try {
+    		List<Future<byte[]>> futures = new ArrayList<Future<byte[]>>();
+    		for(int i=0; i<16; i++) {
+    			futures.add(executor.submit(() -> ublInvoiceTransformer.fromModel(genericInvoice)));
+    		}
+    		for(Future<byte[]> future : futures) {
+    			assertArrayEquals(expected, future.get());
+    		}
+    	} finally {
+    		executor.shutdown();
+    	}
+    }
+
+    @Test
+    public void streamingTest() throws Exception {
+    	CrossIndustryInvoiceType cii = ciiTransformer.toModel(Paths.get(TESTDIR+UNCEFACT_XML));
+    	CrossIndustryInvoice invoice = CrossIndustryInvoice.create(cii);
+    	byte[] expected = ciiTransformer.fromModel(invoice);
+    	
+    	ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    	ciiTransformer.fromModel(invoice, outputStream);
+    	assertArrayEquals(expected, outputStream.toByteArray());
+    	
+    	Path xmlfile = Files.createTempFile("cii", ".xml");
+    	try {
+    		ciiTransformer.fromModel(invoice, xmlfile);
+    		assertArrayEquals(expected, Files.readAllBytes(xmlfile));
+    		
+    		ciiTransformer.fromModel(invoice, xmlfile, false); // compact
+    		byte[] compact = Files.readAllBytes(xmlfile);
+    		assertTrue(compact.length < expected.length);
+    		assertTrue(ciiTransformer.isValid(xmlfile.toFile()));
+    		CrossIndustryInvoice reread = CrossIndustryInvoice.create(ciiTransformer.toModel(xmlfile));
+    		assertEquals(invoice.getId(), reread.getId());
+    		assertEquals(invoice.getLines().size(), reread.getLines().size());
+    	} finally {
+    		Files.delete(xmlfile);
+    	}
+    }
+
+    @Test
+    public void lineReaderTest() throws Exception {
+    	Path xmlfile = Paths.get(TESTDIR+UNCEFACT_XML);
+    	CrossIndustryInvoice invoice = CrossIndustryInvoice.create(ciiTransformer.toModel(xmlfile));
+    	List<CoreInvoiceLine> expected = invoice.getLines();
+    	try(CiiLineReader reader = CiiLineReader.open(xmlfile)) {
+    		CrossIndustryInvoice header = reader.getHeader();
+    		assertEquals(invoice.getId(), header.getId());
+    		assertEquals(invoice.getVATBreakDowns().size(), header.getVATBreakDowns().size());
+    		assertTrue(header.getLines().isEmpty());
+    		int i = 0;
+    		while(reader.hasNext()) {
+    			assertEquals(expected.get(i++).getId(), reader.next().getId());
+    		}
+    		assertEquals(expected.size(), i);
+    		assertEquals(expected.size(), reader.getLineCount());
+    	}
+    	
+    	// a document with many lines
+    	CrossIndustryInvoiceType cii = ciiTransformer.toModel(xmlfile);
+    	List<SupplyChainTradeLineItemType> lines = cii.getSupplyChainTradeTransaction().getIncludedSupplyChainTradeLineItem();
+    	SupplyChainTradeLineItemType line = lines.get(0);
+    	assertTrue(lines.size() < 5000);
+    	for(int l=lines.size(); l<5000; l++) {
+    		lines.add(line);
+    	}
+    	Path large = Files.createTempFile("cii", ".xml");
+    	try {
+    		ciiTransformer.fromModel(cii, large, false);
+    		try(CiiLineReader reader = CiiLineReader.open(large)) {
+    			assertEquals(5000, reader.lines().count());
+    		}
+    	} finally {
+    		Files.delete(large);
+    	}
+    }
+
+    @Test
+    public void lineWriterTest() throws Exception {
+    	lineWriter((UblTransformer)ublInvoiceTransformer, TESTDIR+UBL_XML);
+    	lineWriter((UblTransformer)ublCreditNoteTransformer, TESTDIR+"ubl-tc434-creditnote1.xml");
+    }
+    
+    private void lineWriter(UblTransformer transformer, String uri) throws Exception {
+    	GenericInvoice<?> invoice = new GenericInvoice<Object>(transformer.toModel(Paths.get(uri)));
+    	List<CoreInvoiceLine> lines = invoice.getLines();
+    	assertFalse(lines.isEmpty());
+    	// header without lines
+    	GenericInvoice<?> header = new GenericInvoice<Object>(transformer.toModel(Paths.get(uri)));
+    	if(header.get() instanceof InvoiceType) {
+    		((InvoiceType)header.get()).getInvoiceLine().clear();
+    	} else {
+    		((CreditNoteType)header.get()).getCreditNoteLine().clear();
+    	}
+    	assertTrue(header.getLines().isEmpty());
+    	
+    	Path xmlfile = Files.createTempFile("ubl", ".xml");
+    	try {
+    		transformer.fromModel(header, lines.iterator(), xmlfile, true);
+    		assertTrue(transformer.isValid(xmlfile.toFile()));
+    		GenericInvoice<?> reread = new GenericInvoice<Object>(transformer.toModel(xmlfile));
+    		assertEquals(invoice.getId(), reread.getId());
+    		List<CoreInvoiceLine> rereadLines = reread.getLines();
+    		assertEquals(lines.size(), rereadLines.size());
+    		for(int i=0; i<lines.size(); i++) {
+    			assertEquals(lines.get(i).getId(), rereadLines.get(i).getId());
+    			assertEquals(lines.get(i).getLineTotalAmount().getValue(), rereadLines.get(i).getLineTotalAmount().getValue());
+    		}
+    	} finally {
+    		Files.delete(xmlfile);
+    	}
+    }
+
+    @Test
+    public void dispatcherTest() throws Exception {
+    	CoreInvoice invoice = TransformerDispatcher.toModel(Paths.get(TESTDIR+UBL_XML));
+    	assertTrue(invoice instanceof GenericInvoice);
+    	assertTrue(((GenericInvoice<?>)invoice).get() instanceof InvoiceType);
+    	
+    	CoreInvoice creditNote = TransformerDispatcher.toModel(Paths.get(TESTDIR+"ubl-tc434-creditnote1.xml"));
+    	assertTrue(((GenericInvoice<?>)creditNote).get() instanceof CreditNoteType);
+    	
+    	// not buffered input
+    	try(InputStream is = new FileInputStream(TESTDIR+UNCEFACT_XML)) {
+    		CoreInvoice cii = TransformerDispatcher.toModel(is);
+    		assertTrue(cii instanceof CrossIndustryInvoice);
+    		assertEquals(CrossIndustryInvoice.create(ciiTransformer.toModel(Paths.get(TESTDIR+UNCEFACT_XML))).getId(), cii.getId());
+    	}
+    	
+    	// a prolog longer than READ_AHEAD_LIMIT
+    	StringBuilder prolog = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?>");
+    	while(prolog.length()<3*TransformerDispatcher.READ_AHEAD_LIMIT) {
+    		prolog.append("\n<!-- comment before the root element -->");
+    	}
+    	byte[] xml = Files.readAllBytes(Paths.get(TESTDIR+UNCEFACT_XML));
+    	String document = new String(xml, "UTF-8");
+    	document = prolog + document.substring(document.indexOf("?>")+2);
+    	CoreInvoice commented = TransformerDispatcher.toModel(new BufferedInputStream(new ByteArrayInputStream(document.getBytes("UTF-8"))));
+    	assertEquals(CrossIndustryInvoice.create(ciiTransformer.toModel(Paths.get(TESTDIR+UNCEFACT_XML))).getId(), commented.getId());
+    	
+    	assertSame(ciiTransformer, TransformerDispatcher.getTransformer(TransformerDispatcher.CII_NS));
+    	try {
+    		TransformerDispatcher.toModel(new ByteArrayInputStream("<x:Invoice xmlns:x='urn:x'/>".getBytes()));
+    		fail("expected TransformationException");
+    	} catch (TransformationException ex) {
+    		assertTrue(ex.getMessage().startsWith(TransformationException.UNKNOWN_DOCUMENT));
+    	}
+    }
+
+    @Test
+    public void warmUpTest() throws Exception {
+    	// contexts are created lazily, getInstance() is cheap, the timing is in JaxbContextBenchmark
+    	TransformerDispatcher.warmUp().get();
+    	assertSame(ublInvoiceTransformer.getJAXBContext(), ublCreditNoteTransformer.getJAXBContext());
+    	assertNotEquals(ublInvoiceTransformer.getJAXBContext(), ciiTransformer.getJAXBContext());
+    }
+
+    @Test
+    public void batchTest() throws Exception {
+    	String[] files = { UBL_XML, "ubl-tc434-creditnote1.xml", UNCEFACT_XML, "01.02a-INVOICE_ubl.xml", "01.02a-INVOICE_uncefact.xml" };
+    	List<InputStream> inputs = new ArrayList<InputStream>();
+    	for(String file : files) {
+    		inputs.add(new FileInputStream(TESTDIR+file));
+    	}
+    	inputs.add(2, new ByteArrayInputStream("<no xml".getBytes())); // fails
+    	
+    	try(BatchTransformer batch = new BatchTransformer(2)) {
+    		List<BatchTransformer.Result<CoreInvoice>> models = batch.toModel(inputs);
+    		assertEquals(files.length+1, models.size());
+    		assertFalse(models.get(2).isSuccess());
+    		assertNotNull(models.get(2).getException());
+    		List<CoreInvoice> documents = new ArrayList<CoreInvoice>();
+    		for(int i=0; i<models.size(); i++) {
+    			assertEquals(i, models.get(i).getIndex());
+    			if(i!=2) documents.add(models.get(i).get());
+    		}
+    		assertTrue(documents.get(1) instanceof GenericInvoice);
+    		assertTrue(documents.get(2) instanceof CrossIndustryInvoice);
+    		
+    		List<BatchTransformer.Result<byte[]>> xmls = batch.fromModel(documents);
+    		assertEquals(documents.size(), xmls.size());
+    		for(int i=0; i<documents.size(); i++) {
+    			CoreInvoice document = documents.get(i);
+    			assertArrayEquals(TransformerDispatcher.getTransformer(document).fromModel(document), xmls.get(i).get());
+    		}
+    	}
+    }
+
+    @Test
+    public void validatingTransformTest() throws Exception {
+    	ValidationEventCollector collector = new ValidationEventCollector();
+    	InvoiceType invoice = ublInvoiceTransformer.toModel(Paths.get(TESTDIR+UBL_XML), collector);
+    	assertFalse(collector.hasEvents());
+    	ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    	ublInvoiceTransformer.fromModel(new GenericInvoice<InvoiceType>(invoice), outputStream, true, collector);
+    	assertFalse(collector.hasEvents());
+    	
+    	invoice.setID(null); // BT-1 is mandatory
+    	try {
+    		ublInvoiceTransformer.fromModel(new GenericInvoice<InvoiceType>(invoice), new ByteArrayOutputStream(), true, collector);
+    		fail("expected TransformationException");
+    	} catch (TransformationException ex) {
+    		assertTrue(collector.hasEvents());
+    	}
+    	byte[] invalid = ublInvoiceTransformer.fromModel(new GenericInvoice<InvoiceType>(invoice));
+    	
+    	collector.reset();
+    	try {
+    		ublInvoiceTransformer.toModel(new ByteArrayInputStream(invalid), collector);
+    		fail("expected TransformationException");
+    	} catch (TransformationException ex) {
+    		assertEquals(1, collector.getEvents().length);
+    	}
+    	
+    	// collect all events and continue
+    	List<ValidationEvent> events = new ArrayList<ValidationEvent>();
+    	InvoiceType reread = ublInvoiceTransformer.toModel(new ByteArrayInputStream(invalid), event -> events.add(event));
+    	assertFalse(events.isEmpty());
+    	assertNotNull(reread);
+    	assertEquals(invoice.getIssueDate().getValue(), reread.getIssueDate().getValue());
+    	
+    	// pooled instances do not validate any more
+    	reread = ublInvoiceTransformer.toModel(new ByteArrayInputStream(invalid));
+    	assertNotNull(reread);
+    }
+
 //	@Test
 //	void test() {
 //		fail("Not yet implemented");
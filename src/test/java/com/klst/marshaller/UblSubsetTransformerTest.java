@@ -0,0 +1,149 @@
+package com.klst.marshaller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.NodeList;
+
+import com.klst.einvoice.CoreInvoice;
+import com.sun.xml.internal.bind.v2.runtime.JAXBContextImpl;
+
+@SuppressWarnings("restriction")
+public class UblSubsetTransformerTest {
+
+	private static final Logger LOG = Logger.getLogger(UblSubsetTransformerTest.class.getName());
+
+	private static final String TESTDIR = "src/test/resources/";
+	private static final String CEC = "urn:oasis:names:specification:ubl:schema:xsd:CommonExtensionComponents-2";
+	// the elements of the test documents outside the subset, see UblSubsetTransformer
+	private static final Set<String> DOCUMENTED_LOSSES = new HashSet<String>(Arrays.asList("UBLVersionID", "Person"
+			, "CustomerAssignedAccountID", "SupplierAssignedAccountID", "SettlementDiscountPercent", "SettlementPeriod", "SubInvoiceLine"));
+
+	// the subset binds a fraction of the full binding
+	@Test
+	public void contextTest() throws Exception {
+		int full = ((JAXBContextImpl)UblInvoiceTransformer.getInstance().getJAXBContext()).getTypeInfoSet().beans().size();
+		int subset = ((JAXBContextImpl)UblSubsetTransformer.getInstance().getJAXBContext()).getTypeInfoSet().beans().size();
+		LOG.info("beans full:"+full + " subset:"+subset);
+		assertTrue(subset*5 < full);
+	}
+
+	// the subset binding marshals a valid document which differs from the full binding only by the documented losses
+	@Test
+	public void subsetTest() throws Exception {
+		File[] files = new File(TESTDIR).listFiles((dir, name) -> name.endsWith("_ubl.xml") || name.startsWith("ubl-tc434-")
+				|| name.startsWith("example-peppol-ubl"));
+		Map<String, Integer> lost = new TreeMap<String, Integer>();
+		List<String> warnings = new ArrayList<String>();
+		Handler handler = new Handler() {
+			@Override
+			public void publish(LogRecord record) {
+				warnings.add(record.getMessage());
+			}
+			@Override
+			public void flush() {
+			}
+			@Override
+			public void close() {
+			}
+		};
+		Logger logger = Logger.getLogger(UblSubsetTransformer.class.getName());
+		logger.addHandler(handler);
+		try {
+			for(File file : files) {
+				String name = file.getName();
+				AbstactTransformer subset = name.contains("creditnote") ? UblSubsetTransformer.CREDITNOTE : UblSubsetTransformer.INVOICE;
+				CoreInvoice full = TransformerDispatcher.toModel(file.toPath());
+				ByteArrayOutputStream expected = new ByteArrayOutputStream();
+				TransformerDispatcher.getTransformer(full).fromModel(full, expected, false);
+
+				warnings.clear();
+				CoreInvoice document = subset.getDocumentFactory().apply(subset.toModel(file.toPath()));
+				ByteArrayOutputStream actual = new ByteArrayOutputStream();
+				subset.fromModel(document, actual, false, event -> false); // aborts on schema errors
+
+				Document expectedDoc = parse(expected.toByteArray());
+				Document actualDoc = parse(actual.toByteArray());
+				Set<String> namespaces = removeNamespaceDeclarations(expectedDoc.getDocumentElement());
+				namespaces.remove(CEC);
+				assertEquals(name, namespaces, removeNamespaceDeclarations(actualDoc.getDocumentElement()));
+				Map<String, Integer> removed = removeDocumentedLosses(expectedDoc.getDocumentElement());
+				assertTrue(name, expectedDoc.isEqualNode(actualDoc));
+				if(removed.isEmpty()) {
+					assertTrue(name+warnings, warnings.isEmpty());
+				} else {
+					assertEquals(name, 1, warnings.size());
+					assertTrue(name, warnings.get(0).endsWith(removed.toString()));
+				}
+				removed.forEach((element, count) -> lost.merge(element, count, Integer::sum));
+				if(name.startsWith("04.02a")) {
+					assertEquals(name, Integer.valueOf(2), removed.get("SubInvoiceLine"));
+				}
+			}
+		} finally {
+			logger.removeHandler(handler);
+		}
+		LOG.info("lost by the subset binding: "+lost);
+		assertEquals(DOCUMENTED_LOSSES, lost.keySet());
+	}
+
+	private static Document parse(byte[] xml) throws Exception {
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true);
+		return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+	}
+
+	// the prefixes of the unused namespaces are numbered by JAXB
+	private static Set<String> removeNamespaceDeclarations(Element root) {
+		Set<String> namespaces = new HashSet<String>();
+		NamedNodeMap attributes = root.getAttributes();
+		for(int i=attributes.getLength()-1; i>=0; i--) {
+			Attr attribute = (Attr)attributes.item(i);
+			if(XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+				namespaces.add(attribute.getValue());
+				root.removeAttributeNode(attribute);
+			}
+		}
+		return namespaces;
+	}
+
+	// counts the outermost elements removed
+	private static Map<String, Integer> removeDocumentedLosses(Element element) {
+		Map<String, Integer> removed = new TreeMap<String, Integer>();
+		NodeList children = element.getChildNodes();
+		for(int i=children.getLength()-1; i>=0; i--) {
+			if(!(children.item(i) instanceof Element)) continue;
+			Element child = (Element)children.item(i);
+			if(DOCUMENTED_LOSSES.contains(child.getLocalName())) {
+				element.removeChild(child);
+				removed.merge(child.getLocalName(), 1, Integer::sum);
+			} else {
+				removeDocumentedLosses(child).forEach((name, count) -> removed.merge(name, count, Integer::sum));
+			}
+		}
+		return removed;
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.klst.marshaller;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import com.klst.einvoice.CoreInvoice;
+
+/*
+ * documents per second parsed, validated and marshalled with each XmlProvider in the classpath
+ */
+public class XmlProviderBenchmark {
+
+	private static final Logger LOG = Logger.getLogger(XmlProviderBenchmark.class.getName());
+
+	public static void main(String[] args) throws Exception {
+		XmlProviderTest.setup();
+		final int rounds = 10;
+		StringBuilder report = new StringBuilder("docs/s         parse  validate   marshal");
+		for(XmlProvider provider : XmlProviderTest.providers) {
+			AbstactTransformer.setXmlProvider(provider);
+			List<CoreInvoice> invoices = new ArrayList<CoreInvoice>();
+			long[] nanos = Benchmark.time(rounds, () -> {
+				invoices.clear();
+				for(byte[] xml : XmlProviderTest.xmls) {
+					invoices.add(TransformerDispatcher.toModel(new ByteArrayInputStream(xml)));
+				}
+			}, () -> {
+				UblInvoiceTransformer.getInstance().isValid(XmlProviderTest.ublFiles);
+				CiiTransformer.getInstance().isValid(XmlProviderTest.ciiFiles);
+			}, () -> {
+				for(CoreInvoice invoice : invoices) {
+					TransformerDispatcher.getTransformer(invoice).fromModel(invoice, new ByteArrayOutputStream(16000), false);
+				}
+			});
+			int count = rounds*XmlProviderTest.xmls.size();
+			report.append(String.format("%n%-10s %9d %9d %9d", provider.getName(),
+					Benchmark.perSecond(count, nanos[0]),
+					Benchmark.perSecond(rounds*(XmlProviderTest.ublFiles.size()+XmlProviderTest.ciiFiles.size()), nanos[1]),
+					Benchmark.perSecond(count, nanos[2])));
+		}
+		AbstactTransformer.setXmlProvider(XmlProvider.JDK);
+		LOG.info(report.toString());
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.klst.marshaller;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.klst.einvoice.CoreInvoice;
+
+/*
+ * the transformers with the StAX parser of the JDK and of the providers in the classpath (woodstox, aalto)
+ */
+public class XmlProviderTest {
+
+	private static final Logger LOG = Logger.getLogger(XmlProviderTest.class.getName());
+
+	private static final String TESTDIR = "src/test/resources/";
+
+	static List<XmlProvider> providers = new ArrayList<XmlProvider>();
+	static List<byte[]> xmls = new ArrayList<byte[]>();
+	static List<Path> ublFiles = new ArrayList<Path>();
+	static List<Path> ciiFiles = new ArrayList<Path>();
+
+	@BeforeClass
+	public static void setup() throws IOException {
+		providers.add(XmlProvider.JDK);
+		providers.add(XmlProvider.of("jdk-stax", XMLInputFactory::newInstance, XMLOutputFactory::newInstance));
+		for(String name : new String[] {"woodstox", "aalto"}) {
+			try {
+				providers.add(name.equals("woodstox") ? XmlProvider.woodstox() : XmlProvider.aalto());
+			} catch (TransformationException ex) {
+				LOG.info(name+" not in classpath");
+			}
+		}
+		File[] files = new File(TESTDIR).listFiles((dir, name) -> name.endsWith(".xml"));
+		for(File file : files) {
+			byte[] xml = Files.readAllBytes(file.toPath());
+			try {
+				String namespace = TransformerDispatcher.getRootNamespace(new ByteArrayInputStream(xml));
+				xmls.add(xml);
+				(TransformerDispatcher.CII_NS.equals(namespace) ? ciiFiles : ublFiles).add(file.toPath());
+			} catch (TransformationException ex) {
+				LOG.info(file.getName()+" is not an invoice: "+ex.getMessage());
+			}
+		}
+	}
+
+	@After
+	public void reset() {
+		AbstactTransformer.setXmlProvider(XmlProvider.JDK);
+	}
+
+	@Test
+	public void sameModelTest() {
+		List<byte[]> expected = new ArrayList<byte[]>();
+		for(byte[] xml : xmls) {
+			CoreInvoice invoice = TransformerDispatcher.toModel(new ByteArrayInputStream(xml));
+			expected.add(TransformerDispatcher.getTransformer(invoice).fromModel(invoice));
+		}
+		for(XmlProvider provider : providers) {
+			for(int i=0; i<xmls.size(); i++) {
+				AbstactTransformer.setXmlProvider(provider);
+				CoreInvoice invoice = TransformerDispatcher.toModel(new ByteArrayInputStream(xmls.get(i)));
+				AbstactTransformer transformer = TransformerDispatcher.getTransformer(invoice);
+				byte[] marshalled = transformer.fromModel(invoice);
+				// the provider output is not indented, compare after a roundtrip with the JDK
+				AbstactTransformer.setXmlProvider(XmlProvider.JDK);
+				assertArrayEquals(provider.getName(), expected.get(i), transformer.fromModel(invoice));
+				CoreInvoice roundtrip = TransformerDispatcher.toModel(new ByteArrayInputStream(marshalled));
+				assertArrayEquals(provider.getName(), expected.get(i), transformer.fromModel(roundtrip));
+			}
+		}
+	}
+
+	@Test
+	public void validationTest() {
+		Map<Path, Boolean> expected = UblInvoiceTransformer.getInstance().isValid(ublFiles);
+		for(XmlProvider provider : providers) {
+			AbstactTransformer.setXmlProvider(provider);
+			assertEquals(provider.getName(), expected, UblInvoiceTransformer.getInstance().isValid(ublFiles));
+		}
+	}
+
+}